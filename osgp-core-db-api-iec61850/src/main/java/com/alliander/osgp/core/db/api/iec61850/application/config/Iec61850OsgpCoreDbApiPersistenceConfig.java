@@ -62,6 +62,9 @@ public class Iec61850OsgpCoreDbApiPersistenceConfig extends AbstractCustomConfig
 
     private static final String PROPERTY_NAME_ENTITYMANAGER_PACKAGES_TO_SCAN = "api.entitymanager.packages.to.scan.iec61850";
 
+    private static final String PROPERTY_NAME_CACHE_TIME_TO_LIVE = "db.api.cache.ttl.iec61850";
+    private static final int DEFAULT_CACHE_TIME_TO_LIVE = 60;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850OsgpCoreDbApiPersistenceConfig.class);
 
     private HikariDataSource dataSource;
@@ -172,6 +175,20 @@ public class Iec61850OsgpCoreDbApiPersistenceConfig extends AbstractCustomConfig
         return entityManagerFactoryBean;
     }
 
+    /**
+     * Time to live in seconds of devices cached by the device data cache. A
+     * time to live of 0 disables the cache.
+     *
+     * @return The time to live in seconds.
+     */
+    @Bean
+    public int iec61850OsgpCoreDbApiCacheTimeToLive() {
+        final int timeToLive = ENVIRONMENT.getProperty(PROPERTY_NAME_CACHE_TIME_TO_LIVE, Integer.class,
+                DEFAULT_CACHE_TIME_TO_LIVE);
+        LOGGER.info("Using {}: {}", PROPERTY_NAME_CACHE_TIME_TO_LIVE, timeToLive);
+        return timeToLive;
+    }
+
     @PreDestroy
     public void destroyDataSource() {
         if (this.dataSource != null) {
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.db.api.iec61850.application.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import com.alliander.osgp.core.db.api.iec61850.entities.LightMeasurementDevice;
+import com.alliander.osgp.core.db.api.iec61850.entities.Ssld;
+
+/**
+ * Read-through cache for the SSLDs and light measurement devices in the core
+ * database, so the output settings of a device are read and indexed once,
+ * instead of for every request, report and event.
+ * <p>
+ * Cached devices, including the fact that a device could not be found, are
+ * read from the database again after the configured time to live, or after
+ * they have been invalidated. A time to live of 0 disables the cache. The
+ * cached entities are shared and must not be modified.
+ */
+@Service
+@ManagedResource(objectName = "com.alliander.osgp.core.db.api.iec61850:name=DeviceDataCache", description = "Cached devices from the core database")
+public class DeviceDataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceDataCache.class);
+
+    private final ConcurrentHashMap<String, CachedValue<Ssld>> sslds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CachedValue<LightMeasurementDevice>> lmds = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation, so devices read from the database
+     * while the cache is invalidated are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @Autowired
+    private SsldDataService ssldDataService;
+
+    @Autowired
+    private LmdDataService lmdDataService;
+
+    @Autowired
+    private int iec61850OsgpCoreDbApiCacheTimeToLive;
+
+    private long timeToLiveMillis;
+
+    @PostConstruct
+    private void init() {
+        this.timeToLiveMillis = TimeUnit.SECONDS.toMillis(Math.max(0, this.iec61850OsgpCoreDbApiCacheTimeToLive));
+    }
+
+    /**
+     * @return The SSLD, with its relay mapping, or {@code null} if the device
+     *         is not an SSLD.
+     */
+    public Ssld findSsld(final String deviceIdentification) {
+        return this.get(this.sslds, deviceIdentification, this.ssldDataService::findDevice);
+    }
+
+    /**
+     * @return The light measurement device, or {@code null} if the device is
+     *         not a light measurement device.
+     */
+    public LightMeasurementDevice findLmd(final String deviceIdentification) {
+        return this.get(this.lmds, deviceIdentification, this.lmdDataService::findDevice);
+    }
+
+    private <T> T get(final ConcurrentHashMap<String, CachedValue<T>> cache, final String deviceIdentification,
+            final Function<String, T> loader) {
+        final CachedValue<T> cached = cache.get(deviceIdentification);
+        if (cached != null && System.currentTimeMillis() - cached.loadTime < this.timeToLiveMillis) {
+            this.hitCount.incrementAndGet();
+            return cached.value;
+        }
+        this.missCount.incrementAndGet();
+
+        final long generationBeforeLoad = this.generation.get();
+        final long loadTime = System.currentTimeMillis();
+        final T value = loader.apply(deviceIdentification);
+        if (this.timeToLiveMillis > 0 && this.generation.get() == generationBeforeLoad) {
+            cache.put(deviceIdentification, new CachedValue<>(value, loadTime));
+        }
+        return value;
+    }
+
+    /**
+     * Makes the adapter read the device from the database again, after its
+     * output settings or other data have been changed.
+     */
+    @ManagedOperation(description = "Reads a device from the database again")
+    public void invalidate(final String deviceIdentification) {
+        LOGGER.info("Invalidating cached data of device: {}", deviceIdentification);
+        this.generation.incrementAndGet();
+        this.sslds.remove(deviceIdentification);
+        this.lmds.remove(deviceIdentification);
+    }
+
+    @ManagedOperation(description = "Reads all devices from the database again")
+    public void invalidateAll() {
+        LOGGER.info("Invalidating cached data of all devices");
+        this.generation.incrementAndGet();
+        this.sslds.clear();
+        this.lmds.clear();
+    }
+
+    /**
+     * @return A number that changes whenever cached devices are invalidated,
+     *         so data derived from the devices can be rebuilt as well.
+     */
+    public long getGeneration() {
+        return this.generation.get();
+    }
+
+    @ManagedAttribute(description = "Time to live in seconds of cached devices, 0 if disabled")
+    public int getTimeToLive() {
+        return this.iec61850OsgpCoreDbApiCacheTimeToLive;
+    }
+
+    @ManagedAttribute(description = "Number of cached SSLDs")
+    public int getSsldCount() {
+        return this.sslds.size();
+    }
+
+    @ManagedAttribute(description = "Number of cached light measurement devices")
+    public int getLmdCount() {
+        return this.lmds.size();
+    }
+
+    @ManagedAttribute(description = "Number of lookups answered from the cache")
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of lookups read from the database")
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    private static final class CachedValue<T> {
+
+        private final T value;
+        private final long loadTime;
+
+        CachedValue(final T value, final long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
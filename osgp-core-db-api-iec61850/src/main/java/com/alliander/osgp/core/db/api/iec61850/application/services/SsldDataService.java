@@ -7,11 +7,11 @@
  */
 package com.alliander.osgp.core.db.api.iec61850.application.services;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.alliander.osgp.core.db.api.iec61850.entities.Device;
@@ -37,21 +37,16 @@ public class SsldDataService {
      *
      * Throws an exception if the index is not found.
      */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
     public int convertToExternalIndex(final Ssld ssld, final int internalIndex) {
 
-        int output = 0;
+        final DeviceOutputSetting deviceOutputSetting = ssld.getRelayMapping().getLastByInternalIndex(internalIndex);
 
-        for (final DeviceOutputSetting deviceOutputSetting : ssld.getOutputSettings()) {
-            if (deviceOutputSetting.getInternalId() == internalIndex) {
-                output = deviceOutputSetting.getExternalId();
-            }
-        }
-
-        if (output == 0) {
+        if (deviceOutputSetting == null || deviceOutputSetting.getExternalId() == 0) {
             throw new IllegalArgumentException("Unknown external id");
         }
 
-        return output;
+        return deviceOutputSetting.getExternalId();
     }
 
     /**
@@ -59,6 +54,7 @@ public class SsldDataService {
      *
      * Throws an exception if the index is not found.
      */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
     public int convertToInternalIndex(final Ssld ssld, final int externalIndex) {
 
         final DeviceOutputSetting deviceOutputSetting = this
@@ -74,45 +70,27 @@ public class SsldDataService {
 
     /**
      * Returns a list of all {@link DeviceOutputSetting}s for the given
-     * {@link RelayType}
+     * {@link RelayType}, the list can not be modified.
      */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
     public List<DeviceOutputSetting> findByRelayType(final Ssld ssld, final RelayType relayType) {
-
-        final List<DeviceOutputSetting> output = new ArrayList<>();
-
-        for (final DeviceOutputSetting d : ssld.getOutputSettings()) {
-            if (relayType.equals(d.getRelayType())) {
-                output.add(d);
-            }
-        }
-
-        return output;
+        return ssld.getRelayMapping().getByRelayType(relayType);
     }
 
     /**
      * Returns the {@link DeviceOutputSetting} for the given external index
      */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
     public DeviceOutputSetting getDeviceOutputSettingForExternalIndex(final Ssld ssld, final int index) {
-        for (final DeviceOutputSetting d : ssld.getOutputSettings()) {
-            if (d.getExternalId() == index) {
-                return d;
-            }
-        }
-
-        return null;
+        return ssld.getRelayMapping().getByExternalIndex(index);
     }
 
     /**
      * Returns the {@link DeviceOutputSetting} for the given internal index
      */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
     public DeviceOutputSetting getDeviceOutputSettingForInternalIndex(final Ssld ssld, final int index) {
-        for (final DeviceOutputSetting d : ssld.getOutputSettings()) {
-            if (d.getInternalId() == index) {
-                return d;
-            }
-        }
-
-        return null;
+        return ssld.getRelayMapping().getByInternalIndex(index);
     }
 
     public GpsCoordinatesDto getGpsCoordinatesForDevice(final String deviceIdentification) {
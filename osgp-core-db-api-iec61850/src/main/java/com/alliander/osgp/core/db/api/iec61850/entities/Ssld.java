@@ -17,12 +17,14 @@ import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.PrimaryKeyJoinColumn;
+import javax.persistence.Transient;
 
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alliander.osgp.core.db.api.iec61850valueobjects.RelayMapping;
 import com.alliander.osgp.core.db.api.iec61850valueobjects.RelayType;
 
 /**
@@ -54,6 +56,9 @@ public class Ssld extends Device {
     @CollectionTable(name = "device_output_setting", joinColumns = @JoinColumn(name = "device_id"))
     private List<DeviceOutputSetting> outputSettings = new ArrayList<>();
 
+    @Transient
+    private transient volatile RelayMapping relayMapping;
+
     public Ssld() {
         // Default constructor.
     }
@@ -81,8 +86,22 @@ public class Ssld extends Device {
         return Collections.unmodifiableList(this.outputSettings);
     }
 
+    /**
+     * @return The index of the output settings of this device, which is built
+     *         once and then reused until the output settings are updated.
+     */
+    public RelayMapping getRelayMapping() {
+        RelayMapping mapping = this.relayMapping;
+        if (mapping == null) {
+            mapping = new RelayMapping(this.getOutputSettings());
+            this.relayMapping = mapping;
+        }
+        return mapping;
+    }
+
     public void updateOutputSettings(final List<DeviceOutputSetting> outputSettings) {
         this.outputSettings = outputSettings;
+        this.relayMapping = null;
     }
 
     public List<DeviceOutputSetting> receiveOutputSettings() {
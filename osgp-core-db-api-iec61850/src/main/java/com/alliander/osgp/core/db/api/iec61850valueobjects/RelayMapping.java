@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.db.api.iec61850valueobjects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alliander.osgp.core.db.api.iec61850.entities.DeviceOutputSetting;
+
+/**
+ * Immutable index of the {@link DeviceOutputSetting}s of a device, to look up
+ * relays by internal index, external index or {@link RelayType} without
+ * scanning the output settings.
+ * <p>
+ * An index can be configured for more than one output setting. The lookups
+ * by index keep all of them in the order of the device configuration, so
+ * callers can use the first, the last or all of them, like the scans over the
+ * output settings they replace did.
+ */
+public final class RelayMapping {
+
+    private final List<DeviceOutputSetting> outputSettings;
+    private final Map<Integer, List<DeviceOutputSetting>> byInternalIndex;
+    private final Map<Integer, List<DeviceOutputSetting>> byExternalIndex;
+    private final Map<RelayType, List<DeviceOutputSetting>> byRelayType;
+
+    public RelayMapping(final List<DeviceOutputSetting> outputSettings) {
+        final Map<Integer, List<DeviceOutputSetting>> internal = new HashMap<>();
+        final Map<Integer, List<DeviceOutputSetting>> external = new HashMap<>();
+        final Map<RelayType, List<DeviceOutputSetting>> relayTypes = new EnumMap<>(RelayType.class);
+
+        for (final DeviceOutputSetting outputSetting : outputSettings) {
+            internal.computeIfAbsent(outputSetting.getInternalId(), k -> new ArrayList<>()).add(outputSetting);
+            external.computeIfAbsent(outputSetting.getExternalId(), k -> new ArrayList<>()).add(outputSetting);
+            if (outputSetting.getRelayType() != null) {
+                relayTypes.computeIfAbsent(outputSetting.getRelayType(), k -> new ArrayList<>()).add(outputSetting);
+            }
+        }
+        unmodifiableValues(internal);
+        unmodifiableValues(external);
+        unmodifiableValues(relayTypes);
+
+        this.outputSettings = Collections.unmodifiableList(new ArrayList<>(outputSettings));
+        this.byInternalIndex = internal;
+        this.byExternalIndex = external;
+        this.byRelayType = relayTypes;
+    }
+
+    private static <K> void unmodifiableValues(final Map<K, List<DeviceOutputSetting>> map) {
+        for (final Map.Entry<K, List<DeviceOutputSetting>> entry : map.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+    }
+
+    /**
+     * @return All output settings, in the order of the device configuration.
+     */
+    public List<DeviceOutputSetting> getOutputSettings() {
+        return this.outputSettings;
+    }
+
+    /**
+     * @return The first output setting for the internal index, or
+     *         {@code null} if the index is not configured.
+     */
+    public DeviceOutputSetting getByInternalIndex(final int internalIndex) {
+        final List<DeviceOutputSetting> outputSettingsOfIndex = this.byInternalIndex.get(internalIndex);
+        return outputSettingsOfIndex == null ? null : outputSettingsOfIndex.get(0);
+    }
+
+    /**
+     * @return The last output setting for the internal index, or {@code null}
+     *         if the index is not configured.
+     */
+    public DeviceOutputSetting getLastByInternalIndex(final int internalIndex) {
+        final List<DeviceOutputSetting> outputSettingsOfIndex = this.byInternalIndex.get(internalIndex);
+        return outputSettingsOfIndex == null ? null : outputSettingsOfIndex.get(outputSettingsOfIndex.size() - 1);
+    }
+
+    /**
+     * @return The first output setting for the external index, or
+     *         {@code null} if the index is not configured.
+     */
+    public DeviceOutputSetting getByExternalIndex(final int externalIndex) {
+        final List<DeviceOutputSetting> outputSettingsOfIndex = this.byExternalIndex.get(externalIndex);
+        return outputSettingsOfIndex == null ? null : outputSettingsOfIndex.get(0);
+    }
+
+    /**
+     * @return All output settings for the external index, in the order of the
+     *         device configuration, the list can not be modified.
+     */
+    public List<DeviceOutputSetting> getAllByExternalIndex(final int externalIndex) {
+        final List<DeviceOutputSetting> outputSettingsOfIndex = this.byExternalIndex.get(externalIndex);
+        return outputSettingsOfIndex == null ? Collections.<DeviceOutputSetting> emptyList() : outputSettingsOfIndex;
+    }
+
+    /**
+     * @return The output settings of the relay type, the list can not be
+     *         modified.
+     */
+    public List<DeviceOutputSetting> getByRelayType(final RelayType relayType) {
+        final List<DeviceOutputSetting> outputSettingsOfType = this.byRelayType.get(relayType);
+        return outputSettingsOfType == null ? Collections.<DeviceOutputSetting> emptyList() : outputSettingsOfType;
+    }
+}
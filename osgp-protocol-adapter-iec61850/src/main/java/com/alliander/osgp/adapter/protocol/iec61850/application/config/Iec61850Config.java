@@ -34,6 +34,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Devi
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ChannelHandlerServer;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.RegisterDeviceRequestDecoder;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportPipeline.BackpressurePolicy;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 
 @Configuration
@@ -54,16 +55,47 @@ public class Iec61850Config extends AbstractConfig {
     private static final String PROPERTY_NAME_IEC61850_SSLD_PORT_SERVER = "iec61850.ssld.port.server";
     private static final String PROPERTY_NAME_IEC61850_RTU_PORT_SERVER = "iec61850.rtu.port.server";
     private static final String PROPERTY_NAME_IEC61850_PORT_LISTENER = "iec61850.port.listener";
+    private static final String PROPERTY_NAME_IEC61850_LISTENER_WORKER_THREADS = "iec61850.listener.worker.threads";
+
+    private static final String PROPERTY_NAME_IEC61850_REGISTRATION_WORKER_THREADS = "iec61850.registration.worker.threads";
+    private static final String PROPERTY_NAME_IEC61850_REGISTRATION_QUEUE_CAPACITY = "iec61850.registration.queue.capacity";
 
     private static final String PROPERTY_NAME_IEC61850_DELAY_AFTER_DEVICE_REGISTRATION = "iec61850.delay.after.device.registration";
     private static final String PROPERTY_NAME_IEC61850_IS_REPORTING_AFTER_DEVICE_REGISTRATION_ENABLED = "iec61850.is.reporting.after.device.registration.enabled";
     private static final String PROPERTY_NAME_IEC61850_DISCONNECT_DELAY = "iec61850.disconnect.delay";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_WINDOW_SCHEDULER_THREADS = "iec61850.report.window.scheduler.threads";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_WINDOW_WORKER_THREADS = "iec61850.report.window.worker.threads";
+
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_SIZE = "iec61850.connection.pool.max.size";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_POOL_IDLE_TIMEOUT = "iec61850.connection.pool.idle.timeout";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_INTERVAL = "iec61850.connection.health.check.interval";
+    private static final String PROPERTY_NAME_IEC61850_SSLD_SESSION_IDLE_TIMEOUT = "iec61850.ssld.session.idle.timeout";
+
+    private static final String PROPERTY_NAME_IEC61850_RETRY_INITIAL_DELAY = "iec61850.retry.initial.delay";
+    private static final String PROPERTY_NAME_IEC61850_RETRY_MAX_DELAY = "iec61850.retry.max.delay";
+    private static final String PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "iec61850.circuit.breaker.failure.threshold";
+    private static final String PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_OPEN_DURATION = "iec61850.circuit.breaker.open.duration";
+    private static final String PROPERTY_NAME_IEC61850_IS_DEVICE_MAILBOX_ENABLED = "iec61850.is.device.mailbox.enabled";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_WAIT_TIMEOUT = "iec61850.device.mailbox.wait.timeout";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_POOL_SIZE = "iec61850.device.mailbox.pool.size";
+    private static final String PROPERTY_NAME_IEC61850_IS_READ_COALESCING_ENABLED = "iec61850.is.read.coalescing.enabled";
+
+    private static final String PROPERTY_NAME_IEC61850_GET_DATA_MAX_AGE_SECONDS = "iec61850.get.data.max.age.seconds";
+    private static final String PROPERTY_NAME_IEC61850_GET_DATA_POOL_SIZE = "iec61850.get.data.pool.size";
+    private static final String PROPERTY_NAME_IEC61850_GET_DATA_MAX_ASSOCIATIONS_PER_DEVICE = "iec61850.get.data.max.associations.per.device";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_CONFIGURATION_CACHE_TTL = "iec61850.device.configuration.cache.ttl";
+
+    private static final String PROPERTY_NAME_IEC61850_REPORT_WORKER_THREADS = "iec61850.report.worker.threads";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_QUEUE_CAPACITY = "iec61850.report.queue.capacity";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_BACKPRESSURE_POLICY = "iec61850.report.backpressure.policy";
 
     private static final String PROPERTY_NAME_IEC61850_ICD_FILE_PATH = "iec61850.icd.file.path";
     private static final String PROPERTY_NAME_IEC61850_ICD_FILE_USE = "iec61850.icd.file.use";
 
     private static final String PROPERTY_NAME_IEC61850_ICD_FILES_FOLDER = "iec61850.icd.files.folder";
 
+    private static final String PROPERTY_NAME_IEC61850_IS_DEVICE_MODEL_STORE_ENABLED = "iec61850.is.device.model.store.enabled";
+
     private static final String PROPERTY_NAME_IEC61850_IS_BUFFERED_REPORTING_ENABLED = "iec61850.is.buffered.reporting.enabled";
 
     private static final String PROPERTY_NAME_OSLP_DEFAULT_LATITUDE = "iec61850.default.latitude";
@@ -106,8 +138,10 @@ public class Iec61850Config extends AbstractConfig {
      */
     @Bean(destroyMethod = "releaseExternalResources")
     public ServerBootstrap serverBootstrap() {
-        final ChannelFactory factory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(),
-                Executors.newCachedThreadPool());
+        // One boss thread accepts connections on the listener port.
+        final int workerThreads = this.iec61850ListenerWorkerThreads();
+        final ChannelFactory factory = new NioServerSocketChannelFactory(Executors.newFixedThreadPool(1),
+                Executors.newFixedThreadPool(workerThreads), workerThreads);
 
         final ServerBootstrap bootstrap = new ServerBootstrap(factory);
 
@@ -154,6 +188,25 @@ public class Iec61850Config extends AbstractConfig {
         return Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_IEC61850_PORT_LISTENER));
     }
 
+    /**
+     * Used to configure the number of Netty I/O threads handling the
+     * connections on the listener port. If this property is not set, the
+     * default value of twice the number of available processors is used.
+     */
+    @Bean
+    public int iec61850ListenerWorkerThreads() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_LISTENER_WORKER_THREADS);
+        int threads;
+        if (StringUtils.isEmpty(property)) {
+            threads = 2 * Runtime.getRuntime().availableProcessors();
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, threads, PROPERTY_NAME_IEC61850_LISTENER_WORKER_THREADS);
+        } else {
+            threads = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_LISTENER_WORKER_THREADS, threads);
+        }
+        return threads;
+    }
+
     /**
      * @return a new {@link Iec61850ChannelHandlerServer}.
      */
@@ -162,6 +215,45 @@ public class Iec61850Config extends AbstractConfig {
         return new Iec61850ChannelHandlerServer();
     }
 
+    /**
+     * Used to configure the number of threads that handle register device
+     * requests received from devices. If this property is not set, the
+     * default value of 4 is used. A value of 0 makes the Netty I/O thread
+     * that received a request handle it.
+     */
+    @Bean
+    public int registrationWorkerThreads() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REGISTRATION_WORKER_THREADS);
+        int threads;
+        if (StringUtils.isEmpty(property)) {
+            threads = 4;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, threads, PROPERTY_NAME_IEC61850_REGISTRATION_WORKER_THREADS);
+        } else {
+            threads = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REGISTRATION_WORKER_THREADS, threads);
+        }
+        return threads;
+    }
+
+    /**
+     * Used to configure the number of register device requests that can wait
+     * to be handled. Requests received when the queue is full are discarded.
+     * If this property is not set, the default value of 1000 is used.
+     */
+    @Bean
+    public int registrationQueueCapacity() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REGISTRATION_QUEUE_CAPACITY);
+        int capacity;
+        if (StringUtils.isEmpty(property)) {
+            capacity = 1000;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, capacity, PROPERTY_NAME_IEC61850_REGISTRATION_QUEUE_CAPACITY);
+        } else {
+            capacity = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REGISTRATION_QUEUE_CAPACITY, capacity);
+        }
+        return capacity;
+    }
+
     /**
      * Used to configure how long (in milliseconds) the connection is kept open
      * to allow the device to send reports. If this property is not set, the
@@ -223,6 +315,421 @@ public class Iec61850Config extends AbstractConfig {
         return milliSeconds;
     }
 
+    /**
+     * Used to configure the number of threads that schedule the end of the
+     * report window after a request or registration. If this property is not
+     * set, the default value of 2 is used.
+     */
+    @Bean
+    public int reportWindowSchedulerThreads() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REPORT_WINDOW_SCHEDULER_THREADS);
+        int threads;
+        if (StringUtils.isEmpty(property)) {
+            threads = 2;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, threads, PROPERTY_NAME_IEC61850_REPORT_WINDOW_SCHEDULER_THREADS);
+        } else {
+            threads = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REPORT_WINDOW_SCHEDULER_THREADS, threads);
+        }
+        return threads;
+    }
+
+    /**
+     * Used to configure the number of threads that clear reports and
+     * disconnect from devices when the report window after a request or
+     * registration ends. If this property is not set, the default value of 4
+     * is used.
+     */
+    @Bean
+    public int reportWindowWorkerThreads() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REPORT_WINDOW_WORKER_THREADS);
+        int threads;
+        if (StringUtils.isEmpty(property)) {
+            threads = 4;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, threads, PROPERTY_NAME_IEC61850_REPORT_WINDOW_WORKER_THREADS);
+        } else {
+            threads = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REPORT_WINDOW_WORKER_THREADS, threads);
+        }
+        return threads;
+    }
+
+    /**
+     * Used to limit the number of cached connections. When the limit is
+     * reached, the least recently used connection is closed. If this property
+     * is not set, the default value of 0 (unbounded) is used.
+     */
+    @Bean
+    public int connectionPoolMaxSize() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_SIZE);
+        int maxSize;
+        if (StringUtils.isEmpty(property)) {
+            maxSize = 0;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, maxSize, PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_SIZE);
+        } else {
+            maxSize = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_SIZE, maxSize);
+        }
+        return maxSize;
+    }
+
+    /**
+     * Used to configure how long (in milliseconds) a cached connection may be
+     * unused before it is closed. If this property is not set, the default
+     * value of 0 (never close idle connections) is used.
+     */
+    @Bean
+    public int connectionPoolIdleTimeout() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_CONNECTION_POOL_IDLE_TIMEOUT);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 0;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_CONNECTION_POOL_IDLE_TIMEOUT);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_CONNECTION_POOL_IDLE_TIMEOUT, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to configure how often (in milliseconds) cached connections are
+     * checked in the background. Requests use a cached connection without
+     * checking it themselves if it was checked recently. If this property is
+     * not set, the default value of 30000 milliseconds is used. A value of 0
+     * disables the background checks, every request then checks the cached
+     * connection before using it.
+     */
+    @Bean
+    public int connectionHealthCheckInterval() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_INTERVAL);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 30000;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_INTERVAL);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_INTERVAL, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to keep associations to SSLDs open between requests, for the given
+     * amount of time (in milliseconds) after the last request or report
+     * window. If this property is not set, the default value of 0 is used,
+     * meaning every SSLD request connects and disconnects.
+     */
+    @Bean
+    public int ssldSessionIdleTimeout() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_SSLD_SESSION_IDLE_TIMEOUT);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 0;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_SSLD_SESSION_IDLE_TIMEOUT);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_SSLD_SESSION_IDLE_TIMEOUT, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to configure the delay (in milliseconds) before the first retry of a
+     * command that failed with a service error. The delay doubles for every
+     * next retry. If this property is not set, the default value of 100
+     * milliseconds is used.
+     */
+    @Bean
+    public int retryInitialDelay() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_RETRY_INITIAL_DELAY);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 100;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_RETRY_INITIAL_DELAY);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_RETRY_INITIAL_DELAY, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to configure the maximum delay (in milliseconds) between retries of
+     * a command. If this property is not set, the default value of 2000
+     * milliseconds is used.
+     */
+    @Bean
+    public int retryMaxDelay() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_RETRY_MAX_DELAY);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 2000;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_RETRY_MAX_DELAY);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_RETRY_MAX_DELAY, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to configure the number of consecutive failed connection attempts
+     * after which connecting to a device fails fast for a while. If this
+     * property is not set, the default value of 3 is used. A value of 0
+     * disables failing fast.
+     */
+    @Bean
+    public int circuitBreakerFailureThreshold() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        int failures;
+        if (StringUtils.isEmpty(property)) {
+            failures = 3;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, failures, PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        } else {
+            failures = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_FAILURE_THRESHOLD, failures);
+        }
+        return failures;
+    }
+
+    /**
+     * Used to configure the time (in milliseconds) connecting to an unreachable
+     * device fails fast, before a single connection attempt is made to find
+     * out whether the device is reachable again. If this property is not set,
+     * the default value of 60000 milliseconds is used.
+     */
+    @Bean
+    public int circuitBreakerOpenDuration() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_OPEN_DURATION);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 60000;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_OPEN_DURATION);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_OPEN_DURATION, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to configure if requests for the same device are handled one after
+     * the other, in the order they are received. If this property is not set,
+     * the default value of false is used.
+     */
+    @Bean
+    public boolean isDeviceMailboxEnabled() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_IS_DEVICE_MAILBOX_ENABLED);
+        boolean isEnabled;
+        if (StringUtils.isEmpty(property)) {
+            isEnabled = false;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, isEnabled, PROPERTY_NAME_IEC61850_IS_DEVICE_MAILBOX_ENABLED);
+        } else {
+            isEnabled = Boolean.parseBoolean(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_IS_DEVICE_MAILBOX_ENABLED, isEnabled);
+        }
+        return isEnabled;
+    }
+
+    /**
+     * Used to configure the maximum time in milliseconds registrations and the
+     * end of report windows wait for earlier work for the same device. If this
+     * property is not set, the default value of 30000 milliseconds is used.
+     */
+    @Bean
+    public int deviceMailboxWaitTimeout() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_WAIT_TIMEOUT);
+        int milliSeconds;
+        if (StringUtils.isEmpty(property)) {
+            milliSeconds = 30000;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, milliSeconds, PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_WAIT_TIMEOUT);
+        } else {
+            milliSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_WAIT_TIMEOUT, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    /**
+     * Used to configure the number of threads handling the requests queued
+     * after earlier requests for the same device. If this property is not set,
+     * the default value of 10 is used.
+     */
+    @Bean
+    public int deviceMailboxPoolSize() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_POOL_SIZE);
+        int poolSize;
+        if (StringUtils.isEmpty(property)) {
+            poolSize = 10;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, poolSize, PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_POOL_SIZE);
+        } else {
+            poolSize = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_DEVICE_MAILBOX_POOL_SIZE, poolSize);
+        }
+        return poolSize;
+    }
+
+    /**
+     * Used to configure if identical reads of a device, like GetStatus or
+     * GetData requests with the same filter, share one device read while it
+     * is in progress. If this property is not set, the default value of false
+     * is used.
+     */
+    @Bean
+    public boolean isReadCoalescingEnabled() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_IS_READ_COALESCING_ENABLED);
+        boolean isEnabled;
+        if (StringUtils.isEmpty(property)) {
+            isEnabled = false;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, isEnabled, PROPERTY_NAME_IEC61850_IS_READ_COALESCING_ENABLED);
+        } else {
+            isEnabled = Boolean.parseBoolean(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_IS_READ_COALESCING_ENABLED, isEnabled);
+        }
+        return isEnabled;
+    }
+
+    /**
+     * Used to answer GetData requests (RTU devices) with values received in
+     * reports, if they were received at most the given number of seconds ago.
+     * If this property is not set, the default value of 0 is used, meaning all
+     * values are read from the device.
+     */
+    @Bean
+    public int getDataMaxAgeSeconds() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_GET_DATA_MAX_AGE_SECONDS);
+        int maxAgeSeconds;
+        if (StringUtils.isEmpty(property)) {
+            maxAgeSeconds = 0;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, maxAgeSeconds, PROPERTY_NAME_IEC61850_GET_DATA_MAX_AGE_SECONDS);
+        } else {
+            maxAgeSeconds = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_GET_DATA_MAX_AGE_SECONDS, maxAgeSeconds);
+        }
+        return maxAgeSeconds;
+    }
+
+    /**
+     * Used to configure the number of threads used to get the data of the
+     * systems in a GetData request (RTU devices) in parallel. If this property
+     * is not set, the default value of 0 is used, meaning the systems are
+     * handled one after the other.
+     */
+    @Bean
+    public int getDataPoolSize() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_GET_DATA_POOL_SIZE);
+        int poolSize;
+        if (StringUtils.isEmpty(property)) {
+            poolSize = 0;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, poolSize, PROPERTY_NAME_IEC61850_GET_DATA_POOL_SIZE);
+        } else {
+            poolSize = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_GET_DATA_POOL_SIZE, poolSize);
+        }
+        return poolSize;
+    }
+
+    /**
+     * Used to limit the number of associations to a single device that are
+     * used to get the data of systems in parallel, including the pooled
+     * association. If this property is not set, the default value of 2 is
+     * used.
+     */
+    @Bean
+    public int getDataMaxAssociationsPerDevice() {
+        final String property = this.environment
+                .getProperty(PROPERTY_NAME_IEC61850_GET_DATA_MAX_ASSOCIATIONS_PER_DEVICE);
+        int maxAssociations;
+        if (StringUtils.isEmpty(property)) {
+            maxAssociations = 2;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, maxAssociations,
+                    PROPERTY_NAME_IEC61850_GET_DATA_MAX_ASSOCIATIONS_PER_DEVICE);
+        } else {
+            maxAssociations = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_GET_DATA_MAX_ASSOCIATIONS_PER_DEVICE,
+                    maxAssociations);
+        }
+        return maxAssociations;
+    }
+
+    /**
+     * Used to configure how long (in seconds) the configuration of a device
+     * read from the database is cached. If this property is not set, the
+     * default value of 60 is used. A value of 0 disables the cache.
+     */
+    @Bean
+    public int deviceConfigurationCacheTimeToLive() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_DEVICE_CONFIGURATION_CACHE_TTL);
+        int timeToLive;
+        if (StringUtils.isEmpty(property)) {
+            timeToLive = 60;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, timeToLive, PROPERTY_NAME_IEC61850_DEVICE_CONFIGURATION_CACHE_TTL);
+        } else {
+            timeToLive = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_DEVICE_CONFIGURATION_CACHE_TTL, timeToLive);
+        }
+        return timeToLive;
+    }
+
+    /**
+     * Used to configure the number of threads per stage that process reports
+     * received from devices (RTU devices). If this property is not set, the
+     * default value of 4 is used. A value of 0 makes the thread that received
+     * a report process it.
+     */
+    @Bean
+    public int reportWorkerThreads() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REPORT_WORKER_THREADS);
+        int threads;
+        if (StringUtils.isEmpty(property)) {
+            threads = 4;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, threads, PROPERTY_NAME_IEC61850_REPORT_WORKER_THREADS);
+        } else {
+            threads = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REPORT_WORKER_THREADS, threads);
+        }
+        return threads;
+    }
+
+    /**
+     * Used to configure the number of reports that can wait for a report
+     * processing thread. If this property is not set, the default value of
+     * 1000 is used.
+     */
+    @Bean
+    public int reportQueueCapacity() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REPORT_QUEUE_CAPACITY);
+        int capacity;
+        if (StringUtils.isEmpty(property)) {
+            capacity = 1000;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, capacity, PROPERTY_NAME_IEC61850_REPORT_QUEUE_CAPACITY);
+        } else {
+            capacity = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REPORT_QUEUE_CAPACITY, capacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Used to configure what happens to a report when the queue of its
+     * processing thread is full. If this property is not set, the default
+     * value of BLOCK is used.
+     */
+    @Bean
+    public BackpressurePolicy reportBackpressurePolicy() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_REPORT_BACKPRESSURE_POLICY);
+        BackpressurePolicy policy;
+        if (StringUtils.isEmpty(property)) {
+            policy = BackpressurePolicy.BLOCK;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, policy, PROPERTY_NAME_IEC61850_REPORT_BACKPRESSURE_POLICY);
+        } else {
+            policy = BackpressurePolicy.valueOf(property.trim().toUpperCase());
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_REPORT_BACKPRESSURE_POLICY, policy);
+        }
+        return policy;
+    }
+
     @Bean
     public boolean isIcdFileUsed() {
         return Boolean.parseBoolean(this.environment.getRequiredProperty(PROPERTY_NAME_IEC61850_ICD_FILE_USE));
@@ -256,6 +763,25 @@ public class Iec61850Config extends AbstractConfig {
         return filesFolder;
     }
 
+    /**
+     * Used to control if ServerModels retrieved from devices are stored and
+     * reused for later connections. If this property is not set, the default
+     * value of true is used.
+     */
+    @Bean
+    public boolean isDeviceModelStoreEnabled() {
+        final String property = this.environment.getProperty(PROPERTY_NAME_IEC61850_IS_DEVICE_MODEL_STORE_ENABLED);
+        boolean isEnabled;
+        if (StringUtils.isEmpty(property)) {
+            isEnabled = true;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, isEnabled, PROPERTY_NAME_IEC61850_IS_DEVICE_MODEL_STORE_ENABLED);
+        } else {
+            isEnabled = Boolean.parseBoolean(property);
+            LOGGER.info(PROPERTY_IS_VALUE, PROPERTY_NAME_IEC61850_IS_DEVICE_MODEL_STORE_ENABLED, isEnabled);
+        }
+        return isEnabled;
+    }
+
     @Bean
     public Boolean isBufferedReportingEnabled() {
         final Boolean isBufferedReportingEnabled = Boolean.parseBoolean(
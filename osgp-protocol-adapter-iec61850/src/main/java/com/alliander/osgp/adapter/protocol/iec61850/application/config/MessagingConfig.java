@@ -7,6 +7,12 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.application.config;
 
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +26,10 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.util.ErrorHandler;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageLane;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageLanes;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageListener;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceResponseMessageSender;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.Iec61850LogItemRequestMessageSender;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.OsgpRequestMessageSender;
@@ -46,28 +55,100 @@ public class MessagingConfig extends AbstractMessagingConfig {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MessagingConfig.class);
 
+    private static final String PROPERTY_NAME_JMS_IEC61850_REQUESTS_LANES = "jms.iec61850.requests.lanes";
+    private static final String JMS_IEC61850_REQUESTS_LANE_PREFIX = "jms.iec61850.requests.lane.";
+    private static final String MESSAGE_TYPES = ".message.types";
+    private static final String QUEUE = ".queue";
+    private static final String PROPERTY_NAME_JMS_IEC61850_REQUESTS_QUEUE = "jms.iec61850.requests" + QUEUE;
+
     // === JMS SETTINGS IEC61850 REQUESTS ===
+
+    /**
+     * Lanes IEC61850 requests are received in. Lanes other than the default
+     * lane are configured by listing their names in the property
+     * jms.iec61850.requests.lanes. For each lane the message types are set in
+     * jms.iec61850.requests.lane.[name].message.types, the JMS settings are
+     * read using the prefix jms.iec61850.requests.lane.[name]. Each lane
+     * receives from its own queue, set in
+     * jms.iec61850.requests.lane.[name].queue, the default lane forwards the
+     * requests of the lane to it.
+     */
+    @Bean
+    public DeviceRequestMessageLanes iec61850RequestLanes(final JmsConfigurationFactory jmsConfigurationFactory) {
+        final DeviceRequestMessageLanes lanes = new DeviceRequestMessageLanes(this.iec61850RequestsMessageListener,
+                this.iec61850RequestLaneMessageTypes());
+        for (final DeviceRequestMessageLane lane : lanes.getOtherLanes()) {
+            final DefaultMessageListenerContainer messageListenerContainer = jmsConfigurationFactory
+                    .initializeReceiveConfiguration(JMS_IEC61850_REQUESTS_LANE_PREFIX + lane.getName(), lane)
+                    .getMessageListenerContainer();
+            messageListenerContainer.setErrorHandler(this.iec61850RequestsErrorHandler(lane.getName()));
+            lane.setMessageListenerContainer(messageListenerContainer);
+        }
+        return lanes;
+    }
+
+    private Map<String, Set<DeviceRequestMessageType>> iec61850RequestLaneMessageTypes() {
+        final Map<String, Set<DeviceRequestMessageType>> laneMessageTypes = new LinkedHashMap<>();
+        final String laneNames = this.environment.getProperty(PROPERTY_NAME_JMS_IEC61850_REQUESTS_LANES);
+        if (StringUtils.isBlank(laneNames)) {
+            return laneMessageTypes;
+        }
+        for (final String laneName : laneNames.split(",")) {
+            final String name = laneName.trim();
+            final Set<DeviceRequestMessageType> messageTypes = EnumSet.noneOf(DeviceRequestMessageType.class);
+            final String property = this.environment
+                    .getRequiredProperty(JMS_IEC61850_REQUESTS_LANE_PREFIX + name + MESSAGE_TYPES);
+            for (final String messageType : property.split(",")) {
+                messageTypes.add(DeviceRequestMessageType.valueOf(messageType.trim()));
+            }
+            this.checkIec61850RequestLaneQueue(name);
+            laneMessageTypes.put(name, messageTypes);
+        }
+        return laneMessageTypes;
+    }
+
+    private void checkIec61850RequestLaneQueue(final String laneName) {
+        final String queue = this.environment
+                .getRequiredProperty(JMS_IEC61850_REQUESTS_LANE_PREFIX + laneName + QUEUE);
+        final String defaultQueue = this.environment.getProperty(PROPERTY_NAME_JMS_IEC61850_REQUESTS_QUEUE);
+        if (StringUtils.substringBefore(queue, "?").equals(StringUtils.substringBefore(defaultQueue, "?"))) {
+            throw new IllegalArgumentException(
+                    "Lane: " + laneName + " must have a queue other than the queue of the default lane: " + queue);
+        }
+    }
+
     @Bean
-    public JmsConfiguration iec61850RequestJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
+    public JmsConfiguration iec61850RequestJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory,
+            final DeviceRequestMessageLanes iec61850RequestLanes) {
         return jmsConfigurationFactory.initializeReceiveConfiguration("jms.iec61850.requests",
-                this.iec61850RequestsMessageListener);
+                iec61850RequestLanes.getDefaultLane());
     }
 
     @Bean
     public DefaultMessageListenerContainer iec61850RequestsMessageListenerContainer(
-            final JmsConfiguration iec61850RequestJmsConfiguration) {
+            final JmsConfiguration iec61850RequestJmsConfiguration,
+            final DeviceRequestMessageLanes iec61850RequestLanes) {
         final DefaultMessageListenerContainer messageListenerContainer = iec61850RequestJmsConfiguration
                 .getMessageListenerContainer();
-        messageListenerContainer.setErrorHandler(new ErrorHandler() {
+        messageListenerContainer
+                .setErrorHandler(this.iec61850RequestsErrorHandler(DeviceRequestMessageLanes.DEFAULT_LANE));
+        iec61850RequestLanes.getDefaultLane().setMessageListenerContainer(messageListenerContainer);
+        this.iec61850RequestsMessageListener
+                .setRedeliveryConnectionFactory(messageListenerContainer.getConnectionFactory());
+        return messageListenerContainer;
+    }
+
+    private ErrorHandler iec61850RequestsErrorHandler(final String lane) {
+        return new ErrorHandler() {
             @Override
             public void handleError(final Throwable t) {
                 // Implementing ErrorHandler to prevent logging at WARN level
                 // when JMSException is thrown: Execution of JMS message
                 // listener failed, and no ErrorHandler has been set.
-                LOGGER.debug("iec61850RequestsMessageListenerContainer.ErrorHandler.handleError()", t);
+                LOGGER.debug("iec61850RequestsMessageListenerContainer.ErrorHandler.handleError() for lane: {}", lane,
+                        t);
             }
-        });
-        return messageListenerContainer;
+        };
     }
 
     @Bean
@@ -9,12 +9,14 @@ package com.alliander.osgp.adapter.protocol.iec61850.application.services;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.osgpfoundation.osgp.dto.da.GetPQValuesResponseDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850DeviceReportGroup;
@@ -22,11 +24,12 @@ import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceResponseMessageSender;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.OsgpRequestMessageSender;
+import com.alliander.osgp.core.db.api.iec61850.application.services.DeviceDataCache;
 import com.alliander.osgp.core.db.api.iec61850.entities.DeviceOutputSetting;
 import com.alliander.osgp.core.db.api.iec61850.entities.LightMeasurementDevice;
 import com.alliander.osgp.core.db.api.iec61850.entities.Ssld;
 import com.alliander.osgp.core.db.api.iec61850.repositories.LmdDataRepository;
-import com.alliander.osgp.core.db.api.iec61850.repositories.SsldDataRepository;
+import com.alliander.osgp.core.db.api.iec61850valueobjects.RelayMapping;
 import com.alliander.osgp.dto.valueobjects.DeviceFunctionDto;
 import com.alliander.osgp.dto.valueobjects.EventNotificationDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
@@ -42,10 +45,10 @@ public class DeviceManagementService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DeviceManagementService.class);
 
     @Autowired
-    private SsldDataRepository ssldDataRepository;
+    private LmdDataRepository lmdDataRepository;
 
     @Autowired
-    private LmdDataRepository lmdDataRepository;
+    private DeviceDataCache deviceDataCache;
 
     @Autowired
     private Iec61850DeviceReportGroupRepository deviceReportGroupRepository;
@@ -91,12 +94,13 @@ public class DeviceManagementService {
      * @throws ProtocolAdapterException
      *             In case the device can not be found in the database.
      */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
     public void addEventNotifications(final String deviceIdentification,
             final List<EventNotificationDto> eventNotifications) throws ProtocolAdapterException {
 
-        final Ssld ssldDevice = this.ssldDataRepository.findByDeviceIdentification(deviceIdentification);
+        final Ssld ssldDevice = this.deviceDataCache.findSsld(deviceIdentification);
         if (ssldDevice == null) {
-            final LightMeasurementDevice lmd = this.lmdDataRepository.findByDeviceIdentification(deviceIdentification);
+            final LightMeasurementDevice lmd = this.deviceDataCache.findLmd(deviceIdentification);
             if (lmd == null) {
 
                 throw new ProtocolAdapterException(
@@ -113,26 +117,67 @@ public class DeviceManagementService {
     }
 
     /**
-     * Get the device output setting (relay configuration) for a given device.
+     * Send the event notifications of several devices to OSGP Core, in one
+     * batch.
+     *
+     * @param eventNotificationsPerDevice
+     *            The event notifications by device identification.
+     *
+     * @throws ProtocolAdapterException
+     *             In case some of the devices can not be found in the
+     *             database, after the event notifications of the other devices
+     *             have been sent.
+     */
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
+    public void addEventNotifications(final Map<String, List<EventNotificationDto>> eventNotificationsPerDevice)
+            throws ProtocolAdapterException {
+
+        final List<RequestMessage> requestMessages = new ArrayList<>(eventNotificationsPerDevice.size());
+        final List<String> unknownDevices = new ArrayList<>();
+        for (final Map.Entry<String, List<EventNotificationDto>> entry : eventNotificationsPerDevice.entrySet()) {
+            final String deviceIdentification = entry.getKey();
+            if (this.deviceDataCache.findSsld(deviceIdentification) == null
+                    && this.deviceDataCache.findLmd(deviceIdentification) == null) {
+                unknownDevices.add(deviceIdentification);
+                continue;
+            }
+
+            LOGGER.info("addEventNotifications called for device {}: {}", deviceIdentification, entry.getValue());
+
+            requestMessages.add(new RequestMessage("no-correlationUid", "no-organisation", deviceIdentification,
+                    new ArrayList<>(entry.getValue())));
+        }
+
+        this.osgpRequestMessageSender.send(requestMessages, DeviceFunctionDto.ADD_EVENT_NOTIFICATION.name());
+
+        if (!unknownDevices.isEmpty()) {
+            throw new ProtocolAdapterException(
+                    "Unable to find devices using deviceIdentifications: " + unknownDevices);
+        }
+    }
+
+    /**
+     * Get the relay mapping (relay configuration) for a given device.
      *
      * @param deviceIdentification
      *            The device identification.
      *
-     * @return The {@link DeviceOutputSetting} for the device.
+     * @return The {@link RelayMapping} of the {@link DeviceOutputSetting}s for
+     *         the device.
      *
      * @throws ProtocolAdapterException
      *             In case the device can not be found in the database.
      */
-    public List<DeviceOutputSetting> getDeviceOutputSettings(final String deviceIdentification)
-            throws ProtocolAdapterException {
+    @Transactional(value = "iec61850OsgpCoreDbApiTransactionManager", propagation = Propagation.SUPPORTS)
+    public RelayMapping getRelayMapping(final String deviceIdentification) throws ProtocolAdapterException {
 
-        final Ssld ssldDevice = this.ssldDataRepository.findByDeviceIdentification(deviceIdentification);
+        final Ssld ssldDevice = this.deviceDataCache.findSsld(deviceIdentification);
         if (ssldDevice == null) {
             throw new ProtocolAdapterException(
                     "Unable to find device using deviceIdentification: " + deviceIdentification);
         }
 
-        return ssldDevice.getOutputSettings();
+        return ssldDevice.getRelayMapping();
     }
 
     public void sendMeasurements(final String deviceIdentification, final GetDataResponseDto response)
@@ -8,8 +8,6 @@
 package com.alliander.osgp.adapter.protocol.iec61850.application.services;
 
 import java.net.InetAddress;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +24,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Func
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850DeviceConnectionService;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850ReportWindowScheduler;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850ClearReportCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850DisableRegistrationCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850EnableReportingCommand;
@@ -41,6 +40,9 @@ public class DeviceRegistrationService {
     @Autowired
     private Iec61850DeviceConnectionService iec61850DeviceConnectionService;
 
+    @Autowired
+    private Iec61850ReportWindowScheduler iec61850ReportWindowScheduler;
+
     @Autowired
     private SsldDataRepository ssldDataRepository;
 
@@ -170,19 +172,19 @@ public class DeviceRegistrationService {
     }
 
     protected void waitClearReportAndDisconnect(final DeviceConnection deviceConnection) {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    new Iec61850ClearReportCommand().clearReportOnDevice(deviceConnection);
-                } catch (final NodeNotFoundException e) {
-                    LOGGER.error("Unable to get fcModelnode for device: " + deviceConnection.getDeviceIdentification(),
-                            e);
-                } catch (final NodeException e) {
-                    LOGGER.error("Unable to clear report for device: " + deviceConnection.getDeviceIdentification(), e);
-                }
-                DeviceRegistrationService.this.iec61850DeviceConnectionService.disconnect(deviceConnection, null);
-            }
-        }, DeviceRegistrationService.this.delayAfterDeviceRegistration);
+        this.iec61850ReportWindowScheduler.open(deviceConnection.getDeviceIdentification(),
+                deviceConnection.getConnection(), this.delayAfterDeviceRegistration,
+                () -> this.clearReportAndDisconnect(deviceConnection));
+    }
+
+    private void clearReportAndDisconnect(final DeviceConnection deviceConnection) {
+        try {
+            new Iec61850ClearReportCommand().clearReportOnDevice(deviceConnection);
+        } catch (final NodeNotFoundException e) {
+            LOGGER.error("Unable to get fcModelnode for device: " + deviceConnection.getDeviceIdentification(), e);
+        } catch (final NodeException e) {
+            LOGGER.error("Unable to clear report for device: " + deviceConnection.getDeviceIdentification(), e);
+        }
+        this.iec61850DeviceConnectionService.disconnect(deviceConnection, null);
     }
 }
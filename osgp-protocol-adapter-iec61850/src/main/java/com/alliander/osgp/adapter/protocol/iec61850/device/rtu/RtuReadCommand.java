@@ -8,14 +8,34 @@
 package com.alliander.osgp.adapter.protocol.iec61850.device.rtu;
 
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeNotFoundException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.NodeContainer;
 
 public interface RtuReadCommand<T> {
-    T execute(Iec61850Client client, DeviceConnection connection, LogicalDevice logicalDevice, int logicalDeviceIndex)
-            throws NodeException;
+
+    /**
+     * Reads the node of this command from the device and translates it.
+     * <p>
+     * When several commands are read for the same logical device, use an
+     * {@link com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850ReadBatch}
+     * to read all nodes with a single request.
+     */
+    default T execute(final Iec61850Client client, final DeviceConnection connection,
+            final LogicalDevice logicalDevice, final int logicalDeviceIndex) throws NodeException {
+        final NodeContainer containingNode = this.getNodeContainer(connection, logicalDevice, logicalDeviceIndex);
+        client.readNodeDataValues(connection.getConnection().getClientAssociation(), containingNode.getFcmodelNode());
+        return this.translate(containingNode);
+    }
+
+    /**
+     * Returns the node read by this command, without reading it from the
+     * device.
+     */
+    NodeContainer getNodeContainer(DeviceConnection connection, LogicalDevice logicalDevice, int logicalDeviceIndex)
+            throws NodeNotFoundException;
 
     T translate(final NodeContainer containingNode);
 }
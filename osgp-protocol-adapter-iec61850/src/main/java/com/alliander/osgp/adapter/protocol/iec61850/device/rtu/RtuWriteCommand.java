@@ -7,12 +7,36 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.device.rtu;
 
+import java.util.List;
+
+import org.openmuc.openiec61850.FcModelNode;
+
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
 
 public interface RtuWriteCommand<T> {
-    void executeWrite(Iec61850Client client, DeviceConnection connection, LogicalDevice logicalDevice,
-            int logicalDeviceIndex, T writeData) throws NodeException;
+
+    /**
+     * Writes the given data to the device.
+     * <p>
+     * When several commands are written for the same logical device, use an
+     * {@link com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850WriteBatch}
+     * to write all nodes with a single request.
+     */
+    default void executeWrite(final Iec61850Client client, final DeviceConnection connection,
+            final LogicalDevice logicalDevice, final int logicalDeviceIndex, final T writeData) throws NodeException {
+        client.writeNodeDataValues(connection.getConnection().getClientAssociation(),
+                this.prepareWrite(connection, logicalDevice, logicalDeviceIndex, writeData));
+    }
+
+    /**
+     * Sets the given data in the model of the device, without writing it to
+     * the device.
+     *
+     * @return The nodes that have to be written to the device.
+     */
+    List<FcModelNode> prepareWrite(DeviceConnection connection, LogicalDevice logicalDevice, int logicalDeviceIndex,
+            T writeData) throws NodeException;
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.domain.entities;
+
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import com.alliander.osgp.shared.domain.entities.AbstractEntity;
+
+/**
+ * Structure of the ServerModel of a device as retrieved from the device
+ * itself, stored so it does not have to be retrieved again on every
+ * connection.
+ */
+@Entity
+@Table(name = "iec61850_device_model")
+public class Iec61850DeviceModel extends AbstractEntity {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = 6018357124928417330L;
+
+    @Column(unique = true, nullable = false, length = 40)
+    private String deviceIdentification;
+
+    /**
+     * Fingerprint of the name plates of the logical devices at the moment the
+     * model was retrieved, used to detect changes of the model on the device.
+     */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private byte[] serverModel;
+
+    public Iec61850DeviceModel() {
+        // Default constructor
+    }
+
+    public Iec61850DeviceModel(final String deviceIdentification) {
+        this.deviceIdentification = deviceIdentification;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Iec61850DeviceModel[deviceId=%s, fingerprint=%s]", this.deviceIdentification,
+                this.fingerprint);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Iec61850DeviceModel)) {
+            return false;
+        }
+
+        final Iec61850DeviceModel deviceModel = (Iec61850DeviceModel) o;
+
+        return Objects.equals(this.deviceIdentification, deviceModel.deviceIdentification);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.deviceIdentification);
+    }
+
+    public String getDeviceIdentification() {
+        return this.deviceIdentification;
+    }
+
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public byte[] getServerModel() {
+        return this.serverModel;
+    }
+
+    public void updateServerModel(final String fingerprint, final byte[] serverModel) {
+        this.fingerprint = fingerprint;
+        this.serverModel = serverModel;
+    }
+}
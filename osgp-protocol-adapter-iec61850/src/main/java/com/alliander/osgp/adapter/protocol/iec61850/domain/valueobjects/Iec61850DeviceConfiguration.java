@@ -0,0 +1,62 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
+
+/**
+ * Snapshot of the configuration of an {@link Iec61850Device}.
+ */
+public class Iec61850DeviceConfiguration {
+
+    private final String deviceIdentification;
+    private final String icdFilename;
+    private final Integer port;
+    private final String serverName;
+    private final boolean enableAllReportsOnConnect;
+    private final boolean useCombinedLoad;
+
+    public Iec61850DeviceConfiguration(final Iec61850Device device) {
+        this.deviceIdentification = device.getDeviceIdentification();
+        this.icdFilename = device.getIcdFilename();
+        this.port = device.getPort();
+        this.serverName = device.getServerName();
+        this.enableAllReportsOnConnect = device.isEnableAllReportsOnConnect();
+        this.useCombinedLoad = device.isUseCombinedLoad();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Iec61850DeviceConfiguration[deviceId=%s, icdFilename=%s, port=%s]",
+                this.deviceIdentification, this.icdFilename, this.port);
+    }
+
+    public String getDeviceIdentification() {
+        return this.deviceIdentification;
+    }
+
+    public String getIcdFilename() {
+        return this.icdFilename;
+    }
+
+    public Integer getPort() {
+        return this.port;
+    }
+
+    public String getServerName() {
+        return this.serverName;
+    }
+
+    public boolean isEnableAllReportsOnConnect() {
+        return this.enableAllReportsOnConnect;
+    }
+
+    public boolean isUseCombinedLoad() {
+        return this.useCombinedLoad;
+    }
+}
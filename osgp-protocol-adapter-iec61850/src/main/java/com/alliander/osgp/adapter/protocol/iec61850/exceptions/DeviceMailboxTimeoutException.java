@@ -0,0 +1,24 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.exceptions;
+
+/**
+ * Thrown when work for a device, like a registration or the end of a report
+ * window, waited too long for earlier work for the same device.
+ */
+public class DeviceMailboxTimeoutException extends RuntimeException {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = -2183947256018734522L;
+
+    public DeviceMailboxTimeoutException(final String message) {
+        super(message);
+    }
+}
@@ -63,11 +63,14 @@ public abstract class BaseMessageProcessor implements MessageProcessor {
 
     /**
      * Get the delivery count for a {@link Message} using 'JMSXDeliveryCount'
-     * property.
+     * property. For a request sent to its queue again by the
+     * {@link DeviceRequestMessageListener}, the deliveries before it was sent
+     * again are counted as well.
      */
     public Integer getJmsXdeliveryCount(final Message message) {
         try {
-            final int jmsXdeliveryCount = message.getIntProperty("JMSXDeliveryCount");
+            final int jmsXdeliveryCount = message.getIntProperty("JMSXDeliveryCount")
+                    + DeviceRequestMessageListener.getPreviousDeliveryCount(message);
             LOGGER.info("jmsXdeliveryCount: {}", jmsXdeliveryCount);
             return jmsXdeliveryCount;
         } catch (final JMSException e) {
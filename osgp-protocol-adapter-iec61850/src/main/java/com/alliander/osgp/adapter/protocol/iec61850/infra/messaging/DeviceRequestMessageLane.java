@@ -0,0 +1,255 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.QueueBrowser;
+import javax.jms.Session;
+
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+
+/**
+ * A lane of IEC61850 device requests: the requests of some message types,
+ * received from a queue of their own by a message listener container of their
+ * own. Each lane has its own number of consumers, so slow requests can not
+ * take the consumers of fast requests.
+ * <p>
+ * All requests arrive on the queue of the default lane. The default lane
+ * forwards the requests of the message types of another lane to the queue of
+ * that lane, in the session the request was received in, and handles all
+ * other requests itself. Lanes do not use message selectors, so the requests
+ * of one lane can not hide the requests of another lane from its consumers.
+ */
+public class DeviceRequestMessageLane implements SessionAwareMessageListener<Message> {
+
+    private final String name;
+    private final Set<String> messageTypes;
+    private final SessionAwareMessageListener<Message> messageListener;
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong forwardedCount = new AtomicLong();
+
+    private final Latency waitTime = new Latency();
+    private final Latency processingTime = new Latency();
+
+    private DefaultMessageListenerContainer messageListenerContainer;
+
+    /**
+     * The lanes the messages are forwarded to, by message type. Only set for
+     * the default lane.
+     */
+    private Map<String, DeviceRequestMessageLane> forwardLanes = Collections.emptyMap();
+
+    /**
+     * @param messageTypes
+     *            The message types received by the lane, empty for the
+     *            default lane.
+     */
+    public DeviceRequestMessageLane(final String name, final Set<String> messageTypes,
+            final SessionAwareMessageListener<Message> messageListener) {
+        this.name = name;
+        this.messageTypes = Collections.unmodifiableSet(messageTypes);
+        this.messageListener = messageListener;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Set<String> getMessageTypes() {
+        return this.messageTypes;
+    }
+
+    public DefaultMessageListenerContainer getMessageListenerContainer() {
+        return this.messageListenerContainer;
+    }
+
+    /**
+     * Sets the container receiving the messages of the lane from the queue of
+     * the lane.
+     */
+    public void setMessageListenerContainer(final DefaultMessageListenerContainer messageListenerContainer) {
+        this.messageListenerContainer = messageListenerContainer;
+    }
+
+    void setForwardLanes(final Map<String, DeviceRequestMessageLane> forwardLanes) {
+        this.forwardLanes = forwardLanes;
+    }
+
+    @Override
+    public void onMessage(final Message message, final Session session) throws JMSException {
+        final DeviceRequestMessageLane forwardLane = message.getJMSType() == null ? null
+                : this.forwardLanes.get(message.getJMSType());
+        if (forwardLane != null) {
+            forwardLane.forward(message, session);
+            return;
+        }
+
+        final long startTime = System.currentTimeMillis();
+        this.receivedCount.incrementAndGet();
+        if (message.getJMSTimestamp() > 0) {
+            this.waitTime.add(Math.max(0, startTime - message.getJMSTimestamp()));
+        }
+        try {
+            this.messageListener.onMessage(message, session);
+        } catch (final JMSException | RuntimeException e) {
+            this.failedCount.incrementAndGet();
+            throw e;
+        } finally {
+            this.processingTime.add(System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Sends a message received by the default lane to the queue of this lane.
+     * The message is sent in the session it was received in, so it is only
+     * sent if the message is acknowledged.
+     */
+    private void forward(final Message message, final Session session) throws JMSException {
+        final Queue queue = this.messageListenerContainer == null ? null : this.getQueue(session);
+        if (queue == null) {
+            throw new JMSException("Lane: " + this.name + " does not receive from a queue");
+        }
+        final long timeToLive;
+        if (message.getJMSExpiration() > 0) {
+            timeToLive = Math.max(1, message.getJMSExpiration() - System.currentTimeMillis());
+        } else {
+            timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+        }
+        final MessageProducer producer = session.createProducer(queue);
+        try {
+            producer.send(message, message.getJMSDeliveryMode(), message.getJMSPriority(), timeToLive);
+        } finally {
+            producer.close();
+        }
+        this.forwardedCount.incrementAndGet();
+    }
+
+    public long getReceivedCount() {
+        return this.receivedCount.get();
+    }
+
+    /**
+     * @return The number of messages rolled back to the broker to be
+     *         redelivered.
+     */
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    /**
+     * @return The number of messages forwarded to the queue of the lane by the
+     *         default lane.
+     */
+    public long getForwardedCount() {
+        return this.forwardedCount.get();
+    }
+
+    /**
+     * @return The average time messages waited in the queue of the lane. For
+     *         forwarded messages the time is counted from the moment they were
+     *         forwarded.
+     */
+    public double getAverageWaitMillis() {
+        return this.waitTime.getAverage();
+    }
+
+    public long getMaxWaitMillis() {
+        return this.waitTime.getMax();
+    }
+
+    public double getAverageProcessingMillis() {
+        return this.processingTime.getAverage();
+    }
+
+    public long getMaxProcessingMillis() {
+        return this.processingTime.getMax();
+    }
+
+    public int getActiveConsumerCount() {
+        return this.messageListenerContainer == null ? 0 : this.messageListenerContainer.getActiveConsumerCount();
+    }
+
+    /**
+     * Counts the messages waiting in the queue of the lane, by browsing the
+     * queue. Browsing a long queue is expensive. For the default lane the
+     * count includes the messages still to be forwarded to other lanes.
+     *
+     * @return The number of messages, or -1 if the lane does not receive from
+     *         a queue.
+     */
+    public int getQueueDepth() throws JMSException {
+        if (this.messageListenerContainer == null) {
+            return -1;
+        }
+        final Connection connection = this.messageListenerContainer.getConnectionFactory().createConnection();
+        try {
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            final Queue queue = this.getQueue(session);
+            if (queue == null) {
+                return -1;
+            }
+            connection.start();
+            final QueueBrowser browser = session.createBrowser(queue);
+            int queueDepth = 0;
+            for (final Enumeration<?> messages = browser.getEnumeration(); messages.hasMoreElements(); messages
+                    .nextElement()) {
+                queueDepth++;
+            }
+            return queueDepth;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private Queue getQueue(final Session session) throws JMSException {
+        final Destination destination = this.messageListenerContainer.getDestination();
+        if (destination instanceof Queue) {
+            return (Queue) destination;
+        }
+        if (destination == null && !this.messageListenerContainer.isPubSubDomain()) {
+            return session.createQueue(this.messageListenerContainer.getDestinationName());
+        }
+        return null;
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void add(final long millis) {
+            this.count.incrementAndGet();
+            this.totalMillis.addAndGet(millis);
+            this.maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        double getAverage() {
+            final long n = this.count.get();
+            return n == 0 ? 0 : (double) this.totalMillis.get() / n;
+        }
+
+        long getMax() {
+            return this.maxMillis.get();
+        }
+    }
+}
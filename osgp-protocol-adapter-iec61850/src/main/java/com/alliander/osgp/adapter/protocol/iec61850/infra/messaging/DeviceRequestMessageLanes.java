@@ -0,0 +1,223 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * The lanes IEC61850 device requests are received in, see
+ * {@link DeviceRequestMessageLane}.
+ * <p>
+ * Each lane other than the default lane needs a queue of its own, the default
+ * lane forwards the requests of its message types to that queue. The message
+ * listener container of the default lane is a bean of its own.
+ * The containers of the other lanes are initialized, started, stopped and
+ * destroyed together with this bean.
+ */
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=RequestLanes", description = "Lanes IEC61850 device requests are received in")
+public class DeviceRequestMessageLanes implements SmartLifecycle, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRequestMessageLanes.class);
+
+    public static final String DEFAULT_LANE = "default";
+
+    private final Map<String, DeviceRequestMessageLane> lanes = new LinkedHashMap<>();
+
+    private volatile boolean running;
+
+    /**
+     * @param laneMessageTypes
+     *            The message types of each lane other than the default lane,
+     *            by lane name. A message type can be part of one lane only.
+     */
+    public DeviceRequestMessageLanes(final SessionAwareMessageListener<Message> messageListener,
+            final Map<String, Set<DeviceRequestMessageType>> laneMessageTypes) {
+        final Map<DeviceRequestMessageType, String> laneByMessageType = new HashMap<>();
+        final Map<String, DeviceRequestMessageLane> forwardLanes = new HashMap<>();
+        final List<DeviceRequestMessageLane> otherLanes = new ArrayList<>();
+
+        for (final Map.Entry<String, Set<DeviceRequestMessageType>> entry : laneMessageTypes.entrySet()) {
+            final String name = entry.getKey();
+            if (DEFAULT_LANE.equals(name) || entry.getValue().isEmpty()) {
+                throw new IllegalArgumentException("Lane: " + name + " must have a name other than " + DEFAULT_LANE
+                        + " and at least one message type");
+            }
+            final Set<String> messageTypes = new LinkedHashSet<>();
+            for (final DeviceRequestMessageType messageType : entry.getValue()) {
+                final String otherLane = laneByMessageType.put(messageType, name);
+                if (otherLane != null) {
+                    throw new IllegalArgumentException("Message type: " + messageType + " is part of lane: "
+                            + otherLane + " and lane: " + name);
+                }
+                messageTypes.add(messageType.name());
+            }
+            final DeviceRequestMessageLane lane = new DeviceRequestMessageLane(name, messageTypes,
+                    messageListener);
+            for (final String messageType : messageTypes) {
+                forwardLanes.put(messageType, lane);
+            }
+            otherLanes.add(lane);
+        }
+
+        // Messages without a type are handled by the default lane as well, so
+        // the listener can respond to them.
+        final DeviceRequestMessageLane defaultLane = new DeviceRequestMessageLane(DEFAULT_LANE,
+                new LinkedHashSet<String>(), messageListener);
+        defaultLane.setForwardLanes(Collections.unmodifiableMap(forwardLanes));
+        this.lanes.put(DEFAULT_LANE, defaultLane);
+        for (final DeviceRequestMessageLane lane : otherLanes) {
+            this.lanes.put(lane.getName(), lane);
+            LOGGER.info("Request lane: {} receives message types: {}", lane.getName(), lane.getMessageTypes());
+        }
+    }
+
+    public DeviceRequestMessageLane getDefaultLane() {
+        return this.lanes.get(DEFAULT_LANE);
+    }
+
+    /**
+     * @return The lanes other than the default lane.
+     */
+    public List<DeviceRequestMessageLane> getOtherLanes() {
+        final List<DeviceRequestMessageLane> otherLanes = new ArrayList<>(this.lanes.values());
+        otherLanes.remove(this.getDefaultLane());
+        return otherLanes;
+    }
+
+    private DeviceRequestMessageLane getLane(final String name) {
+        final DeviceRequestMessageLane lane = this.lanes.get(name);
+        if (lane == null) {
+            throw new IllegalArgumentException("Unknown lane: " + name);
+        }
+        return lane;
+    }
+
+    @Override
+    public void start() {
+        for (final DeviceRequestMessageLane lane : this.getOtherLanes()) {
+            final DefaultMessageListenerContainer container = lane.getMessageListenerContainer();
+            if (!container.isActive()) {
+                container.afterPropertiesSet();
+            }
+            container.start();
+        }
+        this.running = true;
+    }
+
+    @Override
+    public void stop() {
+        for (final DeviceRequestMessageLane lane : this.getOtherLanes()) {
+            lane.getMessageListenerContainer().stop();
+        }
+        this.running = false;
+    }
+
+    @Override
+    public void stop(final Runnable callback) {
+        this.stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public int getPhase() {
+        // Same phase as the message listener container of the default lane.
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void destroy() {
+        for (final DeviceRequestMessageLane lane : this.getOtherLanes()) {
+            lane.getMessageListenerContainer().destroy();
+        }
+    }
+
+    @ManagedAttribute(description = "Names of the lanes")
+    public String[] getLaneNames() {
+        return this.lanes.keySet().toArray(new String[this.lanes.size()]);
+    }
+
+    @ManagedOperation(description = "Message types of a lane, none for the default lane receiving all other types")
+    public String getMessageTypes(final String lane) {
+        return this.getLane(lane).getMessageTypes().toString();
+    }
+
+    @ManagedOperation(description = "Number of messages received by a lane")
+    public long getReceivedCount(final String lane) {
+        return this.getLane(lane).getReceivedCount();
+    }
+
+    @ManagedOperation(description = "Number of messages of a lane rolled back to be redelivered")
+    public long getFailedCount(final String lane) {
+        return this.getLane(lane).getFailedCount();
+    }
+
+    @ManagedOperation(description = "Number of messages forwarded to the queue of a lane by the default lane")
+    public long getForwardedCount(final String lane) {
+        return this.getLane(lane).getForwardedCount();
+    }
+
+    @ManagedOperation(description = "Average time in milliseconds messages of a lane waited in its queue")
+    public double getAverageWaitMillis(final String lane) {
+        return this.getLane(lane).getAverageWaitMillis();
+    }
+
+    @ManagedOperation(description = "Maximum time in milliseconds a message of a lane waited in its queue")
+    public long getMaxWaitMillis(final String lane) {
+        return this.getLane(lane).getMaxWaitMillis();
+    }
+
+    @ManagedOperation(description = "Average time in milliseconds spent handling a message of a lane")
+    public double getAverageProcessingMillis(final String lane) {
+        return this.getLane(lane).getAverageProcessingMillis();
+    }
+
+    @ManagedOperation(description = "Maximum time in milliseconds spent handling a message of a lane")
+    public long getMaxProcessingMillis(final String lane) {
+        return this.getLane(lane).getMaxProcessingMillis();
+    }
+
+    @ManagedOperation(description = "Number of consumers of a lane currently handling or waiting for a message")
+    public int getActiveConsumerCount(final String lane) {
+        return this.getLane(lane).getActiveConsumerCount();
+    }
+
+    @ManagedOperation(description = "Number of messages waiting in the queue of a lane, counted by browsing the queue")
+    public int getQueueDepth(final String lane) throws JMSException {
+        return this.getLane(lane).getQueueDepth();
+    }
+}
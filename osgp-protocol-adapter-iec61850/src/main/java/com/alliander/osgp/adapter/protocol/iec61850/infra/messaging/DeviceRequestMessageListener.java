@@ -8,9 +8,13 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
 import java.io.Serializable;
+import java.util.Enumeration;
 
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.MessageProducer;
 import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
@@ -18,9 +22,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.SessionAwareMessageListener;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850DeviceMailboxes;
 import com.alliander.osgp.shared.exceptionhandling.ComponentType;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
@@ -37,6 +44,11 @@ public class DeviceRequestMessageListener implements SessionAwareMessageListener
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRequestMessageListener.class);
 
+    /**
+     * Number of times a request sent to its queue again was delivered before.
+     */
+    private static final String PREVIOUS_DELIVERY_COUNT = "Iec61850PreviousDeliveryCount";
+
     @Autowired
     @Qualifier("iec61850DeviceRequestMessageProcessorMap")
     private MessageProcessorMap iec61850RequestMessageProcessorMap;
@@ -44,6 +56,22 @@ public class DeviceRequestMessageListener implements SessionAwareMessageListener
     @Autowired
     private DeviceResponseMessageSender deviceResponseMessageSender;
 
+    @Autowired
+    private Iec61850DeviceMailboxes iec61850DeviceMailboxes;
+
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
+    private JmsTemplate redeliveryJmsTemplate;
+
+    /**
+     * Sets the connection factory used to send queued requests that failed to
+     * their queue again.
+     */
+    public void setRedeliveryConnectionFactory(final ConnectionFactory connectionFactory) {
+        this.redeliveryJmsTemplate = new JmsTemplate(connectionFactory);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -65,7 +93,84 @@ public class DeviceRequestMessageListener implements SessionAwareMessageListener
             this.createAndSendException(objectMessage, messageType);
             return;
         }
-        processor.processMessage(objectMessage);
+        final MessageProcessor messageProcessor = processor;
+        final String deviceIdentification = objectMessage.getStringProperty(Constants.DEVICE_IDENTIFICATION);
+        // A request for a busy device is queued and acknowledged, it can not be
+        // rolled back once it failed.
+        this.iec61850DeviceMailboxes.submit(deviceIdentification,
+                () -> this.processLeased(deviceIdentification, messageProcessor, objectMessage),
+                e -> this.redeliver(objectMessage, e));
+    }
+
+    /**
+     * Processes the message holding a lease on the device, so the pooled
+     * association used by the request is not evicted in the meantime.
+     */
+    private void processLeased(final String deviceIdentification, final MessageProcessor messageProcessor,
+            final ObjectMessage objectMessage) throws JMSException {
+        if (deviceIdentification == null) {
+            messageProcessor.processMessage(objectMessage);
+            return;
+        }
+        this.iec61850ConnectionPool.lease(deviceIdentification);
+        try {
+            messageProcessor.processMessage(objectMessage);
+        } finally {
+            this.iec61850ConnectionPool.release(deviceIdentification);
+        }
+    }
+
+    /**
+     * Sends a queued request that failed to the queue it was received from
+     * again, as it can not be rolled back. The deliveries of the request are
+     * kept in a property, so the request is not redelivered more often than a
+     * request that was rolled back.
+     */
+    private void redeliver(final ObjectMessage objectMessage, final Exception exception) {
+        try {
+            LOGGER.info("Queued request with correlationUid: {} failed, sending it to its queue again: {}",
+                    objectMessage.getJMSCorrelationID(), exception.getMessage());
+            final Destination destination = objectMessage.getJMSDestination();
+            final int deliveryCount = objectMessage.getIntProperty("JMSXDeliveryCount")
+                    + getPreviousDeliveryCount(objectMessage);
+            this.redeliveryJmsTemplate.execute(session -> {
+                final ObjectMessage copy = session.createObjectMessage(objectMessage.getObject());
+                copy.setJMSType(objectMessage.getJMSType());
+                copy.setJMSCorrelationID(objectMessage.getJMSCorrelationID());
+                for (final Enumeration<?> names = objectMessage.getPropertyNames(); names.hasMoreElements();) {
+                    final String name = (String) names.nextElement();
+                    if (!name.startsWith("JMSX")) {
+                        copy.setObjectProperty(name, objectMessage.getObjectProperty(name));
+                    }
+                }
+                copy.setIntProperty(PREVIOUS_DELIVERY_COUNT, deliveryCount);
+                final long timeToLive;
+                if (objectMessage.getJMSExpiration() > 0) {
+                    timeToLive = Math.max(1, objectMessage.getJMSExpiration() - System.currentTimeMillis());
+                } else {
+                    timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+                }
+                final MessageProducer producer = session.createProducer(destination);
+                try {
+                    producer.send(copy, objectMessage.getJMSDeliveryMode(), objectMessage.getJMSPriority(),
+                            timeToLive);
+                } finally {
+                    producer.close();
+                }
+                return null;
+            }, false);
+        } catch (final Exception e) {
+            LOGGER.error("Unexpected error sending queued request to its queue again, request is lost", e);
+        }
+    }
+
+    /**
+     * @return The number of times the request was delivered before it was
+     *         sent to its queue again, 0 if it was not sent again.
+     */
+    static int getPreviousDeliveryCount(final Message message) throws JMSException {
+        return message.propertyExists(PREVIOUS_DELIVERY_COUNT) ? message.getIntProperty(PREVIOUS_DELIVERY_COUNT)
+                : 0;
     }
 
     private void createAndSendException(final ObjectMessage objectMessage, final String messageType) {
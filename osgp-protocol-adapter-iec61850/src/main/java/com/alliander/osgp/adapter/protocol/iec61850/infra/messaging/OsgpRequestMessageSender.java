@@ -7,8 +7,11 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
+import java.util.List;
+
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.MessageProducer;
 import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
@@ -18,6 +21,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.core.ProducerCallback;
+import org.springframework.jms.support.JmsUtils;
 
 import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
@@ -37,17 +42,54 @@ public class OsgpRequestMessageSender {
 
             @Override
             public Message createMessage(final Session session) throws JMSException {
-                final ObjectMessage objectMessage = session.createObjectMessage(requestMessage);
-                objectMessage.setJMSType(messageType);
-                objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
-                        requestMessage.getOrganisationIdentification());
-                objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION,
-                        requestMessage.getDeviceIdentification());
-
-                return objectMessage;
+                return OsgpRequestMessageSender.this.createMessage(session, requestMessage, messageType);
+            }
+
+        });
+    }
+
+    /**
+     * Sends the request messages using a single session and producer, instead
+     * of acquiring them for every message. The messages are committed together
+     * if the session is transacted.
+     */
+    public void send(final List<RequestMessage> requestMessages, final String messageType) {
+        if (requestMessages.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Sending {} request messages to OSGP.", requestMessages.size());
+
+        final JmsTemplate jmsTemplate = this.iec61850RequestsJmsTemplate;
+        jmsTemplate.execute(new ProducerCallback<Void>() {
+
+            @Override
+            public Void doInJms(final Session session, final MessageProducer producer) throws JMSException {
+                for (final RequestMessage requestMessage : requestMessages) {
+                    final Message message = OsgpRequestMessageSender.this.createMessage(session, requestMessage,
+                            messageType);
+                    if (jmsTemplate.isExplicitQosEnabled()) {
+                        producer.send(message, jmsTemplate.getDeliveryMode(), jmsTemplate.getPriority(),
+                                jmsTemplate.getTimeToLive());
+                    } else {
+                        producer.send(message);
+                    }
+                }
+                JmsUtils.commitIfNecessary(session);
+                return null;
             }
 
         });
     }
 
+    private Message createMessage(final Session session, final RequestMessage requestMessage,
+            final String messageType) throws JMSException {
+        final ObjectMessage objectMessage = session.createObjectMessage(requestMessage);
+        objectMessage.setJMSType(messageType);
+        objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
+                requestMessage.getOrganisationIdentification());
+        objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION, requestMessage.getDeviceIdentification());
+
+        return objectMessage;
+    }
+
 }
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.processors;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.BdaQuality;
+import org.openmuc.openiec61850.BdaTimestamp;
+import org.openmuc.openiec61850.ConstructedDataAttribute;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.LogicalDevice;
+import org.openmuc.openiec61850.LogicalNode;
+import org.openmuc.openiec61850.ModelNode;
+import org.openmuc.openiec61850.ServerModel;
+import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
+
+/**
+ * Index of the measured value (MX) data objects of a {@link ServerModel}, per
+ * logical device and logical node, with the nodes holding the magnitude and
+ * time stamp of each data sample looked up once.
+ * <p>
+ * The index refers to the nodes of the model it was built for, so the values
+ * read into that model can be turned into data samples without searching the
+ * model again. The index itself is never modified after it is built. It does
+ * not refer to the model itself, so it can be cached by model without keeping
+ * the model alive.
+ */
+final class PqValuesModelIndex {
+
+    private static final MathContext MATH_CONTEXT = new MathContext(3, RoundingMode.HALF_EVEN);
+
+    private final List<LogicalDeviceEntry> logicalDevices;
+
+    private PqValuesModelIndex(final List<LogicalDeviceEntry> logicalDevices) {
+        this.logicalDevices = logicalDevices;
+    }
+
+    static PqValuesModelIndex build(final ServerModel model) {
+        final List<LogicalDeviceEntry> logicalDevices = new ArrayList<>();
+        for (final ModelNode node : model.getChildren()) {
+            if (node instanceof LogicalDevice) {
+                final List<LogicalNodeEntry> logicalNodes = buildLogicalNodes((LogicalDevice) node);
+                if (!logicalNodes.isEmpty()) {
+                    logicalDevices.add(new LogicalDeviceEntry(node.getName(), logicalNodes));
+                }
+            }
+        }
+        return new PqValuesModelIndex(Collections.unmodifiableList(logicalDevices));
+    }
+
+    private static List<LogicalNodeEntry> buildLogicalNodes(final LogicalDevice logicalDevice) {
+        final List<LogicalNodeEntry> logicalNodes = new ArrayList<>();
+        for (final ModelNode node : logicalDevice.getChildren()) {
+            if (node instanceof LogicalNode) {
+                final List<FcModelNode> dataObjects = new ArrayList<>();
+                final List<Sample> samples = new ArrayList<>();
+                for (final ModelNode child : node.getChildren()) {
+                    if (Fc.MX == ((FcModelNode) child).getFc() && child.getChildren() != null) {
+                        dataObjects.add((FcModelNode) child);
+                        addSamples(child, samples);
+                    }
+                }
+                if (!samples.isEmpty()) {
+                    logicalNodes.add(new LogicalNodeEntry(node.getName(), Collections.unmodifiableList(dataObjects),
+                            Collections.unmodifiableList(samples)));
+                }
+            }
+        }
+        return logicalNodes;
+    }
+
+    /**
+     * A data object with a quality is a single sample, otherwise every data
+     * attribute of the data object is a sample.
+     */
+    private static void addSamples(final ModelNode dataObject, final List<Sample> samples) {
+        if (hasChildOfType(dataObject, BdaQuality.class)) {
+            final BdaFloat32 floatNode = findFloatInConstructedDataAttribute(dataObject);
+            final String type = floatNode == null ? null
+                    : dataObject.getName() + "." + floatNode.getParent().getName() + "." + floatNode.getName();
+            samples.add(new Sample(type, findTimestamp(dataObject), floatNode));
+        } else {
+            for (final ModelNode dataAttribute : dataObject.getChildren()) {
+                if (dataAttribute.getChildren() == null) {
+                    samples.add(new Sample(null, null, null));
+                    continue;
+                }
+                final BdaFloat32 floatNode = findFloatInNestedConstructedDataAttribute(dataAttribute);
+                final String type = floatNode == null ? null
+                        : dataObject.getName() + "." + dataAttribute.getName() + "."
+                                + floatNode.getParent().getParent().getName() + "." + floatNode.getParent().getName()
+                                + "." + floatNode.getName();
+                samples.add(new Sample(type, findTimestamp(dataAttribute), floatNode));
+            }
+        }
+    }
+
+    private static boolean hasChildOfType(final ModelNode node, final Class<? extends ModelNode> type) {
+        for (final ModelNode child : node.getChildren()) {
+            if (type.isInstance(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BdaTimestamp findTimestamp(final ModelNode node) {
+        BdaTimestamp timestamp = null;
+        for (final ModelNode child : node.getChildren()) {
+            if (child instanceof BdaTimestamp) {
+                timestamp = (BdaTimestamp) child;
+            }
+        }
+        return timestamp;
+    }
+
+    private static BdaFloat32 findFloatInConstructedDataAttribute(final ModelNode node) {
+        BdaFloat32 floatNode = null;
+        for (final ModelNode child : node.getChildren()) {
+            if (child instanceof ConstructedDataAttribute && child.getChildren() != null) {
+                floatNode = findFloat(child);
+            }
+        }
+        return floatNode;
+    }
+
+    private static BdaFloat32 findFloatInNestedConstructedDataAttribute(final ModelNode node) {
+        BdaFloat32 floatNode = null;
+        for (final ModelNode child : node.getChildren()) {
+            if (child instanceof ConstructedDataAttribute && child.getChildren() != null) {
+                floatNode = findFloatInConstructedDataAttribute(child);
+            }
+        }
+        return floatNode;
+    }
+
+    private static BdaFloat32 findFloat(final ModelNode node) {
+        BdaFloat32 floatNode = null;
+        for (final ModelNode child : node.getChildren()) {
+            if (child instanceof BdaFloat32) {
+                floatNode = (BdaFloat32) child;
+            }
+        }
+        return floatNode;
+    }
+
+    /**
+     * @return The MX data objects per logical node, to be read in one request
+     *         per logical node.
+     */
+    List<List<FcModelNode>> getDataObjectsPerLogicalNode() {
+        final List<List<FcModelNode>> dataObjects = new ArrayList<>();
+        for (final LogicalDeviceEntry logicalDevice : this.logicalDevices) {
+            for (final LogicalNodeEntry logicalNode : logicalDevice.logicalNodes) {
+                dataObjects.add(logicalNode.dataObjects);
+            }
+        }
+        return dataObjects;
+    }
+
+    /**
+     * @return The data samples with the values currently in the model.
+     */
+    List<LogicalDeviceDto> toLogicalDevices() {
+        final List<LogicalDeviceDto> logicalDevices = new ArrayList<>(this.logicalDevices.size());
+        for (final LogicalDeviceEntry logicalDevice : this.logicalDevices) {
+            final List<LogicalNodeDto> logicalNodes = new ArrayList<>(logicalDevice.logicalNodes.size());
+            for (final LogicalNodeEntry logicalNode : logicalDevice.logicalNodes) {
+                final List<DataSampleDto> data = new ArrayList<>(logicalNode.samples.size());
+                for (final Sample sample : logicalNode.samples) {
+                    data.add(sample.toDataSample());
+                }
+                logicalNodes.add(new LogicalNodeDto(logicalNode.name, data));
+            }
+            logicalDevices.add(new LogicalDeviceDto(logicalDevice.name, logicalNodes));
+        }
+        return logicalDevices;
+    }
+
+    private static final class LogicalDeviceEntry {
+
+        private final String name;
+        private final List<LogicalNodeEntry> logicalNodes;
+
+        LogicalDeviceEntry(final String name, final List<LogicalNodeEntry> logicalNodes) {
+            this.name = name;
+            this.logicalNodes = logicalNodes;
+        }
+    }
+
+    private static final class LogicalNodeEntry {
+
+        private final String name;
+        private final List<FcModelNode> dataObjects;
+        private final List<Sample> samples;
+
+        LogicalNodeEntry(final String name, final List<FcModelNode> dataObjects, final List<Sample> samples) {
+            this.name = name;
+            this.dataObjects = dataObjects;
+            this.samples = samples;
+        }
+    }
+
+    private static final class Sample {
+
+        private final String type;
+        private final BdaTimestamp timestampNode;
+        private final BdaFloat32 floatNode;
+
+        Sample(final String type, final BdaTimestamp timestampNode, final BdaFloat32 floatNode) {
+            this.type = type;
+            this.timestampNode = timestampNode;
+            this.floatNode = floatNode;
+        }
+
+        DataSampleDto toDataSample() {
+            final BigDecimal value = this.floatNode == null ? null
+                    : new BigDecimal(this.floatNode.getFloat(), MATH_CONTEXT);
+            return new DataSampleDto(this.type, this.timestampNode == null ? null : this.timestampNode.getDate(),
+                    value);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
+
+/**
+ * Retries commands that failed with a service error, while the association
+ * with the device is still usable. Commands that failed because the
+ * association is broken, or for any other reason, are not retried: the
+ * request is redelivered instead, which connects to the device again.
+ * <p>
+ * The delay before a retry doubles for every retry, up to a maximum. A random
+ * part of up to half of the delay is left out, so requests failing at the same
+ * time do not retry at the same time.
+ */
+@Component
+public class ExponentialBackoffRetryPolicy implements Iec61850RetryPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExponentialBackoffRetryPolicy.class);
+
+    @Autowired
+    private int maxRetryCount;
+
+    @Autowired
+    private int retryInitialDelay;
+
+    @Autowired
+    private int retryMaxDelay;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("maxRetryCount: {}, retryInitialDelay: {}, retryMaxDelay: {}", this.maxRetryCount,
+                this.retryInitialDelay, this.retryMaxDelay);
+    }
+
+    @Override
+    public long getRetryDelay(final ProtocolAdapterException e, final int retry) {
+        if (retry > this.maxRetryCount || !isServiceError(e)) {
+            return NO_RETRY;
+        }
+        final long delay = Math.min((long) this.retryInitialDelay << Math.min(retry - 1, 30), this.retryMaxDelay);
+        return delay - ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static boolean isServiceError(final ProtocolAdapterException e) {
+        return e instanceof NodeException && ConnectionState.OK.equals(((NodeException) e).getConnectionState());
+    }
+}
@@ -8,6 +8,7 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
 
 import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.Map;
 import java.util.UUID;
 
@@ -19,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceRegistrationService;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.OsgpRequestMessageSender;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.core.db.api.iec61850.entities.Ssld;
@@ -37,6 +39,15 @@ public class Iec61850ChannelHandlerServer extends Iec61850ChannelHandler {
     @Autowired
     private DeviceRegistrationService deviceRegistrationService;
 
+    @Autowired
+    private Iec61850RegistrationQueue iec61850RegistrationQueue;
+
+    @Autowired
+    private Iec61850CircuitBreaker iec61850CircuitBreaker;
+
+    @Autowired
+    private Iec61850DeviceMailboxes iec61850DeviceMailboxes;
+
     /**
      * Convert list in property files to {@code Map}.
      *
@@ -65,8 +76,7 @@ public class Iec61850ChannelHandlerServer extends Iec61850ChannelHandler {
         this.logMessage(message);
 
         final String deviceIdentification = message.getDeviceIdentification();
-        final IED ied = IED.FLEX_OVL;
-        String ipAddress;
+        final String ipAddress;
 
         // In case the optional properties 'testDeviceId' and 'testDeviceIp' are
         // set, the values will be used to set an IP address for a device.
@@ -78,6 +88,18 @@ public class Iec61850ChannelHandlerServer extends Iec61850ChannelHandler {
             ipAddress = message.getIpAddress();
         }
 
+        // The device just contacted us, so it is reachable again.
+        this.iec61850CircuitBreaker.recordSuccess(deviceIdentification);
+
+        this.iec61850RegistrationQueue.submit(deviceIdentification,
+                () -> this.iec61850DeviceMailboxes.execute(deviceIdentification,
+                        () -> this.registerDevice(deviceIdentification, ipAddress, correlationId)));
+    }
+
+    private void registerDevice(final String deviceIdentification, final String ipAddress, final String correlationId)
+            throws ProtocolAdapterException {
+
+        final IED ied = IED.FLEX_OVL;
         final DeviceRegistrationDataDto deviceRegistrationData = new DeviceRegistrationDataDto(ipAddress,
                 Ssld.SSLD_TYPE, true);
 
@@ -91,9 +113,9 @@ public class Iec61850ChannelHandlerServer extends Iec61850ChannelHandler {
             this.deviceRegistrationService.disableRegistration(deviceIdentification, InetAddress.getByName(ipAddress),
                     ied, ied.getDescription());
             LOGGER.info("Disabled registration for device: {}, at IP address: {}", deviceIdentification, ipAddress);
-        } catch (final Exception e) {
-            LOGGER.error("Failed to disable registration for device: {}, at IP address: {}", deviceIdentification,
-                    ipAddress, e);
+        } catch (final UnknownHostException | ProtocolAdapterException e) {
+            throw new ProtocolAdapterException("Failed to disable registration for device: " + deviceIdentification
+                    + ", at IP address: " + ipAddress, e);
         }
     }
 }
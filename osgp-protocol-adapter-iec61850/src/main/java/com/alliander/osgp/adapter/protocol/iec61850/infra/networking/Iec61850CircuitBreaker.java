@@ -0,0 +1,238 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+
+/**
+ * Keeps track of devices that can not be connected to, so requests for those
+ * devices fail fast instead of waiting for the connect timeout every time.
+ * <p>
+ * After a number of consecutive failed connection attempts to a device, the
+ * circuit of the device is opened: connecting to the device fails
+ * immediately. When the circuit has been open for some time, a single
+ * connection attempt is let through as a probe. If the probe succeeds the
+ * circuit is closed again, if it fails the circuit stays open for another
+ * period. A device registering itself closes its circuit as well.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=CircuitBreaker", description = "Devices that can not be connected to")
+public class Iec61850CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850CircuitBreaker.class);
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Circuits of devices for which the last connection attempt failed.
+     */
+    private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private final AtomicLong openedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong probeCount = new AtomicLong();
+
+    @Autowired
+    private int circuitBreakerFailureThreshold;
+
+    @Autowired
+    private int circuitBreakerOpenDuration;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("circuitBreakerFailureThreshold: {}, circuitBreakerOpenDuration: {}",
+                this.circuitBreakerFailureThreshold, this.circuitBreakerOpenDuration);
+    }
+
+    /**
+     * @return {@code true} if connecting to unreachable devices fails fast.
+     */
+    public boolean isEnabled() {
+        return this.circuitBreakerFailureThreshold > 0;
+    }
+
+    /**
+     * Checks whether a connection attempt to the device is allowed. The outcome
+     * of an allowed attempt has to be recorded using
+     * {@link #recordSuccess(String)} or {@link #recordFailure(String)}.
+     *
+     * @throws ConnectionFailureException
+     *             In case the circuit of the device is open.
+     */
+    public void acquirePermission(final String deviceIdentification) throws ConnectionFailureException {
+        if (!this.isEnabled()) {
+            return;
+        }
+        final Circuit circuit = this.circuits.get(deviceIdentification);
+        if (circuit == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final long openUntil = circuit.tryAcquire(now, this.circuitBreakerOpenDuration);
+        if (openUntil == 0) {
+            return;
+        }
+        if (openUntil < 0) {
+            this.probeCount.incrementAndGet();
+            LOGGER.info("Probing connection to device: {}", deviceIdentification);
+            return;
+        }
+        this.rejectedCount.incrementAndGet();
+        throw new ConnectionFailureException("Device: " + deviceIdentification
+                + " is unreachable, not connecting for another " + (openUntil - now) + " ms");
+    }
+
+    /**
+     * Closes the circuit of the device, after a successful connection attempt
+     * or when the device contacted us.
+     */
+    public void recordSuccess(final String deviceIdentification) {
+        final Circuit circuit = this.circuits.remove(deviceIdentification);
+        if (circuit != null && circuit.isOpen()) {
+            LOGGER.info("Closed circuit for device: {}", deviceIdentification);
+        }
+    }
+
+    /**
+     * Records a failed connection attempt, which opens the circuit of the
+     * device if the failure threshold is reached or a probe failed.
+     */
+    public void recordFailure(final String deviceIdentification) {
+        if (!this.isEnabled()) {
+            return;
+        }
+        final Circuit circuit = this.circuits.computeIfAbsent(deviceIdentification, key -> new Circuit());
+        if (circuit.failed(System.currentTimeMillis(), this.circuitBreakerFailureThreshold,
+                this.circuitBreakerOpenDuration)) {
+            this.openedCount.incrementAndGet();
+            LOGGER.warn("Opened circuit for device: {}, not connecting for {} ms", deviceIdentification,
+                    this.circuitBreakerOpenDuration);
+        }
+    }
+
+    @ManagedAttribute(description = "Consecutive failed connection attempts after which a circuit is opened, 0 if disabled")
+    public int getFailureThreshold() {
+        return this.circuitBreakerFailureThreshold;
+    }
+
+    @ManagedAttribute(description = "Time in milliseconds a circuit stays open before a connection attempt is probed")
+    public int getOpenDuration() {
+        return this.circuitBreakerOpenDuration;
+    }
+
+    @ManagedAttribute(description = "Number of devices with an open circuit")
+    public int getOpenCount() {
+        int openCount = 0;
+        for (final Circuit circuit : this.circuits.values()) {
+            if (circuit.isOpen()) {
+                openCount++;
+            }
+        }
+        return openCount;
+    }
+
+    @ManagedAttribute(description = "Number of times a circuit was opened")
+    public long getOpenedCount() {
+        return this.openedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of connection attempts rejected because the circuit was open")
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of connection attempts let through to probe an open circuit")
+    public long getProbeCount() {
+        return this.probeCount.get();
+    }
+
+    @ManagedOperation(description = "State of the circuit of a device")
+    public String getState(final String deviceIdentification) {
+        final Circuit circuit = this.circuits.get(deviceIdentification);
+        return circuit == null ? State.CLOSED.name() : circuit.getState().name();
+    }
+
+    @ManagedOperation(description = "Closes the circuit of a device")
+    public void reset(final String deviceIdentification) {
+        this.recordSuccess(deviceIdentification);
+    }
+
+    @ManagedOperation(description = "Closes the circuits of all devices")
+    public void resetAll() {
+        this.circuits.clear();
+    }
+
+    private static final class Circuit {
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+
+        /**
+         * End of the open period, or of the time the probe in progress is
+         * given before another probe is let through.
+         */
+        private long openUntil;
+
+        /**
+         * @return 0 if the attempt is allowed, -1 if it is allowed as probe,
+         *         otherwise the time until which the circuit is open.
+         */
+        synchronized long tryAcquire(final long now, final long openDuration) {
+            if (this.state == State.CLOSED) {
+                return 0;
+            }
+            if (now < this.openUntil) {
+                return this.openUntil;
+            }
+            // Only one probe at a time, a probe that does not report back
+            // in time is replaced by another one.
+            this.state = State.HALF_OPEN;
+            this.openUntil = now + openDuration;
+            return -1;
+        }
+
+        /**
+         * @return {@code true} if the circuit was opened.
+         */
+        synchronized boolean failed(final long now, final int failureThreshold, final long openDuration) {
+            this.consecutiveFailures++;
+            if (this.state == State.HALF_OPEN
+                    || (this.state == State.CLOSED && this.consecutiveFailures >= failureThreshold)) {
+                this.state = State.OPEN;
+                this.openUntil = now + openDuration;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized State getState() {
+            return this.state;
+        }
+
+        boolean isOpen() {
+            return this.getState() != State.CLOSED;
+        }
+    }
+}
@@ -9,12 +9,20 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmuc.openiec61850.ClientAssociation;
 import org.openmuc.openiec61850.ClientSap;
+import org.openmuc.openiec61850.DataSet;
 import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.SclParseException;
 import org.openmuc.openiec61850.ServerModel;
@@ -29,6 +37,8 @@ import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailure
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeWriteException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics.Operation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics.Outcome;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
@@ -42,6 +52,21 @@ public class Iec61850Client {
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850Client.class);
     private static final String COULD_NOT_EXECUTE_COMMAND = "Could not execute command";
 
+    /**
+     * Maximum number of association specific data sets created for batched
+     * reads and writes per association.
+     */
+    private static final int MAX_BATCH_DATA_SETS_PER_ASSOCIATION = 32;
+    private static final String BATCH_DATA_SET_PREFIX = "@OsgpBatch";
+
+    /**
+     * Association specific data sets used for batched reads and writes. The data sets
+     * only exist as long as the association, so the entries are removed
+     * together with the association.
+     */
+    private final Map<ClientAssociation, BatchDataSets> batchDataSets = Collections
+            .synchronizedMap(new WeakHashMap<ClientAssociation, BatchDataSets>());
+
     @Autowired
     private int iec61850PortClient;
 
@@ -60,6 +85,15 @@ public class Iec61850Client {
     @Autowired
     private int maxRetryCount;
 
+    @Autowired
+    private Iec61850RetryPolicy iec61850RetryPolicy;
+
+    @Autowired
+    private Iec61850CircuitBreaker iec61850CircuitBreaker;
+
+    @Autowired
+    private Iec61850OperationMetrics iec61850OperationMetrics;
+
     @PostConstruct
     private void init() {
         LOGGER.info(
@@ -81,15 +115,50 @@ public class Iec61850Client {
      *            {@link Iec61850ClientEventListenerFactory}.
      * @param port
      *            The port number of the IED.
+     * @param ied
+     *            The type of IED, used to record the latencies of the ACSI
+     *            operations executed on the association, see
+     *            {@link Iec61850OperationMetrics}.
      *
      * @return An {@link Iec61850ClientAssociation} instance.
      *
      * @throws ConnectionFailureException
      *             In case the connection to the device could not be
-     *             established.
+     *             established, or the device is known to be unreachable, see
+     *             {@link Iec61850CircuitBreaker}.
      */
     public Iec61850ClientAssociation connect(final String deviceIdentification, final InetAddress ipAddress,
-            final Iec61850ClientBaseEventListener reportListener, final int port) throws ConnectionFailureException {
+            final Iec61850ClientBaseEventListener reportListener, final int port, final IED ied)
+            throws ConnectionFailureException {
+        this.iec61850CircuitBreaker.acquirePermission(deviceIdentification);
+        final Iec61850ClientAssociation clientAssociation = this.associate(deviceIdentification, ipAddress,
+                reportListener, port, ied, true);
+        this.iec61850CircuitBreaker.recordSuccess(deviceIdentification);
+        return clientAssociation;
+    }
+
+    /**
+     * Connect an additional association to a device that is already
+     * connected, for example to send requests to the device from more than one
+     * thread, since a {@link ClientAssociation} is not thread-safe. The
+     * association does not receive reports.
+     * <p>
+     * A failure to connect is not recorded by the
+     * {@link Iec61850CircuitBreaker}, since a device that does not accept
+     * another association may still be reachable.
+     *
+     * @throws ConnectionFailureException
+     *             In case the connection to the device could not be
+     *             established.
+     */
+    public Iec61850ClientAssociation connectAdditional(final String deviceIdentification,
+            final InetAddress ipAddress, final int port, final IED ied) throws ConnectionFailureException {
+        return this.associate(deviceIdentification, ipAddress, null, port, ied, false);
+    }
+
+    private Iec61850ClientAssociation associate(final String deviceIdentification, final InetAddress ipAddress,
+            final Iec61850ClientBaseEventListener reportListener, final int port, final IED ied,
+            final boolean recordFailure) throws ConnectionFailureException {
         // Alternatively you could use ClientSap(SocketFactory factory) to e.g.
         // connect using SSL.
         final ClientSap clientSap = new ClientSap();
@@ -97,10 +166,19 @@ public class Iec61850Client {
         LOGGER.info("Attempting to connect to server: {} on port: {}, max redelivery count: {} and max retry count: {}",
                 ipAddress.getHostAddress(), port, this.maxRedeliveriesForIec61850Requests, this.maxRetryCount);
 
+        final long startTime = this.iec61850OperationMetrics.start();
         try {
             final ClientAssociation association = clientSap.associate(ipAddress, port, null, reportListener);
+            this.iec61850OperationMetrics.record(Operation.ASSOCIATE, deviceIdentification, ied, startTime,
+                    Outcome.OK);
+            this.iec61850OperationMetrics.register(association, deviceIdentification, ied);
             clientAssociation = new Iec61850ClientAssociation(association, reportListener);
         } catch (final IOException e) {
+            this.iec61850OperationMetrics.record(Operation.ASSOCIATE, deviceIdentification, ied, startTime,
+                    Outcome.IO_ERROR);
+            if (recordFailure) {
+                this.iec61850CircuitBreaker.recordFailure(deviceIdentification);
+            }
             // An IOException will always indicate a fatal exception. It
             // indicates that the association was closed and
             // cannot be recovered. You will need to create a new association
@@ -108,6 +186,10 @@ public class Iec61850Client {
             // reconnect.
             LOGGER.error("Error connecting to device: " + deviceIdentification, e);
             throw new ConnectionFailureException(e.getMessage(), e);
+        } catch (final RuntimeException e) {
+            this.iec61850OperationMetrics.record(Operation.ASSOCIATE, deviceIdentification, ied, startTime,
+                    Outcome.OTHER_ERROR);
+            throw e;
         }
 
         LOGGER.info("Connected to device: {}", deviceIdentification);
@@ -139,18 +221,25 @@ public class Iec61850Client {
      */
     public ServerModel readServerModelFromDevice(final ClientAssociation clientAssociation)
             throws ProtocolAdapterException {
+        final long startTime = this.iec61850OperationMetrics.start();
         try {
             LOGGER.debug("Start reading server model from device");
             // RetrieveModel() will call all GetDirectory and GetDefinition ACSI
             // services needed to get the complete server model.
             final ServerModel serverModel = clientAssociation.retrieveModel();
+            this.record(Operation.RETRIEVE_MODEL, clientAssociation, startTime, Outcome.OK);
             LOGGER.debug("Completed reading server model from device");
             return serverModel;
         } catch (final ServiceError e) {
+            this.record(Operation.RETRIEVE_MODEL, clientAssociation, startTime, Outcome.SERVICE_ERROR);
             clientAssociation.close();
             throw new ProtocolAdapterException("Service Error requesting model.", e);
         } catch (final IOException e) {
+            this.record(Operation.RETRIEVE_MODEL, clientAssociation, startTime, Outcome.IO_ERROR);
             throw new ProtocolAdapterException("Fatal IOException requesting model.", e);
+        } catch (final RuntimeException e) {
+            this.record(Operation.RETRIEVE_MODEL, clientAssociation, startTime, Outcome.OTHER_ERROR);
+            throw e;
         }
     }
 
@@ -173,10 +262,17 @@ public class Iec61850Client {
             throw new ProtocolAdapterException("File path is empty");
         }
 
+        final long startTime = this.iec61850OperationMetrics.start();
         try {
-            return clientAssociation.getModelFromSclFile(filePath);
+            final ServerModel serverModel = clientAssociation.getModelFromSclFile(filePath);
+            this.record(Operation.LOAD_SCL, clientAssociation, startTime, Outcome.OK);
+            return serverModel;
         } catch (final SclParseException e) {
+            this.record(Operation.LOAD_SCL, clientAssociation, startTime, Outcome.OTHER_ERROR);
             throw new ProtocolAdapterException("Error parsing SCL file: " + filePath, e);
+        } catch (final RuntimeException e) {
+            this.record(Operation.LOAD_SCL, clientAssociation, startTime, Outcome.OTHER_ERROR);
+            throw e;
         }
     }
 
@@ -191,16 +287,23 @@ public class Iec61850Client {
      *             In case the read action fails.
      */
     public void readAllDataValues(final ClientAssociation clientAssociation) throws NodeReadException {
+        final long startTime = this.iec61850OperationMetrics.start();
         try {
             LOGGER.debug("Start getAllDataValues from device");
             clientAssociation.getAllDataValues();
+            this.record(Operation.GET_ALL_DATA_VALUES, clientAssociation, startTime, Outcome.OK);
             LOGGER.debug("Completed getAllDataValues from device");
         } catch (final ServiceError e) {
+            this.record(Operation.GET_ALL_DATA_VALUES, clientAssociation, startTime, Outcome.SERVICE_ERROR);
             LOGGER.error("ServiceError during readAllDataValues", e);
             throw new NodeReadException(e.getMessage(), e, ConnectionState.OK);
         } catch (final IOException e) {
+            this.record(Operation.GET_ALL_DATA_VALUES, clientAssociation, startTime, Outcome.IO_ERROR);
             LOGGER.error("IOException during readAllDataValues", e);
             throw new NodeReadException(e.getMessage(), e, ConnectionState.BROKEN);
+        } catch (final RuntimeException e) {
+            this.record(Operation.GET_ALL_DATA_VALUES, clientAssociation, startTime, Outcome.OTHER_ERROR);
+            throw e;
         }
     }
 
@@ -218,43 +321,301 @@ public class Iec61850Client {
      */
     public void readNodeDataValues(final ClientAssociation clientAssociation, final FcModelNode modelNode)
             throws NodeReadException {
+        final long startTime = this.iec61850OperationMetrics.start();
         try {
             clientAssociation.getDataValues(modelNode);
+            this.record(Operation.GET_DATA_VALUES, clientAssociation, startTime, Outcome.OK);
         } catch (final ServiceError e) {
+            this.record(Operation.GET_DATA_VALUES, clientAssociation, startTime, Outcome.SERVICE_ERROR);
             LOGGER.error("ServiceError during readNodeDataValues", e);
             throw new NodeReadException(e.getMessage(), e, ConnectionState.OK);
         } catch (final IOException e) {
+            this.record(Operation.GET_DATA_VALUES, clientAssociation, startTime, Outcome.IO_ERROR);
             LOGGER.error("IOException during readNodeDataValues", e);
             throw new NodeReadException(e.getMessage(), e, ConnectionState.BROKEN);
+        } catch (final RuntimeException e) {
+            this.record(Operation.GET_DATA_VALUES, clientAssociation, startTime, Outcome.OTHER_ERROR);
+            throw e;
         }
     }
 
     /**
-     * Executes the apply method of the given {@link Function} with retries.
+     * Read the values of all data attributes of several data objects with as
+     * few requests as possible.
+     * <p>
+     * Multiple nodes are read using a single GetDataSetValues request on an
+     * association specific data set containing the nodes. The data set is
+     * created on the first read of a combination of nodes and is reused by
+     * later reads of the same nodes on the same association. If the device
+     * does not support creating data sets, or a data set can not be read, the
+     * nodes are read one by one.
      *
-     * @return The given T.
+     * @param clientAssociation
+     *            An {@link ClientAssociation} instance.
+     * @param modelNodes
+     *            The {@link FcModelNode}s to read.
+     *
+     * @throws NodeReadException
+     *             In case the read action fails.
      */
-    public <T> T sendCommandWithRetry(final Function<T> function, final String deviceIdentification)
-            throws ProtocolAdapterException {
-        T output = null;
+    public void readNodeDataValues(final ClientAssociation clientAssociation, final List<FcModelNode> modelNodes)
+            throws NodeReadException {
+        final List<FcModelNode> uniqueNodes = this.uniqueNodes(modelNodes);
+        if (uniqueNodes.size() == 1) {
+            this.readNodeDataValues(clientAssociation, uniqueNodes.get(0));
+            return;
+        }
 
         try {
-            output = function.apply(null);
-        } catch (final NodeWriteException | NodeReadException e) {
-            if (ConnectionState.OK.equals(e.getConnectionState())) {
-                // ServiceError means we have to retry.
-                LOGGER.error("Caught ServiceError, retrying", e);
-                this.sendCommandWithRetry(function, deviceIdentification, 1, null);
+            final DataSet dataSet = this.getBatchDataSet(clientAssociation, uniqueNodes);
+            if (dataSet == null) {
+                this.readNodeDataValuesOneByOne(clientAssociation, uniqueNodes);
+                return;
+            }
+            try {
+                LOGGER.debug("Reading {} nodes using data set {}", uniqueNodes.size(), dataSet.getReferenceStr());
+                this.getDataSetValues(clientAssociation, dataSet);
+            } catch (final ServiceError e) {
+                LOGGER.warn("ServiceError reading data set {}, reading nodes one by one", dataSet.getReferenceStr(),
+                        e);
+                this.readNodeDataValuesOneByOne(clientAssociation, uniqueNodes);
+            }
+        } catch (final IOException e) {
+            LOGGER.error("IOException during readNodeDataValues", e);
+            throw new NodeReadException(e.getMessage(), e, ConnectionState.BROKEN);
+        }
+    }
+
+    /**
+     * Write the values of several data attributes with as few requests as
+     * possible.
+     * <p>
+     * Multiple nodes are written using a single SetDataSetValues request on
+     * an association specific data set containing the nodes, see
+     * {@link #readNodeDataValues(ClientAssociation, List)}. If the device does
+     * not support creating data sets, the nodes are written one by one. The
+     * nodes are written in the given order. Failing nodes do not stop the
+     * other nodes from being written.
+     *
+     * @param clientAssociation
+     *            An {@link ClientAssociation} instance.
+     * @param modelNodes
+     *            The {@link FcModelNode}s to write, with the values to write
+     *            set in the model.
+     *
+     * @throws NodeWriteException
+     *             In case writing one or more nodes fails, the message lists
+     *             the nodes that could not be written.
+     */
+    public void writeNodeDataValues(final ClientAssociation clientAssociation, final List<FcModelNode> modelNodes)
+            throws NodeWriteException {
+        final List<FcModelNode> uniqueNodes = this.uniqueNodes(modelNodes);
+        final List<ServiceError> errors;
+        try {
+            final DataSet dataSet = uniqueNodes.size() == 1 ? null
+                    : this.getBatchDataSet(clientAssociation, uniqueNodes);
+            if (dataSet == null) {
+                errors = this.writeNodeDataValuesOneByOne(clientAssociation, uniqueNodes);
             } else {
-                LOGGER.error("Caught IOException, connection with device is broken.", e);
+                errors = this.writeDataSetValues(clientAssociation, dataSet, uniqueNodes);
             }
-        } catch (final ProtocolAdapterException e) {
+        } catch (final IOException e) {
+            LOGGER.error("IOException during writeNodeDataValues", e);
+            throw new NodeWriteException(e.getMessage(), e, ConnectionState.BROKEN);
+        }
+
+        final StringBuilder failedNodes = new StringBuilder();
+        ServiceError firstError = null;
+        for (int i = 0; i < uniqueNodes.size() && i < errors.size(); i++) {
+            final ServiceError error = errors.get(i);
+            if (error != null) {
+                final String reference = uniqueNodes.get(i).getReference().toString();
+                LOGGER.error("ServiceError writing node {}: {}", reference, error.getMessage());
+                failedNodes.append(failedNodes.length() == 0 ? "" : ", ").append(reference).append(" (")
+                        .append(error.getMessage()).append(')');
+                if (firstError == null) {
+                    firstError = error;
+                }
+            }
+        }
+        if (firstError != null) {
+            throw new NodeWriteException("Unable to write: " + failedNodes, firstError, ConnectionState.OK);
+        }
+    }
+
+    private List<ServiceError> writeDataSetValues(final ClientAssociation clientAssociation, final DataSet dataSet,
+            final List<FcModelNode> modelNodes) throws IOException {
+        try {
+            LOGGER.debug("Writing {} nodes using data set {}", modelNodes.size(), dataSet.getReferenceStr());
+            return this.setDataSetValues(clientAssociation, dataSet);
+        } catch (final ServiceError e) {
+            LOGGER.warn("ServiceError writing data set {}, writing nodes one by one", dataSet.getReferenceStr(), e);
+            return this.writeNodeDataValuesOneByOne(clientAssociation, modelNodes);
+        }
+    }
+
+    /**
+     * Writes the nodes one by one and returns the {@link ServiceError} per
+     * node, {@code null} for the nodes that were written.
+     */
+    private List<ServiceError> writeNodeDataValuesOneByOne(final ClientAssociation clientAssociation,
+            final List<FcModelNode> modelNodes) throws IOException {
+        final List<ServiceError> errors = new ArrayList<>(modelNodes.size());
+        for (final FcModelNode modelNode : modelNodes) {
+            try {
+                this.setDataValues(clientAssociation, modelNode);
+                errors.add(null);
+            } catch (final ServiceError e) {
+                errors.add(e);
+            }
+        }
+        return errors;
+    }
+
+    private void getDataSetValues(final ClientAssociation clientAssociation, final DataSet dataSet)
+            throws ServiceError, IOException {
+        final long startTime = this.iec61850OperationMetrics.start();
+        Outcome outcome = Outcome.OTHER_ERROR;
+        try {
+            clientAssociation.getDataSetValues(dataSet);
+            outcome = Outcome.OK;
+        } catch (final ServiceError e) {
+            outcome = Outcome.SERVICE_ERROR;
+            throw e;
+        } catch (final IOException e) {
+            outcome = Outcome.IO_ERROR;
+            throw e;
+        } finally {
+            this.record(Operation.GET_DATA_SET_VALUES, clientAssociation, startTime, outcome);
+        }
+    }
+
+    private List<ServiceError> setDataSetValues(final ClientAssociation clientAssociation, final DataSet dataSet)
+            throws ServiceError, IOException {
+        final long startTime = this.iec61850OperationMetrics.start();
+        Outcome outcome = Outcome.OTHER_ERROR;
+        try {
+            final List<ServiceError> errors = clientAssociation.setDataSetValues(dataSet);
+            outcome = Outcome.OK;
+            return errors;
+        } catch (final ServiceError e) {
+            outcome = Outcome.SERVICE_ERROR;
+            throw e;
+        } catch (final IOException e) {
+            outcome = Outcome.IO_ERROR;
+            throw e;
+        } finally {
+            this.record(Operation.SET_DATA_SET_VALUES, clientAssociation, startTime, outcome);
+        }
+    }
+
+    private void setDataValues(final ClientAssociation clientAssociation, final FcModelNode modelNode)
+            throws ServiceError, IOException {
+        final long startTime = this.iec61850OperationMetrics.start();
+        Outcome outcome = Outcome.OTHER_ERROR;
+        try {
+            clientAssociation.setDataValues(modelNode);
+            outcome = Outcome.OK;
+        } catch (final ServiceError e) {
+            outcome = Outcome.SERVICE_ERROR;
             throw e;
-        } catch (final Exception e) {
-            throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
+        } catch (final IOException e) {
+            outcome = Outcome.IO_ERROR;
+            throw e;
+        } finally {
+            this.record(Operation.SET_DATA_VALUES, clientAssociation, startTime, outcome);
+        }
+    }
+
+    private void createDataSet(final ClientAssociation clientAssociation, final DataSet dataSet)
+            throws ServiceError, IOException {
+        final long startTime = this.iec61850OperationMetrics.start();
+        Outcome outcome = Outcome.OTHER_ERROR;
+        try {
+            clientAssociation.createDataSet(dataSet);
+            outcome = Outcome.OK;
+        } catch (final ServiceError e) {
+            outcome = Outcome.SERVICE_ERROR;
+            throw e;
+        } catch (final IOException e) {
+            outcome = Outcome.IO_ERROR;
+            throw e;
+        } finally {
+            this.record(Operation.CREATE_DATA_SET, clientAssociation, startTime, outcome);
+        }
+    }
+
+    private void record(final Operation operation, final ClientAssociation clientAssociation, final long startTime,
+            final Outcome outcome) {
+        this.iec61850OperationMetrics.record(operation, clientAssociation, startTime, outcome);
+    }
+
+    private List<FcModelNode> uniqueNodes(final List<FcModelNode> modelNodes) {
+        final Map<String, FcModelNode> uniqueNodes = new LinkedHashMap<>();
+        for (final FcModelNode modelNode : modelNodes) {
+            uniqueNodes.putIfAbsent(modelNode.getReference().toString() + modelNode.getFc(), modelNode);
+        }
+        return new ArrayList<>(uniqueNodes.values());
+    }
+
+    private void readNodeDataValuesOneByOne(final ClientAssociation clientAssociation,
+            final List<FcModelNode> modelNodes) throws NodeReadException {
+        for (final FcModelNode modelNode : modelNodes) {
+            this.readNodeDataValues(clientAssociation, modelNode);
+        }
+    }
+
+    /**
+     * Returns the association specific data set with the given nodes as
+     * members, creating it on the device if necessary, or {@code null} if no
+     * data set can be used for the nodes.
+     */
+    private DataSet getBatchDataSet(final ClientAssociation clientAssociation, final List<FcModelNode> modelNodes)
+            throws IOException {
+        final List<String> memberKeys = new ArrayList<>(modelNodes.size());
+        for (final FcModelNode modelNode : modelNodes) {
+            memberKeys.add(modelNode.getReference().toString() + modelNode.getFc());
         }
 
-        return output;
+        final BatchDataSets dataSets;
+        synchronized (this.batchDataSets) {
+            dataSets = this.batchDataSets.computeIfAbsent(clientAssociation, k -> new BatchDataSets());
+        }
+
+        synchronized (dataSets) {
+            if (!dataSets.supported) {
+                return null;
+            }
+            final DataSet existing = dataSets.dataSets.get(memberKeys);
+            if (existing != null) {
+                return existing;
+            }
+            if (dataSets.dataSets.size() >= MAX_BATCH_DATA_SETS_PER_ASSOCIATION) {
+                return null;
+            }
+
+            final DataSet dataSet = new DataSet(BATCH_DATA_SET_PREFIX + (dataSets.dataSets.size() + 1),
+                    new ArrayList<>(modelNodes), true);
+            try {
+                this.createDataSet(clientAssociation, dataSet);
+            } catch (final ServiceError e) {
+                LOGGER.warn("Unable to create data set for batched reads and writes, using single nodes", e);
+                dataSets.supported = false;
+                return null;
+            }
+            dataSets.dataSets.put(memberKeys, dataSet);
+            return dataSet;
+        }
+    }
+
+    /**
+     * Executes the apply method of the given {@link Function} with retries.
+     *
+     * @return The given T.
+     */
+    public <T> T sendCommandWithRetry(final Function<T> function, final String deviceIdentification)
+            throws ProtocolAdapterException {
+        return this.applyWithRetry(function, deviceIdentification, null);
     }
 
     /**
@@ -265,51 +626,49 @@ public class Iec61850Client {
      */
     public <T> T sendCommandWithRetry(final Function<T> function, final String functionName,
             final String deviceIdentification) throws ProtocolAdapterException {
-        T output = null;
         final DeviceMessageLog deviceMessageLog = new DeviceMessageLog(IED.FLEX_OVL, LogicalDevice.LIGHTING,
                 functionName);
-        try {
-            output = function.apply(deviceMessageLog);
-        } catch (final NodeWriteException | NodeReadException e) {
-            if (ConnectionState.OK.equals(e.getConnectionState())) {
-                // ServiceError means we have to retry.
-                LOGGER.error("Caught ServiceError, retrying", e);
-                this.sendCommandWithRetry(function, deviceIdentification, 1, deviceMessageLog);
-            } else {
-                LOGGER.error("Caught IOException, connection with device is broken.", e);
-            }
-        } catch (final ProtocolAdapterException e) {
-            throw e;
-        } catch (final Exception e) {
-            throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
-        }
-
-        return output;
+        return this.applyWithRetry(function, deviceIdentification, deviceMessageLog);
     }
 
     /**
-     * Basically the same as sendCommandWithRetry, but with a retry parameter.
+     * Applies the function, and applies it again as long as the
+     * {@link Iec61850RetryPolicy} decides a failure has to be retried.
      */
-    private <T> T sendCommandWithRetry(final Function<T> function, final String deviceIdentification,
-            final int retryCount, final DeviceMessageLog deviceMessageLog) throws ProtocolAdapterException {
-
-        T output = null;
-
-        LOGGER.info("retry: {} of {} for deviceIdentification: {}", retryCount, this.maxRetryCount,
-                deviceIdentification);
+    private <T> T applyWithRetry(final Function<T> function, final String deviceIdentification,
+            final DeviceMessageLog deviceMessageLog) throws ProtocolAdapterException {
+        int retry = 0;
+        while (true) {
+            try {
+                return function.apply(deviceMessageLog);
+            } catch (final ProtocolAdapterException e) {
+                retry++;
+                final long delay = this.iec61850RetryPolicy.getRetryDelay(e, retry);
+                if (delay == Iec61850RetryPolicy.NO_RETRY) {
+                    throw e;
+                }
+                LOGGER.warn("Caught {}, retry: {} of {} for deviceIdentification: {} in {} ms",
+                        e.getClass().getSimpleName(), retry, this.maxRetryCount, deviceIdentification, delay, e);
+                this.sleepBeforeRetry(delay, e);
+            } catch (final Exception e) {
+                throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(),
+                        e);
+            }
+        }
+    }
 
+    private void sleepBeforeRetry(final long delay, final ProtocolAdapterException cause)
+            throws ProtocolAdapterException {
         try {
-            output = function.apply(deviceMessageLog);
-        } catch (final ProtocolAdapterException e) {
-            if (retryCount >= this.maxRetryCount) {
-                throw e;
-            } else {
-                this.sendCommandWithRetry(function, deviceIdentification, retryCount + 1, deviceMessageLog);
-            }
-        } catch (final Exception e) {
-            throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
+            Thread.sleep(delay);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProtocolAdapterException("Interrupted while waiting to retry: " + cause.getMessage(), cause);
         }
+    }
 
-        return output;
+    private static final class BatchDataSets {
+        private boolean supported = true;
+        private final Map<List<String>, DataSet> dataSets = new HashMap<>();
     }
 }
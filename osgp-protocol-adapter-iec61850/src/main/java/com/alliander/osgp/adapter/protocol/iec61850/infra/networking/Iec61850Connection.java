@@ -11,6 +11,7 @@ import org.joda.time.DateTime;
 import org.openmuc.openiec61850.ClientAssociation;
 import org.openmuc.openiec61850.ServerModel;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.FcModelNodeIndex;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 
 public class Iec61850Connection {
@@ -19,6 +20,8 @@ public class Iec61850Connection {
 
     private final ServerModel serverModel;
 
+    private final FcModelNodeIndex fcModelNodeIndex;
+
     private final DateTime connectionStartTime;
 
     private IED ied;
@@ -26,6 +29,7 @@ public class Iec61850Connection {
     public Iec61850Connection(final Iec61850ClientAssociation clientAssociation, final ServerModel serverModel) {
         this.clientAssociation = clientAssociation;
         this.serverModel = serverModel;
+        this.fcModelNodeIndex = FcModelNodeIndex.of(serverModel);
         this.connectionStartTime = null;
     }
 
@@ -33,6 +37,7 @@ public class Iec61850Connection {
             final DateTime connectionStartTime, final IED ied) {
         this.clientAssociation = clientAssociation;
         this.serverModel = serverModel;
+        this.fcModelNodeIndex = FcModelNodeIndex.of(serverModel);
         this.connectionStartTime = connectionStartTime;
         this.ied = ied;
     }
@@ -49,6 +54,14 @@ public class Iec61850Connection {
         return this.serverModel;
     }
 
+    /**
+     * @return The index of the nodes of the server model, shared by all
+     *         connections using the same server model.
+     */
+    public FcModelNodeIndex getFcModelNodeIndex() {
+        return this.fcModelNodeIndex;
+    }
+
     public DateTime getConnectionStartTime() {
         return this.connectionStartTime;
     }
@@ -0,0 +1,692 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.openmuc.openiec61850.ClientAssociation;
+import org.openmuc.openiec61850.FcModelNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ClientBaseEventListener;
+
+/**
+ * Pool of {@link Iec61850Connection} instances, holding at most one
+ * association per device.
+ * <p>
+ * Connecting to a device is serialized per device using
+ * {@link #lockDevice(String)}, so concurrent requests for the same device
+ * share one association instead of racing to create several. The pool can be
+ * bounded in size, in which case the least recently used association is
+ * closed when a new one is added, and associations that have not been used
+ * for a configurable amount of time can be closed periodically.
+ * <p>
+ * A request using the association with a device holds a lease on the device,
+ * taken with {@link #lease(String)} before connecting and released with
+ * {@link #release(String)} when the request is done. Associations of leased
+ * devices are never evicted because they are idle or the pool is full. As the
+ * pool holds at most one association per device, the lease also covers an
+ * association created while the lease is held.
+ * <p>
+ * Pooled associations are checked in the background by reading a small node
+ * (usually LLN0.NamPlt) on a configurable interval. Requests can rely on
+ * {@link #isRecentlyHealthy(String)} instead of checking the association
+ * themselves. Health checks are handled using the
+ * {@link Iec61850DeviceMailboxes} of the device, and are skipped while other
+ * work for the device is handled or waiting, or the device is leased or
+ * connecting. Requests connecting to a device wait for a health check in
+ * progress, so a health check never uses an association at the same time as a
+ * request. Associations that are reported closed by their event listener are
+ * removed from the pool immediately.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=ConnectionPool", description = "Pool of IEC61850 associations")
+public class Iec61850ConnectionPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ConnectionPool.class);
+
+    private static final long MINIMUM_EVICTION_INTERVAL = 1000;
+
+    private static final int HEALTH_CHECK_THREADS = 4;
+
+    /**
+     * Health checks of the pooled associations are spread randomly over this
+     * part of the health check interval, to prevent all devices from being
+     * checked at the same moment.
+     */
+    private static final double HEALTH_CHECK_JITTER_FRACTION = 0.5;
+
+    private final ConcurrentHashMap<String, PooledConnection> connections = new ConcurrentHashMap<>();
+
+    /**
+     * Connect locks of the devices that are connecting or waiting to connect.
+     */
+    private final ConcurrentHashMap<String, DeviceLock> deviceLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Number of leases per leased device. Connections are only removed for
+     * unleased devices while the lease count of the device is computed, so a
+     * lease cannot be taken in between checking and removing.
+     */
+    private final ConcurrentHashMap<String, Integer> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Guards adding connections, so the pool size is checked and the
+     * connection added as one step.
+     */
+    private final Object putLock = new Object();
+
+    private final AtomicInteger pendingConnects = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong replacedCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong idleEvictionCount = new AtomicLong();
+    private final AtomicLong lruEvictionCount = new AtomicLong();
+    private final AtomicLong brokenEvictionCount = new AtomicLong();
+    private final AtomicLong closedEvictionCount = new AtomicLong();
+    private final AtomicLong healthCheckCount = new AtomicLong();
+
+    private ScheduledExecutorService evictionExecutor;
+
+    private ScheduledExecutorService healthCheckExecutor;
+
+    @Autowired
+    private Iec61850Client iec61850Client;
+
+    @Autowired
+    private Iec61850DeviceMailboxes iec61850DeviceMailboxes;
+
+    @Autowired
+    private int connectionPoolMaxSize;
+
+    @Autowired
+    private int connectionPoolIdleTimeout;
+
+    @Autowired
+    private int connectionHealthCheckInterval;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("connectionPoolMaxSize: {}, connectionPoolIdleTimeout: {}, connectionHealthCheckInterval: {}",
+                this.connectionPoolMaxSize, this.connectionPoolIdleTimeout, this.connectionHealthCheckInterval);
+        if (this.connectionPoolIdleTimeout > 0) {
+            final long interval = Math.max(MINIMUM_EVICTION_INTERVAL, this.connectionPoolIdleTimeout / 2);
+            this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "iec61850-connection-pool-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.evictionExecutor.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (this.connectionHealthCheckInterval > 0) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            this.healthCheckExecutor = Executors.newScheduledThreadPool(HEALTH_CHECK_THREADS, runnable -> {
+                final Thread thread = new Thread(runnable,
+                        "iec61850-connection-health-check-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.healthCheckExecutor.scheduleWithFixedDelay(this::scheduleHealthChecks,
+                    this.connectionHealthCheckInterval, this.connectionHealthCheckInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (this.evictionExecutor != null) {
+            this.evictionExecutor.shutdownNow();
+        }
+        if (this.healthCheckExecutor != null) {
+            this.healthCheckExecutor.shutdownNow();
+        }
+        for (final String deviceIdentification : this.connections.keySet()) {
+            final PooledConnection pooledConnection = this.connections.remove(deviceIdentification);
+            if (pooledConnection != null) {
+                this.disconnectQuietly(deviceIdentification, pooledConnection.getConnection());
+            }
+        }
+    }
+
+    /**
+     * Acquires the connect lock for the given device. While the lock is held
+     * no other thread can connect to the same device. The lock has to be
+     * released by the same thread using {@link #unlockDevice(String)}.
+     */
+    public void lockDevice(final String deviceIdentification) {
+        final DeviceLock deviceLock = this.enterDeviceLock(deviceIdentification);
+        this.pendingConnects.incrementAndGet();
+        deviceLock.lock.lock();
+    }
+
+    public void unlockDevice(final String deviceIdentification) {
+        this.deviceLocks.get(deviceIdentification).lock.unlock();
+        this.pendingConnects.decrementAndGet();
+        this.leaveDeviceLock(deviceIdentification);
+    }
+
+    /**
+     * Takes a lease on the given device, preventing its pooled connection from
+     * being evicted because it is idle or the pool is full. Each lease has to
+     * be released using {@link #release(String)}.
+     */
+    public void lease(final String deviceIdentification) {
+        this.leases.merge(deviceIdentification, 1, Integer::sum);
+    }
+
+    public void release(final String deviceIdentification) {
+        this.leases.computeIfPresent(deviceIdentification, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public boolean isLeased(final String deviceIdentification) {
+        return this.leases.containsKey(deviceIdentification);
+    }
+
+    /**
+     * Returns the pooled connection for the given device, or {@code null} if
+     * no connection is pooled. The connection is marked as used.
+     */
+    public Iec61850Connection get(final String deviceIdentification) {
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection == null) {
+            return null;
+        }
+        pooledConnection.touch();
+        return pooledConnection.getConnection();
+    }
+
+    /**
+     * Marks the pooled connection for the given device as reused by a new
+     * request.
+     */
+    public void markReused(final String deviceIdentification) {
+        this.reusedCount.incrementAndGet();
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection != null) {
+            pooledConnection.touch();
+        }
+    }
+
+    /**
+     * Returns {@code true} if a connection is pooled for the given device and
+     * it was found to be usable recently, either when it was created or by a
+     * health check. Always returns {@code false} if background health checks
+     * are disabled.
+     */
+    public boolean isRecentlyHealthy(final String deviceIdentification) {
+        if (this.connectionHealthCheckInterval <= 0) {
+            return false;
+        }
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        // Allow for one missed health check, including jitter.
+        return pooledConnection != null && pooledConnection.getLastHealthy() >= System.currentTimeMillis()
+                - 2L * this.connectionHealthCheckInterval;
+    }
+
+    /**
+     * Marks the pooled connection for the given device as usable.
+     */
+    public void markHealthy(final String deviceIdentification) {
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection != null) {
+            pooledConnection.markHealthy();
+        }
+    }
+
+    /**
+     * Adds a connection to the pool. If another connection was pooled for the
+     * device it is disconnected. If the pool is full, the least recently used
+     * connection of another unleased device is disconnected. If all other
+     * devices are leased, the pool grows beyond its maximum size until leases
+     * are released.
+     *
+     * @param healthCheckNode
+     *            The node read to check if the connection is still usable, if
+     *            {@code null} all data values are read.
+     */
+    public void put(final String deviceIdentification, final Iec61850Connection connection,
+            final FcModelNode healthCheckNode) {
+        final List<EvictedConnection> evicted = new ArrayList<>();
+        final PooledConnection previous;
+        synchronized (this.putLock) {
+            if (this.connectionPoolMaxSize > 0 && !this.connections.containsKey(deviceIdentification)) {
+                while (this.connections.size() >= this.connectionPoolMaxSize) {
+                    final EvictedConnection lru = this.evictLeastRecentlyUsed(deviceIdentification);
+                    if (lru == null) {
+                        LOGGER.warn("Connection pool is full ({} connections) and no connection could be evicted",
+                                this.connections.size());
+                        break;
+                    }
+                    evicted.add(lru);
+                }
+            }
+            previous = this.connections.put(deviceIdentification, new PooledConnection(connection, healthCheckNode));
+        }
+
+        if (previous == null) {
+            this.createdCount.incrementAndGet();
+        } else if (previous.getConnection() != connection) {
+            LOGGER.info("Replaced pooled connection for device: {}, disconnecting previous connection",
+                    deviceIdentification);
+            this.replacedCount.incrementAndGet();
+            this.disconnectQuietly(deviceIdentification, previous.getConnection());
+        }
+        // Disconnect outside the lock, so other connections can be added in
+        // the meantime.
+        for (final EvictedConnection lru : evicted) {
+            this.disconnectQuietly(lru.deviceIdentification, lru.connection);
+        }
+    }
+
+    /**
+     * Removes the connection for the given device from the pool, without
+     * disconnecting it.
+     *
+     * @return The removed connection, or {@code null} if no connection was
+     *         pooled for the device.
+     */
+    public Iec61850Connection remove(final String deviceIdentification) {
+        final PooledConnection pooledConnection = this.connections.remove(deviceIdentification);
+        return pooledConnection == null ? null : pooledConnection.getConnection();
+    }
+
+    /**
+     * Removes the given connection from the pool because it is no longer
+     * usable and disconnects it. Nothing happens if the pool meanwhile holds
+     * another connection for the device.
+     */
+    public void evictBroken(final String deviceIdentification, final Iec61850Connection connection) {
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection != null && pooledConnection.getConnection() == connection
+                && this.connections.remove(deviceIdentification, pooledConnection)) {
+            this.brokenEvictionCount.incrementAndGet();
+            this.disconnectQuietly(deviceIdentification, connection);
+        }
+    }
+
+    /**
+     * Removes the given connection from the pool because it has not been used
+     * for some time and disconnects it. Nothing happens if the pool meanwhile
+     * holds another connection for the device, or the device is leased.
+     */
+    public void evictIdle(final String deviceIdentification, final Iec61850Connection connection) {
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection != null && pooledConnection.getConnection() == connection
+                && this.removeUnleased(deviceIdentification, pooledConnection)) {
+            this.idleEvictionCount.incrementAndGet();
+            this.disconnectQuietly(deviceIdentification, connection);
+        }
+    }
+
+    /**
+     * Removes the connection using the given event listener from the pool,
+     * because the listener was notified that the association was closed.
+     */
+    public void evictClosed(final String deviceIdentification, final Iec61850ClientBaseEventListener listener) {
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection == null || pooledConnection.getConnection().getIec61850ClientAssociation() == null
+                || pooledConnection.getConnection().getIec61850ClientAssociation().getReportListener() != listener) {
+            return;
+        }
+        if (this.connections.remove(deviceIdentification, pooledConnection)) {
+            LOGGER.info("Association closed, removed pooled connection for device: {}", deviceIdentification);
+            this.closedEvictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Makes the report listener of the pooled connection of the device read
+     * the configuration of the device again, after it has been changed in the
+     * database.
+     */
+    @ManagedOperation(description = "Makes the report listener of a pooled connection read the device configuration again")
+    public void refreshDeviceConfiguration(final String deviceIdentification) {
+        final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+        if (pooledConnection == null || pooledConnection.getConnection().getIec61850ClientAssociation() == null) {
+            return;
+        }
+        final Iec61850ClientBaseEventListener listener = pooledConnection.getConnection()
+                .getIec61850ClientAssociation().getReportListener();
+        if (listener != null) {
+            LOGGER.info("Refreshing device configuration of report listener for device: {}", deviceIdentification);
+            listener.refreshDeviceConfiguration();
+        }
+    }
+
+    private void scheduleHealthChecks() {
+        final long maxDelay = (long) (this.connectionHealthCheckInterval * HEALTH_CHECK_JITTER_FRACTION);
+        for (final Map.Entry<String, PooledConnection> entry : this.connections.entrySet()) {
+            final long delay = maxDelay > 0 ? ThreadLocalRandom.current().nextLong(maxDelay) : 0;
+            final Iec61850Connection connection = entry.getValue().getConnection();
+            this.healthCheckExecutor.schedule(() -> this.checkHealth(entry.getKey(), connection), delay,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Checks the given pooled connection of the device, unless it was removed
+     * in the meantime or a request is using the association with the device.
+     * The connect lock of the device is held during the check, so requests
+     * that start using the association in the meantime wait for it.
+     */
+    void checkHealth(final String deviceIdentification, final Iec61850Connection connection) {
+        this.iec61850DeviceMailboxes.tryExecute(deviceIdentification,
+                () -> this.checkHealthInMailbox(deviceIdentification, connection));
+    }
+
+    private void checkHealthInMailbox(final String deviceIdentification, final Iec61850Connection connection) {
+        final DeviceLock deviceLock = this.enterDeviceLock(deviceIdentification);
+        try {
+            if (!deviceLock.lock.tryLock()) {
+                // A request is connecting to the device and checks the
+                // connection itself.
+                return;
+            }
+            try {
+                final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+                if (pooledConnection == null || pooledConnection.getConnection() != connection
+                        || this.isLeased(deviceIdentification)) {
+                    // Removed in the meantime, or in use by a request.
+                    return;
+                }
+                this.readHealthCheckNode(deviceIdentification, pooledConnection);
+            } finally {
+                deviceLock.lock.unlock();
+            }
+        } finally {
+            this.leaveDeviceLock(deviceIdentification);
+        }
+    }
+
+    /**
+     * Returns the connect lock of the device, registering the current thread
+     * as a user of it. The lock is removed when its last user leaves, so
+     * there are only locks for devices that are connecting.
+     */
+    private DeviceLock enterDeviceLock(final String deviceIdentification) {
+        return this.deviceLocks.compute(deviceIdentification, (key, current) -> {
+            final DeviceLock result = current == null ? new DeviceLock() : current;
+            result.users++;
+            return result;
+        });
+    }
+
+    private void leaveDeviceLock(final String deviceIdentification) {
+        this.deviceLocks.computeIfPresent(deviceIdentification, (key, current) -> --current.users == 0 ? null
+                : current);
+    }
+
+    private void readHealthCheckNode(final String deviceIdentification, final PooledConnection pooledConnection) {
+        final ClientAssociation clientAssociation = pooledConnection.getConnection().getClientAssociation();
+        this.healthCheckCount.incrementAndGet();
+        try {
+            if (pooledConnection.getHealthCheckNode() != null) {
+                this.iec61850Client.readNodeDataValues(clientAssociation, pooledConnection.getHealthCheckNode());
+            } else {
+                this.iec61850Client.readAllDataValues(clientAssociation);
+            }
+            pooledConnection.markHealthy();
+        } catch (final NodeReadException e) {
+            LOGGER.warn("Health check failed for pooled connection for device: {}, removing connection",
+                    deviceIdentification, e);
+            this.evictBroken(deviceIdentification, pooledConnection.getConnection());
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unexpected exception during health check for device: {}", deviceIdentification, e);
+        }
+    }
+
+    /**
+     * Removes the least recently used connection of an unleased device other
+     * than the given device from the pool, without disconnecting it.
+     *
+     * @return The removed connection, or {@code null} if no connection could
+     *         be removed.
+     */
+    private EvictedConnection evictLeastRecentlyUsed(final String excludedDeviceIdentification) {
+        while (true) {
+            String lruDeviceIdentification = null;
+            PooledConnection lruConnection = null;
+            for (final Map.Entry<String, PooledConnection> entry : this.connections.entrySet()) {
+                if (entry.getKey().equals(excludedDeviceIdentification) || this.isInUse(entry.getKey())) {
+                    continue;
+                }
+                if (lruConnection == null || entry.getValue().getLastUsed() < lruConnection.getLastUsed()) {
+                    lruDeviceIdentification = entry.getKey();
+                    lruConnection = entry.getValue();
+                }
+            }
+            if (lruConnection == null) {
+                return null;
+            }
+            if (this.removeUnleased(lruDeviceIdentification, lruConnection)) {
+                LOGGER.info("Connection pool is full, evicting least recently used connection for device: {}",
+                        lruDeviceIdentification);
+                this.lruEvictionCount.incrementAndGet();
+                return new EvictedConnection(lruDeviceIdentification, lruConnection.getConnection());
+            }
+            // Leased or removed in the meantime, look again.
+        }
+    }
+
+    private void evictIdleConnections() {
+        final long idleSince = System.currentTimeMillis() - this.connectionPoolIdleTimeout;
+        for (final Map.Entry<String, PooledConnection> entry : this.connections.entrySet()) {
+            final String deviceIdentification = entry.getKey();
+            final PooledConnection pooledConnection = entry.getValue();
+            if (pooledConnection.getLastUsed() >= idleSince || this.isInUse(deviceIdentification)) {
+                continue;
+            }
+            if (this.removeUnleased(deviceIdentification, pooledConnection)) {
+                LOGGER.info("Evicting connection for device: {}, idle for more than {} ms", deviceIdentification,
+                        this.connectionPoolIdleTimeout);
+                this.idleEvictionCount.incrementAndGet();
+                this.disconnectQuietly(deviceIdentification, pooledConnection.getConnection());
+            }
+        }
+    }
+
+    /**
+     * Removes the connection from the pool if the device is not leased.
+     */
+    private boolean removeUnleased(final String deviceIdentification, final PooledConnection pooledConnection) {
+        final boolean[] removed = new boolean[1];
+        this.leases.compute(deviceIdentification, (key, count) -> {
+            if (count == null) {
+                removed[0] = this.connections.remove(key, pooledConnection);
+            }
+            return count;
+        });
+        return removed[0];
+    }
+
+    private boolean isInUse(final String deviceIdentification) {
+        return this.isLeased(deviceIdentification) || this.isDeviceLocked(deviceIdentification)
+                || this.iec61850DeviceMailboxes.isBusy(deviceIdentification);
+    }
+
+    private boolean isDeviceLocked(final String deviceIdentification) {
+        final DeviceLock deviceLock = this.deviceLocks.get(deviceIdentification);
+        return deviceLock != null && deviceLock.lock.isLocked();
+    }
+
+    private void disconnectQuietly(final String deviceIdentification, final Iec61850Connection connection) {
+        final ClientAssociation clientAssociation = connection.getClientAssociation();
+        if (clientAssociation == null) {
+            return;
+        }
+        try {
+            clientAssociation.disconnect();
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Unexpected exception disconnecting pooled connection for device: {}", deviceIdentification,
+                    e);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of pooled associations")
+    public int getSize() {
+        return this.connections.size();
+    }
+
+    @ManagedAttribute(description = "Number of pooled associations used in the last minute")
+    public int getActiveCount() {
+        return this.connections.size() - this.getIdleCount();
+    }
+
+    @ManagedAttribute(description = "Number of pooled associations not used in the last minute")
+    public int getIdleCount() {
+        final long idleSince = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1);
+        int idleCount = 0;
+        for (final PooledConnection pooledConnection : this.connections.values()) {
+            if (pooledConnection.getLastUsed() < idleSince) {
+                idleCount++;
+            }
+        }
+        return idleCount;
+    }
+
+    @ManagedAttribute(description = "Number of threads connecting or waiting to connect to a device")
+    public int getPendingConnects() {
+        return this.pendingConnects.get();
+    }
+
+    @ManagedAttribute(description = "Number of devices with threads connecting or waiting to connect")
+    public int getConnectingDeviceCount() {
+        return this.deviceLocks.size();
+    }
+
+    @ManagedAttribute(description = "Maximum number of pooled associations, 0 means unbounded")
+    public int getMaxSize() {
+        return this.connectionPoolMaxSize;
+    }
+
+    @ManagedAttribute(description = "Number of associations added to the pool for devices without a pooled association")
+    public long getCreatedCount() {
+        return this.createdCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of devices with requests using their association")
+    public int getLeasedCount() {
+        return this.leases.size();
+    }
+
+    @ManagedAttribute(description = "Number of pooled associations replaced by a new association to the same device")
+    public long getReplacedCount() {
+        return this.replacedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of requests that reused a pooled association")
+    public long getReusedCount() {
+        return this.reusedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of associations closed because they were idle")
+    public long getIdleEvictionCount() {
+        return this.idleEvictionCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of associations closed because the pool was full")
+    public long getLruEvictionCount() {
+        return this.lruEvictionCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of associations removed because they were no longer usable")
+    public long getBrokenEvictionCount() {
+        return this.brokenEvictionCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of associations removed because they were closed")
+    public long getClosedEvictionCount() {
+        return this.closedEvictionCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of background health checks performed")
+    public long getHealthCheckCount() {
+        return this.healthCheckCount.get();
+    }
+
+    private static final class DeviceLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Number of threads holding or waiting for the lock, only changed
+         * while the lock is computed in the map of locks.
+         */
+        private int users;
+    }
+
+    private static final class EvictedConnection {
+
+        private final String deviceIdentification;
+        private final Iec61850Connection connection;
+
+        EvictedConnection(final String deviceIdentification, final Iec61850Connection connection) {
+            this.deviceIdentification = deviceIdentification;
+            this.connection = connection;
+        }
+    }
+
+    private static final class PooledConnection {
+
+        private final Iec61850Connection connection;
+        private final FcModelNode healthCheckNode;
+        private volatile long lastUsed;
+        private volatile long lastHealthy;
+
+        PooledConnection(final Iec61850Connection connection, final FcModelNode healthCheckNode) {
+            this.connection = connection;
+            this.healthCheckNode = healthCheckNode;
+            this.lastUsed = System.currentTimeMillis();
+            this.lastHealthy = this.lastUsed;
+        }
+
+        Iec61850Connection getConnection() {
+            return this.connection;
+        }
+
+        FcModelNode getHealthCheckNode() {
+            return this.healthCheckNode;
+        }
+
+        long getLastHealthy() {
+            return this.lastHealthy;
+        }
+
+        void markHealthy() {
+            this.lastHealthy = System.currentTimeMillis();
+        }
+
+        long getLastUsed() {
+            return this.lastUsed;
+        }
+
+        void touch() {
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,528 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.DeviceMailboxTimeoutException;
+
+/**
+ * Handles the work for a device one after the other, in the order it is
+ * received. Work for different devices is handled in parallel. Requests and
+ * registrations received from devices, the end of report windows and the
+ * health checks of the {@link Iec61850ConnectionPool} are handled using the
+ * mailbox of their device, so they do not use the association with a device
+ * at the same time. Idle and least recently used associations are not
+ * evicted from the pool while work for the device is handled or waiting.
+ * <p>
+ * A request is handled by the thread that submitted it if no other work for
+ * the device is handled or waiting, so it is acknowledged or rolled back as
+ * before. Otherwise the request is queued in the mailbox of the device and the
+ * submitting thread returns right away, so a busy device never keeps the
+ * consumer threads waiting. Queued requests are handled by a fixed number of
+ * mailbox threads, once the work for the device received before them is done.
+ * When associations to the device are pooled, queued requests reuse the
+ * association the request before them left in the
+ * {@link Iec61850ConnectionPool}, instead of connecting at the same time.
+ * <p>
+ * Registrations and the end of report windows wait at most a configurable
+ * time for the work for the device handled. After that a
+ * {@link DeviceMailboxTimeoutException} is thrown. Health checks do not wait
+ * at all and are skipped while other work for the device is handled or
+ * waiting.
+ * <p>
+ * A thread handling work for a device can handle nested work for the same
+ * device without waiting.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=DeviceMailboxes", description = "Requests waiting for earlier requests for the same device")
+public class Iec61850DeviceMailboxes {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceMailboxes.class);
+
+    /**
+     * A request for a device.
+     */
+    @FunctionalInterface
+    public interface DeviceTask<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Mailboxes of devices with requests being handled or waiting.
+     */
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final AtomicLong handledCount = new AtomicLong();
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+
+    private final Latency waitTime = new Latency();
+
+    @Autowired
+    private boolean isDeviceMailboxEnabled;
+
+    @Autowired
+    private int deviceMailboxWaitTimeout;
+
+    @Autowired
+    private int deviceMailboxPoolSize;
+
+    private ThreadPoolExecutor executor;
+
+    public Iec61850DeviceMailboxes() {
+        // Configured by Spring.
+    }
+
+    Iec61850DeviceMailboxes(final boolean isDeviceMailboxEnabled, final int deviceMailboxWaitTimeout,
+            final int deviceMailboxPoolSize) {
+        this.isDeviceMailboxEnabled = isDeviceMailboxEnabled;
+        this.deviceMailboxWaitTimeout = deviceMailboxWaitTimeout;
+        this.deviceMailboxPoolSize = deviceMailboxPoolSize;
+        this.init();
+    }
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("isDeviceMailboxEnabled: {}, deviceMailboxWaitTimeout: {}, deviceMailboxPoolSize: {}",
+                this.isDeviceMailboxEnabled, this.deviceMailboxWaitTimeout, this.deviceMailboxPoolSize);
+
+        if (this.isDeviceMailboxEnabled) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            // A thread handles the queued requests of one device at a time,
+            // devices with queued requests wait for a free thread.
+            this.executor = new ThreadPoolExecutor(this.deviceMailboxPoolSize, this.deviceMailboxPoolSize, 0L,
+                    TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+                        final Thread thread = new Thread(runnable,
+                                "iec61850-device-mailbox-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * Stops handling queued requests. Requests still queued are passed to
+     * their failure handler, so they can be redelivered.
+     */
+    @PreDestroy
+    void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+        }
+        for (final Map.Entry<String, Mailbox> entry : this.mailboxes.entrySet()) {
+            this.failQueued(entry.getKey(), entry.getValue(),
+                    new IllegalStateException("Shutting down, request for device: " + entry.getKey()
+                            + " was not handled"));
+        }
+    }
+
+    /**
+     * Handles a request for the device after the work for the device received
+     * earlier. If no other work for the device is handled or waiting, the
+     * request is handled by the calling thread. Otherwise the request is
+     * queued and the calling thread returns right away, a mailbox thread
+     * handles the request once the earlier work is done.
+     *
+     * @param failureHandler
+     *            Receives the exception thrown by a queued request. Exceptions
+     *            thrown by a request handled by the calling thread are thrown
+     *            to the caller.
+     * @return {@code true} if the request was handled, {@code false} if it
+     *         was queued.
+     */
+    public <E extends Exception> boolean submit(final String deviceIdentification, final DeviceTask<E> task,
+            final Consumer<Exception> failureHandler) throws E {
+        if (!this.isDeviceMailboxEnabled || deviceIdentification == null) {
+            task.run();
+            return true;
+        }
+        final Mailbox mailbox = this.enter(deviceIdentification);
+        if (mailbox.lock.isHeldByCurrentThread()) {
+            try {
+                task.run();
+                return true;
+            } finally {
+                this.leave(deviceIdentification);
+            }
+        }
+
+        final boolean handle;
+        boolean startDraining = false;
+        synchronized (mailbox) {
+            handle = mailbox.queue.isEmpty() && !mailbox.lock.hasQueuedThreads() && mailbox.lock.tryLock();
+            if (!handle) {
+                mailbox.queue.add(new QueuedTask(task, failureHandler));
+                startDraining = !mailbox.draining;
+                mailbox.draining = true;
+                this.queuedCount.incrementAndGet();
+                this.maxWaiting.accumulateAndGet(mailbox.getWaitingCount(), Math::max);
+            }
+        }
+
+        if (!handle) {
+            LOGGER.info("Request for device: {} queued after earlier work for the device", deviceIdentification);
+            if (startDraining) {
+                this.startDraining(deviceIdentification, mailbox);
+            }
+            return false;
+        }
+        try {
+            this.handledCount.incrementAndGet();
+            task.run();
+            return true;
+        } finally {
+            mailbox.lock.unlock();
+            this.leave(deviceIdentification);
+        }
+    }
+
+    /**
+     * Handles work for the device, after the work for the device handled or
+     * waiting for the mailbox lock. Queued requests are not waited for.
+     *
+     * @throws DeviceMailboxTimeoutException
+     *             If the earlier work was not done within the wait timeout,
+     *             the task is not run.
+     */
+    public <E extends Exception> void execute(final String deviceIdentification, final DeviceTask<E> task)
+            throws E {
+        if (!this.isDeviceMailboxEnabled || deviceIdentification == null) {
+            task.run();
+        } else {
+            this.executeInMailbox(deviceIdentification, task);
+        }
+    }
+
+    /**
+     * Handles work for the device if no other work for the device is handled
+     * or waiting, without waiting itself.
+     *
+     * @return {@code true} if the task was run, {@code false} if it was
+     *         skipped.
+     */
+    public <E extends Exception> boolean tryExecute(final String deviceIdentification, final DeviceTask<E> task)
+            throws E {
+        if (!this.isDeviceMailboxEnabled || deviceIdentification == null) {
+            task.run();
+            return true;
+        }
+        final Mailbox mailbox = this.enter(deviceIdentification);
+        try {
+            final boolean locked;
+            synchronized (mailbox) {
+                locked = mailbox.queue.isEmpty() && !mailbox.lock.hasQueuedThreads() && mailbox.lock.tryLock();
+            }
+            if (!locked) {
+                this.skippedCount.incrementAndGet();
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                mailbox.lock.unlock();
+            }
+        } finally {
+            this.leave(deviceIdentification);
+        }
+    }
+
+    /**
+     * @return {@code true} if work for the device is handled or waiting.
+     */
+    public boolean isBusy(final String deviceIdentification) {
+        return this.mailboxes.containsKey(deviceIdentification);
+    }
+
+    private <E extends Exception> void executeInMailbox(final String deviceIdentification, final DeviceTask<E> task)
+            throws E {
+        final Mailbox mailbox = this.enter(deviceIdentification);
+        try {
+            final long submitTime = System.currentTimeMillis();
+            final boolean nested = mailbox.lock.isHeldByCurrentThread();
+            if (!nested && mailbox.lock.isLocked()) {
+                this.maxWaiting.accumulateAndGet(mailbox.getWaitingCount() + 1, Math::max);
+                LOGGER.info("Work for device: {} waits for earlier work for the device", deviceIdentification);
+            }
+
+            final boolean locked;
+            mailbox.waiting.incrementAndGet();
+            try {
+                locked = this.lock(mailbox);
+            } finally {
+                mailbox.waiting.decrementAndGet();
+            }
+            if (!locked) {
+                this.timeoutCount.incrementAndGet();
+                throw new DeviceMailboxTimeoutException("Earlier work for device: " + deviceIdentification
+                        + " was not done within " + this.deviceMailboxWaitTimeout + " ms");
+            }
+            try {
+                if (!nested) {
+                    this.waitTime.add(System.currentTimeMillis() - submitTime);
+                    this.handledCount.incrementAndGet();
+                }
+                task.run();
+            } finally {
+                mailbox.lock.unlock();
+            }
+        } finally {
+            this.leave(deviceIdentification);
+        }
+    }
+
+    private boolean lock(final Mailbox mailbox) {
+        try {
+            return mailbox.lock.tryLock(this.deviceMailboxWaitTimeout, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void startDraining(final String deviceIdentification, final Mailbox mailbox) {
+        try {
+            this.executor.execute(() -> this.drain(deviceIdentification, mailbox));
+        } catch (final RejectedExecutionException e) {
+            this.failQueued(deviceIdentification, mailbox, e);
+        }
+    }
+
+    /**
+     * Handles the queued requests of the device one after the other, until
+     * none are left. The mailbox lock is taken before a request is taken from
+     * the queue, so a request submitted in the meantime is never handled
+     * before it.
+     */
+    private void drain(final String deviceIdentification, final Mailbox mailbox) {
+        while (true) {
+            QueuedTask queuedTask = null;
+            Exception failure = null;
+            mailbox.lock.lock();
+            try {
+                synchronized (mailbox) {
+                    queuedTask = mailbox.queue.poll();
+                    if (queuedTask == null) {
+                        mailbox.draining = false;
+                        return;
+                    }
+                }
+                this.waitTime.add(System.currentTimeMillis() - queuedTask.submitTime);
+                this.handledCount.incrementAndGet();
+                queuedTask.task.run();
+            } catch (final Exception e) {
+                failure = e;
+            } finally {
+                mailbox.lock.unlock();
+            }
+            if (failure != null) {
+                this.failedCount.incrementAndGet();
+                queuedTask.failureHandler.accept(failure);
+            }
+            this.leave(deviceIdentification);
+        }
+    }
+
+    private void failQueued(final String deviceIdentification, final Mailbox mailbox, final Exception e) {
+        final Queue<QueuedTask> failed;
+        synchronized (mailbox) {
+            failed = new ArrayDeque<>(mailbox.queue);
+            mailbox.queue.clear();
+            mailbox.draining = false;
+        }
+        for (final QueuedTask queuedTask : failed) {
+            this.failedCount.incrementAndGet();
+            queuedTask.failureHandler.accept(e);
+            this.leave(deviceIdentification);
+        }
+    }
+
+    private Mailbox enter(final String deviceIdentification) {
+        return this.mailboxes.compute(deviceIdentification, (key, current) -> {
+            final Mailbox result = current == null ? new Mailbox() : current;
+            result.users++;
+            return result;
+        });
+    }
+
+    private void leave(final String deviceIdentification) {
+        this.mailboxes.computeIfPresent(deviceIdentification, (key, current) -> --current.users == 0 ? null
+                : current);
+    }
+
+    /**
+     * @return The number of requests for the device waiting for an earlier
+     *         request to be handled.
+     */
+    @ManagedOperation(description = "Number of requests for a device waiting for earlier requests")
+    public int getWaitingCount(final String deviceIdentification) {
+        final Mailbox mailbox = this.mailboxes.get(deviceIdentification);
+        return mailbox == null ? 0 : mailbox.getWaitingCount();
+    }
+
+    @ManagedAttribute(description = "Whether requests for the same device are handled one after the other")
+    public boolean isEnabled() {
+        return this.isDeviceMailboxEnabled;
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds registrations and the end of report windows wait for earlier work")
+    public int getWaitTimeout() {
+        return this.deviceMailboxWaitTimeout;
+    }
+
+    @ManagedAttribute(description = "Number of threads handling queued requests")
+    public int getPoolSize() {
+        return this.deviceMailboxPoolSize;
+    }
+
+    @ManagedAttribute(description = "Number of devices with queued requests waiting for a free thread")
+    public int getWaitingDeviceCount() {
+        return this.executor == null ? 0 : this.executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Number of queued requests that failed and were passed to their failure handler")
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of requests that waited longer than the wait timeout and were not handled")
+    public long getTimeoutCount() {
+        return this.timeoutCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of health checks skipped because other work for the device was handled")
+    public long getSkippedCount() {
+        return this.skippedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of devices with requests being handled or waiting")
+    public int getActiveDeviceCount() {
+        return this.mailboxes.size();
+    }
+
+    @ManagedAttribute(description = "Number of requests handled")
+    public long getHandledCount() {
+        return this.handledCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of requests queued after earlier requests for the same device")
+    public long getQueuedCount() {
+        return this.queuedCount.get();
+    }
+
+    @ManagedAttribute(description = "Maximum number of requests that waited for the same device at the same time")
+    public int getMaxWaitingCount() {
+        return this.maxWaiting.get();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds requests waited for earlier requests")
+    public double getAverageWaitMillis() {
+        return this.waitTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds a request waited for earlier requests")
+    public long getMaxWaitMillis() {
+        return this.waitTime.getMax();
+    }
+
+    private static final class Mailbox {
+
+        /**
+         * Held while work for the device is handled. Fair, so waiting work is
+         * handled in the order it arrived.
+         */
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        /**
+         * Requests waiting for earlier work, only used while synchronized on
+         * the mailbox.
+         */
+        private final Queue<QueuedTask> queue = new ArrayDeque<>();
+
+        /**
+         * Whether a mailbox thread handles the queued requests, only used
+         * while synchronized on the mailbox.
+         */
+        private boolean draining;
+
+        /**
+         * Number of threads waiting for the lock to handle work themselves.
+         */
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        /**
+         * Number of tasks handled or waiting, only changed while the mailbox
+         * is computed in the map of mailboxes.
+         */
+        private int users;
+
+        synchronized int getWaitingCount() {
+            return this.queue.size() + this.waiting.get();
+        }
+    }
+
+    private static final class QueuedTask {
+
+        private final DeviceTask<?> task;
+        private final Consumer<Exception> failureHandler;
+        private final long submitTime = System.currentTimeMillis();
+
+        QueuedTask(final DeviceTask<?> task, final Consumer<Exception> failureHandler) {
+            this.task = task;
+            this.failureHandler = failureHandler;
+        }
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void add(final long millis) {
+            this.count.incrementAndGet();
+            this.totalMillis.addAndGet(millis);
+            this.maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        double getAverage() {
+            final long n = this.count.get();
+            return n == 0 ? 0 : (double) this.totalMillis.get() / n;
+        }
+
+        long getMax() {
+            return this.maxMillis.get();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openmuc.openiec61850.ClientAssociation;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
+
+/**
+ * Latency histograms and error counts of the ACSI operations executed on
+ * devices, per operation and IED.
+ * <p>
+ * Operations are recorded using counters that do not lock, the device and IED
+ * of an association are looked up in a concurrent map. For each operation
+ * and IED the number of executions per outcome, the total and maximum
+ * latency, the device with the maximum latency and a histogram of the
+ * latencies are kept, until the metrics are reset.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=AcsiOperations", description = "Latencies and errors of ACSI operations executed on devices")
+public class Iec61850OperationMetrics {
+
+    public enum Operation {
+        ASSOCIATE,
+        RETRIEVE_MODEL,
+        LOAD_SCL,
+        GET_ALL_DATA_VALUES,
+        GET_DATA_VALUES,
+        GET_DATA_SET_VALUES,
+        SET_DATA_VALUES,
+        SET_DATA_SET_VALUES,
+        CREATE_DATA_SET,
+        ENABLE_REPORTING
+    }
+
+    public enum Outcome {
+        OK,
+        SERVICE_ERROR,
+        IO_ERROR,
+        OTHER_ERROR
+    }
+
+    /**
+     * Upper bounds in milliseconds of the histogram buckets, the last bucket
+     * holds all longer latencies.
+     */
+    private static final long[] BUCKET_BOUNDS_MILLIS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000,
+            10000, 30000 };
+
+    private static final String UNKNOWN_IED = "UNKNOWN";
+
+    /**
+     * Series by operation and IED, the last IED index is used for
+     * associations of which the IED is unknown.
+     */
+    private final Series[][] series = new Series[Operation.values().length][IED.values().length + 1];
+
+    /**
+     * Device and IED of the associations, by identity of the association. The
+     * entries of associations that are garbage collected are removed when a
+     * new association is registered.
+     */
+    private final ConcurrentHashMap<AssociationKey, Tag> tags = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<ClientAssociation> collectedAssociations = new ReferenceQueue<>();
+
+    public Iec61850OperationMetrics() {
+        for (final Series[] operationSeries : this.series) {
+            for (int i = 0; i < operationSeries.length; i++) {
+                operationSeries[i] = new Series();
+            }
+        }
+    }
+
+    /**
+     * Registers the device and IED of a new association, so operations on
+     * the association are recorded for the IED.
+     */
+    public void register(final ClientAssociation clientAssociation, final String deviceIdentification,
+            final IED ied) {
+        Reference<? extends ClientAssociation> collected;
+        while ((collected = this.collectedAssociations.poll()) != null) {
+            this.tags.remove(collected);
+        }
+        this.tags.put(new AssociationKey(clientAssociation, this.collectedAssociations),
+                new Tag(deviceIdentification, ied));
+    }
+
+    /**
+     * @return The start time to pass to the record methods.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records an operation executed on an association.
+     */
+    public void record(final Operation operation, final ClientAssociation clientAssociation, final long startTime,
+            final Outcome outcome) {
+        final Tag tag = clientAssociation == null ? null
+                : this.tags.get(new AssociationKey(clientAssociation, null));
+        if (tag == null) {
+            this.record(operation, null, null, startTime, outcome);
+        } else {
+            this.record(operation, tag.deviceIdentification, tag.ied, startTime, outcome);
+        }
+    }
+
+    /**
+     * Records an operation executed for a device.
+     */
+    public void record(final Operation operation, final String deviceIdentification, final IED ied,
+            final long startTime, final Outcome outcome) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+        this.getSeries(operation, ied).add(micros, outcome, deviceIdentification);
+    }
+
+    private Series getSeries(final Operation operation, final IED ied) {
+        return this.series[operation.ordinal()][ied == null ? IED.values().length : ied.ordinal()];
+    }
+
+    private Series getSeries(final String operation, final String ied) {
+        final Operation op = Operation.valueOf(operation);
+        return this.getSeries(op, UNKNOWN_IED.equals(ied) ? null : IED.valueOf(ied));
+    }
+
+    @ManagedAttribute(description = "Upper bounds in milliseconds of the histogram buckets, the last bucket holds all longer latencies")
+    public long[] getBucketBoundsMillis() {
+        return BUCKET_BOUNDS_MILLIS.clone();
+    }
+
+    @ManagedAttribute(description = "Summary per operation and IED of the operations executed since the last reset")
+    public String[] getSummary() {
+        final List<String> lines = new ArrayList<>();
+        for (final Operation operation : Operation.values()) {
+            for (int i = 0; i <= IED.values().length; i++) {
+                final Series operationSeries = this.series[operation.ordinal()][i];
+                final long count = operationSeries.count.sum();
+                if (count == 0) {
+                    continue;
+                }
+                final String ied = i == IED.values().length ? UNKNOWN_IED : IED.values()[i].name();
+                lines.add(String.format(
+                        "%s %s count=%d ok=%d serviceError=%d ioError=%d otherError=%d avgMillis=%.1f maxMillis=%.1f p50Millis<=%s p95Millis<=%s p99Millis<=%s slowestDevice=%s",
+                        operation, ied, count, operationSeries.getCount(Outcome.OK),
+                        operationSeries.getCount(Outcome.SERVICE_ERROR), operationSeries.getCount(Outcome.IO_ERROR),
+                        operationSeries.getCount(Outcome.OTHER_ERROR),
+                        operationSeries.totalMicros.sum() / 1000.0 / count,
+                        operationSeries.maxMicros.get() / 1000.0, operationSeries.getPercentileBound(count, 0.50),
+                        operationSeries.getPercentileBound(count, 0.95),
+                        operationSeries.getPercentileBound(count, 0.99), operationSeries.slowestDevice));
+            }
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    @ManagedOperation(description = "Latency histogram of an operation for an IED (or UNKNOWN), see the bucket bounds")
+    public long[] getHistogram(final String operation, final String ied) {
+        final Series operationSeries = this.getSeries(operation, ied);
+        final long[] histogram = new long[operationSeries.buckets.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = operationSeries.buckets[i].sum();
+        }
+        return histogram;
+    }
+
+    @ManagedOperation(description = "Number of executions of an operation for an IED (or UNKNOWN) with an outcome: OK, SERVICE_ERROR, IO_ERROR or OTHER_ERROR")
+    public long getCount(final String operation, final String ied, final String outcome) {
+        return this.getSeries(operation, ied).getCount(Outcome.valueOf(outcome));
+    }
+
+    @ManagedOperation(description = "Clears all latencies and counts")
+    public void reset() {
+        for (final Series[] operationSeries : this.series) {
+            for (final Series s : operationSeries) {
+                s.reset();
+            }
+        }
+    }
+
+    /**
+     * Weak key comparing associations by identity. Keys of collected
+     * associations are only equal to themselves.
+     */
+    private static final class AssociationKey extends WeakReference<ClientAssociation> {
+
+        private final int hashCode;
+
+        AssociationKey(final ClientAssociation clientAssociation,
+                final ReferenceQueue<ClientAssociation> referenceQueue) {
+            super(clientAssociation, referenceQueue);
+            this.hashCode = System.identityHashCode(clientAssociation);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof AssociationKey)) {
+                return false;
+            }
+            final ClientAssociation clientAssociation = this.get();
+            return clientAssociation != null && clientAssociation == ((AssociationKey) obj).get();
+        }
+    }
+
+    private static final class Tag {
+
+        private final String deviceIdentification;
+        private final IED ied;
+
+        Tag(final String deviceIdentification, final IED ied) {
+            this.deviceIdentification = deviceIdentification;
+            this.ied = ied;
+        }
+    }
+
+    private static final class Series {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        private final LongAdder totalMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+        private volatile String slowestDevice;
+
+        Series() {
+            for (int i = 0; i < this.outcomes.length; i++) {
+                this.outcomes[i] = new LongAdder();
+            }
+            for (int i = 0; i < this.buckets.length; i++) {
+                this.buckets[i] = new LongAdder();
+            }
+        }
+
+        void add(final long micros, final Outcome outcome, final String deviceIdentification) {
+            this.count.increment();
+            this.outcomes[outcome.ordinal()].increment();
+            this.totalMicros.add(micros);
+            this.buckets[bucketIndex(micros)].increment();
+
+            long max = this.maxMicros.get();
+            while (micros > max) {
+                if (this.maxMicros.compareAndSet(max, micros)) {
+                    this.slowestDevice = deviceIdentification;
+                    break;
+                }
+                max = this.maxMicros.get();
+            }
+        }
+
+        private static int bucketIndex(final long micros) {
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MILLIS.length && micros > BUCKET_BOUNDS_MILLIS[i] * 1000) {
+                i++;
+            }
+            return i;
+        }
+
+        long getCount(final Outcome outcome) {
+            return this.outcomes[outcome.ordinal()].sum();
+        }
+
+        /**
+         * @return The upper bound in milliseconds of the bucket holding the
+         *         percentile, or "max" for the last bucket.
+         */
+        String getPercentileBound(final long count, final double percentile) {
+            final long rank = (long) Math.ceil(count * percentile);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                cumulative += this.buckets[i].sum();
+                if (cumulative >= rank) {
+                    return Long.toString(BUCKET_BOUNDS_MILLIS[i]);
+                }
+            }
+            return "max";
+        }
+
+        void reset() {
+            this.count.reset();
+            for (final LongAdder outcome : this.outcomes) {
+                outcome.reset();
+            }
+            for (final LongAdder bucket : this.buckets) {
+                bucket.reset();
+            }
+            this.totalMicros.reset();
+            this.maxMicros.set(0);
+            this.slowestDevice = null;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Handles register device requests received from devices outside of the
+ * Netty I/O threads, because handling a registration connects to the device.
+ * <p>
+ * Registrations are handled by a number of worker threads sharing a bounded
+ * queue. Only one registration per device is queued or handled at a time: a
+ * registration received while an earlier registration of the device is
+ * waiting in the queue replaces the earlier one, a registration received
+ * while an earlier one is being handled is discarded. When the queue is full,
+ * new registrations are discarded, the device registers again later.
+ * <p>
+ * When no worker threads are configured, registrations are handled by the
+ * thread that received them.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=RegistrationQueue", description = "Handling of register device requests received from devices")
+public class Iec61850RegistrationQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850RegistrationQueue.class);
+
+    /**
+     * Handles a registration. Called by a worker thread.
+     */
+    @FunctionalInterface
+    public interface RegistrationHandler {
+        void handle() throws ProtocolAdapterException;
+    }
+
+    private final ConcurrentHashMap<String, PendingRegistration> pendingRegistrations = new ConcurrentHashMap<>();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final Latency waitTime = new Latency();
+    private final Latency processingTime = new Latency();
+
+    @Autowired
+    private int registrationWorkerThreads;
+
+    @Autowired
+    private int registrationQueueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("registrationWorkerThreads: {}, registrationQueueCapacity: {}", this.registrationWorkerThreads,
+                this.registrationQueueCapacity);
+
+        if (this.registrationWorkerThreads > 0) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(this.registrationWorkerThreads, this.registrationWorkerThreads, 0L,
+                    TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(this.registrationQueueCapacity),
+                    runnable -> {
+                        final Thread thread = new Thread(runnable,
+                                "iec61850-registration-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the registration of a device for handling.
+     */
+    public void submit(final String deviceIdentification, final RegistrationHandler handler) {
+        this.submittedCount.incrementAndGet();
+
+        if (this.executor == null) {
+            this.handle(deviceIdentification, handler, System.currentTimeMillis());
+            return;
+        }
+
+        final PendingRegistration registration = new PendingRegistration(handler);
+        final PendingRegistration pending = this.pendingRegistrations.putIfAbsent(deviceIdentification,
+                registration);
+        if (pending != null) {
+            this.coalescedCount.incrementAndGet();
+            if (pending.replace(handler)) {
+                LOGGER.info("Registration of device: {} is still queued, replaced it by the new registration",
+                        deviceIdentification);
+            } else {
+                LOGGER.info("Registration of device: {} is still being handled, discarding the new registration",
+                        deviceIdentification);
+            }
+            return;
+        }
+
+        final long submitTime = System.currentTimeMillis();
+        try {
+            this.executor.execute(() -> this.run(deviceIdentification, registration, submitTime));
+        } catch (final RejectedExecutionException e) {
+            this.pendingRegistrations.remove(deviceIdentification, registration);
+            this.discardedCount.incrementAndGet();
+            LOGGER.warn("Registration queue full, discarding registration of device: {}", deviceIdentification);
+        }
+    }
+
+    private void run(final String deviceIdentification, final PendingRegistration registration,
+            final long submitTime) {
+        try {
+            this.handle(deviceIdentification, registration.start(), submitTime);
+        } finally {
+            this.pendingRegistrations.remove(deviceIdentification, registration);
+        }
+    }
+
+    private void handle(final String deviceIdentification, final RegistrationHandler handler,
+            final long submitTime) {
+        final long startTime = System.currentTimeMillis();
+        this.waitTime.add(startTime - submitTime);
+        try {
+            handler.handle();
+            this.completedCount.incrementAndGet();
+        } catch (final Exception e) {
+            this.failedCount.incrementAndGet();
+            LOGGER.error("Failed to handle registration of device: {}", deviceIdentification, e);
+        } finally {
+            this.processingTime.add(System.currentTimeMillis() - startTime);
+        }
+    }
+
+    @ManagedAttribute(description = "Worker threads, 0 if registrations are handled by the receiving thread")
+    public int getWorkerThreads() {
+        return this.registrationWorkerThreads;
+    }
+
+    @ManagedAttribute(description = "Number of registrations submitted for handling")
+    public long getSubmittedCount() {
+        return this.submittedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of registrations replaced or discarded because an earlier registration of the device was pending")
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of registrations discarded because the queue was full")
+    public long getDiscardedCount() {
+        return this.discardedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of registrations handled successfully")
+    public long getCompletedCount() {
+        return this.completedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of registrations that could not be handled")
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of registrations waiting to be handled")
+    public int getQueueSize() {
+        return this.executor == null ? 0 : this.executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Number of devices with a registration waiting or being handled")
+    public int getPendingCount() {
+        return this.pendingRegistrations.size();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds registrations waited to be handled")
+    public double getAverageWaitMillis() {
+        return this.waitTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds a registration waited to be handled")
+    public long getMaxWaitMillis() {
+        return this.waitTime.getMax();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds spent handling a registration")
+    public double getAverageProcessingMillis() {
+        return this.processingTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds spent handling a registration")
+    public long getMaxProcessingMillis() {
+        return this.processingTime.getMax();
+    }
+
+    /**
+     * The latest registration of a device, until a worker starts handling it.
+     */
+    private static final class PendingRegistration {
+
+        private RegistrationHandler handler;
+        private boolean started;
+
+        PendingRegistration(final RegistrationHandler handler) {
+            this.handler = handler;
+        }
+
+        synchronized boolean replace(final RegistrationHandler newHandler) {
+            if (this.started) {
+                return false;
+            }
+            this.handler = newHandler;
+            return true;
+        }
+
+        synchronized RegistrationHandler start() {
+            this.started = true;
+            return this.handler;
+        }
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void add(final long millis) {
+            this.count.incrementAndGet();
+            this.totalMillis.addAndGet(millis);
+            this.maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        double getAverage() {
+            final long n = this.count.get();
+            return n == 0 ? 0 : (double) this.totalMillis.get() / n;
+        }
+
+        long getMax() {
+            return this.maxMillis.get();
+        }
+    }
+}
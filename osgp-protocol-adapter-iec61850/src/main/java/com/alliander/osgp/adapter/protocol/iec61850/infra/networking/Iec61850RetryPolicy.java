@@ -0,0 +1,32 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Decides whether, and when, a command sent using
+ * {@link Iec61850Client#sendCommandWithRetry} is retried after it failed.
+ */
+public interface Iec61850RetryPolicy {
+
+    /**
+     * Indicates the failed command must not be retried.
+     */
+    long NO_RETRY = -1;
+
+    /**
+     * @param e
+     *            The exception the command failed with.
+     * @param retry
+     *            The number of the retry to decide on, starting at 1.
+     * @return The time in milliseconds to wait before retrying the command,
+     *         or {@link #NO_RETRY}.
+     */
+    long getRetryDelay(ProtocolAdapterException e, int retry);
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmuc.openiec61850.ClientAssociation;
+import org.openmuc.openiec61850.ServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Cache for {@link ServerModel} instances parsed from SCL / ICD files.
+ * <p>
+ * Each ICD file is parsed once, the parsed model is kept as a template that is
+ * never handed out. Every {@link ClientAssociation} receives its own copy of
+ * the template, since the values of the model nodes are updated by reads and
+ * reports on that association. An entry is keyed by the absolute file path
+ * and is only used as long as the last modified time and the size of the file
+ * are unchanged. Replacing a file in the ICD files folder will therefore cause
+ * the file to be parsed again on the next connect.
+ * <p>
+ * A file is parsed by one connect at a time, other connects using the same
+ * file wait for the parse in progress and use its template. If the parse
+ * fails or the file changed, a waiting connect parses the file itself.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=ServerModelCache", description = "Cache of ServerModel templates parsed from SCL / ICD files")
+public class Iec61850ServerModelCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ServerModelCache.class);
+
+    private final ConcurrentHashMap<String, ServerModelTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Parses in progress, completed with the parsed template or {@code null}
+     * if no template was cached. An entry is removed when its parse is done.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<ServerModelTemplate>> parses = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong parseTimeMillis = new AtomicLong();
+
+    @Autowired
+    private Iec61850Client iec61850Client;
+
+    /**
+     * Get the {@link ServerModel} described by the given SCL / ICD file and
+     * set it as the server model of the given {@link ClientAssociation}.
+     *
+     * @param clientAssociation
+     *            The {@link ClientAssociation} the model is used for.
+     * @param filePath
+     *            The path of the SCL / ICD file.
+     *
+     * @return A {@link ServerModel} instance that is owned by the given
+     *         {@link ClientAssociation}.
+     *
+     * @throws ProtocolAdapterException
+     *             In case the file path is empty or the file can not be
+     *             parsed.
+     */
+    public ServerModel getServerModel(final ClientAssociation clientAssociation, final String filePath)
+            throws ProtocolAdapterException {
+        if (StringUtils.isEmpty(filePath)) {
+            throw new ProtocolAdapterException("File path is empty");
+        }
+
+        final File file = new File(filePath).getAbsoluteFile();
+        final String key = file.getPath();
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+
+        while (true) {
+            final ServerModel serverModel = this.copyFromTemplate(clientAssociation, this.templates.get(key),
+                    lastModified, length);
+            if (serverModel != null) {
+                return serverModel;
+            }
+
+            final CompletableFuture<ServerModelTemplate> ownParse = new CompletableFuture<>();
+            final CompletableFuture<ServerModelTemplate> parse = this.parses.putIfAbsent(key, ownParse);
+            if (parse == null) {
+                return this.parse(clientAssociation, filePath, file, lastModified, length, ownParse);
+            }
+
+            // Another connect is parsing the same file, use its template.
+            final ServerModel parsedModel = this.copyFromTemplate(clientAssociation, awaitParse(parse),
+                    lastModified, length);
+            if (parsedModel != null) {
+                return parsedModel;
+            }
+        }
+    }
+
+    private ServerModel parse(final ClientAssociation clientAssociation, final String filePath, final File file,
+            final long lastModified, final long length, final CompletableFuture<ServerModelTemplate> ownParse)
+            throws ProtocolAdapterException {
+        final String key = file.getPath();
+        ServerModelTemplate template = null;
+        try {
+            this.missCount.incrementAndGet();
+            LOGGER.info("No valid ServerModel template cached for SCL / ICD file: {}, parsing file", key);
+            final long startTime = System.currentTimeMillis();
+            final ServerModel serverModel;
+            try {
+                serverModel = this.iec61850Client.readServerModelFromSclFile(clientAssociation, filePath);
+            } catch (final ProtocolAdapterException e) {
+                this.templates.remove(key);
+                throw e;
+            }
+            this.parseTimeMillis.addAndGet(System.currentTimeMillis() - startTime);
+
+            if (lastModified == file.lastModified() && length == file.length()) {
+                template = new ServerModelTemplate(serverModel.copy(), lastModified, length);
+                this.templates.put(key, template);
+            } else {
+                LOGGER.warn("SCL / ICD file: {} changed while parsing, not caching ServerModel template", key);
+                this.templates.remove(key);
+            }
+            return serverModel;
+        } finally {
+            // Removed before completing, so waiting connects that parse the
+            // file themselves do not find this parse again.
+            this.parses.remove(key, ownParse);
+            ownParse.complete(template);
+        }
+    }
+
+    private static ServerModelTemplate awaitParse(final CompletableFuture<ServerModelTemplate> parse) {
+        try {
+            return parse.join();
+        } catch (final CompletionException e) {
+            return null;
+        }
+    }
+
+    private ServerModel copyFromTemplate(final ClientAssociation clientAssociation,
+            final ServerModelTemplate template, final long lastModified, final long length) {
+        if (template == null || !template.isValidFor(lastModified, length)) {
+            return null;
+        }
+        this.hitCount.incrementAndGet();
+        final ServerModel serverModel = template.getServerModel().copy();
+        clientAssociation.setServerModel(serverModel);
+        return serverModel;
+    }
+
+    /**
+     * Removes the cached template for the given SCL / ICD file, the file will
+     * be parsed again on the next connect that uses it.
+     */
+    @ManagedOperation(description = "Removes the cached ServerModel template for the given SCL / ICD file path")
+    public void invalidate(final String filePath) {
+        if (StringUtils.isEmpty(filePath)) {
+            return;
+        }
+        final String key = new File(filePath).getAbsoluteFile().getPath();
+        if (this.templates.remove(key) != null) {
+            LOGGER.info("Removed cached ServerModel template for SCL / ICD file: {}", key);
+        }
+    }
+
+    /**
+     * Removes all cached templates.
+     */
+    @ManagedOperation(description = "Removes all cached ServerModel templates")
+    public void invalidateAll() {
+        this.templates.clear();
+        LOGGER.info("Removed all cached ServerModel templates");
+    }
+
+    @ManagedAttribute(description = "Number of connects that used a cached ServerModel template")
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of connects that had to parse an SCL / ICD file")
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    @ManagedAttribute(description = "Total time in milliseconds spent parsing SCL / ICD files")
+    public long getParseTimeMillis() {
+        return this.parseTimeMillis.get();
+    }
+
+    @ManagedAttribute(description = "Number of cached ServerModel templates")
+    public int getSize() {
+        return this.templates.size();
+    }
+
+    @ManagedAttribute(description = "SCL / ICD files for which a ServerModel template is cached")
+    public List<String> getFilePaths() {
+        return new ArrayList<>(this.templates.keySet());
+    }
+
+    private static final class ServerModelTemplate {
+
+        private final ServerModel serverModel;
+        private final long lastModified;
+        private final long length;
+
+        ServerModelTemplate(final ServerModel serverModel, final long lastModified, final long length) {
+            this.serverModel = serverModel;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        ServerModel getServerModel() {
+            return this.serverModel;
+        }
+
+        boolean isValidFor(final long lastModified, final long length) {
+            // A file that does not exist has last modified time 0.
+            return lastModified != 0L && this.lastModified == lastModified && this.length == length;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openmuc.openiec61850.Array;
+import org.openmuc.openiec61850.BasicDataAttribute;
+import org.openmuc.openiec61850.BdaBoolean;
+import org.openmuc.openiec61850.BdaCheck;
+import org.openmuc.openiec61850.BdaDoubleBitPos;
+import org.openmuc.openiec61850.BdaEntryTime;
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.BdaFloat64;
+import org.openmuc.openiec61850.BdaInt16;
+import org.openmuc.openiec61850.BdaInt16U;
+import org.openmuc.openiec61850.BdaInt32;
+import org.openmuc.openiec61850.BdaInt32U;
+import org.openmuc.openiec61850.BdaInt64;
+import org.openmuc.openiec61850.BdaInt8;
+import org.openmuc.openiec61850.BdaInt8U;
+import org.openmuc.openiec61850.BdaOctetString;
+import org.openmuc.openiec61850.BdaOptFlds;
+import org.openmuc.openiec61850.BdaQuality;
+import org.openmuc.openiec61850.BdaReasonForInclusion;
+import org.openmuc.openiec61850.BdaTapCommand;
+import org.openmuc.openiec61850.BdaTimestamp;
+import org.openmuc.openiec61850.BdaTriggerConditions;
+import org.openmuc.openiec61850.BdaType;
+import org.openmuc.openiec61850.BdaUnicodeString;
+import org.openmuc.openiec61850.BdaVisibleString;
+import org.openmuc.openiec61850.Brcb;
+import org.openmuc.openiec61850.ConstructedDataAttribute;
+import org.openmuc.openiec61850.DataSet;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcDataObject;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.LogicalDevice;
+import org.openmuc.openiec61850.LogicalNode;
+import org.openmuc.openiec61850.ModelNode;
+import org.openmuc.openiec61850.ObjectReference;
+import org.openmuc.openiec61850.ServerModel;
+import org.openmuc.openiec61850.Urcb;
+
+/**
+ * Converts the structure of a {@link ServerModel} to bytes and back, so a
+ * model retrieved from a device can be stored and reused for later
+ * associations. Only the structure (references, functional constraints,
+ * attribute types and data sets) is kept, data values are not.
+ */
+public final class Iec61850ServerModelSerializer {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private Iec61850ServerModelSerializer() {
+        // Only static methods.
+    }
+
+    /**
+     * Serializes the structure of the given {@link ServerModel}.
+     *
+     * @throws IOException
+     *             In case the model contains nodes that are not supported.
+     */
+    public static byte[] serialize(final ServerModel serverModel) throws IOException {
+        final List<NodeDescriptor> logicalDevices = new ArrayList<>();
+        for (final ModelNode logicalDevice : serverModel.getChildren()) {
+            logicalDevices.add(describe(logicalDevice));
+        }
+        final List<DataSetDescriptor> dataSets = new ArrayList<>();
+        for (final DataSet dataSet : serverModel.getDataSets()) {
+            dataSets.add(new DataSetDescriptor(dataSet));
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeObject(logicalDevices);
+            out.writeObject(dataSets);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates a new {@link ServerModel} from bytes created by
+     * {@link #serialize(ServerModel)}.
+     *
+     * @throws IOException
+     *             In case the bytes can not be converted to a model, for
+     *             instance because they were written using another format
+     *             version.
+     */
+    @SuppressWarnings("unchecked")
+    public static ServerModel deserialize(final byte[] serializedModel) throws IOException {
+        final List<NodeDescriptor> logicalDevices;
+        final List<DataSetDescriptor> dataSets;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(serializedModel)))) {
+            final int formatVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported server model format version: " + formatVersion);
+            }
+            logicalDevices = (List<NodeDescriptor>) in.readObject();
+            dataSets = (List<DataSetDescriptor>) in.readObject();
+        } catch (final ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unable to read serialized server model", e);
+        }
+
+        try {
+            final Map<String, FcModelNode> nodesByReference = new HashMap<>();
+            final List<LogicalDevice> devices = new ArrayList<>(logicalDevices.size());
+            for (final NodeDescriptor logicalDevice : logicalDevices) {
+                devices.add(createLogicalDevice(logicalDevice, nodesByReference));
+            }
+            final List<DataSet> modelDataSets = new ArrayList<>(dataSets.size());
+            for (final DataSetDescriptor dataSet : dataSets) {
+                modelDataSets.add(dataSet.createDataSet(nodesByReference));
+            }
+            return new ServerModel(devices, modelDataSets);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Unable to create server model from serialized model", e);
+        }
+    }
+
+    private static NodeDescriptor describe(final ModelNode node) throws IOException {
+        final NodeDescriptor descriptor;
+        if (node instanceof LogicalDevice) {
+            descriptor = new NodeDescriptor(NodeKind.LOGICAL_DEVICE, node);
+        } else if (node instanceof LogicalNode) {
+            descriptor = new NodeDescriptor(NodeKind.LOGICAL_NODE, node);
+        } else if (node instanceof Urcb) {
+            descriptor = new NodeDescriptor(NodeKind.URCB, node);
+        } else if (node instanceof Brcb) {
+            descriptor = new NodeDescriptor(NodeKind.BRCB, node);
+        } else if (node instanceof FcDataObject) {
+            descriptor = new NodeDescriptor(NodeKind.DATA_OBJECT, node);
+        } else if (node instanceof Array) {
+            descriptor = new NodeDescriptor(NodeKind.ARRAY, node);
+        } else if (node instanceof ConstructedDataAttribute) {
+            descriptor = new NodeDescriptor(NodeKind.CONSTRUCTED_DATA_ATTRIBUTE, node);
+        } else if (node instanceof BasicDataAttribute) {
+            descriptor = new NodeDescriptor(NodeKind.BASIC_DATA_ATTRIBUTE, node);
+            descriptor.basicType = ((BasicDataAttribute) node).getBasicType().name();
+            descriptor.maxLength = getMaxLength((BasicDataAttribute) node);
+        } else {
+            throw new IOException("Unsupported model node: " + node.getReference() + " of type: "
+                    + node.getClass().getName());
+        }
+
+        final Collection<ModelNode> children = node.getChildren();
+        if (children != null) {
+            for (final ModelNode child : children) {
+                descriptor.children.add(describe(child));
+            }
+        }
+        return descriptor;
+    }
+
+    private static int getMaxLength(final BasicDataAttribute bda) {
+        if (bda instanceof BdaVisibleString) {
+            return ((BdaVisibleString) bda).getMaxLength();
+        } else if (bda instanceof BdaOctetString) {
+            return ((BdaOctetString) bda).getMaxLength();
+        } else if (bda instanceof BdaUnicodeString) {
+            return ((BdaUnicodeString) bda).getMaxLength();
+        }
+        return 0;
+    }
+
+    private static LogicalDevice createLogicalDevice(final NodeDescriptor descriptor,
+            final Map<String, FcModelNode> nodesByReference) {
+        final List<LogicalNode> logicalNodes = new ArrayList<>(descriptor.children.size());
+        for (final NodeDescriptor logicalNode : descriptor.children) {
+            final List<FcDataObject> dataObjects = new ArrayList<>(logicalNode.children.size());
+            for (final NodeDescriptor dataObject : logicalNode.children) {
+                dataObjects.add((FcDataObject) createFcModelNode(dataObject, nodesByReference));
+            }
+            logicalNodes.add(new LogicalNode(new ObjectReference(logicalNode.reference), dataObjects));
+        }
+        return new LogicalDevice(new ObjectReference(descriptor.reference), logicalNodes);
+    }
+
+    private static FcModelNode createFcModelNode(final NodeDescriptor descriptor,
+            final Map<String, FcModelNode> nodesByReference) {
+        final ObjectReference reference = new ObjectReference(descriptor.reference);
+        final Fc fc = Fc.fromString(descriptor.fc);
+
+        final List<FcModelNode> children = new ArrayList<>(descriptor.children.size());
+        for (final NodeDescriptor child : descriptor.children) {
+            children.add(createFcModelNode(child, nodesByReference));
+        }
+
+        final FcModelNode node;
+        switch (descriptor.kind) {
+        case URCB:
+            node = new Urcb(reference, children);
+            break;
+        case BRCB:
+            node = new Brcb(reference, children);
+            break;
+        case DATA_OBJECT:
+            node = new FcDataObject(reference, fc, children);
+            break;
+        case ARRAY:
+            node = new Array(reference, fc, children);
+            break;
+        case CONSTRUCTED_DATA_ATTRIBUTE:
+            node = new ConstructedDataAttribute(reference, fc, children);
+            break;
+        case BASIC_DATA_ATTRIBUTE:
+            node = createBasicDataAttribute(reference, fc, BdaType.valueOf(descriptor.basicType),
+                    descriptor.maxLength);
+            break;
+        default:
+            throw new IllegalArgumentException("Unexpected node kind: " + descriptor.kind + " for node: "
+                    + descriptor.reference);
+        }
+        nodesByReference.put(key(descriptor.reference, descriptor.fc), node);
+        return node;
+    }
+
+    private static BasicDataAttribute createBasicDataAttribute(final ObjectReference reference, final Fc fc,
+            final BdaType basicType, final int maxLength) {
+        // Short addresses and change triggers are only used by servers, a
+        // client model does not need them.
+        switch (basicType) {
+        case BOOLEAN:
+            return new BdaBoolean(reference, fc, "", false, false);
+        case INT8:
+            return new BdaInt8(reference, fc, "", false, false);
+        case INT16:
+            return new BdaInt16(reference, fc, "", false, false);
+        case INT32:
+            return new BdaInt32(reference, fc, "", false, false);
+        case INT64:
+            return new BdaInt64(reference, fc, "", false, false);
+        case INT8U:
+            return new BdaInt8U(reference, fc, "", false, false);
+        case INT16U:
+            return new BdaInt16U(reference, fc, "", false, false);
+        case INT32U:
+            return new BdaInt32U(reference, fc, "", false, false);
+        case FLOAT32:
+            return new BdaFloat32(reference, fc, "", false, false);
+        case FLOAT64:
+            return new BdaFloat64(reference, fc, "", false, false);
+        case OCTET_STRING:
+            return new BdaOctetString(reference, fc, "", maxLength, false, false);
+        case VISIBLE_STRING:
+            return new BdaVisibleString(reference, fc, "", maxLength, false, false);
+        case UNICODE_STRING:
+            return new BdaUnicodeString(reference, fc, "", maxLength, false, false);
+        case TIMESTAMP:
+            return new BdaTimestamp(reference, fc, "", false, false);
+        case ENTRY_TIME:
+            return new BdaEntryTime(reference, fc, "", false, false);
+        case QUALITY:
+            return new BdaQuality(reference, fc, "", false);
+        case DOUBLE_BIT_POS:
+            return new BdaDoubleBitPos(reference, fc, "", false, false);
+        case TAP_COMMAND:
+            return new BdaTapCommand(reference, fc, "", false, false);
+        case CHECK:
+            return new BdaCheck(reference);
+        case TRIGGER_CONDITIONS:
+            return new BdaTriggerConditions(reference, fc);
+        case OPTFLDS:
+            return new BdaOptFlds(reference, fc);
+        case REASON_FOR_INCLUSION:
+            return new BdaReasonForInclusion(reference);
+        default:
+            throw new IllegalArgumentException("Unsupported basic type: " + basicType + " for node: " + reference);
+        }
+    }
+
+    private static String key(final String reference, final String fc) {
+        return reference + "[" + fc + "]";
+    }
+
+    private enum NodeKind {
+        LOGICAL_DEVICE,
+        LOGICAL_NODE,
+        DATA_OBJECT,
+        URCB,
+        BRCB,
+        ARRAY,
+        CONSTRUCTED_DATA_ATTRIBUTE,
+        BASIC_DATA_ATTRIBUTE
+    }
+
+    private static final class NodeDescriptor implements Serializable {
+
+        private static final long serialVersionUID = -2916383524468812917L;
+
+        private final NodeKind kind;
+        private final String reference;
+        private final String fc;
+        private String basicType;
+        private int maxLength;
+        private final List<NodeDescriptor> children = new ArrayList<>();
+
+        NodeDescriptor(final NodeKind kind, final ModelNode node) {
+            this.kind = kind;
+            this.reference = node.getReference().toString();
+            this.fc = node instanceof FcModelNode ? ((FcModelNode) node).getFc().toString() : null;
+        }
+    }
+
+    private static final class DataSetDescriptor implements Serializable {
+
+        private static final long serialVersionUID = 6254173082418829475L;
+
+        private final String reference;
+        private final boolean deletable;
+        private final List<String> memberReferences = new ArrayList<>();
+        private final List<String> memberFcs = new ArrayList<>();
+
+        DataSetDescriptor(final DataSet dataSet) {
+            this.reference = dataSet.getReferenceStr();
+            this.deletable = dataSet.isDeletable();
+            for (final FcModelNode member : dataSet.getMembers()) {
+                this.memberReferences.add(member.getReference().toString());
+                this.memberFcs.add(member.getFc().toString());
+            }
+        }
+
+        DataSet createDataSet(final Map<String, FcModelNode> nodesByReference) {
+            final List<FcModelNode> members = new ArrayList<>(this.memberReferences.size());
+            for (int i = 0; i < this.memberReferences.size(); i++) {
+                final FcModelNode member = nodesByReference
+                        .get(key(this.memberReferences.get(i), this.memberFcs.get(i)));
+                if (member == null) {
+                    throw new IllegalArgumentException("Data set: " + this.reference + " refers to unknown member: "
+                            + this.memberReferences.get(i));
+                }
+                members.add(member);
+            }
+            return new DataSet(this.reference, members, this.deletable);
+        }
+    }
+}
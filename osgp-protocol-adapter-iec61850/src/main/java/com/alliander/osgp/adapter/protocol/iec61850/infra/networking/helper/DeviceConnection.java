@@ -44,17 +44,7 @@ public class DeviceConnection {
      */
     public NodeContainer getFcModelNode(final LogicalDevice logicalDevice, final LogicalNode logicalNode,
             final DataAttribute dataAttribute, final Fc fc) throws NodeNotFoundException {
-        final ObjectReference objectReference = this.createObjectReference(logicalDevice, logicalNode, dataAttribute);
-        final FcModelNode fcModelNode = (FcModelNode) this.connection.getServerModel().findModelNode(objectReference,
-                fc);
-        if (fcModelNode == null) {
-            LOGGER.error("FcModelNode is null, most likely the data attribute: {} does not exist",
-                    dataAttribute.getDescription());
-            throw new NodeNotFoundException(
-                    String.format("FcModelNode with objectReference %s does not exist", objectReference));
-        }
-
-        return new NodeContainer(this, fcModelNode);
+        return this.getFcModelNode(logicalDevice, FcModelNodeIndex.NO_INDEX, logicalNode, dataAttribute, fc);
     }
 
     /**
@@ -66,52 +56,19 @@ public class DeviceConnection {
     public NodeContainer getFcModelNode(final LogicalDevice logicalDevice, final int logicalDeviceIndex,
             final LogicalNode logicalNode, final DataAttribute dataAttribute, final Fc fc)
             throws NodeNotFoundException {
-        final ObjectReference objectReference = this.createObjectReference(logicalDevice, logicalDeviceIndex,
-                logicalNode, dataAttribute);
-        final FcModelNode fcModelNode = (FcModelNode) this.connection.getServerModel().findModelNode(objectReference,
-                fc);
+        final FcModelNode fcModelNode = this.connection.getFcModelNodeIndex().find(this.serverName, logicalDevice,
+                logicalDeviceIndex, logicalNode, dataAttribute, fc);
         if (fcModelNode == null) {
             LOGGER.error("FcModelNode is null, most likely the data attribute: {} does not exist",
                     dataAttribute.getDescription());
-            throw new NodeNotFoundException(
-                    String.format("FcModelNode with objectReference %s does not exist", objectReference));
+            throw new NodeNotFoundException(String.format("FcModelNode with objectReference %s does not exist",
+                    FcModelNodeIndex.objectReference(this.serverName, logicalDevice, logicalDeviceIndex,
+                            logicalNode, dataAttribute)));
         }
 
         return new NodeContainer(this, fcModelNode);
     }
 
-    /**
-     * Creates a correct ObjectReference.
-     */
-    private ObjectReference createObjectReference(final LogicalDevice logicalDevice, final LogicalNode logicalNode,
-            final DataAttribute dataAttribute) {
-        final String logicalDevicePrefix = this.serverName + logicalDevice.getDescription();
-
-        final String objectReference = logicalDevicePrefix.concat(LOGICAL_NODE_SEPARATOR)
-                .concat(logicalNode.getDescription()).concat(DATA_ATTRIBUTE_SEPARATOR)
-                .concat(dataAttribute.getDescription());
-
-        LOGGER.info("Device: {}, ObjectReference: {}", this.deviceIdentification, objectReference);
-
-        return new ObjectReference(objectReference);
-    }
-
-    /**
-     * Creates a correct ObjectReference.
-     */
-    private ObjectReference createObjectReference(final LogicalDevice logicalDevice, final int logicalDeviceIndex,
-            final LogicalNode logicalNode, final DataAttribute dataAttribute) {
-        final String logicalDevicePrefix = this.serverName + logicalDevice.getDescription() + logicalDeviceIndex;
-
-        final String objectReference = logicalDevicePrefix.concat(LOGICAL_NODE_SEPARATOR)
-                .concat(logicalNode.getDescription()).concat(DATA_ATTRIBUTE_SEPARATOR)
-                .concat(dataAttribute.getDescription());
-
-        LOGGER.info("Device: {}, ObjectReference: {}", this.deviceIdentification, objectReference);
-
-        return new ObjectReference(objectReference);
-    }
-
     // GETTERS AND SETTERS
 
     public String getDeviceIdentification() {
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ObjectReference;
+import org.openmuc.openiec61850.ServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the {@link FcModelNode}s of a {@link ServerModel} by logical
+ * device, logical node, data attribute and functional constraint.
+ * <p>
+ * A node is looked up in the server model the first time it is asked for,
+ * after that it is found without creating an object reference or any other
+ * object. There is one index per server model, see
+ * {@link #of(ServerModel)}, shared by all connections and requests using the
+ * model.
+ */
+public class FcModelNodeIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FcModelNodeIndex.class);
+
+    /**
+     * Logical device index for logical devices without an index in their
+     * name.
+     */
+    public static final int NO_INDEX = -1;
+
+    /**
+     * Logical device indexes from {@link #NO_INDEX} up to this value are
+     * indexed, nodes of logical devices with a higher index are looked up in
+     * the server model every time.
+     */
+    private static final int MAX_INDEXED_LOGICAL_DEVICE_INDEX = 0xFFFE;
+
+    /**
+     * Set in every key, so an empty slot (0) never matches a key.
+     */
+    private static final long USED = 1L << 62;
+
+    /**
+     * The indexes by server model. The indexes do not refer to their server
+     * model strongly, so an index is removed once its model is no longer used.
+     */
+    private static final Map<ServerModel, FcModelNodeIndex> INDEXES = Collections
+            .synchronizedMap(new WeakHashMap<ServerModel, FcModelNodeIndex>());
+
+    private final WeakReference<ServerModel> serverModel;
+
+    private final ConcurrentHashMap<String, NodeTable> nodesByServerName = new ConcurrentHashMap<>();
+
+    private FcModelNodeIndex(final ServerModel serverModel) {
+        this.serverModel = new WeakReference<>(serverModel);
+    }
+
+    /**
+     * @return The index of the given server model.
+     */
+    public static FcModelNodeIndex of(final ServerModel serverModel) {
+        return INDEXES.computeIfAbsent(serverModel, FcModelNodeIndex::new);
+    }
+
+    /**
+     * @param logicalDeviceIndex
+     *            The index of the logical device, or {@link #NO_INDEX}.
+     * @return The node, or {@code null} if the server model does not contain
+     *         it.
+     */
+    public FcModelNode find(final String serverName, final LogicalDevice logicalDevice, final int logicalDeviceIndex,
+            final LogicalNode logicalNode, final DataAttribute dataAttribute, final Fc fc) {
+        if (logicalDeviceIndex < NO_INDEX || logicalDeviceIndex > MAX_INDEXED_LOGICAL_DEVICE_INDEX) {
+            return this.lookUp(serverName, logicalDevice, logicalDeviceIndex, logicalNode, dataAttribute, fc);
+        }
+
+        // Object references of nodes are built with "null" for a null server
+        // name, so it is indexed the same way.
+        final String serverNameKey = String.valueOf(serverName);
+        final long key = key(logicalDevice, logicalDeviceIndex, logicalNode, dataAttribute, fc);
+        NodeTable nodes = this.nodesByServerName.get(serverNameKey);
+        if (nodes != null) {
+            final FcModelNode indexed = nodes.get(key);
+            if (indexed != null) {
+                return indexed;
+            }
+        } else {
+            nodes = this.nodesByServerName.computeIfAbsent(serverNameKey, k -> new NodeTable());
+        }
+
+        final FcModelNode fcModelNode = this.lookUp(serverName, logicalDevice, logicalDeviceIndex, logicalNode,
+                dataAttribute, fc);
+        if (fcModelNode != null) {
+            nodes.put(key, fcModelNode);
+        }
+        return fcModelNode;
+    }
+
+    private FcModelNode lookUp(final String serverName, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex, final LogicalNode logicalNode, final DataAttribute dataAttribute,
+            final Fc fc) {
+        final ServerModel model = this.serverModel.get();
+        if (model == null) {
+            return null;
+        }
+        final String objectReference = objectReference(serverName, logicalDevice, logicalDeviceIndex, logicalNode,
+                dataAttribute);
+        LOGGER.debug("Looking up ObjectReference: {}, Fc: {}", objectReference, fc);
+        return (FcModelNode) model.findModelNode(new ObjectReference(objectReference), fc);
+    }
+
+    /**
+     * Creates the object reference of a data attribute.
+     */
+    public static String objectReference(final String serverName, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex, final LogicalNode logicalNode, final DataAttribute dataAttribute) {
+        final StringBuilder objectReference = new StringBuilder(64).append(serverName)
+                .append(logicalDevice.getDescription());
+        if (logicalDeviceIndex != NO_INDEX) {
+            objectReference.append(logicalDeviceIndex);
+        }
+        return objectReference.append(DeviceConnection.LOGICAL_NODE_SEPARATOR).append(logicalNode.getDescription())
+                .append(DeviceConnection.DATA_ATTRIBUTE_SEPARATOR).append(dataAttribute.getDescription()).toString();
+    }
+
+    /**
+     * Packs the parts of a node name into one value: 12 bits for each of the
+     * enums, except 8 bits for the functional constraint, and 16 bits for the
+     * logical device index.
+     */
+    private static long key(final LogicalDevice logicalDevice, final int logicalDeviceIndex,
+            final LogicalNode logicalNode, final DataAttribute dataAttribute, final Fc fc) {
+        return USED | (long) logicalDevice.ordinal() << 48 | (long) (logicalDeviceIndex + 1) << 32
+                | (long) logicalNode.ordinal() << 20 | (long) dataAttribute.ordinal() << 8 | fc.ordinal();
+    }
+
+    /**
+     * Hash table of the nodes with the same server name, by key. Lookups do
+     * not lock, nodes are added one at a time.
+     */
+    private static final class NodeTable {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private volatile Slots slots = new Slots(INITIAL_CAPACITY);
+
+        FcModelNode get(final long key) {
+            return this.slots.get(key);
+        }
+
+        synchronized void put(final long key, final FcModelNode fcModelNode) {
+            Slots current = this.slots;
+            if (current.get(key) != null) {
+                return;
+            }
+            // Grow at a load factor of 0.5, so lookups stay short.
+            if ((current.size + 1) * 2 > current.capacity()) {
+                current = current.grow();
+                this.slots = current;
+            }
+            current.insert(key, fcModelNode);
+        }
+    }
+
+    /**
+     * Open addressing slots with linear probing. The node of a slot is set
+     * before its key, so a lookup that finds the key also finds the node.
+     * Slots are never removed or changed once set.
+     */
+    private static final class Slots {
+
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<FcModelNode> nodes;
+        private final int mask;
+        private int size;
+
+        Slots(final int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.nodes = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        int capacity() {
+            return this.mask + 1;
+        }
+
+        FcModelNode get(final long key) {
+            int slot = slot(key) & this.mask;
+            while (true) {
+                final long slotKey = this.keys.get(slot);
+                if (slotKey == key) {
+                    return this.nodes.get(slot);
+                }
+                if (slotKey == 0) {
+                    return null;
+                }
+                slot = (slot + 1) & this.mask;
+            }
+        }
+
+        void insert(final long key, final FcModelNode fcModelNode) {
+            int slot = slot(key) & this.mask;
+            while (this.keys.get(slot) != 0) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.nodes.set(slot, fcModelNode);
+            this.keys.set(slot, key);
+            this.size++;
+        }
+
+        Slots grow() {
+            final Slots grown = new Slots(this.capacity() * 2);
+            for (int i = 0; i < this.capacity(); i++) {
+                final long key = this.keys.get(i);
+                if (key != 0) {
+                    grown.insert(key, this.nodes.get(i));
+                }
+            }
+            return grown;
+        }
+
+        private static int slot(final long key) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32);
+        }
+    }
+}
@@ -24,12 +24,17 @@ import org.openmuc.openiec61850.BdaInt8U;
 import org.openmuc.openiec61850.BdaQuality;
 import org.openmuc.openiec61850.BdaTimestamp;
 import org.openmuc.openiec61850.BdaVisibleString;
+import org.openmuc.openiec61850.ClientAssociation;
 import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.ServiceError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alliander.osgp.adapter.protocol.iec61850.application.config.BeanUtil;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeWriteException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics.Operation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics.Outcome;
 
 public class NodeContainer {
 
@@ -39,18 +44,22 @@ public class NodeContainer {
     protected final DeviceConnection connection;
     protected final FcModelNode parent;
 
+    private final Iec61850OperationMetrics iec61850OperationMetrics;
+
     public NodeContainer(final DeviceConnection connection, final FcModelNode fcmodelNode) {
         Objects.requireNonNull(connection, "connection must not be null");
         Objects.requireNonNull(fcmodelNode, "fcmodelNode must not be null");
         this.deviceIdentification = connection.getDeviceIdentification();
         this.connection = connection;
         this.parent = fcmodelNode;
+        this.iec61850OperationMetrics = BeanUtil.getBean(Iec61850OperationMetrics.class);
     }
 
     public NodeContainer(final String deviceIdentification, final FcModelNode fcmodelNode) {
         this.deviceIdentification = deviceIdentification;
         this.connection = null;
         this.parent = fcmodelNode;
+        this.iec61850OperationMetrics = null;
     }
 
     /**
@@ -170,9 +179,19 @@ public class NodeContainer {
     }
 
     public void writeInteger(final SubDataAttribute child, final Integer value) throws NodeWriteException {
+        this.writeNode(this.setInteger(child, value));
+    }
+
+    /**
+     * Sets the value of the child in the model without writing it to the
+     * device.
+     *
+     * @return The node that has to be written to the device.
+     */
+    public FcModelNode setInteger(final SubDataAttribute child, final Integer value) {
         final BdaInt32 bdaInteger = (BdaInt32) this.parent.getChild(child.getDescription());
         bdaInteger.setValue(value);
-        this.writeNode(bdaInteger);
+        return bdaInteger;
     }
 
     public BdaInt32U getUnsignedInteger(final SubDataAttribute child) {
@@ -217,6 +236,16 @@ public class NodeContainer {
     }
 
     public void writeFloatArray(final SubDataAttribute child, final Float[] values) throws NodeWriteException {
+        this.writeNode(this.setFloatArray(child, values));
+    }
+
+    /**
+     * Sets the values of the array in the model without writing it to the
+     * device.
+     *
+     * @return The node that has to be written to the device.
+     */
+    public FcModelNode setFloatArray(final SubDataAttribute child, final Float[] values) throws NodeWriteException {
         final Array array = (Array) this.parent.getChild(child.getDescription());
         if (array.size() != values.length) {
             throw new NodeWriteException(
@@ -227,7 +256,7 @@ public class NodeContainer {
             final BdaFloat32 bdaFloat = (BdaFloat32) array.getChild(i);
             bdaFloat.setFloat(values[i]);
         }
-        this.writeNode(array);
+        return array;
     }
 
     public Date[] getDateArray(final SubDataAttribute child) {
@@ -242,6 +271,16 @@ public class NodeContainer {
     }
 
     public void writeDateArray(final SubDataAttribute child, final Date[] values) throws NodeWriteException {
+        this.writeNode(this.setDateArray(child, values));
+    }
+
+    /**
+     * Sets the values of the array in the model without writing it to the
+     * device.
+     *
+     * @return The node that has to be written to the device.
+     */
+    public FcModelNode setDateArray(final SubDataAttribute child, final Date[] values) throws NodeWriteException {
         final Array array = (Array) this.parent.getChild(child.getDescription());
         if (array.size() != values.length) {
             throw new NodeWriteException(
@@ -252,7 +291,7 @@ public class NodeContainer {
             final BdaTimestamp bdaTimestamp = (BdaTimestamp) array.getChild(i);
             bdaTimestamp.setDate(values[i]);
         }
-        this.writeNode(array);
+        return array;
     }
 
     public BdaQuality getQuality(final SubDataAttribute child) {
@@ -263,17 +302,26 @@ public class NodeContainer {
      * Writes the new data of the node to the device.
      */
     private void writeNode(final FcModelNode node) throws NodeWriteException {
+        final Iec61850OperationMetrics metrics = this.iec61850OperationMetrics;
+        final ClientAssociation clientAssociation = this.connection.getConnection().getClientAssociation();
+        final long startTime = metrics.start();
         try {
-            this.connection.getConnection().getClientAssociation().setDataValues(node);
+            clientAssociation.setDataValues(node);
+            metrics.record(Operation.SET_DATA_VALUES, clientAssociation, startTime, Outcome.OK);
         } catch (final ServiceError e) {
+            metrics.record(Operation.SET_DATA_VALUES, clientAssociation, startTime, Outcome.SERVICE_ERROR);
             LOGGER.error("ServiceError during writeNode()", e);
             throw new NodeWriteException(e.getMessage(), e, ConnectionState.OK);
         } catch (final IOException e) {
+            metrics.record(Operation.SET_DATA_VALUES, clientAssociation, startTime, Outcome.IO_ERROR);
             // "if a fatal association error occurs. The association object will
             // be closed and can no longer be used after this exception is
             // thrown."
             LOGGER.error("IOException during writeNode()", e);
             throw new NodeWriteException(e.getMessage(), e, ConnectionState.BROKEN);
+        } catch (final RuntimeException e) {
+            metrics.record(Operation.SET_DATA_VALUES, clientAssociation, startTime, Outcome.OTHER_ERROR);
+            throw e;
         }
     }
 
@@ -18,7 +18,9 @@ import org.openmuc.openiec61850.Report;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alliander.osgp.adapter.protocol.iec61850.application.config.BeanUtil;
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
 
 public abstract class Iec61850ClientBaseEventListener implements ClientEventListener {
 
@@ -62,6 +64,22 @@ public abstract class Iec61850ClientBaseEventListener implements ClientEventList
         this.firstNewSqNum = value;
     }
 
+    /**
+     * Discards configuration of the device cached by this listener, so it is
+     * read again for the next report.
+     */
+    public void refreshDeviceConfiguration() {
+        // Nothing is cached by default.
+    }
+
+    /**
+     * Removes the association this listener belongs to from the connection
+     * pool, so the next request will not try to use the closed association.
+     */
+    protected void removeClosedAssociationFromPool() {
+        BeanUtil.getBean(Iec61850ConnectionPool.class).evictClosed(this.deviceIdentification, this);
+    }
+
     /**
      * The logging of the {@link Report} consists of a default part and a custom
      * part. This method is intended for the default part.
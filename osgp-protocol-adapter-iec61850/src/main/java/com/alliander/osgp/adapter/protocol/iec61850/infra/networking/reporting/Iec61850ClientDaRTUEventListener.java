@@ -8,23 +8,15 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.joda.time.DateTime;
-import org.openmuc.openiec61850.BdaFloat32;
-import org.openmuc.openiec61850.BdaTimestamp;
-import org.openmuc.openiec61850.Fc;
 import org.openmuc.openiec61850.FcModelNode;
-import org.openmuc.openiec61850.ModelNode;
 import org.openmuc.openiec61850.Report;
 import org.osgpfoundation.osgp.dto.da.GetPQValuesResponseDto;
-import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
 import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
-import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
 import org.springframework.util.CollectionUtils;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
@@ -32,6 +24,11 @@ import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterEx
 
 public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventListener {
 
+    /**
+     * Layout of the reported data sets, by data set reference.
+     */
+    private final Map<String, Iec61850PqReportLayout> layouts = new ConcurrentHashMap<>();
+
     public Iec61850ClientDaRTUEventListener(final String deviceIdentification,
             final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
         super(deviceIdentification, deviceManagementService, Iec61850ClientDaRTUEventListener.class);
@@ -55,167 +52,33 @@ public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventLis
 
     private void processReport(final Report report, final String reportDescription) throws ProtocolAdapterException {
         final List<FcModelNode> dataSetMembers = report.getValues();
-        final List<LogicalDevice> logicalDevices = new ArrayList<>();
 
         if (CollectionUtils.isEmpty(dataSetMembers)) {
             this.logger.warn("No dataSet members available for {}", reportDescription);
             return;
         }
 
-        for (final FcModelNode member : dataSetMembers) {
-            // we are only interested in measurements
-            if (member.getFc() == Fc.MX) {
-                this.processMeasurementNode(logicalDevices, member);
-            }
+        // The data set reference is optional in reports.
+        final String dataSetRef = String.valueOf(report.getDataSetRef());
+        final int dataSetSize = Iec61850DataSetPositions.dataSetSize(report.getInclusionBitString());
+        Iec61850PqReportLayout layout = this.layouts.get(dataSetRef);
+        if (layout == null || !layout.appliesTo(report.getConfRev(), dataSetSize)) {
+            this.logger.info("Starting report layout for dataset {} with ConfRev {}", dataSetRef,
+                    report.getConfRev());
+            layout = new Iec61850PqReportLayout(report.getConfRev(), dataSetSize);
+            this.layouts.put(dataSetRef, layout);
         }
-
-        final List<LogicalDeviceDto> logicalDevicesDtos = new ArrayList<>();
-        for (final LogicalDevice logicalDevice : logicalDevices) {
-            final List<LogicalNodeDto> logicalNodeDtos = new ArrayList<>();
-            for (final LogicalNode logicalNode : logicalDevice.getLogicalNodes()) {
-                final LogicalNodeDto logicalNodeDto = new LogicalNodeDto(logicalNode.getName(),
-                        logicalNode.getDataSamples());
-                logicalNodeDtos.add(logicalNodeDto);
-            }
-            final LogicalDeviceDto logicalDeviceDto = new LogicalDeviceDto(logicalDevice.getName(), logicalNodeDtos);
-            logicalDevicesDtos.add(logicalDeviceDto);
+        final int[] positions = Iec61850DataSetPositions.of(report.getInclusionBitString(), dataSetMembers.size());
+        if (positions == null) {
+            this.logger.warn("Inclusion bit string does not match the {} members of {}, members are not cached",
+                    dataSetMembers.size(), reportDescription);
         }
+        final List<LogicalDeviceDto> logicalDevicesDtos = layout.toLogicalDevices(positions, dataSetMembers);
         final GetPQValuesResponseDto response = new GetPQValuesResponseDto(logicalDevicesDtos);
 
         this.deviceManagementService.sendPqValues(this.deviceIdentification, report.getRptId(), response);
     }
 
-    private void processMeasurementNode(final List<LogicalDevice> logicalDevices, final FcModelNode member) {
-        final String logicalDeviceName = member.getReference().get(0);
-        final LogicalDevice logicalDevice = this.addLogicalDeviceIfNew(logicalDeviceName, logicalDevices);
-        final String logicalNodeName = member.getReference().get(1);
-        final LogicalNode logicalNode = this.addLogicalNodeIfNew(logicalNodeName, logicalDevice.getLogicalNodes());
-        if (this.modelNodeIsTotalMeasurement(member)) {
-            this.processTotalMeasurementNode(member, logicalNode);
-        } else {
-            this.processOtherMeasurementNode(member, logicalNode);
-        }
-    }
-
-    private void processTotalMeasurementNode(final FcModelNode member, final LogicalNode logicalNode) {
-        final BdaFloat32 totalMeasurement = this.getTotalMeasurementModelNode(member);
-        final BdaTimestamp timestampMeasurement = this.getTimestampModelNode(member);
-        String type = member.getName();
-        type += "." + totalMeasurement.getParent().getName() + "." + totalMeasurement.getName();
-        final BigDecimal value = new BigDecimal(totalMeasurement.getFloat(),
-                new MathContext(3, RoundingMode.HALF_EVEN));
-        final DataSampleDto sample = new DataSampleDto(type, timestampMeasurement.getDate(), value);
-        logicalNode.getDataSamples().add(sample);
-    }
-
-    private void processOtherMeasurementNode(final FcModelNode member, final LogicalNode logicalNode) {
-        for (final ModelNode childNode : member.getChildren()) {
-            if (this.modelNodeIsSingleMeasurement(childNode)) {
-                this.processSingleMeasurementNode(member, logicalNode, childNode);
-            }
-        }
-    }
-
-    private void processSingleMeasurementNode(final FcModelNode member, final LogicalNode logicalNode,
-            final ModelNode childNode) {
-        final BdaFloat32 singleMeasurement = this.getSingleMeasurementModelNode(childNode);
-        final BdaTimestamp timestampMeasurement = this.getTimestampModelNode(childNode);
-        String type = member.getName() + "." + childNode.getName();
-        type += "." + singleMeasurement.getParent().getParent().getName() + "."
-                + singleMeasurement.getParent().getName() + "." + singleMeasurement.getName();
-        final BigDecimal value = new BigDecimal(singleMeasurement.getFloat(),
-                new MathContext(3, RoundingMode.HALF_EVEN));
-        final DataSampleDto sample = new DataSampleDto(type, timestampMeasurement.getDate(), value);
-        logicalNode.getDataSamples().add(sample);
-    }
-
-    private boolean modelNodeIsTotalMeasurement(final ModelNode modelNode) {
-        boolean totalMeasurement = false;
-        if (modelNode != null && modelNode.getChild("mag") != null && modelNode.getChild("mag").getChild("f") != null) {
-            totalMeasurement = true;
-        }
-        return totalMeasurement;
-    }
-
-    private boolean modelNodeIsSingleMeasurement(final ModelNode modelNode) {
-        boolean totalMeasurement = false;
-        if (modelNode != null && modelNode.getChild("cVal") != null
-                && modelNode.getChild("cVal").getChild("mag") != null
-                && modelNode.getChild("cVal").getChild("mag").getChild("f") != null) {
-            totalMeasurement = true;
-        }
-        return totalMeasurement;
-    }
-
-    private BdaFloat32 getTotalMeasurementModelNode(final ModelNode modelNode) {
-        return (BdaFloat32) modelNode.getChild("mag").getChild("f");
-    }
-
-    private BdaFloat32 getSingleMeasurementModelNode(final ModelNode modelNode) {
-        return (BdaFloat32) modelNode.getChild("cVal").getChild("mag").getChild("f");
-    }
-
-    private BdaTimestamp getTimestampModelNode(final ModelNode modelNode) {
-        return (BdaTimestamp) modelNode.getChild("t");
-    }
-
-    private LogicalDevice addLogicalDeviceIfNew(final String logicalDeviceName,
-            final List<LogicalDevice> logicalDevices) {
-        for (final LogicalDevice logicalDevice : logicalDevices) {
-            if (logicalDevice.getName().equals(logicalDeviceName)) {
-                return logicalDevice;
-            }
-        }
-        final LogicalDevice newLogicalDevice = new LogicalDevice(logicalDeviceName);
-        logicalDevices.add(newLogicalDevice);
-        return newLogicalDevice;
-    }
-
-    private LogicalNode addLogicalNodeIfNew(final String logicalNodeName, final List<LogicalNode> logicalNodes) {
-        for (final LogicalNode logicalNode : logicalNodes) {
-            if (logicalNode.getName().equals(logicalNodeName)) {
-                return logicalNode;
-            }
-        }
-        final LogicalNode newLogicalNode = new LogicalNode(logicalNodeName);
-        logicalNodes.add(newLogicalNode);
-        return newLogicalNode;
-    }
-
-    private class LogicalNode {
-        private String name;
-        private List<DataSampleDto> dataSamples = new ArrayList<>();
-
-        public LogicalNode(final String name) {
-            this.name = name;
-        }
-
-        public String getName() {
-            return this.name;
-        }
-
-        public List<DataSampleDto> getDataSamples() {
-            return this.dataSamples;
-        }
-    }
-
-    private class LogicalDevice {
-        private String name;
-        private List<LogicalNode> logicalNodes = new ArrayList<>();
-
-        public LogicalDevice(final String name) {
-            this.name = name;
-        }
-
-        public String getName() {
-            return this.name;
-        }
-
-        public List<LogicalNode> getLogicalNodes() {
-            return this.logicalNodes;
-        }
-    }
-
     private String getReportDescription(final Report report, final DateTime timeOfEntry) {
         return String.format("device: %s, reportId: %s, timeOfEntry: %s, sqNum: %s%s%s", this.deviceIdentification,
                 report.getRptId(), timeOfEntry == null ? "-" : timeOfEntry, report.getSqNum(),
@@ -253,6 +116,7 @@ public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventLis
     public void associationClosed(final IOException e) {
         this.logger.info("associationClosed for device: {}, {}", this.deviceIdentification,
                 e == null ? "no IOException" : "IOException: " + e.getMessage());
+        this.removeClosedAssociationFromPool();
     }
 
 }
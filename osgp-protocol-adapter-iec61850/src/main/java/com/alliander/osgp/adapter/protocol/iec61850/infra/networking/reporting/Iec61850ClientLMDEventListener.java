@@ -8,8 +8,9 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,19 +21,24 @@ import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.Report;
 import org.springframework.util.CollectionUtils;
 
+import com.alliander.osgp.adapter.protocol.iec61850.application.config.BeanUtil;
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.SubDataAttribute;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850LmdRoutingTable;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850LmdRoutingTable.Routes;
 import com.alliander.osgp.core.db.api.iec61850.entities.LightMeasurementDevice;
 import com.alliander.osgp.dto.valueobjects.EventNotificationDto;
 import com.alliander.osgp.dto.valueobjects.EventTypeDto;
 
 public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListener {
 
+    private final Iec61850LmdRoutingTable lmdRoutingTable;
+
     public Iec61850ClientLMDEventListener(final String deviceIdentification,
             final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
         super(deviceIdentification, deviceManagementService, Iec61850ClientLMDEventListener.class);
+        this.lmdRoutingTable = BeanUtil.getBean(Iec61850LmdRoutingTable.class);
     }
 
     @Override
@@ -64,38 +70,36 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
         final Map<LightMeasurementDevice, FcModelNode> reportMemberPerDevice = this
                 .processReportedDataForLightMeasurementDevices(report.getValues());
 
-        for (final LightMeasurementDevice lmd : reportMemberPerDevice.keySet()) {
+        final Map<String, List<EventNotificationDto>> eventNotificationsPerDevice = new LinkedHashMap<>();
+        for (final Map.Entry<LightMeasurementDevice, FcModelNode> entry : reportMemberPerDevice.entrySet()) {
+            final LightMeasurementDevice lmd = entry.getKey();
             final String deviceIdentification = lmd.getDeviceIdentification();
             final Short index = lmd.getDigitalInput();
-            final FcModelNode member = reportMemberPerDevice.get(lmd);
-            final EventNotificationDto eventNotification = this.getEventNotificationForReportedData(member, timeOfEntry,
-                    reportDescription, deviceIdentification, index.intValue());
-
-            try {
-                this.deviceManagementService.addEventNotifications(deviceIdentification,
-                        Arrays.asList(eventNotification));
-            } catch (final ProtocolAdapterException pae) {
-                this.logger.error("Error adding device notifications for device: " + deviceIdentification, pae);
-            }
+            final EventNotificationDto eventNotification = this.getEventNotificationForReportedData(entry.getValue(),
+                    timeOfEntry, reportDescription, deviceIdentification, index.intValue());
+            eventNotificationsPerDevice.computeIfAbsent(deviceIdentification, k -> new ArrayList<>())
+                    .add(eventNotification);
         }
 
+        if (eventNotificationsPerDevice.isEmpty()) {
+            return;
+        }
+        try {
+            this.deviceManagementService.addEventNotifications(eventNotificationsPerDevice);
+        } catch (final ProtocolAdapterException pae) {
+            this.logger.error("Error adding device notifications for devices: " + eventNotificationsPerDevice.keySet(),
+                    pae);
+        }
     }
 
     private Map<LightMeasurementDevice, FcModelNode> processReportedDataForLightMeasurementDevices(
             final List<FcModelNode> dataSetMembers) {
         final Map<LightMeasurementDevice, FcModelNode> result = new HashMap<>();
 
-        this.logger.info("Trying to find light measurement devices...");
-        final List<LightMeasurementDevice> lmds = this.deviceManagementService.findRealLightMeasurementDevices();
-        this.logger.info("Found {} light measurement devices.", lmds == null ? "null" : lmds.size());
-
-        for (final LightMeasurementDevice lmd : lmds) {
-            final String nodeName = LogicalNode.getSpggioByIndex(lmd.getDigitalInput()).getDescription().concat(".");
-
-            for (final FcModelNode member : dataSetMembers) {
-                if (member.getReference().toString().contains(nodeName)) {
-                    result.put(lmd, member);
-                }
+        final Routes routes = this.lmdRoutingTable.getRoutes();
+        for (final FcModelNode member : dataSetMembers) {
+            for (final LightMeasurementDevice lmd : routes.getDevices(member.getReference().toString())) {
+                result.put(lmd, member);
             }
         }
 
@@ -211,5 +215,6 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
     public void associationClosed(final IOException e) {
         this.logger.info("associationClosed() for device: {}, {}", this.deviceIdentification,
                 e.getMessage() == null ? "no IOException" : "IOException: " + e.getMessage());
+        this.removeClosedAssociationFromPool();
     }
 }
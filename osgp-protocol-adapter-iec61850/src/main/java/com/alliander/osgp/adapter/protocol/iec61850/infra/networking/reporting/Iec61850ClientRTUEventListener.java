@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,10 +27,14 @@ import org.springframework.util.CollectionUtils;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.config.BeanUtil;
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.Iec61850DeviceConfiguration;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ReadOnlyNodeContainer;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportDecodingPlan.MemberPlan;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportPipeline.ReportPublisher;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850DeviceConfigurationCache;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850LiveValueStore;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
@@ -62,17 +67,50 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
         REPORT_HANDLERS_MAP.put("PQ", Iec61850PqReportHandler.class);
     }
 
+    private final Iec61850ReportPipeline reportPipeline;
+    private final Iec61850LiveValueStore liveValueStore;
+    private final Iec61850DeviceConfigurationCache deviceConfigurationCache;
+
+    /**
+     * Report handlers per data set reference. Data sets that are not supported
+     * have an entry without handler.
+     */
+    private final ConcurrentHashMap<String, CachedReportHandler> reportHandlers = new ConcurrentHashMap<>();
+
     public Iec61850ClientRTUEventListener(final String deviceIdentification,
             final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
         super(deviceIdentification, deviceManagementService, Iec61850ClientRTUEventListener.class);
+        this.reportPipeline = BeanUtil.getBean(Iec61850ReportPipeline.class);
+        this.liveValueStore = BeanUtil.getBean(Iec61850LiveValueStore.class);
+        this.deviceConfigurationCache = BeanUtil.getBean(Iec61850DeviceConfigurationCache.class);
+    }
+
+    /**
+     * Creates the report handlers again for the next report, instead of
+     * waiting for a change in the combined load setting of the device.
+     */
+    @Override
+    public void refreshDeviceConfiguration() {
+        this.reportHandlers.clear();
     }
 
-    private Iec61850ReportHandler getReportHandler(final String dataSetRef) {
+    private CachedReportHandler getReportHandler(final String dataSetRef) {
+        CachedReportHandler cached = this.reportHandlers.get(dataSetRef);
+        if (cached == null || (cached.isLoad() && cached.usesCombinedLoad() != this.useCombinedLoad())) {
+            cached = this.createReportHandler(dataSetRef);
+            this.reportHandlers.put(dataSetRef, cached);
+        }
+        return cached;
+    }
+
+    private CachedReportHandler createReportHandler(final String dataSetRef) {
         final Matcher reportMatcher = REPORT_PATTERN.matcher(dataSetRef);
         if (reportMatcher.matches()) {
             String node = reportMatcher.group(2);
 
-            if ("LOAD".equals(node) && this.useCombinedLoad()) {
+            final boolean isLoad = "LOAD".equals(node);
+            final boolean usesCombinedLoad = isLoad && this.useCombinedLoad();
+            if (usesCombinedLoad) {
                 node += "_COMBINED";
             }
 
@@ -80,18 +118,21 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
             final Class<?> clazz = REPORT_HANDLERS_MAP.get(node);
             try {
                 final Constructor<?> ctor = clazz.getConstructor(new Class<?>[] { int.class });
-                return (Iec61850ReportHandler) ctor.newInstance(systemId);
+                return new CachedReportHandler((Iec61850ReportHandler) ctor.newInstance(systemId),
+                        LogicalDevice.valueOf(reportMatcher.group(2)),
+                        reportMatcher.group(1) + reportMatcher.group(2) + reportMatcher.group(3), systemId, isLoad,
+                        usesCombinedLoad);
             } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
                     | InvocationTargetException | NoSuchMethodException ex) {
                 LOGGER.error("Unable to instantiate Iec61850ReportHandler ", ex);
             }
         }
-        return null;
+        return new CachedReportHandler(null, null, null, 0, false, false);
     }
 
     private boolean useCombinedLoad() {
-        final Iec61850DeviceRepository repository = BeanUtil.getBean(Iec61850DeviceRepository.class);
-        final Iec61850Device device = repository.findByDeviceIdentification(this.deviceIdentification);
+        final Iec61850DeviceConfiguration device = this.deviceConfigurationCache
+                .getDeviceConfiguration(this.deviceIdentification);
         if (device != null) {
             return device.isUseCombinedLoad();
         }
@@ -116,18 +157,24 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
             return;
         }
 
-        final Iec61850ReportHandler reportHandler = this.getReportHandler(report.getDataSetRef());
-        if (reportHandler == null) {
+        // The values of a report are not changed by reports received later,
+        // so the report can be decoded after this method returns.
+        this.reportPipeline.submit(this.deviceIdentification, () -> this.decodeReport(report, reportDescription));
+    }
+
+    private ReportPublisher decodeReport(final Report report, final String reportDescription) {
+        final CachedReportHandler cachedReportHandler = this.getReportHandler(report.getDataSetRef());
+        if (cachedReportHandler.getReportHandler() == null) {
             this.logger.warn("Skipping report because dataset is not supported {}", report.getDataSetRef());
-            return;
+            return null;
         }
 
         this.logReportDetails(report);
-        try {
-            this.processReport(report, reportDescription, reportHandler);
-        } catch (final ProtocolAdapterException e) {
-            this.logger.warn("Unable to process report, discarding report", e);
+        final GetDataResponseDto response = this.processReport(report, reportDescription, cachedReportHandler);
+        if (response == null) {
+            return null;
         }
+        return () -> this.deviceManagementService.sendMeasurements(this.deviceIdentification, response);
     }
 
     private String getReportDescription(final Report report, final DateTime timeOfEntry) {
@@ -141,18 +188,19 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
         return (this.firstNewSqNum != null) && (report.getSqNum() != null) && (report.getSqNum() < this.firstNewSqNum);
     }
 
-    private void processReport(final Report report, final String reportDescription,
-            final Iec61850ReportHandler reportHandler) throws ProtocolAdapterException {
+    private GetDataResponseDto processReport(final Report report, final String reportDescription,
+            final CachedReportHandler cachedReportHandler) {
         final List<FcModelNode> dataSetMembers = report.getValues();
         if (CollectionUtils.isEmpty(dataSetMembers)) {
             this.logger.warn("No dataSet members available for {}", reportDescription);
-            return;
+            return null;
         }
 
-        final List<MeasurementDto> measurements = this.processMeasurements(reportHandler, reportDescription,
-                dataSetMembers);
+        final List<MeasurementDto> measurements = this.processMeasurements(cachedReportHandler, report,
+                reportDescription, dataSetMembers);
 
-        final GetDataSystemIdentifierDto systemResult = reportHandler.createResult(measurements);
+        final GetDataSystemIdentifierDto systemResult = cachedReportHandler.getReportHandler()
+                .createResult(measurements);
         final List<GetDataSystemIdentifierDto> systems = new ArrayList<>();
         systems.add(systemResult);
 
@@ -160,28 +208,49 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
                 new DateTime(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET),
                 report.getRptId());
 
-        this.deviceManagementService.sendMeasurements(this.deviceIdentification,
-                new GetDataResponseDto(systems, reportDto));
+        return new GetDataResponseDto(systems, reportDto);
     }
 
-    private List<MeasurementDto> processMeasurements(final Iec61850ReportHandler reportHandler,
-            final String reportDescription, final List<FcModelNode> members) {
+    private List<MeasurementDto> processMeasurements(final CachedReportHandler cachedReportHandler,
+            final Report report, final String reportDescription, final List<FcModelNode> members) {
+        final Iec61850ReportDecodingPlan plan = this.getDecodingPlan(cachedReportHandler, report);
+
+        // Buffered reports can be received long after the values were current.
+        final long valueTime = report.getTimeOfEntry() == null ? System.currentTimeMillis()
+                : report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET;
+
+        final int[] positions = Iec61850DataSetPositions.of(report.getInclusionBitString(), members.size());
+        if (positions == null) {
+            this.logger.warn("Inclusion bit string does not match the {} members of {}, members are not cached",
+                    members.size(), reportDescription);
+        }
+
         final List<MeasurementDto> measurements = new ArrayList<>();
+        int value = 0;
         for (final FcModelNode member : members) {
+            final int position = positions == null ? Iec61850DataSetPositions.UNKNOWN : positions[value];
+            value++;
             if (member == null) {
                 this.logger.warn("Member == null in DataSet for {}", reportDescription);
                 continue;
             }
 
-            this.logger.info("Handle member {} for {}", member.getReference(), reportDescription);
             try {
-                final List<MeasurementDto> memberMeasurements = reportHandler
-                        .handleMember(new ReadOnlyNodeContainer(this.deviceIdentification, member));
+                final MemberPlan memberPlan = plan.getMemberPlan(position, member,
+                        m -> this.compileMember(cachedReportHandler, m));
+                final Iec61850ReportMemberTranslator[] translators = memberPlan.getTranslators();
 
-                if (memberMeasurements.isEmpty()) {
-                    this.logger.warn("Unsupported member {}, skipping", member.getName());
-                } else {
-                    measurements.addAll(memberMeasurements);
+                if (translators.length == 0) {
+                    continue;
+                }
+                final ReadOnlyNodeContainer container = new ReadOnlyNodeContainer(this.deviceIdentification, member);
+                for (final Iec61850ReportMemberTranslator translator : translators) {
+                    final MeasurementDto measurement = translator.translate(container);
+                    measurements.add(measurement);
+                    if (memberPlan.isStorable()) {
+                        this.liveValueStore.put(this.deviceIdentification, cachedReportHandler.getLogicalDevice(),
+                                cachedReportHandler.getSystemId(), translator.getCommand(), measurement, valueTime);
+                    }
                 }
             } catch (final Exception e) {
                 this.logger.error("Error adding measurement for member {} from {}", member.getReference(),
@@ -191,6 +260,50 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
         return measurements;
     }
 
+    /**
+     * Returns the decoding plan for the data set of the report. A new plan is
+     * started when the data set is seen for the first time, or when its
+     * configuration revision or size has changed.
+     */
+    private Iec61850ReportDecodingPlan getDecodingPlan(final CachedReportHandler cachedReportHandler,
+            final Report report) {
+        final int dataSetSize = Iec61850DataSetPositions.dataSetSize(report.getInclusionBitString());
+        Iec61850ReportDecodingPlan plan = cachedReportHandler.getDecodingPlan();
+        if (plan == null || !plan.appliesTo(report.getConfRev(), dataSetSize)) {
+            this.logger.info("Starting decoding plan for dataset {} with ConfRev {}", report.getDataSetRef(),
+                    report.getConfRev());
+            plan = new Iec61850ReportDecodingPlan(report.getConfRev(), dataSetSize);
+            cachedReportHandler.setDecodingPlan(plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Looks up the translators of a member. If the lookup fails, the member is
+     * not added to the plan, so it is looked up (and the error is logged) for
+     * every report. Unsupported members are only logged when they are added
+     * to the plan.
+     * <p>
+     * The values of a member are only stored for the logical device of the
+     * data set if the reference of the member shows it belongs to that logical
+     * device.
+     */
+    private MemberPlan compileMember(final CachedReportHandler cachedReportHandler, final FcModelNode member) {
+        final List<Iec61850ReportMemberTranslator> translators = cachedReportHandler.getReportHandler()
+                .getTranslators(new ReadOnlyNodeContainer(this.deviceIdentification, member));
+        if (translators.isEmpty()) {
+            this.logger.warn("Unsupported member {}, skipping", member.getName());
+        }
+        final String logicalDeviceName = member.getReference().get(0);
+        final boolean storable = cachedReportHandler.getLogicalDeviceName().equals(logicalDeviceName);
+        if (!storable) {
+            this.logger.warn("Member {} does not belong to logical device {}, its values are not stored",
+                    member.getReference(), cachedReportHandler.getLogicalDeviceName());
+        }
+        return new MemberPlan(translators.toArray(new Iec61850ReportMemberTranslator[translators.size()]),
+                storable);
+    }
+
     private void logReportDetails(final Report report) {
         final StringBuilder sb = new StringBuilder("Report details for device ").append(this.deviceIdentification)
                 .append(System.lineSeparator());
@@ -221,6 +334,65 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
     public void associationClosed(final IOException e) {
         this.logger.info("associationClosed for device: {}, {}", this.deviceIdentification,
                 e == null ? "no IOException" : "IOException: " + e.getMessage());
+        this.removeClosedAssociationFromPool();
     }
 
+    private static final class CachedReportHandler {
+
+        private final Iec61850ReportHandler reportHandler;
+        private final LogicalDevice logicalDevice;
+        private final String logicalDeviceName;
+        private final int systemId;
+        private final boolean isLoad;
+        private final boolean usesCombinedLoad;
+
+        private volatile Iec61850ReportDecodingPlan decodingPlan;
+
+        CachedReportHandler(final Iec61850ReportHandler reportHandler, final LogicalDevice logicalDevice,
+                final String logicalDeviceName, final int systemId, final boolean isLoad,
+                final boolean usesCombinedLoad) {
+            this.reportHandler = reportHandler;
+            this.logicalDevice = logicalDevice;
+            this.logicalDeviceName = logicalDeviceName;
+            this.systemId = systemId;
+            this.isLoad = isLoad;
+            this.usesCombinedLoad = usesCombinedLoad;
+        }
+
+        Iec61850ReportHandler getReportHandler() {
+            return this.reportHandler;
+        }
+
+        LogicalDevice getLogicalDevice() {
+            return this.logicalDevice;
+        }
+
+        /**
+         * @return The name of the logical device of the data set, including
+         *         the server name.
+         */
+        String getLogicalDeviceName() {
+            return this.logicalDeviceName;
+        }
+
+        int getSystemId() {
+            return this.systemId;
+        }
+
+        boolean isLoad() {
+            return this.isLoad;
+        }
+
+        boolean usesCombinedLoad() {
+            return this.usesCombinedLoad;
+        }
+
+        Iec61850ReportDecodingPlan getDecodingPlan() {
+            return this.decodingPlan;
+        }
+
+        void setDecodingPlan(final Iec61850ReportDecodingPlan decodingPlan) {
+            this.decodingPlan = decodingPlan;
+        }
+    }
 }
@@ -28,6 +28,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceM
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.EventType;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.core.db.api.iec61850.entities.DeviceOutputSetting;
+import com.alliander.osgp.core.db.api.iec61850valueobjects.RelayMapping;
 import com.alliander.osgp.dto.valueobjects.EventNotificationDto;
 import com.alliander.osgp.dto.valueobjects.EventTypeDto;
 
@@ -60,30 +61,14 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
     }
 
     private final List<EventNotificationDto> eventNotifications = new ArrayList<>();
-    private final Map<Integer, Integer> externalIndexByInternalIndex = new TreeMap<>();
+    private final RelayMapping relayMapping;
 
     public Iec61850ClientSSLDEventListener(final String deviceIdentification,
             final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
         super(deviceIdentification, deviceManagementService, Iec61850ClientSSLDEventListener.class);
-        this.externalIndexByInternalIndex
-                .putAll(this.buildExternalByInternalIndexMap(this.deviceManagementService, this.deviceIdentification));
-    }
-
-    private Map<Integer, Integer> buildExternalByInternalIndexMap(final DeviceManagementService deviceManagementService,
-            final String deviceIdentification) throws ProtocolAdapterException {
-
-        final Map<Integer, Integer> indexMap = new TreeMap<>();
-        indexMap.put(0, 0);
-
-        final List<DeviceOutputSetting> deviceOutputSettings = deviceManagementService
-                .getDeviceOutputSettings(deviceIdentification);
-        for (final DeviceOutputSetting outputSetting : deviceOutputSettings) {
-            indexMap.put(outputSetting.getInternalId(), outputSetting.getExternalId());
-        }
-
-        this.logger.info("Retrieved internal to external index map for device {}: {}", deviceIdentification, indexMap);
-
-        return indexMap;
+        this.relayMapping = this.deviceManagementService.getRelayMapping(this.deviceIdentification);
+        this.logger.info("Retrieved relay mapping for device {}: {} output settings", deviceIdentification,
+                this.relayMapping.getOutputSettings().size());
     }
 
     @Override
@@ -183,14 +168,17 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
         }
 
         final Short swNum = swNumNode.getValue();
-        final Integer externalIndex = this.externalIndexByInternalIndex.get(swNum.intValue());
-        if (externalIndex == null) {
+        if (swNum == 0) {
+            return 0;
+        }
+        final DeviceOutputSetting outputSetting = this.relayMapping.getLastByInternalIndex(swNum);
+        if (outputSetting == null) {
             this.logger.error("No external index configured for internal index: {} for device: {}, using '0' for event",
                     swNum, this.deviceIdentification);
             return 0;
         }
 
-        return externalIndex;
+        return outputSetting.getExternalId();
     }
 
     private String determineDescription(final FcModelNode evnRpn) {
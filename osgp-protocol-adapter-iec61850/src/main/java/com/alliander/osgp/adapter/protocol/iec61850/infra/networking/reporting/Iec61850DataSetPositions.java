@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+/**
+ * Positions of the values of a report in its data set. A report only contains
+ * the members of the data set that are included by its inclusion bit string,
+ * in the order of the data set, so the n-th value of a report is the member at
+ * the position of the n-th set bit.
+ */
+final class Iec61850DataSetPositions {
+
+    /**
+     * Position of a value that can not be related to a member of the data set.
+     */
+    static final int UNKNOWN = -1;
+
+    private Iec61850DataSetPositions() {
+        // Utility class.
+    }
+
+    /**
+     * @return The number of members of the data set of a report.
+     */
+    static int dataSetSize(final boolean[] inclusionBitString) {
+        return inclusionBitString == null ? 0 : inclusionBitString.length;
+    }
+
+    /**
+     * @return The data set position of each value of a report, or {@code null}
+     *         if the inclusion bit string does not match the number of values.
+     */
+    static int[] of(final boolean[] inclusionBitString, final int valueCount) {
+        if (inclusionBitString == null) {
+            return null;
+        }
+        final int[] positions = new int[valueCount];
+        int value = 0;
+        for (int position = 0; position < inclusionBitString.length; position++) {
+            if (inclusionBitString[position]) {
+                if (value == valueCount) {
+                    return null;
+                }
+                positions[value++] = position;
+            }
+        }
+        return value == valueCount ? positions : null;
+    }
+}
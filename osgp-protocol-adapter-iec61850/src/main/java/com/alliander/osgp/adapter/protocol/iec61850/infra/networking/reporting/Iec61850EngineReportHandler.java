@@ -52,18 +52,18 @@ public class Iec61850EngineReportHandler implements Iec61850ReportHandler {
     }
 
     @Override
-    public List<MeasurementDto> handleMember(final ReadOnlyNodeContainer member) {
+    public List<Iec61850ReportMemberTranslator> getTranslators(final ReadOnlyNodeContainer member) {
 
-        final List<MeasurementDto> measurements = new ArrayList<>();
+        final List<Iec61850ReportMemberTranslator> translators = new ArrayList<>();
         final RtuReadCommand<MeasurementDto> command = this.iec61850EngineCommandFactory
                 .getCommand(this.getCommandName(member));
 
         if (command == null) {
             LOGGER.warn("No command found for node {}", member.getFcmodelNode().getName());
         } else {
-            measurements.add(command.translate(member));
+            translators.add(new Iec61850ReportMemberTranslator(command));
         }
-        return measurements;
+        return translators;
     }
 
     private static void intializeNodesUsingIdList() {
@@ -61,9 +61,9 @@ public class Iec61850PqReportHandler implements Iec61850ReportHandler {
     }
 
     @Override
-    public List<MeasurementDto> handleMember(final ReadOnlyNodeContainer member) {
+    public List<Iec61850ReportMemberTranslator> getTranslators(final ReadOnlyNodeContainer member) {
 
-        final List<MeasurementDto> measurements = new ArrayList<>();
+        final List<Iec61850ReportMemberTranslator> translators = new ArrayList<>();
 
         if (this.isCompositeNode(member.getFcmodelNode())) {
             for (final ModelNode child : member.getFcmodelNode().getChildren()) {
@@ -74,7 +74,7 @@ public class Iec61850PqReportHandler implements Iec61850ReportHandler {
                 if (command == null) {
                     LOGGER.warn("No command found for node {}", child.getReference().getName());
                 } else {
-                    measurements.add(command.translate(member.getChild(child.getName())));
+                    translators.add(new Iec61850ReportMemberTranslator(command, child.getName()));
                 }
             }
         } else {
@@ -84,10 +84,10 @@ public class Iec61850PqReportHandler implements Iec61850ReportHandler {
             if (command == null) {
                 LOGGER.warn("No command found for node {}", member.getFcmodelNode().getReference().getName());
             } else {
-                measurements.add(command.translate(member));
+                translators.add(new Iec61850ReportMemberTranslator(command));
             }
         }
-        return measurements;
+        return translators;
     }
 
     private static void intializeNodesUsingIdList() {
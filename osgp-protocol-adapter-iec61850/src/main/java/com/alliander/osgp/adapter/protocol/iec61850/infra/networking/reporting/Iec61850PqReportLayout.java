@@ -0,0 +1,199 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.BdaTimestamp;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ModelNode;
+import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
+
+/**
+ * The layout of the measurement (MX) members of a data set reported by a
+ * DA-RTU: the logical device and logical node of each member, and its data
+ * samples with their type, by position in the data set (see
+ * {@link Iec61850DataSetPositions}).
+ * <p>
+ * Members are compiled the first time they are reported, later reports only
+ * need to take the values from the members. The logical devices and logical
+ * nodes of a report are listed in the order their first member appears in
+ * the report. The layout of a data set only changes with its configuration
+ * revision.
+ */
+final class Iec61850PqReportLayout {
+
+    private static final MathContext MATH_CONTEXT = new MathContext(3, RoundingMode.HALF_EVEN);
+
+    private static final String MAGNITUDE = "mag";
+    private static final String FLOAT = "f";
+    private static final String COMPLEX_VALUE = "cVal";
+    private static final String TIMESTAMP = "t";
+
+    /**
+     * Layout of members that are not measurements.
+     */
+    private static final MemberLayout NOT_MEASURED = new MemberLayout(null, null, null, null, null);
+
+    private final Long confRev;
+
+    private final AtomicReferenceArray<MemberLayout> members;
+
+    Iec61850PqReportLayout(final Long confRev, final int dataSetSize) {
+        this.confRev = confRev;
+        this.members = new AtomicReferenceArray<>(dataSetSize);
+    }
+
+    boolean appliesTo(final Long confRev, final int dataSetSize) {
+        return Objects.equals(this.confRev, confRev) && this.members.length() == dataSetSize;
+    }
+
+    int getMemberCount() {
+        int count = 0;
+        for (int i = 0; i < this.members.length(); i++) {
+            if (this.members.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param positions
+     *            The data set position of each member of the report, or
+     *            {@code null} if they are not known, see
+     *            {@link Iec61850DataSetPositions#of(boolean[], int)}.
+     * @return The logical devices with the samples of the measurement members
+     *         of the report.
+     */
+    List<LogicalDeviceDto> toLogicalDevices(final int[] positions, final List<FcModelNode> dataSetMembers) {
+        final Map<String, Map<String, List<DataSampleDto>>> samples = new LinkedHashMap<>();
+        int value = 0;
+        for (final FcModelNode member : dataSetMembers) {
+            final int position = positions == null ? Iec61850DataSetPositions.UNKNOWN : positions[value];
+            value++;
+            final MemberLayout memberLayout = this.getMemberLayout(position, member);
+            if (memberLayout != NOT_MEASURED) {
+                memberLayout.addDataSamples(member,
+                        samples.computeIfAbsent(memberLayout.logicalDeviceName, k -> new LinkedHashMap<>())
+                                .computeIfAbsent(memberLayout.logicalNodeName, k -> new ArrayList<>()));
+            }
+        }
+
+        final List<LogicalDeviceDto> logicalDevices = new ArrayList<>(samples.size());
+        for (final Map.Entry<String, Map<String, List<DataSampleDto>>> logicalDevice : samples.entrySet()) {
+            final List<LogicalNodeDto> logicalNodes = new ArrayList<>(logicalDevice.getValue().size());
+            for (final Map.Entry<String, List<DataSampleDto>> logicalNode : logicalDevice.getValue().entrySet()) {
+                logicalNodes.add(new LogicalNodeDto(logicalNode.getKey(), logicalNode.getValue()));
+            }
+            logicalDevices.add(new LogicalDeviceDto(logicalDevice.getKey(), logicalNodes));
+        }
+        return logicalDevices;
+    }
+
+    private MemberLayout getMemberLayout(final int position, final FcModelNode member) {
+        if (position < 0 || position >= this.members.length()) {
+            return MemberLayout.compile(member);
+        }
+        final MemberLayout memberLayout = this.members.get(position);
+        if (memberLayout != null) {
+            return memberLayout;
+        }
+        final MemberLayout compiled = MemberLayout.compile(member);
+        return this.members.compareAndSet(position, null, compiled) ? compiled : this.members.get(position);
+    }
+
+    /**
+     * The data samples of a measurement member: either the total measurement
+     * of the member itself, or the single measurements of its children.
+     */
+    private static final class MemberLayout {
+
+        private final String logicalDeviceName;
+        private final String logicalNodeName;
+        private final String totalMeasurementType;
+        private final String[] childNames;
+        private final String[] childTypes;
+
+        private MemberLayout(final String logicalDeviceName, final String logicalNodeName,
+                final String totalMeasurementType, final String[] childNames, final String[] childTypes) {
+            this.logicalDeviceName = logicalDeviceName;
+            this.logicalNodeName = logicalNodeName;
+            this.totalMeasurementType = totalMeasurementType;
+            this.childNames = childNames;
+            this.childTypes = childTypes;
+        }
+
+        static MemberLayout compile(final FcModelNode member) {
+            // we are only interested in measurements
+            if (member.getFc() != Fc.MX) {
+                return NOT_MEASURED;
+            }
+            final String logicalDeviceName = member.getReference().get(0);
+            final String logicalNodeName = member.getReference().get(1);
+            if (isTotalMeasurement(member)) {
+                return new MemberLayout(logicalDeviceName, logicalNodeName,
+                        member.getName() + "." + MAGNITUDE + "." + FLOAT, null, null);
+            }
+            final List<String> childNames = new ArrayList<>();
+            final List<String> childTypes = new ArrayList<>();
+            for (final ModelNode childNode : member.getChildren()) {
+                if (isSingleMeasurement(childNode)) {
+                    childNames.add(childNode.getName());
+                    childTypes.add(member.getName() + "." + childNode.getName() + "." + COMPLEX_VALUE + "."
+                            + MAGNITUDE + "." + FLOAT);
+                }
+            }
+            return new MemberLayout(logicalDeviceName, logicalNodeName, null,
+                    childNames.toArray(new String[childNames.size()]),
+                    childTypes.toArray(new String[childTypes.size()]));
+        }
+
+        void addDataSamples(final FcModelNode member, final List<DataSampleDto> dataSamples) {
+            if (this.totalMeasurementType != null) {
+                dataSamples.add(toDataSample(this.totalMeasurementType, member.getChild(MAGNITUDE).getChild(FLOAT),
+                        member.getChild(TIMESTAMP)));
+                return;
+            }
+            for (int i = 0; i < this.childNames.length; i++) {
+                final ModelNode childNode = member.getChild(this.childNames[i]);
+                dataSamples.add(toDataSample(this.childTypes[i],
+                        childNode.getChild(COMPLEX_VALUE).getChild(MAGNITUDE).getChild(FLOAT),
+                        childNode.getChild(TIMESTAMP)));
+            }
+        }
+
+        private static DataSampleDto toDataSample(final String type, final ModelNode floatNode,
+                final ModelNode timestampNode) {
+            final BigDecimal value = new BigDecimal(((BdaFloat32) floatNode).getFloat(), MATH_CONTEXT);
+            return new DataSampleDto(type, ((BdaTimestamp) timestampNode).getDate(), value);
+        }
+
+        private static boolean isTotalMeasurement(final ModelNode modelNode) {
+            return modelNode != null && modelNode.getChild(MAGNITUDE) != null
+                    && modelNode.getChild(MAGNITUDE).getChild(FLOAT) != null;
+        }
+
+        private static boolean isSingleMeasurement(final ModelNode modelNode) {
+            return modelNode != null && modelNode.getChild(COMPLEX_VALUE) != null
+                    && isTotalMeasurement(modelNode.getChild(COMPLEX_VALUE));
+        }
+    }
+}
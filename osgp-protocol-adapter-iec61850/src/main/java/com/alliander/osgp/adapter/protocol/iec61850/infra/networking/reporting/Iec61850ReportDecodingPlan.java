@@ -0,0 +1,101 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openmuc.openiec61850.FcModelNode;
+
+/**
+ * The translators for the members of a data set, by position in the data set
+ * (see {@link Iec61850DataSetPositions}). Members are compiled the first time
+ * they are reported. The layout of a data set only changes with its
+ * configuration revision.
+ */
+final class Iec61850ReportDecodingPlan {
+
+    /**
+     * Looks up the translators of a data set member.
+     */
+    @FunctionalInterface
+    interface MemberCompiler {
+        MemberPlan compile(FcModelNode member);
+    }
+
+    private final Long confRev;
+
+    private final AtomicReferenceArray<MemberPlan> members;
+
+    Iec61850ReportDecodingPlan(final Long confRev, final int dataSetSize) {
+        this.confRev = confRev;
+        this.members = new AtomicReferenceArray<>(dataSetSize);
+    }
+
+    boolean appliesTo(final Long confRev, final int dataSetSize) {
+        return Objects.equals(this.confRev, confRev) && this.members.length() == dataSetSize;
+    }
+
+    /**
+     * @param position
+     *            The position of the member in the data set, or
+     *            {@link Iec61850DataSetPositions#UNKNOWN}.
+     * @return The translators for the member, compiled using the given
+     *         compiler if the member was not reported before. Members at an
+     *         unknown position are compiled every time.
+     */
+    MemberPlan getMemberPlan(final int position, final FcModelNode member, final MemberCompiler compiler) {
+        if (position < 0 || position >= this.members.length()) {
+            return compiler.compile(member);
+        }
+        final MemberPlan memberPlan = this.members.get(position);
+        if (memberPlan != null) {
+            return memberPlan;
+        }
+        final MemberPlan compiled = compiler.compile(member);
+        return this.members.compareAndSet(position, null, compiled) ? compiled : this.members.get(position);
+    }
+
+    int getMemberCount() {
+        int count = 0;
+        for (int i = 0; i < this.members.length(); i++) {
+            if (this.members.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The translators of a data set member.
+     */
+    static final class MemberPlan {
+
+        private final Iec61850ReportMemberTranslator[] translators;
+        private final boolean storable;
+
+        /**
+         * @param storable
+         *            {@code true} if the member belongs to the logical device
+         *            of the data set, so its values can be stored as values
+         *            of that logical device.
+         */
+        MemberPlan(final Iec61850ReportMemberTranslator[] translators, final boolean storable) {
+            this.translators = translators;
+            this.storable = storable;
+        }
+
+        Iec61850ReportMemberTranslator[] getTranslators() {
+            return this.translators;
+        }
+
+        boolean isStorable() {
+            return this.storable;
+        }
+    }
+}
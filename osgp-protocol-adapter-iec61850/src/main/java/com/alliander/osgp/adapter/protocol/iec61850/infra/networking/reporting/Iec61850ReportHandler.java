@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ReadOnlyNodeContainer;
@@ -16,5 +17,21 @@ import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
 public interface Iec61850ReportHandler {
     GetDataSystemIdentifierDto createResult(List<MeasurementDto> measurements);
 
-    List<MeasurementDto> handleMember(final ReadOnlyNodeContainer member);
+    /**
+     * Looks up the translators for a data set member. The result only depends
+     * on the reference of the member, not on its values, so it can be reused
+     * for the same member in later reports.
+     *
+     * @return The translators for the member, empty if the member is not
+     *         supported.
+     */
+    List<Iec61850ReportMemberTranslator> getTranslators(final ReadOnlyNodeContainer member);
+
+    default List<MeasurementDto> handleMember(final ReadOnlyNodeContainer member) {
+        final List<MeasurementDto> measurements = new ArrayList<>();
+        for (final Iec61850ReportMemberTranslator translator : this.getTranslators(member)) {
+            measurements.add(translator.translate(member));
+        }
+        return measurements;
+    }
 }
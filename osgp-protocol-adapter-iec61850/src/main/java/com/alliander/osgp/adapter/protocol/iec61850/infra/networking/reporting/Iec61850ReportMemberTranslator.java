@@ -0,0 +1,48 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.RtuReadCommand;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ReadOnlyNodeContainer;
+import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
+
+/**
+ * Translates (a child of) a member of a report data set into a measurement,
+ * using the command that was looked up for the member once.
+ */
+public final class Iec61850ReportMemberTranslator {
+
+    private final RtuReadCommand<MeasurementDto> command;
+    private final String childName;
+
+    /**
+     * Translates the member itself.
+     */
+    public Iec61850ReportMemberTranslator(final RtuReadCommand<MeasurementDto> command) {
+        this(command, null);
+    }
+
+    /**
+     * Translates the child with the given name of the member.
+     */
+    public Iec61850ReportMemberTranslator(final RtuReadCommand<MeasurementDto> command, final String childName) {
+        this.command = command;
+        this.childName = childName;
+    }
+
+    public RtuReadCommand<MeasurementDto> getCommand() {
+        return this.command;
+    }
+
+    public MeasurementDto translate(final ReadOnlyNodeContainer member) {
+        if (this.childName == null) {
+            return this.command.translate(member);
+        }
+        return this.command.translate(member.getChild(this.childName));
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Processes reports received from devices outside of the thread of the
+ * association that received them, so a slow database or message broker does
+ * not stall the reception of reports.
+ * <p>
+ * A report passes two stages: decoding (creating the measurements from the
+ * report) and publishing (sending them to OSGP). Each stage has a number of
+ * worker threads with their own bounded queue. All reports of a device are
+ * handled by the same worker in both stages, so the reports of a device are
+ * published in the order in which they were received. When a queue is full,
+ * the {@link BackpressurePolicy} decides what happens to a new report.
+ * <p>
+ * When no worker threads are configured, reports are processed by the thread
+ * that received them.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=ReportPipeline", description = "Asynchronous processing of reports received from devices")
+public class Iec61850ReportPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportPipeline.class);
+
+    /**
+     * What to do with a report when the queue of its worker is full.
+     */
+    public enum BackpressurePolicy {
+        /**
+         * Wait until there is room in the queue. This stops the association
+         * from receiving new reports, so the device buffers them.
+         */
+        BLOCK,
+        /**
+         * Discard the report.
+         */
+        DISCARD
+    }
+
+    /**
+     * Decodes a report. Called by a worker of the decoding stage.
+     */
+    @FunctionalInterface
+    public interface ReportDecoder {
+        /**
+         * @return The publisher for the decoded report, or {@code null} if
+         *         nothing has to be published.
+         */
+        ReportPublisher decode() throws ProtocolAdapterException;
+    }
+
+    /**
+     * Publishes a decoded report. Called by a worker of the publishing stage.
+     */
+    @FunctionalInterface
+    public interface ReportPublisher {
+        void publish() throws ProtocolAdapterException;
+    }
+
+    @Autowired
+    private int reportWorkerThreads;
+
+    @Autowired
+    private int reportQueueCapacity;
+
+    @Autowired
+    private BackpressurePolicy reportBackpressurePolicy;
+
+    private Stage decodeStage;
+    private Stage publishStage;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("reportWorkerThreads: {}, reportQueueCapacity: {}, reportBackpressurePolicy: {}",
+                this.reportWorkerThreads, this.reportQueueCapacity, this.reportBackpressurePolicy);
+
+        if (this.reportWorkerThreads > 0) {
+            this.decodeStage = new Stage("iec61850-report-decode-", this.reportWorkerThreads,
+                    this.reportQueueCapacity);
+            this.publishStage = new Stage("iec61850-report-publish-", this.reportWorkerThreads,
+                    this.reportQueueCapacity);
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (this.decodeStage != null) {
+            this.decodeStage.shutdown();
+        }
+        if (this.publishStage != null) {
+            this.publishStage.shutdown();
+        }
+    }
+
+    /**
+     * Submits a report of a device for processing.
+     *
+     * @param deviceIdentification
+     *            The device that sent the report, used to keep the reports
+     *            of a device in order.
+     * @param decoder
+     *            Decodes the report. The decoder must only use data that is
+     *            not changed by reports received later.
+     */
+    public void submit(final String deviceIdentification, final ReportDecoder decoder) {
+        this.submittedCount.incrementAndGet();
+
+        if (this.decodeStage == null) {
+            this.decode(deviceIdentification, decoder, -1);
+            return;
+        }
+
+        final int worker = this.decodeStage.workerFor(deviceIdentification);
+        this.decodeStage.submit(worker, deviceIdentification, () -> this.decode(deviceIdentification, decoder, worker));
+    }
+
+    private void decode(final String deviceIdentification, final ReportDecoder decoder, final int worker) {
+        final ReportPublisher publisher;
+        try {
+            publisher = decoder.decode();
+        } catch (final Exception e) {
+            this.failedCount.incrementAndGet();
+            LOGGER.warn("Unable to decode report for device: {}, discarding report", deviceIdentification, e);
+            return;
+        }
+        if (publisher == null) {
+            return;
+        }
+
+        if (worker < 0) {
+            this.publish(deviceIdentification, publisher);
+        } else {
+            this.publishStage.submit(worker, deviceIdentification, () -> this.publish(deviceIdentification, publisher));
+        }
+    }
+
+    private void publish(final String deviceIdentification, final ReportPublisher publisher) {
+        try {
+            publisher.publish();
+        } catch (final Exception e) {
+            this.failedCount.incrementAndGet();
+            LOGGER.warn("Unable to publish report for device: {}, discarding report", deviceIdentification, e);
+        }
+    }
+
+    @ManagedAttribute(description = "Worker threads per stage, 0 if reports are processed by the receiving thread")
+    public int getWorkerThreads() {
+        return this.reportWorkerThreads;
+    }
+
+    @ManagedAttribute(description = "Number of reports submitted for processing")
+    public long getSubmittedCount() {
+        return this.submittedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports discarded because a queue was full")
+    public long getDiscardedCount() {
+        return this.discardedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports that could not be decoded or published")
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports waiting to be decoded")
+    public int getDecodeQueueSize() {
+        return this.decodeStage == null ? 0 : this.decodeStage.getQueueSize();
+    }
+
+    @ManagedAttribute(description = "Number of reports waiting to be published")
+    public int getPublishQueueSize() {
+        return this.publishStage == null ? 0 : this.publishStage.getQueueSize();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds reports waited to be decoded")
+    public double getDecodeAverageWaitMillis() {
+        return this.decodeStage == null ? 0 : this.decodeStage.waitTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds a report waited to be decoded")
+    public long getDecodeMaxWaitMillis() {
+        return this.decodeStage == null ? 0 : this.decodeStage.waitTime.getMax();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds spent decoding a report")
+    public double getDecodeAverageProcessingMillis() {
+        return this.decodeStage == null ? 0 : this.decodeStage.processingTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds spent decoding a report")
+    public long getDecodeMaxProcessingMillis() {
+        return this.decodeStage == null ? 0 : this.decodeStage.processingTime.getMax();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds reports waited to be published")
+    public double getPublishAverageWaitMillis() {
+        return this.publishStage == null ? 0 : this.publishStage.waitTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds a report waited to be published")
+    public long getPublishMaxWaitMillis() {
+        return this.publishStage == null ? 0 : this.publishStage.waitTime.getMax();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds spent publishing a report")
+    public double getPublishAverageProcessingMillis() {
+        return this.publishStage == null ? 0 : this.publishStage.processingTime.getAverage();
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds spent publishing a report")
+    public long getPublishMaxProcessingMillis() {
+        return this.publishStage == null ? 0 : this.publishStage.processingTime.getMax();
+    }
+
+    /**
+     * A number of single threaded workers, each with its own bounded queue.
+     */
+    private final class Stage {
+
+        private final ThreadPoolExecutor[] workers;
+
+        private final Latency waitTime = new Latency();
+        private final Latency processingTime = new Latency();
+
+        Stage(final String threadNamePrefix, final int threads, final int queueCapacity) {
+            this.workers = new ThreadPoolExecutor[threads];
+            for (int i = 0; i < threads; i++) {
+                final String threadName = threadNamePrefix + (i + 1);
+                this.workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<Runnable>(queueCapacity), runnable -> {
+                            final Thread thread = new Thread(runnable, threadName);
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                // Tasks are put in the queue directly, so the thread has to
+                // be running already.
+                this.workers[i].prestartCoreThread();
+            }
+        }
+
+        int workerFor(final String deviceIdentification) {
+            return Math.floorMod(deviceIdentification.hashCode(), this.workers.length);
+        }
+
+        void submit(final int worker, final String deviceIdentification, final Runnable task) {
+            final long submitTime = System.currentTimeMillis();
+            final Runnable measuredTask = () -> {
+                final long startTime = System.currentTimeMillis();
+                this.waitTime.add(startTime - submitTime);
+                try {
+                    task.run();
+                } finally {
+                    this.processingTime.add(System.currentTimeMillis() - startTime);
+                }
+            };
+
+            final ThreadPoolExecutor executor = this.workers[worker];
+            if (executor.getQueue().offer(measuredTask)) {
+                return;
+            }
+            if (BackpressurePolicy.DISCARD.equals(Iec61850ReportPipeline.this.reportBackpressurePolicy)) {
+                Iec61850ReportPipeline.this.discardedCount.incrementAndGet();
+                LOGGER.warn("Report queue full, discarding report for device: {}", deviceIdentification);
+                return;
+            }
+            try {
+                LOGGER.debug("Report queue full, waiting to queue report for device: {}", deviceIdentification);
+                executor.getQueue().put(measuredTask);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Iec61850ReportPipeline.this.discardedCount.incrementAndGet();
+                LOGGER.warn("Interrupted while waiting to queue report for device: {}, discarding report",
+                        deviceIdentification);
+            }
+        }
+
+        int getQueueSize() {
+            int size = 0;
+            for (final ThreadPoolExecutor worker : this.workers) {
+                size += worker.getQueue().size();
+            }
+            return size;
+        }
+
+        void shutdown() {
+            for (final ThreadPoolExecutor worker : this.workers) {
+                worker.shutdownNow();
+            }
+        }
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void add(final long millis) {
+            this.count.incrementAndGet();
+            this.totalMillis.addAndGet(millis);
+            this.maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        double getAverage() {
+            final long n = this.count.get();
+            return n == 0 ? 0 : (double) this.totalMillis.get() / n;
+        }
+
+        long getMax() {
+            return this.maxMillis.get();
+        }
+    }
+}
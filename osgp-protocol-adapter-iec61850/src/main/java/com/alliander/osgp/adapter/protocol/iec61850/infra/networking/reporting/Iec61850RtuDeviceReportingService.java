@@ -20,17 +20,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850DeviceReportGroup;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Report;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850ReportGroup;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceReportGroupRepository;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.Iec61850DeviceConfiguration;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeWriteException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics.Operation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850OperationMetrics.Outcome;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.NodeContainer;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.SubDataAttribute;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850DeviceConfigurationCache;
 
 @Service
 public class Iec61850RtuDeviceReportingService {
@@ -38,10 +40,10 @@ public class Iec61850RtuDeviceReportingService {
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850RtuDeviceReportingService.class);
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceConfigurationCache iec61850DeviceConfigurationCache;
 
     @Autowired
-    private Iec61850DeviceReportGroupRepository iec61850DeviceReportRepository;
+    private Iec61850OperationMetrics iec61850OperationMetrics;
 
     public void enableReportingForDevice(final DeviceConnection connection, final String deviceIdentification,
             final String serverName) {
@@ -52,8 +54,8 @@ public class Iec61850RtuDeviceReportingService {
         }
 
         try {
-            final Iec61850Device device = this.iec61850DeviceRepository
-                    .findByDeviceIdentification(deviceIdentification);
+            final Iec61850DeviceConfiguration device = this.iec61850DeviceConfigurationCache
+                    .getDeviceConfiguration(deviceIdentification);
 
             if (device.isEnableAllReportsOnConnect()) {
                 this.enableAllReports(connection, deviceIdentification);
@@ -101,8 +103,8 @@ public class Iec61850RtuDeviceReportingService {
         final ServerModel serverModel = connection.getConnection().getServerModel();
         final ClientAssociation clientAssociation = connection.getConnection().getClientAssociation();
 
-        final List<Iec61850DeviceReportGroup> deviceReportGroups = this.iec61850DeviceReportRepository
-                .findByDeviceIdentificationAndEnabled(deviceIdentification, true);
+        final List<Iec61850DeviceReportGroup> deviceReportGroups = this.iec61850DeviceConfigurationCache
+                .getEnabledReportGroups(deviceIdentification);
         for (final Iec61850DeviceReportGroup deviceReportGroup : deviceReportGroups) {
             this.enableReportGroup(serverName, deviceIdentification, deviceReportGroup.getIec61850ReportGroup(),
                     serverModel, clientAssociation);
@@ -146,13 +148,24 @@ public class Iec61850RtuDeviceReportingService {
 
     private void enableRcb(final String deviceIdentification, final ClientAssociation clientAssociation,
             final Rcb rcb) {
+        final long startTime = this.iec61850OperationMetrics.start();
         try {
             clientAssociation.enableReporting(rcb);
+            this.iec61850OperationMetrics.record(Operation.ENABLE_REPORTING, clientAssociation, startTime,
+                    Outcome.OK);
         } catch (final IOException e) {
+            this.iec61850OperationMetrics.record(Operation.ENABLE_REPORTING, clientAssociation, startTime,
+                    Outcome.IO_ERROR);
             LOGGER.error("IOException: unable to enable reporting for deviceIdentification " + deviceIdentification, e);
         } catch (final ServiceError e) {
+            this.iec61850OperationMetrics.record(Operation.ENABLE_REPORTING, clientAssociation, startTime,
+                    Outcome.SERVICE_ERROR);
             LOGGER.error("ServiceError: unable to enable reporting for deviceIdentification " + deviceIdentification,
                     e);
+        } catch (final RuntimeException e) {
+            this.iec61850OperationMetrics.record(Operation.ENABLE_REPORTING, clientAssociation, startTime,
+                    Outcome.OTHER_ERROR);
+            throw e;
         }
     }
 
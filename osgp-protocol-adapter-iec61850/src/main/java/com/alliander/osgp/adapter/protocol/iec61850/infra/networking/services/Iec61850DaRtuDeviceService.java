@@ -11,8 +11,6 @@ import java.io.Serializable;
 
 import javax.jms.JMSException;
 
-import org.openmuc.openiec61850.ClientAssociation;
-import org.openmuc.openiec61850.ServerModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,14 +23,11 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.da.rtu.DaDeviceReques
 import com.alliander.osgp.adapter.protocol.iec61850.device.da.rtu.DaDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.device.da.rtu.DaRtuDeviceService;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.EmptyDeviceResponse;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.Iec61850DeviceConfiguration;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DaRtuDeviceRequestMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ClientAssociation;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
@@ -50,26 +45,20 @@ public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
     private Iec61850Client iec61850Client;
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceConfigurationCache iec61850DeviceConfigurationCache;
+
+    @Autowired
+    private Iec61850ReadCoalescer iec61850ReadCoalescer;
 
     @Override
     public void getData(final DaDeviceRequest deviceRequest, final DeviceResponseHandler deviceResponseHandler,
             final DaRtuDeviceRequestMessageProcessor messageProcessor) throws JMSException {
         try {
-            final String serverName = this.getServerName(deviceRequest);
-            final ServerModel serverModel = this.connectAndRetrieveServerModel(deviceRequest, serverName);
-
-            final ClientAssociation clientAssociation = this.iec61850DeviceConnectionService
-                    .getClientAssociation(deviceRequest.getDeviceIdentification());
-
-            final Serializable dataResponse = this
-                    .handleGetData(
-                            new DeviceConnection(
-                                    new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null),
-                                            serverModel),
-                                    deviceRequest.getDeviceIdentification(),
-                                    deviceRequest.getOrganisationIdentification(), serverName),
-                            deviceRequest, messageProcessor);
+            // The distribution automation reads do not depend on the request
+            // object, a message type always reads the same data.
+            final Serializable dataResponse = this.iec61850ReadCoalescer.read(deviceRequest.getDeviceIdentification(),
+                    deviceRequest.getMessageType(), null,
+                    () -> this.getDataFromDevice(deviceRequest, messageProcessor));
 
             final DaDeviceResponse deviceResponse = new DaDeviceResponse(deviceRequest.getOrganisationIdentification(),
                     deviceRequest.getDeviceIdentification(), deviceRequest.getCorrelationUid(), DeviceMessageStatus.OK,
@@ -99,13 +88,21 @@ public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
     // PRIVATE DEVICE COMMUNICATION METHODS =
     // ======================================
 
-    private ServerModel connectAndRetrieveServerModel(final DeviceRequest deviceRequest, final String serverName)
-            throws ProtocolAdapterException {
+    private Serializable getDataFromDevice(final DaDeviceRequest deviceRequest,
+            final DaRtuDeviceRequestMessageProcessor messageProcessor) throws ProtocolAdapterException {
+        final String serverName = this.getServerName(deviceRequest);
+        return this.handleGetData(this.connectToDevice(deviceRequest, serverName), deviceRequest, messageProcessor);
+    }
 
-        this.iec61850DeviceConnectionService.connect(deviceRequest.getIpAddress(),
+    /**
+     * Connects to the device, reusing the pooled connection if it is still
+     * usable, so the index of its server model nodes is shared.
+     */
+    private DeviceConnection connectToDevice(final DeviceRequest deviceRequest, final String serverName)
+            throws ProtocolAdapterException {
+        return this.iec61850DeviceConnectionService.connect(deviceRequest.getIpAddress(),
                 deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), IED.DA_RTU,
                 serverName, LogicalDevice.RTU.getDescription() + 1);
-        return this.iec61850DeviceConnectionService.getServerModel(deviceRequest.getDeviceIdentification());
     }
 
     // ========================
@@ -119,8 +116,8 @@ public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
     }
 
     private String getServerName(final DeviceRequest deviceRequest) {
-        final Iec61850Device iec61850Device = this.iec61850DeviceRepository
-                .findByDeviceIdentification(deviceRequest.getDeviceIdentification());
+        final Iec61850DeviceConfiguration iec61850Device = this.iec61850DeviceConfigurationCache
+                .getDeviceConfiguration(deviceRequest.getDeviceIdentification());
         if (iec61850Device != null && iec61850Device.getServerName() != null) {
             return iec61850Device.getServerName();
         } else {
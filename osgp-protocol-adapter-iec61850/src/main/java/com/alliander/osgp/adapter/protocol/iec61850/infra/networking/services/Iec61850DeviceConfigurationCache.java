@@ -0,0 +1,171 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850DeviceReportGroup;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceReportGroupRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.Iec61850DeviceConfiguration;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+
+/**
+ * Read-through cache for the configuration of devices in the database, so
+ * requests for a device do not query the database for the same configuration
+ * several times.
+ * <p>
+ * Cached values are read from the database again after the configured time to
+ * live, or after they have been invalidated. A time to live of 0 disables the
+ * cache.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=DeviceConfigurationCache", description = "Cached configuration of devices from the database")
+public class Iec61850DeviceConfigurationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceConfigurationCache.class);
+
+    private final ConcurrentHashMap<String, CachedValue<Iec61850DeviceConfiguration>> deviceConfigurations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CachedValue<List<Iec61850DeviceReportGroup>>> enabledReportGroups = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation, so values read from the database
+     * while the cache is invalidated are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @Autowired
+    private Iec61850DeviceRepository iec61850DeviceRepository;
+
+    @Autowired
+    private Iec61850DeviceReportGroupRepository iec61850DeviceReportGroupRepository;
+
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
+    @Autowired
+    private int deviceConfigurationCacheTimeToLive;
+
+    private long timeToLiveMillis;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("deviceConfigurationCacheTimeToLive: {}", this.deviceConfigurationCacheTimeToLive);
+        this.timeToLiveMillis = TimeUnit.SECONDS.toMillis(Math.max(0, this.deviceConfigurationCacheTimeToLive));
+    }
+
+    /**
+     * @return The configuration of the device, or {@code null} if the device
+     *         is not configured in the database.
+     */
+    public Iec61850DeviceConfiguration getDeviceConfiguration(final String deviceIdentification) {
+        return this.get(this.deviceConfigurations, deviceIdentification, id -> {
+            final Iec61850Device device = this.iec61850DeviceRepository.findByDeviceIdentification(id);
+            return device == null ? null : new Iec61850DeviceConfiguration(device);
+        });
+    }
+
+    /**
+     * @return The enabled report groups of the device, the list can not be
+     *         modified.
+     */
+    public List<Iec61850DeviceReportGroup> getEnabledReportGroups(final String deviceIdentification) {
+        return this.get(this.enabledReportGroups, deviceIdentification,
+                id -> Collections.unmodifiableList(
+                        this.iec61850DeviceReportGroupRepository.findByDeviceIdentificationAndEnabled(id, true)));
+    }
+
+    private <T> T get(final ConcurrentHashMap<String, CachedValue<T>> cache, final String deviceIdentification,
+            final Function<String, T> loader) {
+        final CachedValue<T> cached = cache.get(deviceIdentification);
+        if (cached != null && System.currentTimeMillis() - cached.loadTime < this.timeToLiveMillis) {
+            this.hitCount.incrementAndGet();
+            return cached.value;
+        }
+        this.missCount.incrementAndGet();
+
+        final long generationBeforeLoad = this.generation.get();
+        final long loadTime = System.currentTimeMillis();
+        final T value = loader.apply(deviceIdentification);
+        if (this.timeToLiveMillis > 0 && this.generation.get() == generationBeforeLoad) {
+            cache.put(deviceIdentification, new CachedValue<>(value, loadTime));
+        }
+        return value;
+    }
+
+    /**
+     * Makes the adapter read the configuration of the device from the
+     * database again, after it has been changed.
+     */
+    @ManagedOperation(description = "Reads the configuration of a device from the database again")
+    public void invalidate(final String deviceIdentification) {
+        LOGGER.info("Invalidating cached configuration of device: {}", deviceIdentification);
+        this.generation.incrementAndGet();
+        this.deviceConfigurations.remove(deviceIdentification);
+        this.enabledReportGroups.remove(deviceIdentification);
+        this.iec61850ConnectionPool.refreshDeviceConfiguration(deviceIdentification);
+    }
+
+    @ManagedOperation(description = "Reads the configuration of all devices from the database again")
+    public void invalidateAll() {
+        LOGGER.info("Invalidating cached configuration of all devices");
+        this.generation.incrementAndGet();
+        this.deviceConfigurations.clear();
+        this.enabledReportGroups.clear();
+    }
+
+    @ManagedAttribute(description = "Time to live in seconds of cached device configurations, 0 if disabled")
+    public int getTimeToLive() {
+        return this.deviceConfigurationCacheTimeToLive;
+    }
+
+    @ManagedAttribute(description = "Number of devices with a cached configuration")
+    public int getSize() {
+        return this.deviceConfigurations.size();
+    }
+
+    @ManagedAttribute(description = "Number of lookups answered from the cache")
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of lookups read from the database")
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    private static final class CachedValue<T> {
+
+        private final T value;
+        private final long loadTime;
+
+        CachedValue(final T value, final long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -10,7 +10,6 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.file.Paths;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
@@ -25,14 +24,15 @@ import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.Iec61850DeviceConfiguration;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ClientAssociation;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ServerModelCache;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DataAttribute;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
@@ -47,15 +47,13 @@ public class Iec61850DeviceConnectionService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceConnectionService.class);
 
-    private static ConcurrentHashMap<String, Iec61850Connection> cache = new ConcurrentHashMap<>();
-
     private static final int IEC61850_DEFAULT_PORT = 102;
 
     @Autowired
     private DeviceManagementService deviceManagementService;
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceConfigurationCache iec61850DeviceConfigurationCache;
 
     @Autowired
     private Iec61850RtuDeviceReportingService iec61850RtuDeviceReportingService;
@@ -66,6 +64,15 @@ public class Iec61850DeviceConnectionService {
     @Autowired
     private Iec61850Client iec61850Client;
 
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
+    @Autowired
+    private Iec61850ServerModelCache iec61850ServerModelCache;
+
+    @Autowired
+    private Iec61850DeviceModelStore iec61850DeviceModelStore;
+
     @Autowired
     private int iec61850SsldPortServer;
 
@@ -84,6 +91,9 @@ public class Iec61850DeviceConnectionService {
     @Autowired
     private boolean isIcdFileUsed;
 
+    @Autowired
+    private boolean isDeviceModelStoreEnabled;
+
     public DeviceConnection connectWithoutConnectionCaching(final String ipAddress, final String deviceIdentification,
             final String organisationIdentification, final IED ied, final String serverName, final String logicalDevice)
             throws ConnectionFailureException {
@@ -101,11 +111,30 @@ public class Iec61850DeviceConnectionService {
     public DeviceConnection connect(final String ipAddress, final String deviceIdentification,
             final String organisationIdentification, final IED ied, final String serverName, final String logicalDevice,
             final boolean cacheConnection) throws ConnectionFailureException {
+        if (!cacheConnection) {
+            return this.doConnect(ipAddress, deviceIdentification, organisationIdentification, ied, serverName,
+                    logicalDevice, false);
+        }
+        // Only one thread at a time may connect to a device when connection
+        // caching is used, so concurrent requests share one association.
+        this.iec61850ConnectionPool.lockDevice(deviceIdentification);
+        try {
+            return this.doConnect(ipAddress, deviceIdentification, organisationIdentification, ied, serverName,
+                    logicalDevice, true);
+        } finally {
+            this.iec61850ConnectionPool.unlockDevice(deviceIdentification);
+        }
+    }
+
+    private DeviceConnection doConnect(final String ipAddress, final String deviceIdentification,
+            final String organisationIdentification, final IED ied, final String serverName, final String logicalDevice,
+            final boolean cacheConnection) throws ConnectionFailureException {
         // When connection-caching is used, check if a connection is available
         // an usable for the given deviceIdentification.
         try {
             if (cacheConnection
                     && this.testIfConnectionIsCachedAndAlive(deviceIdentification, ied, serverName, logicalDevice)) {
+                this.iec61850ConnectionPool.markReused(deviceIdentification);
                 return new DeviceConnection(this.fetchIec61850Connection(deviceIdentification), deviceIdentification,
                         organisationIdentification, serverName);
             }
@@ -133,14 +162,14 @@ public class Iec61850DeviceConnectionService {
             this.logProtocolAdapterException(deviceIdentification, e);
         }
 
-        final Iec61850Device iec61850Device = this.iec61850DeviceRepository
-                .findByDeviceIdentification(deviceIdentification);
+        final Iec61850DeviceConfiguration iec61850Device = this.iec61850DeviceConfigurationCache
+                .getDeviceConfiguration(deviceIdentification);
 
         final int port = this.determinePortForIec61850Device(ied, iec61850Device);
 
         // Try to connect and receive the ClientAssociation.
         final Iec61850ClientAssociation iec61850ClientAssociation = this.iec61850Client.connect(deviceIdentification,
-                inetAddress, eventListener, port);
+                inetAddress, eventListener, port, ied);
         final ClientAssociation clientAssociation = iec61850ClientAssociation.getClientAssociation();
         // Set response time-out.
         clientAssociation.setResponseTimeout(this.responseTimeout);
@@ -158,7 +187,7 @@ public class Iec61850DeviceConnectionService {
         final Iec61850Connection iec61850Connection = new Iec61850Connection(iec61850ClientAssociation, serverModel,
                 startTime, ied);
         if (cacheConnection) {
-            this.cacheIec61850Connection(deviceIdentification, iec61850Connection);
+            this.cacheIec61850Connection(deviceIdentification, iec61850Connection, ied, serverName, logicalDevice);
         }
 
         final DeviceConnection connection = new DeviceConnection(iec61850Connection, deviceIdentification,
@@ -174,6 +203,37 @@ public class Iec61850DeviceConnectionService {
         return connection;
     }
 
+    /**
+     * Opens an additional association to a connected device, using the server
+     * model of the given connection. The association does not receive reports
+     * and is not pooled, it has to be closed by the caller.
+     * <p>
+     * A {@link ClientAssociation} is not thread-safe, so requests that are
+     * sent to a device from more than one thread at the same time each need
+     * their own association.
+     */
+    public DeviceConnection connectAdditional(final String ipAddress, final DeviceConnection connection,
+            final IED ied, final String serverName) throws ConnectionFailureException {
+        if (StringUtils.isEmpty(ipAddress)) {
+            throw new ConnectionFailureException("Ip address is null");
+        }
+        final String deviceIdentification = connection.getDeviceIdentification();
+        final Iec61850DeviceConfiguration iec61850Device = this.iec61850DeviceConfigurationCache
+                .getDeviceConfiguration(deviceIdentification);
+
+        final Iec61850ClientAssociation iec61850ClientAssociation = this.iec61850Client.connectAdditional(
+                deviceIdentification, this.convertIpAddress(ipAddress),
+                this.determinePortForIec61850Device(ied, iec61850Device), ied);
+        final ClientAssociation clientAssociation = iec61850ClientAssociation.getClientAssociation();
+        clientAssociation.setResponseTimeout(this.responseTimeout);
+        final ServerModel serverModel = connection.getConnection().getServerModel();
+        clientAssociation.setServerModel(serverModel);
+
+        return new DeviceConnection(
+                new Iec61850Connection(iec61850ClientAssociation, serverModel, DateTime.now(), ied),
+                deviceIdentification, connection.getOrganisationIdentification(), serverName);
+    }
+
     private void logProtocolAdapterException(final String deviceIdentification, final ProtocolAdapterException e) {
         LOGGER.error(
                 "ProtocolAdapterException: no Iec61850ClientBaseEventListener instance could be contructed, continue without event listener for deviceIdentification: "
@@ -181,7 +241,7 @@ public class Iec61850DeviceConnectionService {
                 e);
     }
 
-    private int determinePortForIec61850Device(final IED ied, final Iec61850Device iec61850Device) {
+    private int determinePortForIec61850Device(final IED ied, final Iec61850DeviceConfiguration iec61850Device) {
         final int port;
         if (iec61850Device != null && iec61850Device.getPort() != null) {
             /*
@@ -202,10 +262,16 @@ public class Iec61850DeviceConnectionService {
 
     private boolean testIfConnectionIsCachedAndAlive(final String deviceIdentification, final IED ied,
             final String serverName, final String logicalDevice) throws ProtocolAdapterException {
+        LOGGER.info("Trying to find connection in cache for deviceIdentification: {}", deviceIdentification);
+        final Iec61850Connection iec61850Connection = this.fetchIec61850Connection(deviceIdentification);
         try {
-            LOGGER.info("Trying to find connection in cache for deviceIdentification: {}", deviceIdentification);
-            final Iec61850Connection iec61850Connection = this.fetchIec61850Connection(deviceIdentification);
             if (iec61850Connection != null) {
+                if (this.iec61850ConnectionPool.isRecentlyHealthy(deviceIdentification)) {
+                    // The connection is checked in the background.
+                    LOGGER.info("Connection found for deviceIdentification: {}, recently checked to be active",
+                            deviceIdentification);
+                    return true;
+                }
                 // Already connected, check if connection is still usable.
                 LOGGER.info("Connection found for deviceIdentification: {}", deviceIdentification);
                 // Read physical name node (only), which is much faster, but
@@ -226,12 +292,13 @@ public class Iec61850DeviceConnectionService {
                     this.iec61850Client.readAllDataValues(iec61850Connection.getClientAssociation());
                 }
                 LOGGER.info("Connection is still active for deviceIdentification: {}", deviceIdentification);
+                this.iec61850ConnectionPool.markHealthy(deviceIdentification);
                 return true;
             }
         } catch (final NodeReadException e) {
             LOGGER.error("Connection is no longer active, removing connection from cache for deviceIdentification: "
                     + deviceIdentification, e);
-            this.removeIec61850Connection(deviceIdentification);
+            this.iec61850ConnectionPool.evictBroken(deviceIdentification, iec61850Connection);
         }
         return false;
     }
@@ -263,7 +330,7 @@ public class Iec61850DeviceConnectionService {
     }
 
     private ServerModel readServerModel(final ClientAssociation clientAssociation, final String deviceIdentification,
-            final Iec61850Device iec61850Device) throws ProtocolAdapterException {
+            final Iec61850DeviceConfiguration iec61850Device) throws ProtocolAdapterException {
 
         ServerModel serverModel;
         try {
@@ -284,12 +351,16 @@ public class Iec61850DeviceConnectionService {
         } catch (final ProtocolAdapterException e) {
             LOGGER.warn("Ignore exception reading server model based on configured ICD file.", e);
         }
+        if (this.isDeviceModelStoreEnabled) {
+            return this.iec61850DeviceModelStore.readServerModel(clientAssociation, deviceIdentification);
+        }
         LOGGER.info("Reading ServerModel from device: {} using readServerModelFromDevice()", deviceIdentification);
         return this.iec61850Client.readServerModelFromDevice(clientAssociation);
     }
 
     private ServerModel readServerModelConfiguredForDevice(final ClientAssociation clientAssociation,
-            final String deviceIdentification, final Iec61850Device iec61850Device) throws ProtocolAdapterException {
+            final String deviceIdentification, final Iec61850DeviceConfiguration iec61850Device)
+            throws ProtocolAdapterException {
 
         if (iec61850Device == null || StringUtils.isBlank(iec61850Device.getIcdFilename())) {
             /*
@@ -307,7 +378,7 @@ public class Iec61850DeviceConnectionService {
         final String filePath = Paths.get(this.icdFilesFolder, iec61850Device.getIcdFilename()).toString();
         LOGGER.info("Reading ServerModel from SCL / ICD file: {} configured for device: {}", filePath,
                 deviceIdentification);
-        return this.iec61850Client.readServerModelFromSclFile(clientAssociation, filePath);
+        return this.iec61850ServerModelCache.getServerModel(clientAssociation, filePath);
     }
 
     private ServerModel readServerModelFromConfiguredIcdFile(final ClientAssociation clientAssociation)
@@ -318,7 +389,7 @@ public class Iec61850DeviceConnectionService {
         }
 
         LOGGER.info("Reading ServerModel from SCL / ICD file: {}", this.icdFilePath);
-        return this.iec61850Client.readServerModelFromSclFile(clientAssociation, this.icdFilePath);
+        return this.iec61850ServerModelCache.getServerModel(clientAssociation, this.icdFilePath);
     }
 
     /**
@@ -413,12 +484,25 @@ public class Iec61850DeviceConnectionService {
     }
 
     private void cacheIec61850Connection(final String deviceIdentification,
-            final Iec61850Connection iec61850Connection) {
-        cache.put(deviceIdentification, iec61850Connection);
+            final Iec61850Connection iec61850Connection, final IED ied, final String serverName,
+            final String logicalDevice) {
+        // Determine the node used to check if the connection is still alive,
+        // in the same way as testIfConnectionIsCachedAndAlive does.
+        FcModelNode healthCheckNode = null;
+        if (ied != null && logicalDevice != null) {
+            try {
+                healthCheckNode = this.getModelNode(logicalDevice, iec61850Connection,
+                        this.getActualServerName(ied, serverName));
+            } catch (final ProtocolAdapterException e) {
+                LOGGER.warn("No name plate found to check connection for deviceIdentification: {}",
+                        deviceIdentification, e);
+            }
+        }
+        this.iec61850ConnectionPool.put(deviceIdentification, iec61850Connection, healthCheckNode);
     }
 
     private Iec61850Connection fetchIec61850Connection(final String deviceIdentification) {
-        final Iec61850Connection iec61850Connection = cache.get(deviceIdentification);
+        final Iec61850Connection iec61850Connection = this.iec61850ConnectionPool.get(deviceIdentification);
         if (iec61850Connection == null) {
             LOGGER.info("No connection found for device: {}", deviceIdentification);
         }
@@ -426,7 +510,7 @@ public class Iec61850DeviceConnectionService {
     }
 
     private void removeIec61850Connection(final String deviceIdentification) {
-        cache.remove(deviceIdentification);
+        this.iec61850ConnectionPool.remove(deviceIdentification);
     }
 
     private InetAddress convertIpAddress(final String ipAddress) throws ConnectionFailureException {
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openmuc.openiec61850.BasicDataAttribute;
+import org.openmuc.openiec61850.ClientAssociation;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ModelNode;
+import org.openmuc.openiec61850.ServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850DeviceModel;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceModelRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ServerModelSerializer;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DataAttribute;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
+
+/**
+ * Stores the structure of ServerModels retrieved from devices, so the
+ * (expensive) discovery using {@link ClientAssociation#retrieveModel()} only
+ * has to be done once per device.
+ * <p>
+ * A stored model is validated on every connect by reading the name plates
+ * (LLN0.NamPlt) of all logical devices. The name plate contains the
+ * configuration revision of the logical device, so when the values differ
+ * from the values at the time the model was stored, or the name plates can no
+ * longer be read, the model is retrieved from the device again.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=DeviceModelStore", description = "Stored ServerModels retrieved from devices")
+public class Iec61850DeviceModelStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceModelStore.class);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong changedCount = new AtomicLong();
+
+    @Autowired
+    private Iec61850DeviceModelRepository iec61850DeviceModelRepository;
+
+    @Autowired
+    private Iec61850Client iec61850Client;
+
+    /**
+     * Reads the {@link ServerModel} of a device. A stored model is used if it
+     * is still valid for the device, otherwise the model is retrieved from
+     * the device and stored.
+     *
+     * @throws ProtocolAdapterException
+     *             In case the model can not be retrieved from the device.
+     */
+    public ServerModel readServerModel(final ClientAssociation clientAssociation, final String deviceIdentification)
+            throws ProtocolAdapterException {
+
+        final Iec61850DeviceModel deviceModel = this.iec61850DeviceModelRepository
+                .findByDeviceIdentification(deviceIdentification);
+
+        if (deviceModel != null) {
+            final ServerModel serverModel = this.useStoredServerModel(clientAssociation, deviceModel);
+            if (serverModel != null) {
+                this.hitCount.incrementAndGet();
+                return serverModel;
+            }
+        } else {
+            this.missCount.incrementAndGet();
+        }
+
+        LOGGER.info("Reading ServerModel from device: {} using readServerModelFromDevice()", deviceIdentification);
+        final ServerModel serverModel = this.iec61850Client.readServerModelFromDevice(clientAssociation);
+        this.storeServerModel(clientAssociation, serverModel, deviceIdentification, deviceModel);
+        return serverModel;
+    }
+
+    private ServerModel useStoredServerModel(final ClientAssociation clientAssociation,
+            final Iec61850DeviceModel deviceModel) throws ProtocolAdapterException {
+
+        final String deviceIdentification = deviceModel.getDeviceIdentification();
+        final ServerModel serverModel;
+        try {
+            serverModel = Iec61850ServerModelSerializer.deserialize(deviceModel.getServerModel());
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to use stored ServerModel for device: {}, retrieving model from device",
+                    deviceIdentification, e);
+            this.missCount.incrementAndGet();
+            return null;
+        }
+        clientAssociation.setServerModel(serverModel);
+
+        final String fingerprint;
+        try {
+            fingerprint = this.readFingerprint(clientAssociation, serverModel);
+        } catch (final NodeReadException e) {
+            if (ConnectionState.BROKEN.equals(e.getConnectionState())) {
+                throw new ProtocolAdapterException("Unable to validate stored ServerModel for device: "
+                        + deviceIdentification, e);
+            }
+            LOGGER.info("Stored ServerModel no longer matches device: {}, retrieving model from device",
+                    deviceIdentification);
+            this.changedCount.incrementAndGet();
+            return null;
+        }
+
+        if (!deviceModel.getFingerprint().equals(fingerprint)) {
+            LOGGER.info("Name plates changed for device: {}, retrieving model from device", deviceIdentification);
+            this.changedCount.incrementAndGet();
+            return null;
+        }
+
+        LOGGER.info("Using stored ServerModel for device: {}", deviceIdentification);
+        return serverModel;
+    }
+
+    private void storeServerModel(final ClientAssociation clientAssociation, final ServerModel serverModel,
+            final String deviceIdentification, final Iec61850DeviceModel deviceModel) {
+        try {
+            final String fingerprint = this.readFingerprint(clientAssociation, serverModel);
+            if (fingerprint == null) {
+                LOGGER.info("No name plates found in ServerModel for device: {}, not storing model",
+                        deviceIdentification);
+                return;
+            }
+            final Iec61850DeviceModel modelToSave = deviceModel == null
+                    ? new Iec61850DeviceModel(deviceIdentification) : deviceModel;
+            modelToSave.updateServerModel(fingerprint, Iec61850ServerModelSerializer.serialize(serverModel));
+            this.iec61850DeviceModelRepository.save(modelToSave);
+            LOGGER.info("Stored ServerModel for device: {}", deviceIdentification);
+        } catch (final NodeReadException | IOException | RuntimeException e) {
+            // Failing to store the model is not a reason to fail the connect.
+            LOGGER.warn("Unable to store ServerModel for device: {}", deviceIdentification, e);
+        }
+    }
+
+    /**
+     * Reads the name plates of all logical devices in the model and returns a
+     * hash of their values, or {@code null} if the model has no name plates.
+     */
+    private String readFingerprint(final ClientAssociation clientAssociation, final ServerModel serverModel)
+            throws NodeReadException {
+        final StringBuilder namePlates = new StringBuilder();
+        for (final ModelNode logicalDevice : serverModel.getChildren()) {
+            final String reference = logicalDevice.getName() + "/" + LogicalNode.LOGICAL_NODE_ZERO.getDescription()
+                    + "." + DataAttribute.NAME_PLATE.getDescription();
+            final FcModelNode namePlate = (FcModelNode) serverModel.findModelNode(reference, Fc.DC);
+            if (namePlate == null) {
+                continue;
+            }
+            this.iec61850Client.readNodeDataValues(clientAssociation, namePlate);
+            for (final BasicDataAttribute bda : namePlate.getBasicDataAttributes()) {
+                namePlates.append(bda.toString()).append(';');
+            }
+        }
+        return namePlates.length() == 0 ? null : DigestUtils.sha256Hex(namePlates.toString());
+    }
+
+    @ManagedAttribute(description = "Number of connects that used a stored ServerModel")
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of connects without a usable stored ServerModel")
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of stored ServerModels that no longer matched the device")
+    public long getChangedCount() {
+        return this.changedCount.get();
+    }
+}
@@ -45,6 +45,7 @@ public class Iec61850GasFurnaceSystemService implements SystemService {
 
         LOGGER.info("Get data called for logical device {}{}", DEVICE.getDescription(), logicalDeviceIndex);
 
+        final Iec61850ReadBatch readBatch = new Iec61850ReadBatch(connection, DEVICE, logicalDeviceIndex);
         final List<MeasurementDto> measurements = new ArrayList<>();
 
         for (final MeasurementFilterDto filter : systemFilter.getMeasurementFilters()) {
@@ -53,10 +54,12 @@ public class Iec61850GasFurnaceSystemService implements SystemService {
             if (command == null) {
                 LOGGER.warn("Unsupported data attribute [{}], skip get data for it", filter.getNode());
             } else {
-                measurements.add(command.execute(client, connection, DEVICE, logicalDeviceIndex));
+                readBatch.add(command, measurements);
             }
         }
 
+        readBatch.execute(client);
+
         return new GetDataSystemIdentifierDto(systemFilter.getId(), systemFilter.getSystemType(), measurements);
     }
 
@@ -0,0 +1,393 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Executes the parts of a GetData request (one per system) in parallel on a
+ * bounded pool of threads.
+ * <p>
+ * A {@link org.openmuc.openiec61850.ClientAssociation} is not thread-safe, so
+ * every thread uses its own connection: the calling thread uses the connection
+ * of the request, the threads of the pool open an additional connection each.
+ * The threads take the next part that has not been started until all parts are
+ * done. A thread that can not open its connection does not take part, the
+ * other threads execute the parts.
+ * <p>
+ * The number of connections to a single device, over all requests for the
+ * device, is limited so small devices are not overloaded. When no pool is
+ * configured, the parts are executed one after the other by the calling
+ * thread.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=GetDataExecutor", description = "Parallel execution of the systems in GetData requests")
+public class Iec61850GetDataExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850GetDataExecutor.class);
+
+    private static final int QUEUE_CAPACITY_PER_THREAD = 16;
+
+    /**
+     * A part of a request, executed using one of the connections.
+     */
+    @FunctionalInterface
+    public interface Part<C, T> {
+        T execute(C connection) throws ProtocolAdapterException;
+    }
+
+    /**
+     * Opens and closes the additional connections to the device of a request.
+     */
+    public interface Connector<C> {
+        C connect() throws ProtocolAdapterException;
+
+        void disconnect(C connection);
+    }
+
+    /**
+     * The additional connections per device. Entries are removed when their
+     * last connection is closed.
+     */
+    private final ConcurrentHashMap<String, DeviceConnections> deviceConnections = new ConcurrentHashMap<>();
+
+    private final AtomicLong parallelRequestCount = new AtomicLong();
+    private final AtomicLong sequentialRequestCount = new AtomicLong();
+    private final AtomicLong executedPartCount = new AtomicLong();
+    private final AtomicLong failedConnectionCount = new AtomicLong();
+
+    @Autowired
+    private int getDataPoolSize;
+
+    @Autowired
+    private int getDataMaxAssociationsPerDevice;
+
+    private ThreadPoolExecutor executor;
+
+    public Iec61850GetDataExecutor() {
+        // Configured by Spring.
+    }
+
+    Iec61850GetDataExecutor(final int getDataPoolSize, final int getDataMaxAssociationsPerDevice) {
+        this.getDataPoolSize = getDataPoolSize;
+        this.getDataMaxAssociationsPerDevice = getDataMaxAssociationsPerDevice;
+        this.init();
+    }
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("getDataPoolSize: {}, getDataMaxAssociationsPerDevice: {}", this.getDataPoolSize,
+                this.getDataMaxAssociationsPerDevice);
+
+        if (this.getDataPoolSize > 0) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            // When the queue is full no thread is added to a request, its
+            // parts are executed by the threads it already has.
+            this.executor = new ThreadPoolExecutor(this.getDataPoolSize, this.getDataPoolSize, 0L,
+                    TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(this.getDataPoolSize * QUEUE_CAPACITY_PER_THREAD), runnable -> {
+                        final Thread thread = new Thread(runnable,
+                                "iec61850-get-data-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes the given parts for a device in parallel, and returns their
+     * results in the order of the parts. Parts must not change the same
+     * values, since they may be executed at the same time.
+     *
+     * @param connection
+     *            The connection used by the calling thread.
+     * @param connector
+     *            Opens the additional connections used by the threads of the
+     *            pool.
+     * @throws ProtocolAdapterException
+     *             The exception thrown by the first failing part (in the
+     *             order of the parts). The parts that have not been started
+     *             yet are skipped.
+     */
+    public <C, T> List<T> executeAll(final String deviceIdentification, final C connection,
+            final List<Part<C, T>> parts, final Connector<C> connector) throws ProtocolAdapterException {
+        final int maxWorkers = Math.min(parts.size(), this.getDataMaxAssociationsPerDevice) - 1;
+        if (this.executor == null || maxWorkers <= 0) {
+            return this.executeSequentially(connection, parts);
+        }
+
+        final Execution<C, T> execution = new Execution<>(parts);
+        final List<Worker<C, T>> workers = new ArrayList<>(maxWorkers);
+        for (int i = 0; i < maxWorkers && this.reserveConnection(deviceIdentification); i++) {
+            final Worker<C, T> worker = new Worker<>(deviceIdentification, execution, connector);
+            try {
+                this.executor.execute(worker);
+            } catch (final RejectedExecutionException e) {
+                this.releaseConnection(deviceIdentification);
+                break;
+            }
+            workers.add(worker);
+        }
+        if (workers.isEmpty()) {
+            return this.executeSequentially(connection, parts);
+        }
+
+        this.parallelRequestCount.incrementAndGet();
+        execution.run(connection);
+        for (final Worker<C, T> worker : workers) {
+            worker.finish();
+        }
+        return execution.getResults();
+    }
+
+    /**
+     * Executes the given parts one after the other, using the given
+     * connection.
+     */
+    public <C, T> List<T> executeSequentially(final C connection, final List<Part<C, T>> parts)
+            throws ProtocolAdapterException {
+        this.sequentialRequestCount.incrementAndGet();
+        final Execution<C, T> execution = new Execution<>(parts);
+        execution.run(connection);
+        return execution.getResults();
+    }
+
+    /**
+     * Reserves an additional connection to the device, if the device has less
+     * connections than allowed.
+     */
+    private boolean reserveConnection(final String deviceIdentification) {
+        final AtomicBoolean reserved = new AtomicBoolean();
+        this.deviceConnections.compute(deviceIdentification, (key, connections) -> {
+            final DeviceConnections current = connections == null ? new DeviceConnections() : connections;
+            // The pooled connection of the device is one of the allowed
+            // connections.
+            if (current.count < this.getDataMaxAssociationsPerDevice - 1) {
+                current.count++;
+                reserved.set(true);
+            }
+            return current.count == 0 ? null : current;
+        });
+        return reserved.get();
+    }
+
+    private void releaseConnection(final String deviceIdentification) {
+        this.deviceConnections.computeIfPresent(deviceIdentification, (key, connections) -> {
+            connections.count--;
+            return connections.count == 0 ? null : connections;
+        });
+    }
+
+    @ManagedAttribute(description = "Number of threads used to get data in parallel, 0 if disabled")
+    public int getPoolSize() {
+        return this.getDataPoolSize;
+    }
+
+    @ManagedAttribute(description = "Number of threads currently getting data")
+    public int getActiveCount() {
+        return this.executor == null ? 0 : this.executor.getActiveCount();
+    }
+
+    @ManagedAttribute(description = "Number of threads waiting to join a GetData request")
+    public int getQueueSize() {
+        return this.executor == null ? 0 : this.executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Number of devices with additional connections reserved for GetData requests")
+    public int getDeviceCount() {
+        return this.deviceConnections.size();
+    }
+
+    @ManagedAttribute(description = "Number of GetData requests with systems handled in parallel")
+    public long getParallelRequestCount() {
+        return this.parallelRequestCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of GetData requests with systems handled one after the other")
+    public long getSequentialRequestCount() {
+        return this.sequentialRequestCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of systems handled")
+    public long getExecutedPartCount() {
+        return this.executedPartCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of additional connections that could not be opened")
+    public long getFailedConnectionCount() {
+        return this.failedConnectionCount.get();
+    }
+
+    private static final class DeviceConnections {
+        private int count;
+    }
+
+    /**
+     * The parts of a request and their outcomes. Parts are taken in order, so
+     * when a part fails all earlier parts have been started.
+     */
+    private final class Execution<C, T> {
+
+        private final List<Part<C, T>> parts;
+        private final Object[] results;
+        private final Throwable[] failures;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private volatile boolean failed;
+
+        Execution(final List<Part<C, T>> parts) {
+            this.parts = parts;
+            this.results = new Object[parts.size()];
+            this.failures = new Throwable[parts.size()];
+        }
+
+        boolean hasNext() {
+            return !this.failed && this.next.get() < this.parts.size();
+        }
+
+        void run(final C connection) {
+            int part;
+            while (!this.failed && (part = this.next.getAndIncrement()) < this.parts.size()) {
+                try {
+                    this.results[part] = this.parts.get(part).execute(connection);
+                } catch (final Throwable t) {
+                    this.failures[part] = t;
+                    this.failed = true;
+                } finally {
+                    Iec61850GetDataExecutor.this.executedPartCount.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Only called after all threads are done with the execution.
+         */
+        @SuppressWarnings("unchecked")
+        List<T> getResults() throws ProtocolAdapterException {
+            for (final Throwable failure : this.failures) {
+                if (failure instanceof ProtocolAdapterException) {
+                    throw (ProtocolAdapterException) failure;
+                }
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+            }
+            return (List<T>) Arrays.asList(this.results);
+        }
+    }
+
+    /**
+     * A thread of the pool taking part in an execution, using its own
+     * connection. A worker that has not started when the calling thread is
+     * done, is skipped.
+     */
+    private final class Worker<C, T> implements Runnable {
+
+        private final String deviceIdentification;
+        private final Execution<C, T> execution;
+        private final Connector<C> connector;
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        Worker(final String deviceIdentification, final Execution<C, T> execution, final Connector<C> connector) {
+            this.deviceIdentification = deviceIdentification;
+            this.execution = execution;
+            this.connector = connector;
+        }
+
+        @Override
+        public void run() {
+            if (!this.claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (this.execution.hasNext()) {
+                    this.execute();
+                }
+            } finally {
+                Iec61850GetDataExecutor.this.releaseConnection(this.deviceIdentification);
+                this.done.countDown();
+            }
+        }
+
+        private void execute() {
+            final C connection;
+            try {
+                connection = this.connector.connect();
+            } catch (final ProtocolAdapterException | RuntimeException e) {
+                Iec61850GetDataExecutor.this.failedConnectionCount.incrementAndGet();
+                LOGGER.warn("Unable to open an additional connection to device: {}, getting data with less threads",
+                        this.deviceIdentification, e);
+                return;
+            }
+            try {
+                this.execution.run(connection);
+            } finally {
+                this.connector.disconnect(connection);
+            }
+        }
+
+        /**
+         * Skips the worker if it has not started yet, otherwise waits until it
+         * is done.
+         */
+        void finish() {
+            if (this.claimed.compareAndSet(false, true)) {
+                Iec61850GetDataExecutor.this.releaseConnection(this.deviceIdentification);
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    this.done.await();
+                    break;
+                } catch (final InterruptedException e) {
+                    // The results can only be used once the worker is done.
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
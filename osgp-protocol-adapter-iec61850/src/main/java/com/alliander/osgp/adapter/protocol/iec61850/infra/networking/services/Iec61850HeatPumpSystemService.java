@@ -48,6 +48,7 @@ public class Iec61850HeatPumpSystemService implements SystemService {
 
         LOGGER.info("Get data called for logical device {}{}", DEVICE.getDescription(), logicalDeviceIndex);
 
+        final Iec61850ReadBatch readBatch = new Iec61850ReadBatch(connection, DEVICE, logicalDeviceIndex);
         final List<MeasurementDto> measurements = new ArrayList<>();
 
         for (final MeasurementFilterDto filter : systemFilter.getMeasurementFilters()) {
@@ -56,7 +57,7 @@ public class Iec61850HeatPumpSystemService implements SystemService {
             if (command == null) {
                 LOGGER.warn("Unsupported data attribute [{}], skip get data for it", filter.getNode());
             } else {
-                measurements.add(command.execute(client, connection, DEVICE, logicalDeviceIndex));
+                readBatch.add(command, measurements);
             }
 
         }
@@ -70,10 +71,12 @@ public class Iec61850HeatPumpSystemService implements SystemService {
             if (command == null) {
                 LOGGER.warn("Unsupported data attribute [{}], skip get data for it", filter.getNode());
             } else {
-                profiles.add(command.execute(client, connection, DEVICE, logicalDeviceIndex));
+                readBatch.add(command, profiles);
             }
         }
 
+        readBatch.execute(client);
+
         return new GetDataSystemIdentifierDto(systemFilter.getId(), systemFilter.getSystemType(), measurements,
                 profiles);
     }
@@ -91,24 +94,30 @@ public class Iec61850HeatPumpSystemService implements SystemService {
          * detected by an increment of the SchdId after the profiles are already
          * set to the RTU
          */
+        final Iec61850WriteBatch profileBatch = new Iec61850WriteBatch(connection, DEVICE, logicalDeviceIndex);
         for (final ProfileDto p : systemIdentifier.getProfiles()) {
             final RtuWriteCommand<ProfileDto> command = Iec61850WriteProfileCommandFactory.getInstance()
                     .getCommand(p.getNode() + p.getId());
             if (command == null) {
                 LOGGER.warn("Unsupported profile [{}], skip set data for it.", p.getNode() + p.getId());
             } else {
-                command.executeWrite(client, connection, DEVICE, logicalDeviceIndex, p);
+                profileBatch.add(command, p);
             }
         }
 
+        profileBatch.execute(client);
+
+        final Iec61850WriteBatch setPointBatch = new Iec61850WriteBatch(connection, DEVICE, logicalDeviceIndex);
         for (final SetPointDto sp : systemIdentifier.getSetPoints()) {
             final RtuWriteCommand<SetPointDto> command = Iec61850SetPointCommandFactory.getInstance()
                     .getCommand(sp.getNode() + sp.getId());
             if (command == null) {
                 LOGGER.warn("Unsupported set point [{}], skip set data for it.", sp.getNode() + sp.getId());
             } else {
-                command.executeWrite(client, connection, DEVICE, logicalDeviceIndex, sp);
+                setPointBatch.add(command, sp);
             }
         }
+
+        setPointBatch.execute(client);
     }
 }
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.RtuReadCommand;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
+
+/**
+ * Keeps the latest measurement per device, logical device and command, as
+ * received in reports or read from the device, so GetData requests can be
+ * answered without reading values that were received recently.
+ * <p>
+ * Values are only kept when a maximum age is configured. The age of a value is
+ * the time since it was read or entered in the report buffer of the device, not
+ * the time stamp of the measurement.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=LiveValueStore", description = "Latest values received from devices, used to answer GetData requests")
+public class Iec61850LiveValueStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850LiveValueStore.class);
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<ValueKey, StoredValue>> devices = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @Autowired
+    private int getDataMaxAgeSeconds;
+
+    private long maxAgeMillis;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("getDataMaxAgeSeconds: {}", this.getDataMaxAgeSeconds);
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(Math.max(0, this.getDataMaxAgeSeconds));
+    }
+
+    public boolean isEnabled() {
+        return this.maxAgeMillis > 0;
+    }
+
+    /**
+     * Stores the value of a command for a logical device of a device, that was
+     * read just now. Does nothing if no maximum age is configured.
+     */
+    public void put(final String deviceIdentification, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex, final RtuReadCommand<MeasurementDto> command, final MeasurementDto value) {
+        this.put(deviceIdentification, logicalDevice, logicalDeviceIndex, command, value, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores the value of a command for a logical device of a device, unless a
+     * more recent value is stored already. Does nothing if no maximum age is
+     * configured.
+     *
+     * @param time
+     *            The time in milliseconds at which the value was current on
+     *            the device, like the time of entry of a buffered report.
+     */
+    public void put(final String deviceIdentification, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex, final RtuReadCommand<MeasurementDto> command, final MeasurementDto value,
+            final long time) {
+        if (!this.isEnabled() || value == null) {
+            return;
+        }
+        // Values from the future (device clock ahead) are taken to be current.
+        final StoredValue newValue = new StoredValue(value, Math.min(time, System.currentTimeMillis()));
+        this.devices.computeIfAbsent(deviceIdentification, k -> new ConcurrentHashMap<>()).merge(
+                new ValueKey(logicalDevice, logicalDeviceIndex, command), newValue,
+                (oldValue, v) -> oldValue.time > v.time ? oldValue : v);
+    }
+
+    /**
+     * @return The latest value of a command for a logical device of a device,
+     *         or {@code null} if there is no value that was received within the
+     *         maximum age.
+     */
+    public MeasurementDto getFresh(final String deviceIdentification, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex, final RtuReadCommand<?> command) {
+        if (!this.isEnabled()) {
+            return null;
+        }
+        final ConcurrentHashMap<ValueKey, StoredValue> values = this.devices.get(deviceIdentification);
+        final StoredValue stored = values == null ? null
+                : values.get(new ValueKey(logicalDevice, logicalDeviceIndex, command));
+        if (stored == null || System.currentTimeMillis() - stored.time > this.maxAgeMillis) {
+            this.missCount.incrementAndGet();
+            return null;
+        }
+        this.hitCount.incrementAndGet();
+        return stored.value;
+    }
+
+    @ManagedOperation(description = "Removes the stored values of a device")
+    public void remove(final String deviceIdentification) {
+        this.devices.remove(deviceIdentification);
+    }
+
+    @ManagedOperation(description = "Removes all stored values")
+    public void clear() {
+        this.devices.clear();
+    }
+
+    @ManagedAttribute(description = "Maximum age in seconds of values used to answer GetData requests, 0 if disabled")
+    public int getMaxAgeSeconds() {
+        return this.getDataMaxAgeSeconds;
+    }
+
+    @ManagedAttribute(description = "Number of devices with stored values")
+    public int getDeviceCount() {
+        return this.devices.size();
+    }
+
+    @ManagedAttribute(description = "Number of values taken from the store instead of read from a device")
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of values not in the store or too old, read from a device")
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Commands are singletons in the command factories, so the command
+     * identifies the measurement within a logical device.
+     */
+    private static final class ValueKey {
+
+        private final LogicalDevice logicalDevice;
+        private final int logicalDeviceIndex;
+        private final RtuReadCommand<?> command;
+
+        ValueKey(final LogicalDevice logicalDevice, final int logicalDeviceIndex, final RtuReadCommand<?> command) {
+            this.logicalDevice = logicalDevice;
+            this.logicalDeviceIndex = logicalDeviceIndex;
+            this.command = command;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ValueKey)) {
+                return false;
+            }
+            final ValueKey other = (ValueKey) obj;
+            return this.logicalDevice == other.logicalDevice && this.logicalDeviceIndex == other.logicalDeviceIndex
+                    && this.command == other.command;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.logicalDevice.hashCode();
+            result = 31 * result + this.logicalDeviceIndex;
+            return 31 * result + System.identityHashCode(this.command);
+        }
+    }
+
+    private static final class StoredValue {
+
+        private final MeasurementDto value;
+        private final long time;
+
+        StoredValue(final MeasurementDto value, final long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+}
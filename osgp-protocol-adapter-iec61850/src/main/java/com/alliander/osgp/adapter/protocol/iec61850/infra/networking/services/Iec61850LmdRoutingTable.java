@@ -0,0 +1,144 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
+import com.alliander.osgp.core.db.api.iec61850.application.services.DeviceDataCache;
+import com.alliander.osgp.core.db.api.iec61850.entities.LightMeasurementDevice;
+
+/**
+ * Routes members of light sensor reports to the light measurement devices, by
+ * the name of the SPGGIO logical node of the digital input of each device.
+ * <p>
+ * The routes are read from the database again after the time to live of the
+ * core database cache, or as soon as the cached devices are invalidated. The
+ * routes are looked up once per report, so all members of a report use the
+ * same routes and a report does not read the database more than once.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=LmdRoutingTable", description = "Routes from SPGGIO logical nodes to light measurement devices")
+public class Iec61850LmdRoutingTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850LmdRoutingTable.class);
+
+    @Autowired
+    private DeviceManagementService deviceManagementService;
+
+    @Autowired
+    private DeviceDataCache deviceDataCache;
+
+    @Autowired
+    private int iec61850OsgpCoreDbApiCacheTimeToLive;
+
+    private long timeToLiveMillis;
+
+    private volatile Routes routes;
+
+    @PostConstruct
+    private void init() {
+        this.timeToLiveMillis = TimeUnit.SECONDS.toMillis(Math.max(0, this.iec61850OsgpCoreDbApiCacheTimeToLive));
+    }
+
+    /**
+     * @return The current routes, read from the database if they expired.
+     */
+    public Routes getRoutes() {
+        final Routes current = this.routes;
+        final long generation = this.deviceDataCache.getGeneration();
+        if (current != null && current.generation == generation
+                && System.currentTimeMillis() - current.loadTime < this.timeToLiveMillis) {
+            return current;
+        }
+        final Routes loaded = this.load(generation);
+        this.routes = loaded;
+        return loaded;
+    }
+
+    private Routes load(final long generation) {
+        final long loadTime = System.currentTimeMillis();
+        final List<LightMeasurementDevice> lmds = this.deviceManagementService.findRealLightMeasurementDevices();
+        LOGGER.info("Found {} light measurement devices.", lmds == null ? "null" : lmds.size());
+
+        final Map<String, List<LightMeasurementDevice>> devicesByLogicalNode = new HashMap<>();
+        if (lmds != null) {
+            for (final LightMeasurementDevice lmd : lmds) {
+                final String nodeName = LogicalNode.getSpggioByIndex(lmd.getDigitalInput()).getDescription();
+                devicesByLogicalNode.computeIfAbsent(nodeName, k -> new ArrayList<>()).add(lmd);
+            }
+        }
+        return new Routes(devicesByLogicalNode, generation, loadTime);
+    }
+
+    /**
+     * Object references of data set members look like
+     * {@code LDName/LNName.DOName[.Name[. ...]]}.
+     */
+    private static String logicalNodeName(final String objectReference) {
+        final int start = objectReference.indexOf('/') + 1;
+        final int end = objectReference.indexOf('.', start);
+        return end < 0 ? objectReference.substring(start) : objectReference.substring(start, end);
+    }
+
+    @ManagedOperation(description = "Reads the light measurement devices from the database again")
+    public void refresh() {
+        LOGGER.info("Refreshing light measurement device routes");
+        this.routes = null;
+    }
+
+    @ManagedAttribute(description = "Number of logical nodes routed to light measurement devices")
+    public int getSize() {
+        final Routes current = this.routes;
+        return current == null ? 0 : current.devicesByLogicalNode.size();
+    }
+
+    /**
+     * The routes read from the database at one moment.
+     */
+    public static final class Routes {
+
+        private final Map<String, List<LightMeasurementDevice>> devicesByLogicalNode;
+        private final long generation;
+        private final long loadTime;
+
+        Routes(final Map<String, List<LightMeasurementDevice>> devicesByLogicalNode, final long generation,
+                final long loadTime) {
+            this.devicesByLogicalNode = devicesByLogicalNode;
+            this.generation = generation;
+            this.loadTime = loadTime;
+        }
+
+        /**
+         * @return The light measurement devices of the logical node the
+         *         object reference of a report member points into, the list
+         *         is empty if there are none.
+         */
+        public List<LightMeasurementDevice> getDevices(final String objectReference) {
+            final List<LightMeasurementDevice> devices = this.devicesByLogicalNode
+                    .get(logicalNodeName(objectReference));
+            return devices == null ? Collections.<LightMeasurementDevice> emptyList() : devices;
+        }
+    }
+}
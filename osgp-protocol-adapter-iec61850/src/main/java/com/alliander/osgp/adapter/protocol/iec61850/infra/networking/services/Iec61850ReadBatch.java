@@ -0,0 +1,132 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openmuc.openiec61850.FcModelNode;
+
+import com.alliander.osgp.adapter.protocol.iec61850.application.config.BeanUtil;
+import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.RtuReadCommand;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.NodeContainer;
+import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
+
+/**
+ * Collects the nodes of several {@link RtuReadCommand}s for one logical
+ * device, reads them from the device with as few requests as possible and
+ * translates the results.
+ * <p>
+ * The results are added to the given result lists in the order in which the
+ * commands were added to the batch. Measurements that were received from the
+ * device recently are taken from the {@link Iec61850LiveValueStore} instead of
+ * being read again.
+ */
+public class Iec61850ReadBatch {
+
+    private final DeviceConnection connection;
+    private final LogicalDevice logicalDevice;
+    private final int logicalDeviceIndex;
+    private final Iec61850LiveValueStore liveValueStore;
+
+    private final List<BatchEntry<?>> entries = new ArrayList<>();
+
+    public Iec61850ReadBatch(final DeviceConnection connection, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex) {
+        this.connection = connection;
+        this.logicalDevice = logicalDevice;
+        this.logicalDeviceIndex = logicalDeviceIndex;
+        this.liveValueStore = BeanUtil.getBean(Iec61850LiveValueStore.class);
+    }
+
+    /**
+     * Adds the node of the given command to the batch. The translated value is
+     * added to the given results when the batch is executed.
+     *
+     * @throws NodeException
+     *             In case the node of the command does not exist in the
+     *             ServerModel of the device.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void add(final RtuReadCommand<T> command, final List<T> results) throws NodeException {
+        // A stored value was translated by the same command, so it is a T.
+        final T storedValue = (T) this.liveValueStore.getFresh(this.connection.getDeviceIdentification(),
+                this.logicalDevice, this.logicalDeviceIndex, command);
+        if (storedValue != null) {
+            this.entries.add(new BatchEntry<>(command, null, results, storedValue));
+            return;
+        }
+
+        final NodeContainer containingNode = command.getNodeContainer(this.connection, this.logicalDevice,
+                this.logicalDeviceIndex);
+        this.entries.add(new BatchEntry<>(command, containingNode, results, null));
+    }
+
+    /**
+     * Reads the values of all nodes in the batch from the device and adds the
+     * translated values to the result lists.
+     *
+     * @throws NodeException
+     *             In case the nodes can not be read.
+     */
+    public void execute(final Iec61850Client client) throws NodeException {
+        if (this.entries.isEmpty()) {
+            return;
+        }
+
+        final List<FcModelNode> modelNodes = new ArrayList<>(this.entries.size());
+        for (final BatchEntry<?> entry : this.entries) {
+            if (entry.containingNode != null) {
+                modelNodes.add(entry.containingNode.getFcmodelNode());
+            }
+        }
+        if (!modelNodes.isEmpty()) {
+            client.readNodeDataValues(this.connection.getConnection().getClientAssociation(), modelNodes);
+        }
+
+        for (final BatchEntry<?> entry : this.entries) {
+            this.store(entry, entry.translate());
+        }
+        this.entries.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void store(final BatchEntry<?> entry, final Object value) {
+        if (entry.containingNode != null && value instanceof MeasurementDto) {
+            this.liveValueStore.put(this.connection.getDeviceIdentification(), this.logicalDevice,
+                    this.logicalDeviceIndex, (RtuReadCommand<MeasurementDto>) entry.command, (MeasurementDto) value);
+        }
+    }
+
+    private static final class BatchEntry<T> {
+
+        private final RtuReadCommand<T> command;
+        private final NodeContainer containingNode;
+        private final List<T> results;
+        private final T storedValue;
+
+        BatchEntry(final RtuReadCommand<T> command, final NodeContainer containingNode, final List<T> results,
+                final T storedValue) {
+            this.command = command;
+            this.containingNode = containingNode;
+            this.results = results;
+            this.storedValue = storedValue;
+        }
+
+        T translate() {
+            final T value = this.containingNode == null ? this.storedValue
+                    : this.command.translate(this.containingNode);
+            this.results.add(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850DeviceMailboxes;
+
+/**
+ * Lets identical reads of a device share one device read. Several
+ * applications polling the same device often request the same data at about
+ * the same time.
+ * <p>
+ * Reads are identical if they are for the same device, have the same request
+ * type and have an equal filter key. A read that is identical to a read in
+ * progress waits for that read and uses its result. Only reads in progress
+ * are shared, a read is forgotten as soon as it completes, so no results are
+ * kept. When requests for a device are handled one after the other (see
+ * {@link Iec61850DeviceMailboxes}), identical reads of a device are never in
+ * progress at the same time and are not shared.
+ * <p>
+ * A read failing with a {@link ConnectionFailureException} fails the
+ * identical reads waiting for it as well, as they could not connect to the
+ * device either. Reads failing otherwise are not shared, the waiting reads
+ * read the device themselves.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=ReadCoalescer", description = "Identical reads of a device sharing one device read")
+public class Iec61850ReadCoalescer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReadCoalescer.class);
+
+    /**
+     * Reads a device.
+     */
+    @FunctionalInterface
+    public interface Read<T> {
+        T read() throws ProtocolAdapterException;
+    }
+
+    private final ConcurrentHashMap<ReadKey, CompletableFuture<Object>> reads = new ConcurrentHashMap<>();
+
+    private final AtomicLong deviceReadCount = new AtomicLong();
+    private final AtomicLong sharedReadCount = new AtomicLong();
+    private final AtomicLong sharedFailureCount = new AtomicLong();
+
+    @Autowired
+    private boolean isReadCoalescingEnabled;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("isReadCoalescingEnabled: {}", this.isReadCoalescingEnabled);
+    }
+
+    /**
+     * Reads the device, or uses the result of an identical read in progress.
+     *
+     * @param requestType
+     *            The type of the request, for instance the message type.
+     * @param filterKey
+     *            The fields of the filter of the read that determine what is
+     *            read, in an object comparing them by value (for instance a
+     *            list of strings and numbers). {@code null} if the request
+     *            type always reads the same data.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(final String deviceIdentification, final String requestType, final Object filterKey,
+            final Read<T> read) throws ProtocolAdapterException {
+        if (!this.isReadCoalescingEnabled || deviceIdentification == null || requestType == null) {
+            return this.readDevice(read);
+        }
+
+        final ReadKey key = new ReadKey(deviceIdentification, requestType, filterKey);
+        final CompletableFuture<Object> ownRead = new CompletableFuture<>();
+        final CompletableFuture<Object> sharedRead = this.reads.putIfAbsent(key, ownRead);
+
+        if (sharedRead != null) {
+            try {
+                final T result = (T) sharedRead.get();
+                this.sharedReadCount.incrementAndGet();
+                LOGGER.info("Using result of identical {} read of device: {}", requestType, deviceIdentification);
+                return result;
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof ConnectionFailureException) {
+                    this.sharedFailureCount.incrementAndGet();
+                    LOGGER.info("Identical {} read of device: {} could not connect, failing as well", requestType,
+                            deviceIdentification);
+                    throw new ConnectionFailureException(e.getCause().getMessage(), e.getCause());
+                }
+                LOGGER.info("Identical {} read of device: {} failed, reading the device", requestType,
+                        deviceIdentification);
+                return this.readDevice(read);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProtocolAdapterException("Interrupted waiting for identical " + requestType
+                        + " read of device: " + deviceIdentification, e);
+            }
+        }
+
+        // The waiting reads hold the future, so the read is forgotten before
+        // it is completed. Later reads read the device themselves.
+        try {
+            final T result = this.readDevice(read);
+            this.reads.remove(key, ownRead);
+            ownRead.complete(result);
+            return result;
+        } catch (final ConnectionFailureException e) {
+            this.reads.remove(key, ownRead);
+            ownRead.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (!ownRead.isDone()) {
+                this.reads.remove(key, ownRead);
+                ownRead.completeExceptionally(new ProtocolAdapterException(
+                        requestType + " read of device: " + deviceIdentification + " failed"));
+            }
+        }
+    }
+
+    private <T> T readDevice(final Read<T> read) throws ProtocolAdapterException {
+        this.deviceReadCount.incrementAndGet();
+        return read.read();
+    }
+
+    @ManagedAttribute(description = "Whether identical reads of a device share one device read")
+    public boolean isEnabled() {
+        return this.isReadCoalescingEnabled;
+    }
+
+    @ManagedAttribute(description = "Number of reads that read the device")
+    public long getDeviceReadCount() {
+        return this.deviceReadCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of reads that used the result of an identical read")
+    public long getSharedReadCount() {
+        return this.sharedReadCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of reads that failed because an identical read could not connect to the device")
+    public long getSharedFailureCount() {
+        return this.sharedFailureCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of reads in progress that identical reads can share")
+    public int getReadCount() {
+        return this.reads.size();
+    }
+
+    private static final class ReadKey {
+
+        private final String deviceIdentification;
+        private final String requestType;
+        private final Object filterKey;
+        private final int hash;
+
+        ReadKey(final String deviceIdentification, final String requestType, final Object filterKey) {
+            this.deviceIdentification = deviceIdentification;
+            this.requestType = requestType;
+            this.filterKey = filterKey;
+            this.hash = 31 * (31 * deviceIdentification.hashCode() + requestType.hashCode())
+                    + Objects.hashCode(filterKey);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ReadKey)) {
+                return false;
+            }
+            final ReadKey other = (ReadKey) obj;
+            return this.deviceIdentification.equals(other.deviceIdentification)
+                    && this.requestType.equals(other.requestType) && Objects.equals(this.filterKey, other.filterKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.DeviceMailboxTimeoutException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850DeviceMailboxes;
+
+/**
+ * Schedules the end of report windows, the time an association is kept open
+ * after a request or registration so the device is able to send reports.
+ * <p>
+ * All report windows share a small, fixed number of scheduler threads, which
+ * only keep the time. The end actions, which clear reports and disconnect from
+ * devices, are handed to a separate, fixed number of worker threads, so a slow
+ * device does not delay the end of the windows of other devices. End actions
+ * are handled using the {@link Iec61850DeviceMailboxes} of the device, after
+ * the request for the device handled when the window ended. At most one
+ * window is pending per association: opening a window for an association that
+ * already has a pending window extends that window, instead of scheduling the
+ * end of the association twice.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=ReportWindowScheduler", description = "Pending report windows")
+public class Iec61850ReportWindowScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportWindowScheduler.class);
+
+    /**
+     * Time in milliseconds after which an end action is tried again, if the
+     * requests for the device took longer than the mailbox wait timeout.
+     */
+    private static final long END_ACTION_RETRY_DELAY = 1000;
+
+    private final ConcurrentHashMap<WindowKey, ReportWindow> windows = new ConcurrentHashMap<>();
+
+    private final AtomicLong openedCount = new AtomicLong();
+    private final AtomicLong extendedCount = new AtomicLong();
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private ThreadPoolExecutor endActionExecutor;
+
+    @Autowired
+    private Iec61850DeviceMailboxes iec61850DeviceMailboxes;
+
+    @Autowired
+    private int reportWindowSchedulerThreads;
+
+    @Autowired
+    private int reportWindowWorkerThreads;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("reportWindowSchedulerThreads: {}, reportWindowWorkerThreads: {}",
+                this.reportWindowSchedulerThreads, this.reportWindowWorkerThreads);
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, this.reportWindowSchedulerThreads), runnable -> {
+            final Thread thread = new Thread(runnable, "iec61850-report-window-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // End actions are never discarded, as that would leave associations
+        // open. Their number is bounded by the number of pending windows.
+        final int workerThreads = Math.max(1, this.reportWindowWorkerThreads);
+        final AtomicInteger workerNumber = new AtomicInteger();
+        this.endActionExecutor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), runnable -> {
+                    final Thread thread = new Thread(runnable,
+                            "iec61850-report-window-end-" + workerNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    private void destroy() {
+        this.executor.shutdownNow();
+        this.endActionExecutor.shutdownNow();
+    }
+
+    /**
+     * Opens a report window for an association to a device, which ends after
+     * the given delay by running the given action. If a window is already
+     * pending for the association, it is extended to end no earlier than
+     * after the given delay, and it keeps its own end action.
+     *
+     * @param connection
+     *            The association, or any object that identifies it.
+     * @return {@code true} if a new window was opened, {@code false} if a
+     *         pending window was extended and the action will not be run.
+     */
+    public boolean open(final String deviceIdentification, final Object connection, final long delay,
+            final Runnable endAction) {
+        final WindowKey key = new WindowKey(deviceIdentification, connection);
+        final long endTime = System.currentTimeMillis() + delay;
+        final ReportWindow window = this.windows.compute(key, (k, pending) -> {
+            if (pending != null) {
+                pending.endTime = Math.max(pending.endTime, endTime);
+                return pending;
+            }
+            final ReportWindow opened = new ReportWindow(endAction, endTime);
+            this.executor.schedule(() -> this.expire(k, opened), delay, TimeUnit.MILLISECONDS);
+            return opened;
+        });
+
+        // A pending window keeps its own end action.
+        if (window.endAction != endAction) {
+            LOGGER.info("Extended report window for device: {} by {} ms", deviceIdentification, delay);
+            this.extendedCount.incrementAndGet();
+            return false;
+        }
+        this.openedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return {@code true} if a report window is pending for the association
+     *         to the device.
+     */
+    public boolean isPending(final String deviceIdentification, final Object connection) {
+        return this.windows.containsKey(new WindowKey(deviceIdentification, connection));
+    }
+
+    private void expire(final WindowKey key, final ReportWindow window) {
+        this.windows.computeIfPresent(key, (k, pending) -> {
+            if (pending != window) {
+                return pending;
+            }
+            final long remaining = pending.endTime - System.currentTimeMillis();
+            if (remaining > 0) {
+                // Extended in the meantime.
+                this.executor.schedule(() -> this.expire(k, pending), remaining, TimeUnit.MILLISECONDS);
+                return pending;
+            }
+            pending.ended = true;
+            return null;
+        });
+        if (!window.ended) {
+            return;
+        }
+        this.submitEndAction(key, window);
+    }
+
+    private void submitEndAction(final WindowKey key, final ReportWindow window) {
+        try {
+            this.endActionExecutor.execute(() -> this.runEndAction(key, window));
+        } catch (final RejectedExecutionException e) {
+            LOGGER.warn("Shutting down, not ending report window for device: {}", key.deviceIdentification);
+        }
+    }
+
+    private void runEndAction(final WindowKey key, final ReportWindow window) {
+        try {
+            this.iec61850DeviceMailboxes.execute(key.deviceIdentification, window.endAction::run);
+        } catch (final DeviceMailboxTimeoutException e) {
+            LOGGER.info("Requests for device: {} still in progress, ending report window in {} ms",
+                    key.deviceIdentification, END_ACTION_RETRY_DELAY);
+            this.executor.schedule(() -> this.submitEndAction(key, window), END_ACTION_RETRY_DELAY,
+                    TimeUnit.MILLISECONDS);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unexpected exception ending report window for device: {}", key.deviceIdentification, e);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of threads scheduling the end of report windows")
+    public int getThreads() {
+        return this.executor.getCorePoolSize();
+    }
+
+    @ManagedAttribute(description = "Number of threads clearing reports and disconnecting when report windows end")
+    public int getWorkerThreads() {
+        return this.endActionExecutor.getCorePoolSize();
+    }
+
+    @ManagedAttribute(description = "Number of ended report windows waiting for a worker thread")
+    public int getQueuedEndActionCount() {
+        return this.endActionExecutor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Number of pending report windows")
+    public int getPendingCount() {
+        return this.windows.size();
+    }
+
+    @ManagedOperation(description = "Number of pending report windows for a device")
+    public int getPendingCountForDevice(final String deviceIdentification) {
+        int pendingCount = 0;
+        for (final WindowKey key : this.windows.keySet()) {
+            if (key.deviceIdentification.equals(deviceIdentification)) {
+                pendingCount++;
+            }
+        }
+        return pendingCount;
+    }
+
+    @ManagedAttribute(description = "Number of report windows opened")
+    public long getOpenedCount() {
+        return this.openedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of pending report windows extended by a later request")
+    public long getExtendedCount() {
+        return this.extendedCount.get();
+    }
+
+    private static final class WindowKey {
+
+        private final String deviceIdentification;
+        private final Object connection;
+
+        WindowKey(final String deviceIdentification, final Object connection) {
+            this.deviceIdentification = deviceIdentification;
+            this.connection = connection;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof WindowKey)) {
+                return false;
+            }
+            final WindowKey other = (WindowKey) obj;
+            return this.deviceIdentification.equals(other.deviceIdentification)
+                    && this.connection == other.connection;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.deviceIdentification.hashCode() + System.identityHashCode(this.connection);
+        }
+    }
+
+    private static final class ReportWindow {
+
+        private final Runnable endAction;
+
+        /**
+         * Changed only while the window is computed in the map of windows.
+         */
+        private volatile long endTime;
+        private volatile boolean ended;
+
+        ReportWindow(final Runnable endAction, final long endTime) {
+            this.endAction = endAction;
+            this.endTime = endTime;
+        }
+    }
+}
@@ -8,12 +8,14 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import javax.jms.JMSException;
 
-import org.openmuc.openiec61850.ClientAssociation;
-import org.openmuc.openiec61850.ServerModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,22 +29,24 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.requests.GetDataD
 import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.requests.SetDataDeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.EmptyDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.GetDataDeviceResponse;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceMessageLog;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.Iec61850DeviceConfiguration;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ClientAssociation;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.SystemService;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850GetDataExecutor.Connector;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850GetDataExecutor.Part;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataRequestDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementFilterDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ProfileFilterDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.SetDataRequestDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.SetDataSystemIdentifierDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.SystemFilterDto;
@@ -62,22 +66,21 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
     private Iec61850Client iec61850Client;
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceConfigurationCache iec61850DeviceConfigurationCache;
+
+    @Autowired
+    private Iec61850ReadCoalescer iec61850ReadCoalescer;
+
+    @Autowired
+    private Iec61850GetDataExecutor getDataExecutor;
 
     @Override
     public void getData(final GetDataDeviceRequest deviceRequest, final DeviceResponseHandler deviceResponseHandler)
             throws JMSException {
         try {
-            final String serverName = this.getServerName(deviceRequest);
-            final ServerModel serverModel = this.connectAndRetrieveServerModel(deviceRequest, serverName);
-
-            final ClientAssociation clientAssociation = this.iec61850DeviceConnectionService
-                    .getClientAssociation(deviceRequest.getDeviceIdentification());
-
-            final GetDataResponseDto getDataResponse = this.handleGetData(new DeviceConnection(
-                    new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null), serverModel),
-                    deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), serverName),
-                    deviceRequest);
+            final GetDataResponseDto getDataResponse = this.iec61850ReadCoalescer.read(
+                    deviceRequest.getDeviceIdentification(), DeviceRequestMessageType.GET_DATA.name(),
+                    this.getFilterKey(deviceRequest.getDataRequest()), () -> this.getDataFromDevice(deviceRequest));
 
             if (getDataResponse == null) {
                 throw new ProtocolAdapterException("No valid response received during GetData");
@@ -112,14 +115,7 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
             throws JMSException {
         try {
             final String serverName = this.getServerName(deviceRequest);
-            final ServerModel serverModel = this.connectAndRetrieveServerModel(deviceRequest, serverName);
-            final ClientAssociation clientAssociation = this.iec61850DeviceConnectionService
-                    .getClientAssociation(deviceRequest.getDeviceIdentification());
-
-            this.handleSetData(new DeviceConnection(
-                    new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null), serverModel),
-                    deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), serverName),
-                    deviceRequest);
+            this.handleSetData(this.connectToDevice(deviceRequest, serverName), deviceRequest);
 
             final EmptyDeviceResponse deviceResponse = new EmptyDeviceResponse(
                     deviceRequest.getOrganisationIdentification(), deviceRequest.getDeviceIdentification(),
@@ -149,13 +145,21 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
     // PRIVATE DEVICE COMMUNICATION METHODS =
     // ======================================
 
-    private ServerModel connectAndRetrieveServerModel(final DeviceRequest deviceRequest, final String serverName)
+    private GetDataResponseDto getDataFromDevice(final GetDataDeviceRequest deviceRequest)
             throws ProtocolAdapterException {
+        final String serverName = this.getServerName(deviceRequest);
+        return this.handleGetData(this.connectToDevice(deviceRequest, serverName), deviceRequest, serverName);
+    }
 
-        this.iec61850DeviceConnectionService.connect(deviceRequest.getIpAddress(),
+    /**
+     * Connects to the device, reusing the pooled connection if it is still
+     * usable, so the index of its server model nodes is shared.
+     */
+    private DeviceConnection connectToDevice(final DeviceRequest deviceRequest, final String serverName)
+            throws ProtocolAdapterException {
+        return this.iec61850DeviceConnectionService.connect(deviceRequest.getIpAddress(),
                 deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), IED.ZOWN_RTU,
                 serverName, LogicalDevice.RTU.getDescription() + 1);
-        return this.iec61850DeviceConnectionService.getServerModel(deviceRequest.getDeviceIdentification());
     }
 
     // ========================
@@ -163,7 +167,7 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
     // ========================
 
     private GetDataResponseDto handleGetData(final DeviceConnection connection,
-            final GetDataDeviceRequest deviceRequest) throws ProtocolAdapterException {
+            final GetDataDeviceRequest deviceRequest, final String serverName) throws ProtocolAdapterException {
 
         final GetDataRequestDto requestedData = deviceRequest.getDataRequest();
 
@@ -172,13 +176,24 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
             @Override
             public GetDataResponseDto apply(final DeviceMessageLog deviceMessageLog) throws ProtocolAdapterException {
 
-                final List<GetDataSystemIdentifierDto> identifiers = new ArrayList<>();
+                final List<Part<DeviceConnection, GetDataSystemIdentifierDto>> parts = new ArrayList<>();
                 for (final SystemFilterDto systemFilter : requestedData.getSystemFilters()) {
                     final SystemService systemService = Iec61850RtuDeviceService.this.systemServiceFactory
                             .getSystemService(systemFilter);
-                    final GetDataSystemIdentifierDto getDataSystemIdentifier = systemService.getData(systemFilter,
-                            Iec61850RtuDeviceService.this.iec61850Client, connection);
-                    identifiers.add(getDataSystemIdentifier);
+                    parts.add(c -> systemService.getData(systemFilter, Iec61850RtuDeviceService.this.iec61850Client,
+                            c));
+                }
+
+                final List<GetDataSystemIdentifierDto> identifiers;
+                if (Iec61850RtuDeviceService.this.hasDistinctSystems(requestedData)) {
+                    identifiers = Iec61850RtuDeviceService.this.getDataExecutor.executeAll(
+                            deviceRequest.getDeviceIdentification(), connection, parts,
+                            Iec61850RtuDeviceService.this.additionalConnector(deviceRequest, connection, serverName));
+                } else {
+                    // Systems that are requested more than once read the same
+                    // nodes, so they can not be read at the same time.
+                    identifiers = Iec61850RtuDeviceService.this.getDataExecutor.executeSequentially(connection,
+                            parts);
                 }
 
                 return new GetDataResponseDto(identifiers, null);
@@ -188,6 +203,40 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
         return this.iec61850Client.sendCommandWithRetry(function, deviceRequest.getDeviceIdentification());
     }
 
+    /**
+     * Opens the additional connections used to get the data of systems in
+     * parallel. They use the server model of the pooled connection, so its
+     * node index is shared as well.
+     */
+    private Connector<DeviceConnection> additionalConnector(final DeviceRequest deviceRequest,
+            final DeviceConnection connection, final String serverName) {
+        return new Connector<DeviceConnection>() {
+
+            @Override
+            public DeviceConnection connect() throws ProtocolAdapterException {
+                return Iec61850RtuDeviceService.this.iec61850DeviceConnectionService
+                        .connectAdditional(deviceRequest.getIpAddress(), connection, IED.ZOWN_RTU, serverName);
+            }
+
+            @Override
+            public void disconnect(final DeviceConnection additionalConnection) {
+                Iec61850RtuDeviceService.this.iec61850Client.disconnect(
+                        additionalConnection.getConnection().getClientAssociation(),
+                        additionalConnection.getDeviceIdentification());
+            }
+        };
+    }
+
+    private boolean hasDistinctSystems(final GetDataRequestDto requestedData) {
+        final Set<String> systems = new HashSet<>();
+        for (final SystemFilterDto systemFilter : requestedData.getSystemFilters()) {
+            if (!systems.add(systemFilter.getSystemType().toUpperCase(Locale.ENGLISH) + systemFilter.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void handleSetData(final DeviceConnection connection, final SetDataDeviceRequest deviceRequest)
             throws ProtocolAdapterException {
 
@@ -212,9 +261,35 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
         this.iec61850Client.sendCommandWithRetry(function, deviceRequest.getDeviceIdentification());
     }
 
+    /**
+     * Creates the key of the data requested, from the fields of the filters
+     * used to get the data, so identical GetData reads can be shared by the
+     * {@link Iec61850ReadCoalescer}.
+     */
+    private List<Object> getFilterKey(final GetDataRequestDto requestedData) {
+        final List<Object> filterKey = new ArrayList<>();
+        for (final SystemFilterDto systemFilter : requestedData.getSystemFilters()) {
+            final List<Object> measurementKeys = new ArrayList<>();
+            if (systemFilter.getMeasurementFilters() != null) {
+                for (final MeasurementFilterDto filter : systemFilter.getMeasurementFilters()) {
+                    measurementKeys.add(Arrays.asList(filter.getNode(), filter.getId()));
+                }
+            }
+            final List<Object> profileKeys = new ArrayList<>();
+            if (systemFilter.getProfileFilters() != null) {
+                for (final ProfileFilterDto filter : systemFilter.getProfileFilters()) {
+                    profileKeys.add(Arrays.asList(filter.getNode(), filter.getId()));
+                }
+            }
+            filterKey.add(Arrays.asList(systemFilter.getSystemType(), systemFilter.getId(), measurementKeys,
+                    profileKeys));
+        }
+        return filterKey;
+    }
+
     private String getServerName(final DeviceRequest deviceRequest) {
-        final Iec61850Device iec61850Device = this.iec61850DeviceRepository
-                .findByDeviceIdentification(deviceRequest.getDeviceIdentification());
+        final Iec61850DeviceConfiguration iec61850Device = this.iec61850DeviceConfigurationCache
+                .getDeviceConfiguration(deviceRequest.getDeviceIdentification());
         if (iec61850Device != null && iec61850Device.getServerName() != null) {
             return iec61850Device.getServerName();
         } else {
@@ -9,8 +9,7 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.jms.JMSException;
 
@@ -41,12 +40,9 @@ import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.EventTyp
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850ClearReportCommand;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850EnableReportingCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850GetConfigurationCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850GetFirmwareVersionCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850GetStatusCommand;
@@ -59,9 +55,11 @@ import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.co
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850TransitionCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850UpdateFirmwareCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850UpdateSslCertificateCommand;
+import com.alliander.osgp.core.db.api.iec61850.application.services.DeviceDataCache;
 import com.alliander.osgp.core.db.api.iec61850.application.services.SsldDataService;
 import com.alliander.osgp.core.db.api.iec61850.entities.DeviceOutputSetting;
 import com.alliander.osgp.core.db.api.iec61850.entities.Ssld;
+import com.alliander.osgp.core.db.api.iec61850valueobjects.RelayMapping;
 import com.alliander.osgp.core.db.api.iec61850valueobjects.RelayType;
 import com.alliander.osgp.dto.valueobjects.ConfigurationDto;
 import com.alliander.osgp.dto.valueobjects.DeviceStatusDto;
@@ -80,36 +78,44 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850SsldDeviceService.class);
 
     @Autowired
-    private Iec61850DeviceConnectionService iec61850DeviceConnectionService;
+    private Iec61850SsldSessionManager iec61850SsldSessionManager;
 
     @Autowired
     private SsldDataService ssldDataService;
 
+    @Autowired
+    private DeviceDataCache deviceDataCache;
+
     @Autowired
     private Iec61850Client iec61850Client;
 
     @Autowired
     private Iec61850Mapper mapper;
 
-    // Timeout between the setLight and getStatus during the device self-test
     @Autowired
-    private int selftestTimeout;
+    private Iec61850ReadCoalescer iec61850ReadCoalescer;
 
+    // Timeout between the setLight and getStatus during the device self-test
     @Autowired
-    private int disconnectDelay;
+    private int selftestTimeout;
 
     @Override
     public void getStatus(final DeviceRequest deviceRequest, final DeviceResponseHandler deviceResponseHandler)
             throws JMSException {
-        DeviceConnection devCon = null;
+        // Only set if this request reads the device, not if it uses the
+        // status read for an identical request.
+        final AtomicReference<DeviceConnection> devCon = new AtomicReference<>();
         try {
-            final DeviceConnection deviceConnection = this.connectToDevice(deviceRequest);
-            devCon = deviceConnection;
+            final DeviceStatusDto deviceStatus = this.iec61850ReadCoalescer.read(
+                    deviceRequest.getDeviceIdentification(), DeviceRequestMessageType.GET_STATUS.name(), null, () -> {
+                        final DeviceConnection deviceConnection = this.connectToDevice(deviceRequest);
+                        devCon.set(deviceConnection);
 
-            // Getting the SSLD for the device output-settings.
-            final Ssld ssld = this.ssldDataService.findDevice(deviceRequest.getDeviceIdentification());
-            final DeviceStatusDto deviceStatus = new Iec61850GetStatusCommand().getStatusFromDevice(this.iec61850Client,
-                    deviceConnection, ssld);
+                        // Getting the SSLD for the device output-settings.
+                        final Ssld ssld = this.deviceDataCache.findSsld(deviceRequest.getDeviceIdentification());
+                        return new Iec61850GetStatusCommand().getStatusFromDevice(this.iec61850Client,
+                                deviceConnection, ssld);
+                    });
 
             final GetStatusDeviceResponse deviceResponse = new GetStatusDeviceResponse(
                     deviceRequest.getOrganisationIdentification(), deviceRequest.getDeviceIdentification(),
@@ -117,13 +123,15 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
 
             deviceResponseHandler.handleResponse(deviceResponse);
 
-            this.enableReporting(deviceConnection, deviceRequest);
+            if (devCon.get() != null) {
+                this.enableReporting(devCon.get(), deviceRequest);
+            }
         } catch (final ConnectionFailureException se) {
             this.handleConnectionFailureException(deviceRequest, deviceResponseHandler, se);
-            this.iec61850DeviceConnectionService.disconnect(devCon, deviceRequest);
+            this.iec61850SsldSessionManager.release(devCon.get(), deviceRequest);
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
-            this.iec61850DeviceConnectionService.disconnect(devCon, deviceRequest);
+            this.iec61850SsldSessionManager.release(devCon.get(), deviceRequest);
         }
     }
 
@@ -135,7 +143,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             deviceConnection = this.connectToDevice(deviceRequest);
 
             // Getting the SSLD for the device output-settings.
-            final Ssld ssld = this.ssldDataService.findDevice(deviceRequest.getDeviceIdentification());
+            final Ssld ssld = this.deviceDataCache.findSsld(deviceRequest.getDeviceIdentification());
             final List<DeviceOutputSetting> deviceOutputSettingsLightRelays = this.ssldDataService.findByRelayType(ssld,
                     RelayType.LIGHT);
 
@@ -153,7 +161,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -165,7 +173,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             devCon = deviceConnection;
 
             // Getting the SSLD for the device output-settings.
-            final Ssld ssld = this.ssldDataService.findDevice(deviceRequest.getDeviceIdentification());
+            final Ssld ssld = this.deviceDataCache.findSsld(deviceRequest.getDeviceIdentification());
             final List<DeviceOutputSetting> deviceOutputSettings = this.ssldDataService.findByRelayType(ssld,
                     RelayType.LIGHT);
             final List<LightValueDto> lightValues = deviceRequest.getLightValuesContainer().getLightValues();
@@ -181,7 +189,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             } else {
                 // Else, create a list of internal indices based on the given
                 // external indices in the light values list.
-                relaysWithInternalIdToSwitch = this.createListOfInternalIndicesToSwitch(deviceOutputSettings,
+                relaysWithInternalIdToSwitch = this.createListOfInternalIndicesToSwitch(ssld.getRelayMapping(),
                         lightValues);
             }
 
@@ -195,10 +203,10 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             this.enableReporting(deviceConnection, deviceRequest);
         } catch (final ConnectionFailureException se) {
             this.handleConnectionFailureException(deviceRequest, deviceResponseHandler, se);
-            this.iec61850DeviceConnectionService.disconnect(devCon, deviceRequest);
+            this.iec61850SsldSessionManager.release(devCon, deviceRequest);
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
-            this.iec61850DeviceConnectionService.disconnect(devCon, deviceRequest);
+            this.iec61850SsldSessionManager.release(devCon, deviceRequest);
         }
     }
 
@@ -231,24 +239,21 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         return relaysWithInternalIdToSwitch;
     }
 
-    private List<LightValueDto> createListOfInternalIndicesToSwitch(
-            final List<DeviceOutputSetting> deviceOutputSettings, final List<LightValueDto> lightValues)
-            throws FunctionalException {
+    private List<LightValueDto> createListOfInternalIndicesToSwitch(final RelayMapping relayMapping,
+            final List<LightValueDto> lightValues) throws FunctionalException {
         final List<LightValueDto> relaysWithInternalIdToSwitch = new ArrayList<>();
-        LOGGER.info(
-                "creating list of internal indices using device output settings and external indices from light values");
+        LOGGER.info("creating list of internal indices using relay mapping and external indices from light values");
         for (final LightValueDto lightValue : lightValues) {
             if (lightValue == null) {
                 break;
             }
             DeviceOutputSetting deviceOutputSettingForExternalId = null;
-            for (final DeviceOutputSetting deviceOutputSetting : deviceOutputSettings) {
-                if (deviceOutputSetting.getExternalId() == lightValue.getIndex()) {
-                    // You can only switch LIGHT relays that are used.
-                    this.checkRelay(deviceOutputSetting.getRelayType(), RelayType.LIGHT,
-                            deviceOutputSetting.getInternalId());
-                    deviceOutputSettingForExternalId = deviceOutputSetting;
-                }
+            for (final DeviceOutputSetting deviceOutputSetting : relayMapping
+                    .getAllByExternalIndex(lightValue.getIndex())) {
+                // You can only switch LIGHT relays that are used.
+                this.checkRelay(deviceOutputSetting.getRelayType(), RelayType.LIGHT,
+                        deviceOutputSetting.getInternalId());
+                deviceOutputSettingForExternalId = deviceOutputSetting;
             }
             if (deviceOutputSettingForExternalId != null) {
                 final LightValueDto relayWithInternalIdToSwitch = new LightValueDto(
@@ -279,7 +284,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -290,7 +295,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             deviceConnection = this.connectToDevice(deviceRequest);
 
             // Getting the SSLD for the device output-settings.
-            final Ssld ssld = this.ssldDataService.findDevice(deviceRequest.getDeviceIdentification());
+            final Ssld ssld = this.deviceDataCache.findSsld(deviceRequest.getDeviceIdentification());
 
             final ConfigurationDto configuration = new Iec61850GetConfigurationCommand()
                     .getConfigurationFromDevice(this.iec61850Client, deviceConnection, ssld, this.mapper);
@@ -305,7 +310,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -323,7 +328,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -337,7 +342,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             deviceConnection = this.connectToDevice(deviceRequest);
 
             // Getting the SSLD for the device output-settings.
-            final Ssld ssld = this.ssldDataService.findDevice(deviceRequest.getDeviceIdentification());
+            final Ssld ssld = this.deviceDataCache.findSsld(deviceRequest.getDeviceIdentification());
 
             LOGGER.info("Turning all lights relays {}", startOfTest ? "on" : "off");
             final Iec61850SetLightCommand iec61850SetLightCommand = new Iec61850SetLightCommand();
@@ -386,7 +391,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
                     "Selftest failure - " + e.getMessage());
             this.handleException(deviceRequest, deviceResponseHandler, te);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     private void selfTestSleep() throws TechnicalException {
@@ -408,7 +413,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             deviceConnection = this.connectToDevice(deviceRequest);
 
             // Getting the SSLD for the device output-settings.
-            final Ssld ssld = this.ssldDataService.findDevice(deviceRequest.getDeviceIdentification());
+            final Ssld ssld = this.deviceDataCache.findSsld(deviceRequest.getDeviceIdentification());
 
             new Iec61850SetScheduleCommand().setScheduleOnDevice(this.iec61850Client, deviceConnection,
                     deviceRequest.getRelayType(), deviceRequest.getScheduleMessageDataContainer().getScheduleList(),
@@ -422,7 +427,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -445,7 +450,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -464,10 +469,10 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
             this.enableReporting(deviceConnection, deviceRequest);
         } catch (final ConnectionFailureException se) {
             this.handleConnectionFailureException(deviceRequest, deviceResponseHandler, se);
-            this.iec61850DeviceConnectionService.disconnect(devCon, deviceRequest);
+            this.iec61850SsldSessionManager.release(devCon, deviceRequest);
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
-            this.iec61850DeviceConnectionService.disconnect(devCon, deviceRequest);
+            this.iec61850SsldSessionManager.release(devCon, deviceRequest);
         }
     }
 
@@ -488,7 +493,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -507,7 +512,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     @Override
@@ -530,7 +535,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
         } catch (final Exception e) {
             this.handleException(deviceRequest, deviceResponseHandler, e);
         }
-        this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+        this.iec61850SsldSessionManager.release(deviceConnection, deviceRequest);
     }
 
     // ======================================
@@ -538,9 +543,7 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
     // ======================================
 
     private DeviceConnection connectToDevice(final DeviceRequest deviceRequest) throws ConnectionFailureException {
-        return this.iec61850DeviceConnectionService.connectWithoutConnectionCaching(deviceRequest.getIpAddress(),
-                deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), IED.FLEX_OVL,
-                IED.FLEX_OVL.getDescription(), LogicalDevice.LIGHTING.getDescription());
+        return this.iec61850SsldSessionManager.connect(deviceRequest);
     }
 
     // ========================
@@ -617,21 +620,8 @@ public class Iec61850SsldDeviceService implements SsldDeviceService {
 
     private void enableReporting(final DeviceConnection deviceConnection, final DeviceRequest deviceRequest)
             throws NodeException {
-        // Enabling device reporting.
-        new Iec61850EnableReportingCommand().enableReportingOnDeviceWithoutUsingSequenceNumber(this.iec61850Client,
-                deviceConnection);
-        // Don't disconnect now! The device should be able to send reports.
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    new Iec61850ClearReportCommand().clearReportOnDevice(deviceConnection);
-                } catch (final ProtocolAdapterException e) {
-                    LOGGER.error("Unable to clear report for device: " + deviceRequest.getDeviceIdentification(), e);
-                }
-                Iec61850SsldDeviceService.this.iec61850DeviceConnectionService.disconnect(deviceConnection,
-                        deviceRequest);
-            }
-        }, this.disconnectDelay);
+        // Enabling device reporting, the connection is released after the
+        // report window.
+        this.iec61850SsldSessionManager.enableReporting(deviceConnection, deviceRequest);
     }
 }
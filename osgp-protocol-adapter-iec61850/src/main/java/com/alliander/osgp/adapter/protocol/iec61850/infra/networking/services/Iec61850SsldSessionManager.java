@@ -0,0 +1,397 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850ClearReportCommand;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands.Iec61850EnableReportingCommand;
+
+/**
+ * Manages the associations used for requests to SSLDs.
+ * <p>
+ * By default every request connects to the SSLD and disconnects when it is
+ * done, or when the report window after the request has ended. If an idle
+ * timeout is configured, the association is kept open in the
+ * {@link Iec61850ConnectionPool} instead, and reused by later requests for
+ * the same device. A session is closed when no request has used it for the
+ * idle timeout and no report window is open on it.
+ * <p>
+ * Reporting is enabled for the report window after each request that enables
+ * reporting. A later request on the same session extends the pending report
+ * window, the report is cleared when the extended window ends.
+ * <p>
+ * Requests and the end of report windows use the association with a device
+ * one after the other: a request holds the user lock of the device from
+ * connecting until it releases the connection or has enabled reporting, and
+ * the end of a report window holds it while the report is cleared. Every
+ * request and report window using a session holds a lease in the
+ * {@link Iec61850ConnectionPool}, so the pool does not evict the association
+ * or check its health in the meantime.
+ */
+@Component
+@ManagedResource(objectName = "com.alliander.osgp.adapter.protocol.iec61850:name=SsldSessions", description = "Associations kept open for requests to SSLDs")
+public class Iec61850SsldSessionManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850SsldSessionManager.class);
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * User locks of the devices with requests or report window ends using the
+     * session or waiting for it.
+     */
+    private final ConcurrentHashMap<String, UserLock> userLocks = new ConcurrentHashMap<>();
+
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong idleCloseCount = new AtomicLong();
+
+    private ScheduledExecutorService idleCloseExecutor;
+
+    @Autowired
+    private Iec61850DeviceConnectionService iec61850DeviceConnectionService;
+
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
+    @Autowired
+    private Iec61850Client iec61850Client;
+
+    @Autowired
+    private Iec61850ReportWindowScheduler iec61850ReportWindowScheduler;
+
+    @Autowired
+    private int disconnectDelay;
+
+    @Autowired
+    private int ssldSessionIdleTimeout;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("ssldSessionIdleTimeout: {}", this.ssldSessionIdleTimeout);
+        if (this.isEnabled()) {
+            this.idleCloseExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "iec61850-ssld-session-idle-close");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (this.idleCloseExecutor != null) {
+            this.idleCloseExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code true} if associations to SSLDs are kept open between
+     *         requests.
+     */
+    public boolean isEnabled() {
+        return this.ssldSessionIdleTimeout > 0;
+    }
+
+    /**
+     * Connects to the SSLD of the request, or reuses the open session for the
+     * device, after earlier users of the session are done. The connection has
+     * to be handed back by the same thread using
+     * {@link #release(DeviceConnection, DeviceRequest)} or
+     * {@link #enableReporting(DeviceConnection, DeviceRequest)}.
+     */
+    public DeviceConnection connect(final DeviceRequest deviceRequest) throws ConnectionFailureException {
+        if (!this.isEnabled()) {
+            return this.iec61850DeviceConnectionService.connectWithoutConnectionCaching(deviceRequest.getIpAddress(),
+                    deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(),
+                    IED.FLEX_OVL, IED.FLEX_OVL.getDescription(), LogicalDevice.LIGHTING.getDescription());
+        }
+
+        final String deviceIdentification = deviceRequest.getDeviceIdentification();
+        this.lockUser(deviceIdentification);
+        try {
+            return this.connectUser(deviceRequest, deviceIdentification);
+        } catch (final ConnectionFailureException | RuntimeException e) {
+            this.unlockUser(deviceIdentification);
+            throw e;
+        }
+    }
+
+    private DeviceConnection connectUser(final DeviceRequest deviceRequest, final String deviceIdentification)
+            throws ConnectionFailureException {
+        // Hold the connect lock until the request is registered as a user of
+        // the session, so the session can not be closed in between.
+        this.iec61850ConnectionPool.lockDevice(deviceIdentification);
+        try {
+            final DeviceConnection deviceConnection = this.iec61850DeviceConnectionService.connect(
+                    deviceRequest.getIpAddress(), deviceIdentification, deviceRequest.getOrganisationIdentification(),
+                    IED.FLEX_OVL, IED.FLEX_OVL.getDescription(), LogicalDevice.LIGHTING.getDescription());
+            final Iec61850Connection connection = deviceConnection.getConnection();
+            this.sessions.compute(deviceIdentification, (key, session) -> {
+                if (session != null) {
+                    session.cancelIdleClose();
+                    if (session.connection == connection) {
+                        this.reusedCount.incrementAndGet();
+                        session.users++;
+                        return session;
+                    }
+                }
+                LOGGER.info("Started session for device: {}", key);
+                return new Session(connection);
+            });
+            this.iec61850ConnectionPool.lease(deviceIdentification);
+            return deviceConnection;
+        } finally {
+            this.iec61850ConnectionPool.unlockDevice(deviceIdentification);
+        }
+    }
+
+    /**
+     * Hands back a connection obtained using {@link #connect(DeviceRequest)}.
+     * Without sessions the device is disconnected, otherwise the session is
+     * closed after the idle timeout if no other request uses it by then.
+     */
+    public void release(final DeviceConnection deviceConnection, final DeviceRequest deviceRequest) {
+        if (!this.isEnabled()) {
+            this.iec61850DeviceConnectionService.disconnect(deviceConnection, deviceRequest);
+            return;
+        }
+        if (deviceConnection == null) {
+            return;
+        }
+        try {
+            this.releaseUser(deviceConnection);
+        } finally {
+            this.unlockUser(deviceConnection.getDeviceIdentification());
+        }
+    }
+
+    private void releaseUser(final DeviceConnection deviceConnection) {
+        final String deviceIdentification = deviceConnection.getDeviceIdentification();
+        final Iec61850Connection connection = deviceConnection.getConnection();
+        this.sessions.computeIfPresent(deviceIdentification, (key, session) -> {
+            // Sessions replaced by a new connection are closed by the pool.
+            if (session.connection == connection && --session.users == 0) {
+                session.idleClose = this.idleCloseExecutor.schedule(() -> this.closeIfIdle(key, session),
+                        this.ssldSessionIdleTimeout, TimeUnit.MILLISECONDS);
+            }
+            return session;
+        });
+        this.iec61850ConnectionPool.release(deviceIdentification);
+    }
+
+    /**
+     * Acquires the user lock of the device. The lock is removed when the last
+     * thread holding or waiting for it unlocks it, so there are only locks for
+     * devices with sessions in use.
+     */
+    private void lockUser(final String deviceIdentification) {
+        final UserLock userLock = this.userLocks.compute(deviceIdentification, (key, current) -> {
+            final UserLock result = current == null ? new UserLock() : current;
+            result.users++;
+            return result;
+        });
+        userLock.lock.lock();
+    }
+
+    /**
+     * Unlocks the user lock of the device if it is held by the current
+     * thread, it is not when a report window ends.
+     */
+    private void unlockUser(final String deviceIdentification) {
+        final UserLock userLock = this.userLocks.get(deviceIdentification);
+        if (userLock == null || !userLock.lock.isHeldByCurrentThread()) {
+            return;
+        }
+        userLock.lock.unlock();
+        this.userLocks.computeIfPresent(deviceIdentification, (key, current) -> --current.users == 0 ? null
+                : current);
+    }
+
+    /**
+     * Enables reporting on the device and keeps the connection open for the
+     * report window, so the device is able to send reports. When the report
+     * window ends, the report is cleared and the connection is released as
+     * by {@link #release(DeviceConnection, DeviceRequest)}. If enabling
+     * reporting fails, the connection still has to be released by the caller.
+     * Otherwise the next user of the session can start once reporting is
+     * enabled.
+     */
+    public void enableReporting(final DeviceConnection deviceConnection, final DeviceRequest deviceRequest)
+            throws NodeException {
+        final String deviceIdentification = deviceConnection.getDeviceIdentification();
+        final Session session = this.isEnabled() ? this.findSession(deviceConnection) : null;
+        if (session == null) {
+            new Iec61850EnableReportingCommand().enableReportingOnDeviceWithoutUsingSequenceNumber(this.iec61850Client,
+                    deviceConnection);
+            // Don't disconnect now! The device should be able to send reports.
+            this.iec61850ReportWindowScheduler.open(deviceIdentification, deviceConnection.getConnection(),
+                    this.disconnectDelay, () -> this.endReportWindow(deviceConnection, deviceRequest, null));
+            this.unlockUser(deviceIdentification);
+            return;
+        }
+
+        // The user lock of the device is held by this thread since connect.
+        new Iec61850EnableReportingCommand().enableReportingOnDeviceWithoutUsingSequenceNumber(this.iec61850Client,
+                deviceConnection);
+        final boolean opened = this.iec61850ReportWindowScheduler.open(deviceIdentification, session.connection,
+                this.disconnectDelay, () -> this.endReportWindow(deviceConnection, deviceRequest, session));
+        if (opened) {
+            // The report window keeps the session in use until it ends.
+            this.unlockUser(deviceIdentification);
+        } else {
+            // The pending report window keeps the session in use.
+            this.release(deviceConnection, deviceRequest);
+        }
+    }
+
+    private void endReportWindow(final DeviceConnection deviceConnection, final DeviceRequest deviceRequest,
+            final Session session) {
+        if (!this.isEnabled()) {
+            try {
+                new Iec61850ClearReportCommand().clearReportOnDevice(deviceConnection);
+            } catch (final ProtocolAdapterException e) {
+                LOGGER.error("Unable to clear report for device: " + deviceRequest.getDeviceIdentification(), e);
+            }
+            this.release(deviceConnection, deviceRequest);
+            return;
+        }
+
+        this.lockUser(deviceConnection.getDeviceIdentification());
+        try {
+            // Reporting was enabled again after the window ended, the report
+            // is cleared when the new window ends.
+            if (session == null || !this.iec61850ReportWindowScheduler
+                    .isPending(deviceConnection.getDeviceIdentification(), session.connection)) {
+                new Iec61850ClearReportCommand().clearReportOnDevice(deviceConnection);
+            }
+        } catch (final ProtocolAdapterException e) {
+            LOGGER.error("Unable to clear report for device: " + deviceRequest.getDeviceIdentification(), e);
+        } finally {
+            try {
+                this.releaseUser(deviceConnection);
+            } finally {
+                this.unlockUser(deviceConnection.getDeviceIdentification());
+            }
+        }
+    }
+
+    private Session findSession(final DeviceConnection deviceConnection) {
+        final Session session = this.sessions.get(deviceConnection.getDeviceIdentification());
+        return session != null && session.connection == deviceConnection.getConnection() ? session : null;
+    }
+
+    private void closeIfIdle(final String deviceIdentification, final Session session) {
+        // While the connect lock is held no request can start using the
+        // session, so a session without users can be closed safely.
+        this.iec61850ConnectionPool.lockDevice(deviceIdentification);
+        try {
+            if (session.users > 0 || !this.sessions.remove(deviceIdentification, session)) {
+                return;
+            }
+            LOGGER.info("Closing session for device: {}, idle for more than {} ms", deviceIdentification,
+                    this.ssldSessionIdleTimeout);
+            this.idleCloseCount.incrementAndGet();
+            this.iec61850ConnectionPool.evictIdle(deviceIdentification, session.connection);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unexpected exception closing session for device: {}", deviceIdentification, e);
+        } finally {
+            this.iec61850ConnectionPool.unlockDevice(deviceIdentification);
+        }
+    }
+
+    @ManagedAttribute(description = "Time in milliseconds sessions are kept open without requests, 0 if disabled")
+    public int getIdleTimeout() {
+        return this.ssldSessionIdleTimeout;
+    }
+
+    @ManagedAttribute(description = "Number of open sessions")
+    public int getSessionCount() {
+        return this.sessions.size();
+    }
+
+    @ManagedAttribute(description = "Number of devices with requests using their session or waiting for it")
+    public int getLockedDeviceCount() {
+        return this.userLocks.size();
+    }
+
+    @ManagedAttribute(description = "Number of requests that reused an open session")
+    public long getReusedCount() {
+        return this.reusedCount.get();
+    }
+
+    @ManagedAttribute(description = "Number of sessions closed because they were idle")
+    public long getIdleCloseCount() {
+        return this.idleCloseCount.get();
+    }
+
+    private static final class UserLock {
+
+        /**
+         * Fair, so waiting requests use the session in the order they
+         * arrived.
+         */
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        /**
+         * Number of threads holding or waiting for the lock, only changed
+         * while the lock is computed in the map of locks.
+         */
+        private int users;
+    }
+
+    private static final class Session {
+
+        private final Iec61850Connection connection;
+
+        /**
+         * Number of requests and report windows using the session, only
+         * changed while the session is computed in the map of sessions.
+         */
+        private volatile int users = 1;
+
+        private ScheduledFuture<?> idleClose;
+
+        Session(final Iec61850Connection connection) {
+            this.connection = connection;
+        }
+
+        void cancelIdleClose() {
+            if (this.idleClose != null) {
+                this.idleClose.cancel(false);
+                this.idleClose = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openmuc.openiec61850.FcModelNode;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.RtuWriteCommand;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+
+/**
+ * Collects the nodes written by several {@link RtuWriteCommand}s for one
+ * logical device and writes them to the device with as few requests as
+ * possible.
+ * <p>
+ * The nodes are written in the order in which the commands were added. Use
+ * separate batches for writes that have to be done one after the other, like
+ * profiles that have to be set before set points.
+ */
+public class Iec61850WriteBatch {
+
+    private final DeviceConnection connection;
+    private final LogicalDevice logicalDevice;
+    private final int logicalDeviceIndex;
+
+    private final List<FcModelNode> modelNodes = new ArrayList<>();
+
+    public Iec61850WriteBatch(final DeviceConnection connection, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex) {
+        this.connection = connection;
+        this.logicalDevice = logicalDevice;
+        this.logicalDeviceIndex = logicalDeviceIndex;
+    }
+
+    /**
+     * Sets the given data in the model of the device and adds the nodes to
+     * write to the batch.
+     *
+     * @throws NodeException
+     *             In case the data is invalid or the nodes of the command do
+     *             not exist in the ServerModel of the device.
+     */
+    public <T> void add(final RtuWriteCommand<T> command, final T writeData) throws NodeException {
+        this.modelNodes.addAll(
+                command.prepareWrite(this.connection, this.logicalDevice, this.logicalDeviceIndex, writeData));
+    }
+
+    /**
+     * Writes all nodes in the batch to the device.
+     *
+     * @throws NodeException
+     *             In case one or more nodes can not be written.
+     */
+    public void execute(final Iec61850Client client) throws NodeException {
+        if (this.modelNodes.isEmpty()) {
+            return;
+        }
+        try {
+            client.writeNodeDataValues(this.connection.getConnection().getClientAssociation(), this.modelNodes);
+        } finally {
+            this.modelNodes.clear();
+        }
+    }
+}
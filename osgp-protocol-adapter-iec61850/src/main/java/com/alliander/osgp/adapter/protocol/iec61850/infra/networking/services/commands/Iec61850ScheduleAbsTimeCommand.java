@@ -8,19 +8,21 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.commands;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
 
 import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.RtuReadCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.RtuWriteCommand;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.ProfilePair;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeNotFoundException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeWriteException;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DataAttribute;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
@@ -51,12 +53,10 @@ public class Iec61850ScheduleAbsTimeCommand implements RtuReadCommand<ProfileDto
     }
 
     @Override
-    public ProfileDto execute(final Iec61850Client client, final DeviceConnection connection,
-            final LogicalDevice logicalDevice, final int logicalDeviceIndex) throws NodeException {
-        final NodeContainer containingNode = connection.getFcModelNode(logicalDevice, logicalDeviceIndex,
+    public NodeContainer getNodeContainer(final DeviceConnection connection, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex) throws NodeNotFoundException {
+        return connection.getFcModelNode(logicalDevice, logicalDeviceIndex,
                 this.logicalNode, DATA_ATTRIBUTE, FC);
-        client.readNodeDataValues(connection.getConnection().getClientAssociation(), containingNode.getFcmodelNode());
-        return this.translate(containingNode);
     }
 
     @Override
@@ -68,9 +68,8 @@ public class Iec61850ScheduleAbsTimeCommand implements RtuReadCommand<ProfileDto
     }
 
     @Override
-    public void executeWrite(final Iec61850Client client, final DeviceConnection connection,
-            final LogicalDevice logicalDevice, final int logicalDeviceIndex, final ProfileDto profile)
-            throws NodeException {
+    public List<FcModelNode> prepareWrite(final DeviceConnection connection, final LogicalDevice logicalDevice,
+            final int logicalDeviceIndex, final ProfileDto profile) throws NodeException {
 
         this.checkProfile(profile);
 
@@ -79,8 +78,8 @@ public class Iec61850ScheduleAbsTimeCommand implements RtuReadCommand<ProfileDto
 
         final ProfilePair profilePair = this.convert(profile.getProfileEntries());
 
-        containingNode.writeFloatArray(SubDataAttribute.VALUES, profilePair.getValues());
-        containingNode.writeDateArray(SubDataAttribute.TIMES, profilePair.getTimes());
+        return Arrays.asList(containingNode.setFloatArray(SubDataAttribute.VALUES, profilePair.getValues()),
+                containingNode.setDateArray(SubDataAttribute.TIMES, profilePair.getTimes()));
     }
 
     private void checkProfile(final ProfileDto profile) throws NodeWriteException {
@@ -0,0 +1,21 @@
+DO $$
+BEGIN
+
+IF NOT EXISTS (SELECT 1 FROM information_schema.tables WHERE table_schema=current_schema AND table_name = 'iec61850_device_model') THEN
+  CREATE TABLE IF NOT EXISTS iec61850_device_model (
+    id bigserial NOT NULL,
+    creation_time timestamp without time zone NOT NULL,
+    modification_time timestamp without time zone NOT NULL,
+    version bigint,
+    device_identification character varying(40) NOT NULL,
+    fingerprint character varying(64) NOT NULL,
+    server_model bytea NOT NULL,
+    CONSTRAINT iec61850_device_model_pkey PRIMARY KEY (id),
+    CONSTRAINT iec61850_device_model_device_identification_key UNIQUE (device_identification)
+  );
+
+  ALTER TABLE iec61850_device_model OWNER TO osp_admin;
+END IF;
+
+END;
+$$
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850;
+
+import java.lang.reflect.Field;
+
+/**
+ * Sets the fields Spring injects into a component, so tests can create the
+ * component without an application context.
+ */
+public final class TestFields {
+
+    private TestFields() {
+        // Only static methods.
+    }
+
+    /**
+     * Sets the field with the given name, declared by the class of the target
+     * or one of its super classes.
+     */
+    public static void set(final Object target, final String name, final Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (final NoSuchFieldException e) {
+                // Look in the super class.
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException("Can not set field: " + name, e);
+            }
+        }
+        throw new IllegalArgumentException("No field: " + name + " in " + target.getClass().getName());
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.protocol.iec61850.TestFields;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+
+public class Iec61850CircuitBreakerTest {
+
+    private static final String DEVICE = "device-1";
+    private static final String OTHER_DEVICE = "device-2";
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final int LONG_OPEN_DURATION = 60000;
+    private static final int SHORT_OPEN_DURATION = 10;
+
+    private Iec61850CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() throws Exception {
+        this.circuitBreaker = new Iec61850CircuitBreaker();
+        TestFields.set(this.circuitBreaker, "circuitBreakerFailureThreshold", FAILURE_THRESHOLD);
+        TestFields.set(this.circuitBreaker, "circuitBreakerOpenDuration", LONG_OPEN_DURATION);
+    }
+
+    @Test
+    public void testCircuitOpensAtFailureThreshold() throws Exception {
+        this.recordFailures(DEVICE, FAILURE_THRESHOLD - 1);
+        assertEquals("CLOSED", this.circuitBreaker.getState(DEVICE));
+        this.circuitBreaker.acquirePermission(DEVICE);
+
+        this.recordFailures(DEVICE, 1);
+
+        assertEquals("OPEN", this.circuitBreaker.getState(DEVICE));
+        this.assertRejected(DEVICE);
+        this.circuitBreaker.acquirePermission(OTHER_DEVICE);
+        assertEquals(1, this.circuitBreaker.getOpenCount());
+        assertEquals(1, this.circuitBreaker.getOpenedCount());
+        assertEquals(1, this.circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void testSuccessResetsConsecutiveFailures() throws Exception {
+        this.recordFailures(DEVICE, FAILURE_THRESHOLD - 1);
+        this.circuitBreaker.recordSuccess(DEVICE);
+        this.recordFailures(DEVICE, FAILURE_THRESHOLD - 1);
+
+        assertEquals("CLOSED", this.circuitBreaker.getState(DEVICE));
+        this.circuitBreaker.acquirePermission(DEVICE);
+        assertEquals(0, this.circuitBreaker.getOpenedCount());
+    }
+
+    @Test
+    public void testOneProbeIsLetThroughAfterOpenDuration() throws Exception {
+        this.openShortly(DEVICE);
+
+        this.circuitBreaker.acquirePermission(DEVICE);
+
+        assertEquals("HALF_OPEN", this.circuitBreaker.getState(DEVICE));
+        assertEquals(1, this.circuitBreaker.getProbeCount());
+        this.assertRejected(DEVICE);
+    }
+
+    @Test
+    public void testSucceededProbeClosesCircuit() throws Exception {
+        this.openShortly(DEVICE);
+        this.circuitBreaker.acquirePermission(DEVICE);
+
+        this.circuitBreaker.recordSuccess(DEVICE);
+
+        assertEquals("CLOSED", this.circuitBreaker.getState(DEVICE));
+        assertEquals(0, this.circuitBreaker.getOpenCount());
+        this.circuitBreaker.acquirePermission(DEVICE);
+        this.circuitBreaker.acquirePermission(DEVICE);
+        assertEquals(1, this.circuitBreaker.getProbeCount());
+    }
+
+    @Test
+    public void testFailedProbeOpensCircuitAgain() throws Exception {
+        this.openShortly(DEVICE);
+        this.circuitBreaker.acquirePermission(DEVICE);
+
+        this.recordFailures(DEVICE, 1);
+
+        assertEquals("OPEN", this.circuitBreaker.getState(DEVICE));
+        assertEquals(2, this.circuitBreaker.getOpenedCount());
+        this.assertRejected(DEVICE);
+    }
+
+    @Test
+    public void testResetClosesCircuit() throws Exception {
+        this.recordFailures(DEVICE, FAILURE_THRESHOLD);
+
+        this.circuitBreaker.reset(DEVICE);
+
+        assertEquals("CLOSED", this.circuitBreaker.getState(DEVICE));
+        this.circuitBreaker.acquirePermission(DEVICE);
+    }
+
+    @Test
+    public void testDisabledCircuitBreakerNeverOpens() throws Exception {
+        TestFields.set(this.circuitBreaker, "circuitBreakerFailureThreshold", 0);
+
+        this.recordFailures(DEVICE, FAILURE_THRESHOLD * 2);
+
+        assertEquals("CLOSED", this.circuitBreaker.getState(DEVICE));
+        this.circuitBreaker.acquirePermission(DEVICE);
+        assertEquals(0, this.circuitBreaker.getOpenedCount());
+    }
+
+    /**
+     * Opens the circuit of the device and waits until a probe is allowed.
+     * Later open periods are long again.
+     */
+    private void openShortly(final String deviceIdentification) throws Exception {
+        TestFields.set(this.circuitBreaker, "circuitBreakerOpenDuration", SHORT_OPEN_DURATION);
+        this.recordFailures(deviceIdentification, FAILURE_THRESHOLD);
+        assertEquals("OPEN", this.circuitBreaker.getState(deviceIdentification));
+        Thread.sleep(SHORT_OPEN_DURATION * 2);
+        TestFields.set(this.circuitBreaker, "circuitBreakerOpenDuration", LONG_OPEN_DURATION);
+    }
+
+    private void assertRejected(final String deviceIdentification) {
+        try {
+            this.circuitBreaker.acquirePermission(deviceIdentification);
+            fail("Expected ConnectionFailureException");
+        } catch (final ConnectionFailureException e) {
+            // expected
+        }
+    }
+
+    private void recordFailures(final String deviceIdentification, final int failures) {
+        for (int i = 0; i < failures; i++) {
+            this.circuitBreaker.recordFailure(deviceIdentification);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.openiec61850.ClientAssociation;
+
+import com.alliander.osgp.adapter.protocol.iec61850.TestFields;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
+
+public class Iec61850ConnectionPoolTest {
+
+    private static final String DEVICE_1 = "device-1";
+    private static final String DEVICE_2 = "device-2";
+
+    private Iec61850ConnectionPool pool;
+
+    private int readCount;
+
+    private boolean readFails;
+
+    @Before
+    public void setUp() throws Exception {
+        this.pool = new Iec61850ConnectionPool();
+        TestFields.set(this.pool, "connectionPoolMaxSize", 1);
+        TestFields.set(this.pool, "iec61850DeviceMailboxes", new Iec61850DeviceMailboxes());
+        TestFields.set(this.pool, "iec61850Client", new Iec61850Client() {
+            @Override
+            public void readAllDataValues(final ClientAssociation clientAssociation) throws NodeReadException {
+                Iec61850ConnectionPoolTest.this.readCount++;
+                if (Iec61850ConnectionPoolTest.this.readFails) {
+                    throw new NodeReadException("read failed");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLeastRecentlyUsedConnectionIsEvictedWhenFull() {
+        this.pool.put(DEVICE_1, this.connection(), null);
+        final Iec61850Connection connection = this.connection();
+
+        this.pool.put(DEVICE_2, connection, null);
+
+        assertEquals(1, this.pool.getSize());
+        assertNull(this.pool.get(DEVICE_1));
+        assertSame(connection, this.pool.get(DEVICE_2));
+        assertEquals(1, this.pool.getLruEvictionCount());
+    }
+
+    @Test
+    public void testLeasedConnectionIsNotEvictedWhenFull() {
+        final Iec61850Connection leased = this.connection();
+        this.pool.put(DEVICE_1, leased, null);
+        this.pool.lease(DEVICE_1);
+
+        this.pool.put(DEVICE_2, this.connection(), null);
+
+        assertEquals(2, this.pool.getSize());
+        assertSame(leased, this.pool.get(DEVICE_1));
+        assertEquals(0, this.pool.getLruEvictionCount());
+    }
+
+    @Test
+    public void testLeasedConnectionIsNotEvictedWhenIdle() {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        this.pool.lease(DEVICE_1);
+        this.pool.lease(DEVICE_1);
+
+        this.pool.evictIdle(DEVICE_1, connection);
+        assertSame(connection, this.pool.get(DEVICE_1));
+
+        // Still leased once.
+        this.pool.release(DEVICE_1);
+        this.pool.evictIdle(DEVICE_1, connection);
+        assertSame(connection, this.pool.get(DEVICE_1));
+
+        this.pool.release(DEVICE_1);
+        assertFalse(this.pool.isLeased(DEVICE_1));
+        this.pool.evictIdle(DEVICE_1, connection);
+        assertNull(this.pool.get(DEVICE_1));
+        assertEquals(1, this.pool.getIdleEvictionCount());
+    }
+
+    @Test
+    public void testLeaseCoversConnectionAddedLater() {
+        this.pool.lease(DEVICE_1);
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        assertTrue(this.pool.isLeased(DEVICE_1));
+
+        this.pool.put(DEVICE_2, this.connection(), null);
+
+        assertSame(connection, this.pool.get(DEVICE_1));
+    }
+
+    @Test
+    public void testReplacedConnectionIsNotCountedAsCreated() {
+        this.pool.put(DEVICE_1, this.connection(), null);
+        final Iec61850Connection replacement = this.connection();
+
+        this.pool.put(DEVICE_1, replacement, null);
+
+        assertEquals(1, this.pool.getSize());
+        assertSame(replacement, this.pool.get(DEVICE_1));
+        assertEquals(1, this.pool.getCreatedCount());
+        assertEquals(1, this.pool.getReplacedCount());
+        assertEquals(0, this.pool.getLruEvictionCount());
+    }
+
+    @Test
+    public void testBrokenConnectionIsEvictedWhileLeased() {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        this.pool.lease(DEVICE_1);
+
+        this.pool.evictBroken(DEVICE_1, connection);
+
+        assertNull(this.pool.get(DEVICE_1));
+        assertEquals(1, this.pool.getBrokenEvictionCount());
+    }
+
+    @Test
+    public void testHealthCheckReadsUnleasedConnection() {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+
+        this.pool.checkHealth(DEVICE_1, connection);
+
+        assertEquals(1, this.readCount);
+        assertEquals(1, this.pool.getHealthCheckCount());
+        assertSame(connection, this.pool.get(DEVICE_1));
+    }
+
+    @Test
+    public void testHealthCheckSkipsLeasedConnection() {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        this.pool.lease(DEVICE_1);
+
+        this.pool.checkHealth(DEVICE_1, connection);
+
+        assertEquals(0, this.readCount);
+        assertEquals(0, this.pool.getHealthCheckCount());
+    }
+
+    @Test
+    public void testHealthCheckSkipsConnectingDevice() throws Exception {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        this.pool.lockDevice(DEVICE_1);
+        try {
+            final Thread healthCheck = new Thread(() -> this.pool.checkHealth(DEVICE_1, connection));
+            healthCheck.start();
+            healthCheck.join();
+        } finally {
+            this.pool.unlockDevice(DEVICE_1);
+        }
+
+        assertEquals(0, this.readCount);
+    }
+
+    @Test
+    public void testConnectLockIsRemovedWhenDeviceIsDone() throws Exception {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+
+        this.pool.lockDevice(DEVICE_1);
+        this.pool.lockDevice(DEVICE_1);
+        assertEquals(1, this.pool.getConnectingDeviceCount());
+        this.pool.unlockDevice(DEVICE_1);
+        assertEquals(1, this.pool.getConnectingDeviceCount());
+        this.pool.unlockDevice(DEVICE_1);
+        this.pool.checkHealth(DEVICE_1, connection);
+
+        assertEquals(0, this.pool.getConnectingDeviceCount());
+        assertEquals(0, this.pool.getPendingConnects());
+        assertEquals(1, this.readCount);
+    }
+
+    @Test
+    public void testConnectionIsNotEvictedOrCheckedWhileDeviceIsBusy() throws Exception {
+        final Iec61850DeviceMailboxes mailboxes = new Iec61850DeviceMailboxes(true, 10000, 1);
+        TestFields.set(this.pool, "iec61850DeviceMailboxes", mailboxes);
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+
+        mailboxes.execute(DEVICE_1, () -> {
+            this.pool.put(DEVICE_2, this.connection(), null);
+            // Health checks are skipped while the device is busy.
+            final Thread healthCheck = new Thread(() -> this.pool.checkHealth(DEVICE_1, connection));
+            healthCheck.start();
+            healthCheck.join();
+        });
+
+        assertSame(connection, this.pool.get(DEVICE_1));
+        assertEquals(2, this.pool.getSize());
+        assertEquals(0, this.readCount);
+    }
+
+    @Test
+    public void testHealthCheckSkipsReplacedConnection() {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        this.pool.put(DEVICE_1, this.connection(), null);
+
+        this.pool.checkHealth(DEVICE_1, connection);
+
+        assertEquals(0, this.readCount);
+    }
+
+    @Test
+    public void testFailedHealthCheckEvictsConnection() {
+        final Iec61850Connection connection = this.connection();
+        this.pool.put(DEVICE_1, connection, null);
+        this.readFails = true;
+
+        this.pool.checkHealth(DEVICE_1, connection);
+
+        assertNull(this.pool.get(DEVICE_1));
+        assertEquals(1, this.pool.getBrokenEvictionCount());
+    }
+
+    private Iec61850Connection connection() {
+        return new Iec61850Connection(null, null);
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.DeviceMailboxTimeoutException;
+
+public class Iec61850DeviceMailboxesTest {
+
+    private static final String DEVICE = "device-1";
+    private static final String OTHER_DEVICE = "device-2";
+
+    private final List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+    private final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+
+    private final CountDownLatch firstStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirst = new CountDownLatch(1);
+
+    private Iec61850DeviceMailboxes mailboxes;
+
+    private Thread first;
+
+    @Before
+    public void setUp() throws Exception {
+        this.mailboxes = new Iec61850DeviceMailboxes(true, 10000, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.releaseFirst.countDown();
+        if (this.first != null) {
+            this.first.join();
+        }
+        this.mailboxes.destroy();
+    }
+
+    @Test
+    public void testWorkForDeviceIsHandledInOrder() throws Exception {
+        this.startFirst();
+
+        final List<Thread> waiting = new ArrayList<>();
+        for (int i = 2; i <= 5; i++) {
+            final int number = i;
+            final Thread thread = new Thread(() -> this.mailboxes.execute(DEVICE, () -> this.handled.add(number)));
+            thread.start();
+            waiting.add(thread);
+            // Start the next one only after this one waits.
+            this.await(() -> thread.getState() == Thread.State.TIMED_WAITING);
+        }
+        assertEquals(4, this.mailboxes.getWaitingCount(DEVICE));
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        for (final Thread thread : waiting) {
+            thread.join();
+        }
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), this.handled);
+        assertEquals(0, this.mailboxes.getActiveDeviceCount());
+        assertEquals(5, this.mailboxes.getHandledCount());
+        assertEquals(4, this.mailboxes.getMaxWaitingCount());
+    }
+
+    @Test
+    public void testRequestForIdleDeviceIsHandledByCallingThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+
+        assertTrue(this.mailboxes.submit(DEVICE, () -> assertSame(caller, Thread.currentThread()),
+                this.failures::add));
+
+        assertTrue(this.failures.isEmpty());
+        assertEquals(0, this.mailboxes.getQueuedCount());
+        assertFalse(this.mailboxes.isBusy(DEVICE));
+    }
+
+    @Test
+    public void testRequestsForBusyDeviceAreQueuedInOrder() throws Exception {
+        this.startFirst();
+
+        // The calling thread does not wait for the first request.
+        for (int i = 2; i <= 5; i++) {
+            final int number = i;
+            assertFalse(this.mailboxes.submit(DEVICE, () -> this.handled.add(number), this.failures::add));
+        }
+        assertEquals(4, this.mailboxes.getWaitingCount(DEVICE));
+        assertFalse(this.mailboxes.tryExecute(DEVICE, () -> this.handled.add(6)));
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        this.await(() -> !this.mailboxes.isBusy(DEVICE));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), this.handled);
+        assertTrue(this.failures.isEmpty());
+        assertEquals(4, this.mailboxes.getQueuedCount());
+        assertEquals(5, this.mailboxes.getHandledCount());
+    }
+
+    @Test
+    public void testFailedQueuedRequestIsPassedToFailureHandler() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("connection failed");
+        this.startFirst();
+        this.mailboxes.submit(DEVICE, () -> {
+            throw failure;
+        }, this.failures::add);
+        this.mailboxes.submit(DEVICE, () -> this.handled.add(3), this.failures::add);
+
+        this.releaseFirst.countDown();
+        this.await(() -> !this.mailboxes.isBusy(DEVICE));
+
+        assertEquals(Arrays.asList(failure), this.failures);
+        assertEquals(Arrays.asList(1, 3), this.handled);
+        assertEquals(1, this.mailboxes.getFailedCount());
+    }
+
+    @Test
+    public void testQueuedRequestsArePassedToFailureHandlerOnShutdown() throws Exception {
+        this.startFirst();
+        this.mailboxes.submit(DEVICE, () -> this.handled.add(2), this.failures::add);
+
+        this.mailboxes.destroy();
+        this.releaseFirst.countDown();
+        this.first.join();
+        this.await(() -> !this.mailboxes.isBusy(DEVICE));
+
+        assertEquals(Arrays.asList(1), this.handled);
+        assertEquals(1, this.failures.size());
+    }
+
+    @Test
+    public void testWorkForOtherDeviceDoesNotWait() throws Exception {
+        this.startFirst();
+
+        this.mailboxes.execute(OTHER_DEVICE, () -> this.handled.add(2));
+
+        assertEquals(Arrays.asList(2), this.handled);
+    }
+
+    @Test
+    public void testNestedWorkForDeviceDoesNotWait() {
+        this.mailboxes.execute(DEVICE, () -> this.mailboxes.execute(DEVICE, () -> this.handled.add(1)));
+
+        assertEquals(Arrays.asList(1), this.handled);
+        assertFalse(this.mailboxes.isBusy(DEVICE));
+    }
+
+    @Test
+    public void testWaitingLongerThanTimeoutFails() throws Exception {
+        this.mailboxes = new Iec61850DeviceMailboxes(true, 50, 2);
+        this.startFirst();
+
+        try {
+            this.mailboxes.execute(DEVICE, () -> this.handled.add(2));
+            fail("Expected DeviceMailboxTimeoutException");
+        } catch (final DeviceMailboxTimeoutException e) {
+            // expected
+        }
+
+        assertEquals(1, this.mailboxes.getTimeoutCount());
+        this.releaseFirst.countDown();
+        this.first.join();
+        assertEquals(Arrays.asList(1), this.handled);
+        assertFalse(this.mailboxes.isBusy(DEVICE));
+    }
+
+    @Test
+    public void testTryExecuteIsSkippedWhileBusy() throws Exception {
+        this.startFirst();
+
+        assertTrue(this.mailboxes.isBusy(DEVICE));
+        assertFalse(this.mailboxes.tryExecute(DEVICE, () -> this.handled.add(2)));
+        assertTrue(this.mailboxes.tryExecute(OTHER_DEVICE, () -> this.handled.add(3)));
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        assertTrue(this.mailboxes.tryExecute(DEVICE, () -> this.handled.add(4)));
+
+        assertEquals(Arrays.asList(3, 1, 4), this.handled);
+        assertEquals(1, this.mailboxes.getSkippedCount());
+    }
+
+    @Test
+    public void testDisabledMailboxDoesNotWait() throws Exception {
+        this.mailboxes = new Iec61850DeviceMailboxes(false, 10000, 2);
+        this.startFirst();
+
+        this.mailboxes.execute(DEVICE, () -> this.handled.add(2));
+        assertTrue(this.mailboxes.submit(DEVICE, () -> this.handled.add(3), this.failures::add));
+
+        assertEquals(Arrays.asList(2, 3), this.handled);
+    }
+
+    /**
+     * Starts handling work 1 for the device, which is done once
+     * {@link #releaseFirst} is counted down.
+     */
+    private void startFirst() throws InterruptedException {
+        this.first = new Thread(() -> this.mailboxes.execute(DEVICE, () -> {
+            this.firstStarted.countDown();
+            try {
+                this.releaseFirst.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.handled.add(1);
+        }));
+        this.first.start();
+        assertTrue(this.firstStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    private void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.openiec61850.BasicDataAttribute;
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.BdaInt32U;
+import org.openmuc.openiec61850.BdaQuality;
+import org.openmuc.openiec61850.BdaTimestamp;
+import org.openmuc.openiec61850.BdaVisibleString;
+import org.openmuc.openiec61850.ConstructedDataAttribute;
+import org.openmuc.openiec61850.DataSet;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcDataObject;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.LogicalDevice;
+import org.openmuc.openiec61850.LogicalNode;
+import org.openmuc.openiec61850.ModelNode;
+import org.openmuc.openiec61850.ObjectReference;
+import org.openmuc.openiec61850.ServerModel;
+
+public class Iec61850ServerModelSerializerTest {
+
+    private static final String DATA_SET = "LD1/MMXU1.Measurements";
+
+    private BdaFloat32 totalActivePower;
+
+    private ServerModel serverModel;
+
+    @Before
+    public void setUp() {
+        this.totalActivePower = new BdaFloat32(new ObjectReference("LD1/MMXU1.TotW.mag.f"), Fc.MX, "", false, false);
+        final FcDataObject measured = new FcDataObject(new ObjectReference("LD1/MMXU1.TotW"), Fc.MX,
+                this.nodes(
+                        new ConstructedDataAttribute(new ObjectReference("LD1/MMXU1.TotW.mag"), Fc.MX,
+                                this.nodes(this.totalActivePower)),
+                        new BdaQuality(new ObjectReference("LD1/MMXU1.TotW.q"), Fc.MX, "", false),
+                        new BdaTimestamp(new ObjectReference("LD1/MMXU1.TotW.t"), Fc.MX, "", false, false)));
+        // Same data object name, other functional constraint.
+        final FcDataObject configured = new FcDataObject(new ObjectReference("LD1/MMXU1.TotW"), Fc.CF,
+                this.nodes(new BdaInt32U(new ObjectReference("LD1/MMXU1.TotW.db"), Fc.CF, "", false, false)));
+        final FcDataObject nameplate = new FcDataObject(new ObjectReference("LD1/MMXU1.NamPlt"), Fc.DC,
+                this.nodes(new BdaVisibleString(new ObjectReference("LD1/MMXU1.NamPlt.vendor"), Fc.DC, "", 255,
+                        false, false)));
+
+        final LogicalNode logicalNode = new LogicalNode(new ObjectReference("LD1/MMXU1"),
+                Arrays.asList(measured, configured, nameplate));
+        final LogicalDevice logicalDevice = new LogicalDevice(new ObjectReference("LD1"),
+                Collections.singletonList(logicalNode));
+        final DataSet dataSet = new DataSet(DATA_SET, this.nodes(measured, this.totalActivePower), false);
+
+        this.serverModel = new ServerModel(Collections.singletonList(logicalDevice),
+                Collections.singletonList(dataSet));
+    }
+
+    @Test
+    public void testRoundTripKeepsTheStructure() throws IOException {
+        final ServerModel copy = Iec61850ServerModelSerializer
+                .deserialize(Iec61850ServerModelSerializer.serialize(this.serverModel));
+
+        assertNotSame(this.serverModel, copy);
+        this.assertSameStructure(this.serverModel.getChildren(), copy.getChildren());
+    }
+
+    @Test
+    public void testRoundTripKeepsTheDataSetsWithMembersOfTheNewModel() throws IOException {
+        final ServerModel copy = Iec61850ServerModelSerializer
+                .deserialize(Iec61850ServerModelSerializer.serialize(this.serverModel));
+
+        final DataSet dataSet = this.getDataSet(copy, DATA_SET);
+        assertNotNull(dataSet);
+        assertEquals(2, dataSet.getMembers().size());
+        assertSame(copy.findModelNode("LD1/MMXU1.TotW", Fc.MX), dataSet.getMembers().get(0));
+        assertSame(copy.findModelNode("LD1/MMXU1.TotW.mag.f", Fc.MX), dataSet.getMembers().get(1));
+    }
+
+    @Test
+    public void testRoundTripDoesNotKeepValues() throws IOException {
+        this.totalActivePower.setFloat(1.5f);
+
+        final ServerModel copy = Iec61850ServerModelSerializer
+                .deserialize(Iec61850ServerModelSerializer.serialize(this.serverModel));
+
+        final BdaFloat32 copiedPower = (BdaFloat32) copy.findModelNode("LD1/MMXU1.TotW.mag.f", Fc.MX);
+        assertEquals(0f, copiedPower.getFloat(), 0f);
+    }
+
+    @Test
+    public void testOtherFormatVersionIsRejected() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        try {
+            Iec61850ServerModelSerializer.deserialize(bytes.toByteArray());
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    private void assertSameStructure(final Iterable<ModelNode> expectedNodes, final Iterable<ModelNode> actualNodes) {
+        final Iterator<ModelNode> actual = actualNodes.iterator();
+        for (final ModelNode expected : expectedNodes) {
+            this.assertSameStructure(expected, actual.next());
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private void assertSameStructure(final ModelNode expected, final ModelNode actual) {
+        final String reference = expected.getReference().toString();
+        assertEquals(reference, actual.getReference().toString());
+        assertEquals(reference, expected.getClass(), actual.getClass());
+        if (expected instanceof FcModelNode) {
+            assertEquals(reference, ((FcModelNode) expected).getFc(), ((FcModelNode) actual).getFc());
+        }
+        if (expected instanceof BasicDataAttribute) {
+            assertEquals(reference, ((BasicDataAttribute) expected).getBasicType(),
+                    ((BasicDataAttribute) actual).getBasicType());
+        }
+        if (expected instanceof BdaVisibleString) {
+            assertEquals(reference, ((BdaVisibleString) expected).getMaxLength(),
+                    ((BdaVisibleString) actual).getMaxLength());
+        }
+        if (expected.getChildren() == null) {
+            assertEquals(reference, null, actual.getChildren());
+        } else {
+            this.assertSameStructure(expected.getChildren(), actual.getChildren());
+        }
+    }
+
+    private DataSet getDataSet(final ServerModel serverModel, final String reference) {
+        for (final DataSet dataSet : serverModel.getDataSets()) {
+            if (reference.equals(dataSet.getReferenceStr())) {
+                return dataSet;
+            }
+        }
+        return null;
+    }
+
+    private List<FcModelNode> nodes(final FcModelNode... nodes) {
+        return new ArrayList<>(Arrays.asList(nodes));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.BdaTimestamp;
+import org.openmuc.openiec61850.ConstructedDataAttribute;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcDataObject;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ObjectReference;
+import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
+
+public class Iec61850PqReportLayoutTest {
+
+    private Iec61850PqReportLayout layout;
+
+    @Before
+    public void setUp() {
+        this.layout = new Iec61850PqReportLayout(1L, 2);
+    }
+
+    @Test
+    public void testSubsetsWithTheSameShortNamesKeepTheirLogicalNode() {
+        // All members included.
+        List<LogicalDeviceDto> logicalDevices = this.layout.toLogicalDevices(new int[] { 0, 1 },
+                Arrays.asList(this.totalMeasurement("LD1/MMXU1.TotW", 1), this.totalMeasurement("LD2/MMXU2.TotW", 2)));
+        assertEquals(2, logicalDevices.size());
+        this.assertSample(logicalDevices.get(0), "LD1", "MMXU1", "TotW.mag.f", 1);
+        this.assertSample(logicalDevices.get(1), "LD2", "MMXU2", "TotW.mag.f", 2);
+
+        // Only the second member included, at the position of the first.
+        logicalDevices = this.layout.toLogicalDevices(new int[] { 1 },
+                Arrays.asList(this.totalMeasurement("LD2/MMXU2.TotW", 3)));
+        assertEquals(1, logicalDevices.size());
+        this.assertSample(logicalDevices.get(0), "LD2", "MMXU2", "TotW.mag.f", 3);
+
+        // Only the first member included, same size and short name.
+        logicalDevices = this.layout.toLogicalDevices(new int[] { 0 },
+                Arrays.asList(this.totalMeasurement("LD1/MMXU1.TotW", 4)));
+        assertEquals(1, logicalDevices.size());
+        this.assertSample(logicalDevices.get(0), "LD1", "MMXU1", "TotW.mag.f", 4);
+
+        assertEquals(2, this.layout.getMemberCount());
+    }
+
+    @Test
+    public void testMembersAreGroupedPerLogicalDeviceAndLogicalNode() {
+        final List<LogicalDeviceDto> logicalDevices = this.layout.toLogicalDevices(null,
+                Arrays.asList(this.totalMeasurement("LD1/MMXU1.TotW", 1), this.totalMeasurement("LD1/MMXU2.TotW", 2),
+                        this.totalMeasurement("LD1/MMXU1.TotVAr", 3)));
+
+        assertEquals(1, logicalDevices.size());
+        final List<LogicalNodeDto> logicalNodes = logicalDevices.get(0).getLogicalNodes();
+        assertEquals(2, logicalNodes.size());
+        assertEquals("MMXU1", logicalNodes.get(0).getName());
+        assertEquals(2, logicalNodes.get(0).getDataSamples().size());
+        assertEquals("MMXU2", logicalNodes.get(1).getName());
+        assertEquals(1, logicalNodes.get(1).getDataSamples().size());
+    }
+
+    @Test
+    public void testMembersOtherThanMeasurementsAreSkipped() {
+        final FcModelNode status = new BdaFloat32(new ObjectReference("LD1/GGIO1.AnIn1"), Fc.ST, "", false, false);
+
+        final List<LogicalDeviceDto> logicalDevices = this.layout.toLogicalDevices(new int[] { 0, 1 },
+                Arrays.asList(status, this.totalMeasurement("LD1/MMXU1.TotW", 1)));
+
+        assertEquals(1, logicalDevices.size());
+        this.assertSample(logicalDevices.get(0), "LD1", "MMXU1", "TotW.mag.f", 1);
+    }
+
+    @Test
+    public void testAppliesToConfRevAndDataSetSize() {
+        assertTrue(this.layout.appliesTo(1L, 2));
+        assertFalse(this.layout.appliesTo(2L, 2));
+        assertFalse(this.layout.appliesTo(1L, 3));
+    }
+
+    private void assertSample(final LogicalDeviceDto logicalDevice, final String logicalDeviceName,
+            final String logicalNodeName, final String type, final float value) {
+        assertEquals(logicalDeviceName, logicalDevice.getName());
+        assertEquals(1, logicalDevice.getLogicalNodes().size());
+        final LogicalNodeDto logicalNode = logicalDevice.getLogicalNodes().get(0);
+        assertEquals(logicalNodeName, logicalNode.getName());
+        assertEquals(1, logicalNode.getDataSamples().size());
+        final DataSampleDto sample = logicalNode.getDataSamples().get(0);
+        assertEquals(type, sample.getType());
+        assertEquals(0, new BigDecimal(value).compareTo(sample.getValue()));
+    }
+
+    private FcModelNode totalMeasurement(final String reference, final float value) {
+        final BdaFloat32 f = new BdaFloat32(new ObjectReference(reference + ".mag.f"), Fc.MX, "", false, false);
+        f.setFloat(value);
+        final List<FcModelNode> magnitude = new ArrayList<>();
+        magnitude.add(f);
+        final List<FcModelNode> children = new ArrayList<>();
+        children.add(new ConstructedDataAttribute(new ObjectReference(reference + ".mag"), Fc.MX, magnitude));
+        children.add(new BdaTimestamp(new ObjectReference(reference + ".t"), Fc.MX, "", false, false));
+        return new FcDataObject(new ObjectReference(reference), Fc.MX, children);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ObjectReference;
+
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportDecodingPlan.MemberPlan;
+
+public class Iec61850ReportDecodingPlanTest {
+
+    private static final Long CONF_REV = 1L;
+    private static final int DATA_SET_SIZE = 2;
+
+    private final Map<String, MemberPlan> memberPlans = new HashMap<>();
+
+    private int compileCount;
+
+    private Iec61850ReportDecodingPlan plan;
+
+    @Before
+    public void setUp() {
+        this.plan = new Iec61850ReportDecodingPlan(CONF_REV, DATA_SET_SIZE);
+    }
+
+    @Test
+    public void testSubsetsWithTheSameShortNamesAreDecodedByDataSetPosition() {
+        final FcModelNode totW1 = this.member("SRVPV1/MMXU1.TotW", Fc.MX);
+        final FcModelNode totW2 = this.member("SRVPV1/MMXU2.TotW", Fc.MX);
+
+        // All members included.
+        this.decode(new boolean[] { true, true }, totW1, totW2);
+
+        // Only the second member included, at the position of the first.
+        final List<MemberPlan> second = this.decode(new boolean[] { false, true },
+                this.member("SRVPV1/MMXU2.TotW", Fc.MX));
+        assertSame(this.memberPlans.get("SRVPV1/MMXU2.TotW" + Fc.MX), second.get(0));
+
+        // Only the first member included, same size and short name.
+        final List<MemberPlan> first = this.decode(new boolean[] { true, false },
+                this.member("SRVPV1/MMXU1.TotW", Fc.MX));
+        assertSame(this.memberPlans.get("SRVPV1/MMXU1.TotW" + Fc.MX), first.get(0));
+        assertNotSame(first.get(0), second.get(0));
+
+        assertEquals(2, this.compileCount);
+    }
+
+    @Test
+    public void testSubsetsOfDifferentSizesDoNotRecompile() {
+        this.decode(new boolean[] { true, false }, this.member("SRVPV1/MMXU1.TotW", Fc.MX));
+        this.decode(new boolean[] { true, true }, this.member("SRVPV1/MMXU1.TotW", Fc.MX),
+                this.member("SRVPV1/MMXU2.TotW", Fc.MX));
+        this.decode(new boolean[] { false, true }, this.member("SRVPV1/MMXU2.TotW", Fc.MX));
+        this.decode(new boolean[] { true, false }, this.member("SRVPV1/MMXU1.TotW", Fc.MX));
+
+        assertEquals(2, this.compileCount);
+        assertEquals(2, this.plan.getMemberCount());
+    }
+
+    @Test
+    public void testMembersWithTheSameReferenceAreKeptApart() {
+        final List<MemberPlan> memberPlans = this.decode(new boolean[] { true, true },
+                this.member("SRVPV1/GGIO1.Alm1", Fc.ST), this.member("SRVPV1/GGIO1.Alm1", Fc.MX));
+
+        assertNotSame(memberPlans.get(0), memberPlans.get(1));
+        assertEquals(2, this.compileCount);
+    }
+
+    @Test
+    public void testFailedMembersAreCompiledAgain() {
+        final FcModelNode member = this.member("SRVPV1/MMXU1.TotW", Fc.MX);
+        try {
+            this.plan.getMemberPlan(0, member, m -> {
+                throw new IllegalStateException("lookup failed");
+            });
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+
+        this.decode(new boolean[] { true, false }, member);
+
+        assertEquals(1, this.compileCount);
+    }
+
+    @Test
+    public void testMembersAtUnknownPositionsAreNotCached() {
+        final FcModelNode member = this.member("SRVPV1/MMXU1.TotW", Fc.MX);
+
+        this.plan.getMemberPlan(Iec61850DataSetPositions.UNKNOWN, member, this::compile);
+        this.plan.getMemberPlan(DATA_SET_SIZE, member, this::compile);
+
+        assertEquals(2, this.compileCount);
+        assertEquals(0, this.plan.getMemberCount());
+    }
+
+    @Test
+    public void testAppliesToConfRevAndDataSetSize() {
+        assertTrue(this.plan.appliesTo(CONF_REV, DATA_SET_SIZE));
+        assertFalse(this.plan.appliesTo(CONF_REV + 1, DATA_SET_SIZE));
+        assertFalse(this.plan.appliesTo(null, DATA_SET_SIZE));
+        assertFalse(this.plan.appliesTo(CONF_REV, DATA_SET_SIZE + 1));
+    }
+
+    @Test
+    public void testPositionsFollowTheInclusionBitString() {
+        assertArrayEquals(new int[] { 1, 3 },
+                Iec61850DataSetPositions.of(new boolean[] { false, true, false, true }, 2));
+        assertArrayEquals(new int[0], Iec61850DataSetPositions.of(new boolean[] { false, false }, 0));
+    }
+
+    @Test
+    public void testPositionsAreUnknownWhenTheInclusionBitStringDoesNotMatch() {
+        assertNull(Iec61850DataSetPositions.of(null, 1));
+        assertNull(Iec61850DataSetPositions.of(new boolean[] { true, true }, 1));
+        assertNull(Iec61850DataSetPositions.of(new boolean[] { true, false }, 2));
+    }
+
+    private List<MemberPlan> decode(final boolean[] inclusionBitString, final FcModelNode... members) {
+        final int[] positions = Iec61850DataSetPositions.of(inclusionBitString, members.length);
+        final MemberPlan[] result = new MemberPlan[members.length];
+        for (int i = 0; i < members.length; i++) {
+            result[i] = this.plan.getMemberPlan(positions[i], members[i], this::compile);
+        }
+        return Arrays.asList(result);
+    }
+
+    private MemberPlan compile(final FcModelNode member) {
+        this.compileCount++;
+        final MemberPlan memberPlan = new MemberPlan(new Iec61850ReportMemberTranslator[0], true);
+        this.memberPlans.put(member.getReference().toString() + member.getFc(), memberPlan);
+        return memberPlan;
+    }
+
+    private FcModelNode member(final String reference, final Fc fc) {
+        return new BdaFloat32(new ObjectReference(reference), fc, "", false, false);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850GetDataExecutor.Connector;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850GetDataExecutor.Part;
+
+public class Iec61850GetDataExecutorTest {
+
+    private static final String DEVICE = "device-1";
+    private static final String POOLED = "pooled";
+
+    private final AtomicInteger connectCount = new AtomicInteger();
+    private final Set<String> openConnections = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> usedConnections = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private Iec61850GetDataExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (this.executor != null) {
+            this.executor.destroy();
+        }
+    }
+
+    @Test
+    public void testPartsAreExecutedOnOwnConnectionsAndReturnedInOrder() throws Exception {
+        this.executor = new Iec61850GetDataExecutor(4, 3);
+        // Every part waits until three parts run at the same time, so all
+        // three connections are used.
+        final CountDownLatch running = new CountDownLatch(3);
+        final List<Part<String, Integer>> parts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            final int part = i;
+            parts.add(connection -> {
+                this.usedConnections.add(connection);
+                running.countDown();
+                assertTrue(await(running));
+                return part;
+            });
+        }
+
+        final List<Integer> results = this.executor.executeAll(DEVICE, POOLED, parts, this.connector());
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), results);
+        assertEquals(3, this.usedConnections.size());
+        assertTrue(this.usedConnections.contains(POOLED));
+        assertEquals(2, this.connectCount.get());
+        assertTrue(this.openConnections.isEmpty());
+        assertEquals(0, this.executor.getDeviceCount());
+        assertEquals(1, this.executor.getParallelRequestCount());
+    }
+
+    @Test
+    public void testFirstFailureInOrderIsThrown() throws Exception {
+        this.executor = new Iec61850GetDataExecutor(4, 3);
+        final ProtocolAdapterException first = new ProtocolAdapterException("first");
+        final ProtocolAdapterException second = new ProtocolAdapterException("second");
+        final CountDownLatch bothFailing = new CountDownLatch(2);
+        final List<Part<String, Integer>> parts = Arrays.asList(connection -> 0, connection -> {
+            bothFailing.countDown();
+            await(bothFailing);
+            throw first;
+        }, connection -> {
+            bothFailing.countDown();
+            await(bothFailing);
+            throw second;
+        });
+
+        try {
+            this.executor.executeAll(DEVICE, POOLED, parts, this.connector());
+            fail("Expected ProtocolAdapterException");
+        } catch (final ProtocolAdapterException e) {
+            assertSame(first, e);
+        }
+        assertTrue(this.openConnections.isEmpty());
+        assertEquals(0, this.executor.getDeviceCount());
+    }
+
+    @Test
+    public void testPartsAreExecutedWhenAdditionalConnectionFails() throws Exception {
+        this.executor = new Iec61850GetDataExecutor(4, 3);
+        final Connector<String> failing = new Connector<String>() {
+            @Override
+            public String connect() throws ProtocolAdapterException {
+                throw new ConnectionFailureException("refused");
+            }
+
+            @Override
+            public void disconnect(final String connection) {
+                fail("Not connected");
+            }
+        };
+
+        final List<Integer> results = this.executor.executeAll(DEVICE, POOLED, this.parts(5), failing);
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), results);
+        assertEquals(Collections.singleton(POOLED), this.usedConnections);
+        assertEquals(0, this.executor.getDeviceCount());
+    }
+
+    @Test
+    public void testConnectionsPerDeviceAreLimitedOverRequests() throws Exception {
+        this.executor = new Iec61850GetDataExecutor(4, 2);
+        final CountDownLatch firstRunning = new CountDownLatch(2);
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final List<Part<String, Integer>> blocking = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final int part = i;
+            blocking.add(connection -> {
+                firstRunning.countDown();
+                await(releaseFirst);
+                return part;
+            });
+        }
+        final Thread first = new Thread(() -> {
+            try {
+                this.executor.executeAll(DEVICE, POOLED, blocking, this.connector());
+            } catch (final ProtocolAdapterException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.start();
+        assertTrue(firstRunning.await(10, TimeUnit.SECONDS));
+        assertEquals(1, this.connectCount.get());
+
+        // The device has no additional connection left for a second request.
+        final List<Integer> results = this.executor.executeAll(DEVICE, "other", this.parts(3), this.connector());
+        assertEquals(Arrays.asList(0, 1, 2), results);
+        assertEquals(1, this.connectCount.get());
+        assertEquals(1, this.executor.getSequentialRequestCount());
+
+        releaseFirst.countDown();
+        first.join();
+        assertEquals(0, this.executor.getDeviceCount());
+    }
+
+    @Test
+    public void testPartsAreExecutedOneAfterTheOtherWithoutPool() throws Exception {
+        this.executor = new Iec61850GetDataExecutor(0, 3);
+
+        final List<Integer> results = this.executor.executeAll(DEVICE, POOLED, this.parts(3), this.connector());
+
+        assertEquals(Arrays.asList(0, 1, 2), results);
+        assertEquals(Collections.singleton(POOLED), this.usedConnections);
+        assertEquals(0, this.connectCount.get());
+        assertEquals(1, this.executor.getSequentialRequestCount());
+    }
+
+    private static boolean await(final CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<Part<String, Integer>> parts(final int count) {
+        final List<Part<String, Integer>> parts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final int part = i;
+            parts.add(connection -> {
+                this.usedConnections.add(connection);
+                return part;
+            });
+        }
+        return parts;
+    }
+
+    private Connector<String> connector() {
+        return new Connector<String>() {
+            @Override
+            public String connect() {
+                final String connection = "additional-"
+                        + Iec61850GetDataExecutorTest.this.connectCount.incrementAndGet();
+                Iec61850GetDataExecutorTest.this.openConnections.add(connection);
+                return connection;
+            }
+
+            @Override
+            public void disconnect(final String connection) {
+                Iec61850GetDataExecutorTest.this.openConnections.remove(connection);
+            }
+        };
+    }
+}
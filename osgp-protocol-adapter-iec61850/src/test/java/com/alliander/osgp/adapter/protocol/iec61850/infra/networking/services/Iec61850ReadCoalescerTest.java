@@ -0,0 +1,239 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.protocol.iec61850.TestFields;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850ReadCoalescer.Read;
+
+public class Iec61850ReadCoalescerTest {
+
+    private static final String DEVICE = "device-1";
+    private static final String REQUEST_TYPE = "GET_DATA";
+    private static final List<Object> FILTER = Arrays.asList("PV", 1, Arrays.asList("TotW", 0));
+
+    private final CountDownLatch firstStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirst = new CountDownLatch(1);
+
+    private final AtomicInteger deviceReads = new AtomicInteger();
+
+    private Iec61850ReadCoalescer coalescer;
+
+    private ReadThread first;
+
+    @Before
+    public void setUp() throws Exception {
+        this.coalescer = new Iec61850ReadCoalescer();
+        TestFields.set(this.coalescer, "isReadCoalescingEnabled", true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.releaseFirst.countDown();
+        if (this.first != null) {
+            this.first.join();
+        }
+    }
+
+    @Test
+    public void testWaitingReadUsesResultOfIdenticalRead() throws Exception {
+        this.startFirst(() -> "first");
+        final ReadThread second = this.startWaiting(FILTER, () -> "second");
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        second.join();
+
+        assertEquals("first", this.first.result);
+        assertEquals("first", second.result);
+        assertEquals(1, this.deviceReads.get());
+        assertEquals(1, this.coalescer.getDeviceReadCount());
+        assertEquals(1, this.coalescer.getSharedReadCount());
+        assertEquals(0, this.coalescer.getReadCount());
+    }
+
+    @Test
+    public void testReadsWithEqualFilterKeysAreShared() throws Exception {
+        this.startFirst(() -> "first");
+        final ReadThread second = this.startWaiting(Arrays.asList("PV", 1, Arrays.asList("TotW", 0)), () -> "second");
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        second.join();
+
+        assertEquals("first", second.result);
+        assertEquals(1, this.deviceReads.get());
+    }
+
+    @Test
+    public void testCompletedReadIsNotShared() throws Exception {
+        assertEquals("first", this.coalescer.read(DEVICE, REQUEST_TYPE, FILTER, this.counting(() -> "first")));
+
+        assertEquals(0, this.coalescer.getReadCount());
+        assertEquals("second", this.coalescer.read(DEVICE, REQUEST_TYPE, FILTER, this.counting(() -> "second")));
+        assertEquals(2, this.deviceReads.get());
+        assertEquals(0, this.coalescer.getSharedReadCount());
+    }
+
+    @Test
+    public void testDisabledCoalescerDoesNotShareReads() throws Exception {
+        TestFields.set(this.coalescer, "isReadCoalescingEnabled", false);
+        this.startFirst(() -> "first");
+        final ReadThread second = new ReadThread(FILTER, () -> "second");
+        second.start();
+        second.join();
+
+        assertEquals("second", second.result);
+        assertEquals(2, this.deviceReads.get());
+    }
+
+    @Test
+    public void testWaitingReadFailsWhenIdenticalReadCanNotConnect() throws Exception {
+        final ConnectionFailureException connectionFailure = new ConnectionFailureException("unreachable");
+        this.startFirst(() -> {
+            throw connectionFailure;
+        });
+        final ReadThread second = this.startWaiting(FILTER, () -> "second");
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        second.join();
+
+        assertSame(connectionFailure, this.first.failure);
+        assertTrue(second.failure instanceof ConnectionFailureException);
+        assertSame(connectionFailure, second.failure.getCause());
+        assertEquals(1, this.deviceReads.get());
+        assertEquals(1, this.coalescer.getSharedFailureCount());
+        assertEquals(0, this.coalescer.getReadCount());
+    }
+
+    @Test
+    public void testWaitingReadReadsDeviceWhenIdenticalReadFailsOtherwise() throws Exception {
+        this.startFirst(() -> {
+            throw new ProtocolAdapterException("read failed");
+        });
+        final ReadThread second = this.startWaiting(FILTER, () -> "second");
+
+        this.releaseFirst.countDown();
+        this.first.join();
+        second.join();
+
+        assertTrue(this.first.failure instanceof ProtocolAdapterException);
+        assertEquals("second", second.result);
+        assertEquals(2, this.deviceReads.get());
+        assertEquals(0, this.coalescer.getSharedFailureCount());
+    }
+
+    @Test
+    public void testReadAfterConnectionFailureReadsDevice() throws Exception {
+        try {
+            this.coalescer.read(DEVICE, REQUEST_TYPE, FILTER, this.counting(() -> {
+                throw new ConnectionFailureException("unreachable");
+            }));
+            fail("Expected ConnectionFailureException");
+        } catch (final ConnectionFailureException e) {
+            // expected
+        }
+
+        assertEquals("second", this.coalescer.read(DEVICE, REQUEST_TYPE, FILTER, this.counting(() -> "second")));
+        assertEquals(2, this.deviceReads.get());
+        assertEquals(0, this.coalescer.getSharedReadCount());
+    }
+
+    @Test
+    public void testReadsWithOtherFilterAreNotShared() throws Exception {
+        this.startFirst(() -> "first");
+        final ReadThread second = new ReadThread(Arrays.asList("PV", 2, Arrays.asList("TotW", 0)), () -> "second");
+        second.start();
+        second.join();
+
+        assertEquals("second", second.result);
+        assertEquals(2, this.deviceReads.get());
+        assertEquals(0, this.coalescer.getSharedReadCount());
+    }
+
+    /**
+     * Starts a read that reads the device once it is released.
+     */
+    private void startFirst(final Read<Object> read) throws InterruptedException {
+        this.first = new ReadThread(FILTER, () -> {
+            this.firstStarted.countDown();
+            try {
+                this.releaseFirst.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return read.read();
+        });
+        this.first.start();
+        assertTrue(this.firstStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Starts a read and returns once it waits for the first read.
+     */
+    private ReadThread startWaiting(final Object filter, final Read<Object> read) throws InterruptedException {
+        final ReadThread thread = new ReadThread(filter, read);
+        thread.start();
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING) {
+            if (System.currentTimeMillis() > deadline || !thread.isAlive()) {
+                fail("Read did not wait for the identical read");
+            }
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+
+    private Read<Object> counting(final Read<Object> read) {
+        return () -> {
+            this.deviceReads.incrementAndGet();
+            return read.read();
+        };
+    }
+
+    private class ReadThread extends Thread {
+
+        private final Object filter;
+        private final Read<Object> read;
+
+        private volatile Object result;
+        private volatile ProtocolAdapterException failure;
+
+        ReadThread(final Object filter, final Read<Object> read) {
+            this.filter = filter;
+            this.read = read;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.result = Iec61850ReadCoalescerTest.this.coalescer.read(DEVICE, REQUEST_TYPE, this.filter,
+                        Iec61850ReadCoalescerTest.this.counting(this.read));
+            } catch (final ProtocolAdapterException e) {
+                this.failure = e;
+            }
+        }
+    }
+}